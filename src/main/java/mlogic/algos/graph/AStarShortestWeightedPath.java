@@ -0,0 +1,293 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.exceptions.NoResultException;
+import mlogic.algos.struct.IndexedHeap;
+import mlogic.algos.struct.Stack;
+
+/**
+ * Determines shortest path in edge-weighted graphs using the A* algorithm.
+ * Nodes are settled in order of their distance from start node plus a
+ * {@link Heuristic} estimate of their distance to end node, so the search is
+ * drawn towards end node and settles far fewer nodes than Dijkstra's algorithm
+ * when the estimates are tight. With {@link Landmarks} as the heuristic this is
+ * the ALT algorithm. Distances are accumulated as doubles.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class AStarShortestWeightedPath {
+
+	/**
+	 * Graph to search
+	 */
+	private Graph graph;
+
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
+	/**
+	 * Estimates the distance from each node to end node
+	 */
+	private Heuristic heuristic;
+
+	/**
+	 * Start node of shortest path
+	 */
+	private Integer start;
+
+	/**
+	 * End node of shortest path
+	 */
+	private Integer end;
+
+	/**
+	 * Array storing the node before each node in shortest path
+	 */
+	private int[] nodeTo;
+
+	/**
+	 * Shortest distance found from start node to each node
+	 */
+	private double[] distanceTo;
+
+	/**
+	 * Distance from start node plus the estimated distance to end node, the
+	 * order in which nodes are settled
+	 */
+	private double[] priority;
+
+	/**
+	 * Estimated distance from each node to end node, NaN until first needed
+	 */
+	private double[] estimate;
+
+	/**
+	 * Array tracking all the nodes already settled
+	 */
+	private boolean[] marked;
+
+	/**
+	 * Number of nodes settled by the search
+	 */
+	private int settledNodeCount;
+
+	/**
+	 * Stack that pops out the shortest path nodes from start to end
+	 */
+	private Stack<Integer> shortestPathNodes;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param heuristic
+	 *            estimates the distance from a node to end node
+	 */
+	public AStarShortestWeightedPath(Graph graph, Integer start, Integer end, Heuristic heuristic) {
+		Graph.checkEmpty(graph);
+		this.graph = graph;
+		initialize(graph.nodeCount, start, end, heuristic);
+
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param heuristic
+	 *            estimates the distance from a node to end node
+	 */
+	public AStarShortestWeightedPath(CSRGraph graph, Integer start, Integer end, Heuristic heuristic) {
+		CSRGraph.checkEmpty(graph);
+		this.csrGraph = graph;
+		initialize(graph.nodeCount, start, end, heuristic);
+
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes
+	 */
+	public BigDecimal physicalDistance() {
+		return new BigDecimal(distanceTo[end]);
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes as a double
+	 */
+	public double doublePhysicalDistance() {
+		return distanceTo[end];
+	}
+
+	/**
+	 * @return an array with all the nodes on shortest path
+	 */
+	public Integer[] physicalPath() {
+		Integer[] ret = new Integer[shortestPathNodes.size()];
+		shortestPathNodes.toArray(ret);
+
+		return ret;
+	}
+
+	/**
+	 * @return number of nodes settled by the search
+	 */
+	public int settledNodeCount() {
+		return settledNodeCount;
+	}
+
+	/**
+	 * Validates the query, allocates the search arrays and runs the search
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param heuristic
+	 */
+	private void initialize(int nodeCount, Integer start, Integer end, Heuristic heuristic) {
+		checkValidNode(nodeCount, start);
+		checkValidNode(nodeCount, end);
+		if (heuristic == null)
+			throw new IllegalArgumentException("Heuristic cannot be null.");
+		if (heuristic instanceof Landmarks && ((Landmarks) heuristic).nodeCount() != nodeCount)
+			throw new IllegalArgumentException("Landmark tables were computed for a different graph.");
+		this.start = start;
+		this.end = end;
+		this.heuristic = heuristic;
+		nodeTo = new int[nodeCount];
+		distanceTo = new double[nodeCount];
+		priority = new double[nodeCount];
+		estimate = new double[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			nodeTo[v] = -1;
+			distanceTo[v] = Double.POSITIVE_INFINITY;
+			estimate[v] = Double.NaN;
+		}
+		distanceTo[start] = 0;
+		marked = new boolean[nodeCount];
+		shortestPathNodes = new Stack<Integer>();
+		if (start.intValue() == end.intValue())
+			shortestPathNodes.push(start);
+		else
+			compute();
+	}
+
+	/**
+	 * Executes the A* algorithm, settling nodes in order of priority until end
+	 * node is settled
+	 * 
+	 */
+	private void compute() {
+
+		IndexedHeap pq = new IndexedHeap(distanceTo.length) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(priority[u], priority[v]);
+			}
+		};
+		priority[start] = estimateOf(start);
+		pq.insert(start);
+		while (!pq.isEmpty()) {
+			int u = pq.deleteMin();
+			marked[u] = true;
+			settledNodeCount++;
+			if (u == end)
+				break;
+			if (csrGraph != null) {
+				for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++)
+					relax(pq, u, csrGraph.targets[arc], csrGraph.weights[arc]);
+			} else {
+				for (Edge e : graph.edges[u])
+					relax(pq, u, e.other(u), e.doubleWeight());
+			}
+
+		}
+
+		collectPath();
+
+	}
+
+	/**
+	 * Updates the distance to *v* if the path through *u* is shorter
+	 * 
+	 * @param pq
+	 *            nodes reached but not yet settled
+	 * @param u
+	 *            node being settled
+	 * @param v
+	 *            neighbor of *u*
+	 * @param weight
+	 *            weight of the edge between *u* and *v*
+	 */
+	private void relax(IndexedHeap pq, int u, int v, double weight) {
+		if (weight < 0)
+			throw new NegativeEdgeWeightException("A* algorithm cannot be applied to a graph with negative edges.");
+		if (marked[v])
+			return;
+		double newDistance = distanceTo[u] + weight;
+		if (newDistance >= distanceTo[v])
+			return;
+		distanceTo[v] = newDistance;
+		nodeTo[v] = u;
+		priority[v] = newDistance + estimateOf(v);
+		if (pq.contains(v))
+			pq.decreaseKey(v);
+		else
+			pq.insert(v);
+	}
+
+	/**
+	 * @param v
+	 * @return estimated distance from *v* to end node, computed once per node
+	 */
+	private double estimateOf(int v) {
+		if (Double.isNaN(estimate[v]))
+			estimate[v] = heuristic.estimate(v, end);
+		return estimate[v];
+	}
+
+	/**
+	 * Walks back from end node to start node and stacks the shortest path
+	 * nodes
+	 */
+	private void collectPath() {
+		if (nodeTo[end] == -1)
+			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
+
+		for (int node = end; node != -1; node = nodeTo[node]) {
+			shortestPathNodes.push(node);
+		}
+	}
+
+	/**
+	 * Checks if node exists on graph
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @param node
+	 */
+	private void checkValidNode(int nodeCount, Integer node) {
+		if (node >= nodeCount || node < 0)
+			throw new IllegalArgumentException(node + "is not a valid node index in the graph.");
+	}
+
+}
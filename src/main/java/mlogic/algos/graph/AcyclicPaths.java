@@ -0,0 +1,238 @@
+package mlogic.algos.graph;
+
+import mlogic.algos.exceptions.CyclicGraphException;
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * Computes shortest or longest paths in a directed acyclic graph by relaxing
+ * the arcs of each node in topological order. A node's distance is final once
+ * the nodes before it in the order are done, so each arc is relaxed once and
+ * the search runs in O(V + E) time without a heap. Negative weights are
+ * allowed, and longest paths are found the same way with the comparison
+ * reversed. Taking paths from every node at once gives the critical path of a
+ * schedule whose stages are the nodes and whose arcs carry the stage
+ * durations.
+ * <p>
+ * The order is found with the sequential form of {@link KahnsTopologicalSort}
+ * over the CSR arrays, so deep graphs cannot overflow the call stack.
+ * Distances are accumulated as doubles.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class AcyclicPaths {
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * True for longest paths
+	 */
+	private boolean longest;
+
+	/**
+	 * Start node, -1 if paths start at every node
+	 */
+	private int start;
+
+	/**
+	 * Nodes in topological order
+	 */
+	private int[] order;
+
+	/**
+	 * Distance of each node
+	 */
+	private double[] distanceTo;
+
+	/**
+	 * Node before each node on its path, -1 where paths start
+	 */
+	private int[] nodeTo;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            directed acyclic graph to search
+	 * @param start
+	 *            start node
+	 * @param longest
+	 *            true for longest paths, false for shortest paths
+	 */
+	public AcyclicPaths(DirectedGraph graph, Integer start, boolean longest) {
+		this(new CSRGraph(graph), start, longest);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            directed acyclic graph to search
+	 * @param start
+	 *            start node
+	 * @param longest
+	 *            true for longest paths, false for shortest paths
+	 */
+	public AcyclicPaths(CSRGraph graph, Integer start, boolean longest) {
+		checkDirected(graph);
+		if (start < 0 || start >= graph.nodeCount)
+			throw new IllegalArgumentException(start + " out of range.");
+		this.graph = graph;
+		this.start = start;
+		this.longest = longest;
+		compute();
+
+	}
+
+	/**
+	 * Constructor for paths starting at any node, where every node is at
+	 * distance 0 before the arcs are relaxed
+	 * 
+	 * @param graph
+	 *            directed acyclic graph to search
+	 * @param longest
+	 *            true for longest paths, false for shortest paths
+	 */
+	public AcyclicPaths(DirectedGraph graph, boolean longest) {
+		this(new CSRGraph(graph), longest);
+	}
+
+	/**
+	 * Constructor for paths starting at any node, where every node is at
+	 * distance 0 before the arcs are relaxed
+	 * 
+	 * @param graph
+	 *            directed acyclic graph to search
+	 * @param longest
+	 *            true for longest paths, false for shortest paths
+	 */
+	public AcyclicPaths(CSRGraph graph, boolean longest) {
+		checkDirected(graph);
+		this.graph = graph;
+		this.start = -1;
+		this.longest = longest;
+		compute();
+
+	}
+
+	/**
+	 * @return distance to each node, Double.POSITIVE_INFINITY for nodes not
+	 *         reachable on shortest paths and Double.NEGATIVE_INFINITY on
+	 *         longest paths
+	 */
+	public double[] distanceTo() {
+		return distanceTo;
+	}
+
+	/**
+	 * @return node before each node on its path, -1 where paths start and for
+	 *         nodes not reachable
+	 */
+	public int[] nodeTo() {
+		return nodeTo;
+	}
+
+	/**
+	 * @return nodes in the topological order the arcs were relaxed in
+	 */
+	public int[] topologicalOrder() {
+		return order;
+	}
+
+	/**
+	 * @param node
+	 * @return nodes on the path to *node*, starting with its first node
+	 */
+	public int[] pathTo(int node) {
+		if (node < 0 || node >= graph.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		if (Double.isInfinite(distanceTo[node]))
+			throw new NoResultException(start == -1 ? "No path to " + node + " from any source found in the graph."
+					: "No path from " + start + " to " + node + " found in the graph.");
+		int length = 1;
+		for (int v = node; nodeTo[v] != -1; v = nodeTo[v])
+			length++;
+		int[] path = new int[length];
+		for (int v = node; v != -1; v = nodeTo[v])
+			path[--length] = v;
+		return path;
+	}
+
+	/**
+	 * @return node at the greatest distance on longest paths, or the least on
+	 *         shortest paths
+	 */
+	public int farthestNode() {
+		int best = -1;
+		for (int v = 0; v < graph.nodeCount; v++) {
+			if (Double.isInfinite(distanceTo[v]))
+				continue;
+			if (best == -1 || (longest ? distanceTo[v] > distanceTo[best] : distanceTo[v] < distanceTo[best]))
+				best = v;
+		}
+		return best;
+	}
+
+	/**
+	 * @return path to {@link #farthestNode()}, the critical path of a schedule
+	 *         when longest paths start at every node
+	 */
+	public int[] criticalPath() {
+		return pathTo(farthestNode());
+	}
+
+	/**
+	 * Sorts the nodes and relaxes the arcs of each reached node in order
+	 */
+	private void compute() {
+		int nodeCount = graph.nodeCount;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		double[] weights = graph.weights;
+		order = sort();
+		distanceTo = new double[nodeCount];
+		nodeTo = new int[nodeCount];
+		double unreached = longest ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		for (int v = 0; v < nodeCount; v++) {
+			distanceTo[v] = start == -1 ? 0 : unreached;
+			nodeTo[v] = -1;
+		}
+		if (start != -1)
+			distanceTo[start] = 0;
+
+		for (int i = 0; i < nodeCount; i++) {
+			int u = order[i];
+			double distance = distanceTo[u];
+			if (distance == unreached)
+				continue;
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int v = targets[arc];
+				double newDistance = distance + weights[arc];
+				if (longest ? newDistance > distanceTo[v] : newDistance < distanceTo[v]) {
+					distanceTo[v] = newDistance;
+					nodeTo[v] = u;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return nodes in topological order
+	 */
+	private int[] sort() {
+		int[] order = KahnsTopologicalSort.sequentialOrder(graph);
+		if (order.length < graph.nodeCount)
+			throw new CyclicGraphException("Graph has a cycle. Acyclic paths cannot be computed.");
+		return order;
+	}
+
+	private static void checkDirected(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (!graph.directed)
+			throw new IllegalArgumentException("Acyclic paths require a directed graph.");
+	}
+
+}
@@ -0,0 +1,469 @@
+package mlogic.algos.graph;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+
+import mlogic.algos.struct.IndexedHeap;
+
+/**
+ * Computes the shortest distance between every pair of nodes of an
+ * edge-weighted graph on a fork-join pool, into a V x V matrix stored row by
+ * row in a flat buffer. The buffer is a double[] by default, or any
+ * DoubleBuffer of the caller, such as a memory-mapped file from
+ * {@link #mapMatrix(FileChannel, int)}.
+ * <p>
+ * Johnson's method suits sparse graphs. A Bellman-Ford search from a virtual
+ * node joined to every node gives each node a potential h, and weights
+ * reweighted to w + h(u) - h(v) are never negative, so a Dijkstra search from
+ * each node finds its row. The searches are independent and run in parallel.
+ * <p>
+ * The Floyd-Warshall method suits dense graphs. The matrix is cut into square
+ * tiles small enough for the processor cache, and the intermediate nodes are
+ * taken one tile at a time: the diagonal tile first, then the tiles of its
+ * row and column in parallel, then every other tile in parallel. Each step
+ * works on copies of the tiles it needs, which keeps the inner loop on
+ * contiguous arrays whatever the buffer is.
+ * <p>
+ * Distances of pairs without a path are Double.POSITIVE_INFINITY. Graphs with
+ * a negative cycle are rejected.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class AllPairsShortestPaths {
+
+	/**
+	 * Way the distances are computed
+	 */
+	public enum Method {
+		JOHNSON, FLOYD_WARSHALL
+	}
+
+	/**
+	 * Side of a Floyd-Warshall tile, 32KB of doubles
+	 */
+	private static final int TILE = 64;
+
+	/**
+	 * Start nodes searched by a single fork-join task under Johnson's method
+	 */
+	private static final int SOURCES_PER_TASK = 8;
+
+	/**
+	 * Runs Dijkstra's algorithm from a range of start nodes over the
+	 * reweighted arcs
+	 */
+	private class Dijkstra extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Dijkstra(int from, int to) {
+			super(from, to, SOURCES_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Dijkstra(from, to);
+		}
+
+		@Override
+		protected void run() {
+			int nodeCount = graph.nodeCount;
+			final double[] distance = new double[nodeCount];
+			boolean[] done = new boolean[nodeCount];
+			IndexedHeap pq = new IndexedHeap(nodeCount) {
+				@Override
+				protected int compare(int u, int v) {
+					return Double.compare(distance[u], distance[v]);
+				}
+			};
+			DoubleBuffer row = matrix.duplicate();
+			for (int s = from; s < to; s++) {
+				for (int v = 0; v < nodeCount; v++) {
+					distance[v] = Double.POSITIVE_INFINITY;
+					done[v] = false;
+				}
+				distance[s] = 0;
+				pq.insert(s);
+				while (!pq.isEmpty()) {
+					int u = pq.deleteMin();
+					done[u] = true;
+					for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+						int v = graph.targets[arc];
+						if (done[v])
+							continue;
+						double newDistance = distance[u] + reweighted[arc];
+						if (newDistance < distance[v]) {
+							distance[v] = newDistance;
+							if (pq.contains(v))
+								pq.decreaseKey(v);
+							else
+								pq.insert(v);
+						}
+					}
+				}
+				// Undo the reweighting
+				for (int v = 0; v < nodeCount; v++)
+					if (distance[v] != Double.POSITIVE_INFINITY)
+						distance[v] += potential[v] - potential[s];
+				row.position(s * nodeCount);
+				row.put(distance);
+			}
+		}
+
+	}
+
+	/**
+	 * Updates a tile row or column of one Floyd-Warshall step
+	 */
+	private class TileStep extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * True for the row and column of the diagonal tile, false for the
+		 * other tiles
+		 */
+		private boolean cross;
+
+		private TileStep(boolean cross, int from, int to) {
+			super(from, to, 1);
+			this.cross = cross;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new TileStep(cross, from, to);
+		}
+
+		@Override
+		protected void run() {
+			DoubleBuffer buffer = matrix.duplicate();
+			int t = from;
+			if (t == pivot)
+				return;
+			if (cross) {
+				// Tile t of the pivot row, then tile t of the pivot column
+				double[] tile = pivotRow[t];
+				load(buffer, pivot, t, tile);
+				relaxTile(tile, pivotTile, tile, size(pivot), size(pivot), size(t));
+				store(buffer, pivot, t, tile);
+				tile = pivotColumn[t];
+				load(buffer, t, pivot, tile);
+				relaxTile(tile, tile, pivotTile, size(t), size(pivot), size(pivot));
+				store(buffer, t, pivot, tile);
+			} else {
+				// Tile row t, through the pivot column tile of that row
+				double[] tile = new double[TILE * TILE];
+				for (int j = 0; j < tileCount; j++) {
+					if (j == pivot)
+						continue;
+					load(buffer, t, j, tile);
+					relaxTile(tile, pivotColumn[t], pivotRow[j], size(t), size(pivot), size(j));
+					store(buffer, t, j, tile);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Distance matrix, row by row
+	 */
+	private DoubleBuffer matrix;
+
+	/**
+	 * Array behind the matrix, null if the caller provided the buffer
+	 */
+	private double[] array;
+
+	/**
+	 * Johnson potential of each node
+	 */
+	private double[] potential;
+
+	/**
+	 * Reweighted weight of each arc
+	 */
+	private double[] reweighted;
+
+	/**
+	 * Number of tiles along each side of the matrix
+	 */
+	private int tileCount;
+
+	/**
+	 * Tile index of the intermediate nodes of the current Floyd-Warshall step
+	 */
+	private int pivot;
+
+	/**
+	 * Diagonal tile of the current step
+	 */
+	private double[] pivotTile;
+
+	/**
+	 * Tiles of the pivot row and column, updated by the cross phase of the
+	 * current step
+	 */
+	private double[][] pivotRow;
+	private double[][] pivotColumn;
+
+	/**
+	 * Constructor, computing the distances into a new double[]
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param method
+	 *            way the distances are computed
+	 * @param pool
+	 *            fork-join pool to run on
+	 */
+	public AllPairsShortestPaths(CSRGraph graph, Method method, ForkJoinPool pool) {
+		this(graph, method, pool, null);
+	}
+
+	/**
+	 * Constructor, computing the distances into a buffer of the caller
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param method
+	 *            way the distances are computed
+	 * @param pool
+	 *            fork-join pool to run on
+	 * @param matrix
+	 *            buffer receiving the V x V distances row by row from its
+	 *            index 0, or null to allocate a double[]
+	 */
+	public AllPairsShortestPaths(CSRGraph graph, Method method, ForkJoinPool pool, DoubleBuffer matrix) {
+		CSRGraph.checkEmpty(graph);
+		if (method == null)
+			throw new IllegalArgumentException("Method cannot be null.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		long cells = (long) graph.nodeCount * graph.nodeCount;
+		if (cells > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Distance matrix is too large for a buffer.");
+		if (matrix == null) {
+			array = new double[(int) cells];
+			matrix = DoubleBuffer.wrap(array);
+		} else if (matrix.capacity() < cells || matrix.isReadOnly())
+			throw new IllegalArgumentException("Distance matrix must be a writable buffer of V x V doubles.");
+		this.graph = graph;
+		this.matrix = matrix.duplicate();
+		this.matrix.clear();
+		if (method == Method.JOHNSON)
+			computeJohnson(pool);
+		else
+			computeFloydWarshall(pool);
+		reweighted = null;
+		pivotTile = null;
+		pivotRow = null;
+		pivotColumn = null;
+
+	}
+
+	/**
+	 * Maps a file as a distance matrix, growing the file as needed
+	 * 
+	 * @param channel
+	 *            channel of a file opened for reading and writing
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @return buffer of V x V doubles backed by the file
+	 * @throws IOException
+	 */
+	public static DoubleBuffer mapMatrix(FileChannel channel, int nodeCount) throws IOException {
+		long bytes = 8L * nodeCount * nodeCount;
+		if (nodeCount <= 0 || bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Distance matrix is too large to map.");
+		return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).asDoubleBuffer();
+	}
+
+	/**
+	 * @param u
+	 * @param v
+	 * @return shortest distance from *u* to *v*
+	 */
+	public double distance(int u, int v) {
+		checkValidNode(u);
+		checkValidNode(v);
+		return matrix.get(u * graph.nodeCount + v);
+	}
+
+	/**
+	 * @return distance matrix row by row, null if the caller provided the
+	 *         buffer
+	 */
+	public double[] matrix() {
+		return array;
+	}
+
+	/**
+	 * @return buffer holding the distance matrix row by row
+	 */
+	public DoubleBuffer buffer() {
+		return matrix.duplicate();
+	}
+
+	/**
+	 * Finds the potentials, reweights the arcs and runs the searches
+	 */
+	private void computeJohnson(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		int arcCount = graph.offsets[nodeCount];
+		potential = new double[nodeCount];
+		boolean negative = false;
+		for (int arc = 0; arc < arcCount; arc++)
+			negative |= graph.weights[arc] < 0;
+		if (negative) {
+			// Arcs of the graph, then an arc of weight 0 from a virtual node
+			// to every node
+			int[] from = new int[arcCount + nodeCount];
+			int[] to = new int[arcCount + nodeCount];
+			double[] weights = new double[arcCount + nodeCount];
+			for (int u = 0; u < nodeCount; u++) {
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					from[arc] = u;
+					to[arc] = graph.targets[arc];
+					weights[arc] = graph.weights[arc];
+				}
+				from[arcCount + u] = nodeCount;
+				to[arcCount + u] = u;
+			}
+			BellmanFord search = new BellmanFord(new CSRGraph(nodeCount + 1, from, to, weights, true), nodeCount);
+			if (search.hasNegativeCycle())
+				throw negativeCycle();
+			System.arraycopy(search.distanceTo(), 0, potential, 0, nodeCount);
+		}
+
+		reweighted = new double[arcCount];
+		for (int u = 0; u < nodeCount; u++) {
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				// Rounding can leave reweighted arcs a little below 0
+				double weight = graph.weights[arc] + potential[u] - potential[graph.targets[arc]];
+				reweighted[arc] = Math.max(0, weight);
+			}
+		}
+		pool.invoke(new Dijkstra(0, nodeCount));
+	}
+
+	/**
+	 * Fills the matrix with the arcs, then runs one step per tile of
+	 * intermediate nodes
+	 */
+	private void computeFloydWarshall(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		double[] row = new double[nodeCount];
+		DoubleBuffer buffer = matrix.duplicate();
+		for (int u = 0; u < nodeCount; u++) {
+			for (int v = 0; v < nodeCount; v++)
+				row[v] = Double.POSITIVE_INFINITY;
+			row[u] = 0;
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++)
+				row[graph.targets[arc]] = Math.min(row[graph.targets[arc]], graph.weights[arc]);
+			buffer.position(u * nodeCount);
+			buffer.put(row);
+		}
+
+		tileCount = (nodeCount + TILE - 1) / TILE;
+		pivotTile = new double[TILE * TILE];
+		pivotRow = new double[tileCount][TILE * TILE];
+		pivotColumn = new double[tileCount][TILE * TILE];
+		for (pivot = 0; pivot < tileCount; pivot++) {
+			load(buffer, pivot, pivot, pivotTile);
+			relaxTile(pivotTile, pivotTile, pivotTile, size(pivot), size(pivot), size(pivot));
+			store(buffer, pivot, pivot, pivotTile);
+			pool.invoke(new TileStep(true, 0, tileCount));
+			pool.invoke(new TileStep(false, 0, tileCount));
+		}
+
+		for (int v = 0; v < nodeCount; v++)
+			if (matrix.get(v * nodeCount + v) < 0)
+				throw negativeCycle();
+	}
+
+	/**
+	 * Lowers each entry (i, j) of tile c to c(i, j) = min(c(i, j), a(i, k) +
+	 * b(k, j)), taking k in increasing order, so tiles holding the
+	 * intermediate nodes may be the tile updated
+	 * 
+	 * @param c
+	 *            tile updated
+	 * @param a
+	 *            tile from the rows of c to the intermediate nodes
+	 * @param b
+	 *            tile from the intermediate nodes to the columns of c
+	 * @param rows
+	 *            rows in use in c
+	 * @param middle
+	 *            intermediate nodes in use
+	 * @param columns
+	 *            columns in use in c
+	 */
+	private static void relaxTile(double[] c, double[] a, double[] b, int rows, int middle, int columns) {
+		for (int k = 0; k < middle; k++) {
+			int kRow = k * TILE;
+			for (int i = 0; i < rows; i++) {
+				double ik = a[i * TILE + k];
+				if (ik == Double.POSITIVE_INFINITY)
+					continue;
+				int iRow = i * TILE;
+				for (int j = 0; j < columns; j++) {
+					double through = ik + b[kRow + j];
+					if (through < c[iRow + j])
+						c[iRow + j] = through;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies a tile of the matrix into an array, TILE entries per row
+	 */
+	private void load(DoubleBuffer buffer, int tileRow, int tileColumn, double[] tile) {
+		int nodeCount = graph.nodeCount;
+		int columns = size(tileColumn);
+		for (int i = 0; i < size(tileRow); i++) {
+			buffer.position((tileRow * TILE + i) * nodeCount + tileColumn * TILE);
+			buffer.get(tile, i * TILE, columns);
+		}
+	}
+
+	/**
+	 * Copies a tile back into the matrix
+	 */
+	private void store(DoubleBuffer buffer, int tileRow, int tileColumn, double[] tile) {
+		int nodeCount = graph.nodeCount;
+		int columns = size(tileColumn);
+		for (int i = 0; i < size(tileRow); i++) {
+			buffer.position((tileRow * TILE + i) * nodeCount + tileColumn * TILE);
+			buffer.put(tile, i * TILE, columns);
+		}
+	}
+
+	/**
+	 * @return nodes in a tile row or column, less than TILE for the last one
+	 */
+	private int size(int tile) {
+		return Math.min(TILE, graph.nodeCount - tile * TILE);
+	}
+
+	private void checkValidNode(int node) {
+		if (node < 0 || node >= graph.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+	}
+
+	private static IllegalArgumentException negativeCycle() {
+		return new IllegalArgumentException("Shortest paths are unbounded due to a negative cycle.");
+	}
+
+}
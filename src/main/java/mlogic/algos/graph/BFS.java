@@ -105,6 +105,53 @@ public class BFS {
 
 	}
 
+	/**
+	 * Executes breadth first search on a CSR graph starting with specified
+	 * start node. Arcs are passed to the hooks by their index in the CSR
+	 * arrays, so the walk does not allocate an Edge per arc.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 */
+	public void execute(CSRGraph graph, Integer start) {
+		if (graph == null || graph.nodeCount == 0)
+			throw new IllegalArgumentException("No point searching an empty graph");
+
+		this.state = new int[graph.nodeCount];
+		this.level = new int[graph.nodeCount];
+		this.level[start] = 0;
+
+		// Every node is enqueued at most once, so a flat array serves as the
+		// queue
+		int[] queue = new int[graph.nodeCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		this.state[start] = ENQUEUED;
+		while (head < tail && !stopWalking) {
+			int u = queue[head++];
+			before(u);
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				int v = graph.targets[arc];
+				processEdge(u, arc);
+				if (this.state[v] == UNVISITED) {
+					this.state[v] = ENQUEUED;
+					processTreeEdge(u, arc);
+					this.level[v] = this.level[u] + 1;
+					queue[tail++] = v;
+				} else {
+					processBackwardEdge(u, arc);
+				}
+			}
+			after(u);
+			this.state[u] = PROCESSED;
+
+		}
+
+	}
+
 	/**
 	 * Process a node before processing its edges
 	 * 
@@ -178,6 +225,42 @@ public class BFS {
 
 	}
 
+	/**
+	 * Process an arc of a CSR graph in the direction pointing away from the
+	 * source node
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to an unvisited node
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processTreeEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to a node already in the BFS tree
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processBackwardEdge(int source, int arc) {
+
+	}
+
 	/**
 	 * Activates kill switch
 	 */
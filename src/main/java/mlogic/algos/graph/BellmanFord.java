@@ -0,0 +1,429 @@
+package mlogic.algos.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * Computes shortest paths from a start node in a graph that may have negative
+ * edge weights, using the Bellman-Ford algorithm. Only nodes whose distance
+ * dropped have their arcs relaxed again: the sequential search keeps them in
+ * a first-in first-out queue (SPFA), and the parallel search relaxes all of
+ * them in rounds on a fork-join pool. Either way the search stops as soon as
+ * no distance drops.
+ * <p>
+ * A negative cycle reachable from the start node would make distances drop
+ * forever. Any cycle formed by the parent pointers is negative, and once a
+ * negative cycle is reachable the parent pointers keep forming one after a
+ * finite number of relaxations. The parent pointers are therefore walked each
+ * time V more distances have dropped, which costs O(V) per V relaxations, and
+ * the search stops with the cycle as soon as one is found. An undirected edge
+ * of negative weight forms a negative cycle on its own.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class BellmanFord {
+
+	/**
+	 * Frontier nodes relaxed by a single fork-join task
+	 */
+	private static final int NODES_PER_TASK = 1024;
+
+	/**
+	 * Relaxes the arcs leaving a chunk of the frontier
+	 */
+	private class Round extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Round(int from, int to) {
+			super(from, to, 1);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Round(from, to);
+		}
+
+		@Override
+		protected void run() {
+			int[] reached = new int[16];
+			int count = 0;
+			int relaxed = 0;
+			int last = Math.min(frontierSize, (from + 1) * NODES_PER_TASK);
+			for (int i = from * NODES_PER_TASK; i < last; i++) {
+				int u = frontier[i];
+				double d = Double.longBitsToDouble(distance.get(u));
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					int v = graph.targets[arc];
+					if (!relax(u, v, d + graph.weights[arc]))
+						continue;
+					relaxed++;
+					// Add v to the next frontier once
+					if (queuedRound.getAndSet(v, round) == round)
+						continue;
+					if (count == reached.length) {
+						int[] grown = new int[count * 2];
+						System.arraycopy(reached, 0, grown, 0, count);
+						reached = grown;
+					}
+					reached[count++] = v;
+				}
+			}
+			reachedNodes[from] = reached;
+			reachedCount[from] = count;
+			relaxedCount[from] = relaxed;
+		}
+
+	}
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Start node
+	 */
+	private int start;
+
+	/**
+	 * Shortest distance from start node to each node
+	 */
+	private double[] distanceTo;
+
+	/**
+	 * Node before each node in its shortest path
+	 */
+	private int[] nodeTo;
+
+	/**
+	 * Nodes of the negative cycle found, null if there is none
+	 */
+	private int[] negativeCycle;
+
+	/**
+	 * Tentative distance of each node during the parallel search, as the bits
+	 * of a double
+	 */
+	private AtomicLongArray distance;
+
+	/**
+	 * Per-node spin locks pairing each distance update with its node update
+	 */
+	private AtomicIntegerArray locks;
+
+	/**
+	 * Last round each node was added to the frontier in
+	 */
+	private AtomicIntegerArray queuedRound;
+
+	/**
+	 * Round being relaxed
+	 */
+	private int round;
+
+	/**
+	 * Nodes relaxed by the current round
+	 */
+	private int[] frontier;
+
+	/**
+	 * Number of nodes relaxed by the current round
+	 */
+	private int frontierSize;
+
+	/**
+	 * Nodes whose distance dropped, per chunk of the current round
+	 */
+	private int[][] reachedNodes;
+
+	/**
+	 * Number of nodes whose distance dropped, per chunk of the current round
+	 */
+	private int[] reachedCount;
+
+	/**
+	 * Number of distance drops, per chunk of the current round
+	 */
+	private int[] relaxedCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 */
+	public BellmanFord(Graph graph, Integer start) {
+		this(new CSRGraph(graph), start);
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 */
+	public BellmanFord(CSRGraph graph, Integer start) {
+		initialize(graph, start);
+		computeSequential();
+
+	}
+
+	/**
+	 * Constructor for a parallel search
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param pool
+	 *            fork-join pool to run the rounds on
+	 */
+	public BellmanFord(CSRGraph graph, Integer start, ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		initialize(graph, start);
+		computeParallel(pool);
+
+	}
+
+	/**
+	 * @return true if a negative cycle is reachable from start node
+	 */
+	public boolean hasNegativeCycle() {
+		return negativeCycle != null;
+	}
+
+	/**
+	 * @return nodes of a negative cycle reachable from start node, in the
+	 *         order of its arcs, the last node leading back to the first
+	 */
+	public int[] negativeCycle() {
+		if (negativeCycle == null)
+			throw new NoResultException("No negative cycle reachable from " + start + " found in the graph.");
+		return negativeCycle;
+	}
+
+	/**
+	 * @return shortest distance from start node to each node,
+	 *         Double.POSITIVE_INFINITY for nodes not reachable. Not meaningful
+	 *         when a negative cycle was found.
+	 */
+	public double[] distanceTo() {
+		return distanceTo;
+	}
+
+	/**
+	 * @return node before each node in its shortest path, -1 for start node
+	 *         and nodes not reachable
+	 */
+	public int[] nodeTo() {
+		return nodeTo;
+	}
+
+	/**
+	 * @param node
+	 * @return nodes on the shortest path from start node to *node*
+	 */
+	public int[] pathTo(int node) {
+		if (node < 0 || node >= graph.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		if (negativeCycle != null)
+			throw new NoResultException("Shortest paths from " + start + " are unbounded due to a negative cycle.");
+		if (distanceTo[node] == Double.POSITIVE_INFINITY)
+			throw new NoResultException("No path from " + start + " to " + node + " found in the graph.");
+		int length = 1;
+		for (int v = node; nodeTo[v] != -1; v = nodeTo[v])
+			length++;
+		int[] path = new int[length];
+		for (int v = node; v != -1; v = nodeTo[v])
+			path[--length] = v;
+		return path;
+	}
+
+	private void initialize(CSRGraph graph, Integer start) {
+		CSRGraph.checkEmpty(graph);
+		if (start < 0 || start >= graph.nodeCount)
+			throw new IllegalArgumentException(start + " out of range.");
+		this.graph = graph;
+		this.start = start;
+		int nodeCount = graph.nodeCount;
+		distanceTo = new double[nodeCount];
+		nodeTo = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			distanceTo[v] = Double.POSITIVE_INFINITY;
+			nodeTo[v] = -1;
+		}
+		distanceTo[start] = 0;
+	}
+
+	/**
+	 * Relaxes the arcs of queued nodes until the queue is empty or the parent
+	 * pointers form a cycle
+	 */
+	private void computeSequential() {
+		int nodeCount = graph.nodeCount;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		double[] weights = graph.weights;
+		// Circular queue, each node is queued at most once at a time
+		int[] queue = new int[nodeCount];
+		boolean[] queued = new boolean[nodeCount];
+		int head = 0;
+		int size = 1;
+		queue[0] = start;
+		queued[start] = true;
+		int relaxed = 0;
+		while (size > 0) {
+			int u = queue[head];
+			head = head + 1 == nodeCount ? 0 : head + 1;
+			size--;
+			queued[u] = false;
+			double d = distanceTo[u];
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int v = targets[arc];
+				double newDistance = d + weights[arc];
+				if (newDistance >= distanceTo[v])
+					continue;
+				distanceTo[v] = newDistance;
+				nodeTo[v] = u;
+				if (++relaxed == nodeCount) {
+					relaxed = 0;
+					negativeCycle = findParentCycle();
+					if (negativeCycle != null)
+						return;
+				}
+				if (!queued[v]) {
+					queued[v] = true;
+					int tail = head + size;
+					queue[tail >= nodeCount ? tail - nodeCount : tail] = v;
+					size++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Relaxes the arcs of the nodes whose distance dropped in the last round
+	 * until none drops or the parent pointers form a cycle
+	 * 
+	 * @param pool
+	 */
+	private void computeParallel(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		distance = new AtomicLongArray(nodeCount);
+		locks = new AtomicIntegerArray(nodeCount);
+		queuedRound = new AtomicIntegerArray(nodeCount);
+		for (int v = 0; v < nodeCount; v++) {
+			distance.set(v, Double.doubleToLongBits(distanceTo[v]));
+			queuedRound.set(v, -1);
+		}
+		frontier = new int[] { start };
+		frontierSize = 1;
+		long relaxed = 0;
+		for (round = 0; frontierSize > 0; round++) {
+			int chunks = (frontierSize + NODES_PER_TASK - 1) / NODES_PER_TASK;
+			reachedNodes = new int[chunks][];
+			reachedCount = new int[chunks];
+			relaxedCount = new int[chunks];
+			pool.invoke(new Round(0, chunks));
+
+			int nextSize = 0;
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				nextSize += reachedCount[chunk];
+				relaxed += relaxedCount[chunk];
+			}
+			if (nextSize > frontier.length)
+				frontier = new int[Math.max(nextSize, Math.min(nodeCount, 2 * frontier.length))];
+			frontierSize = 0;
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				System.arraycopy(reachedNodes[chunk], 0, frontier, frontierSize, reachedCount[chunk]);
+				frontierSize += reachedCount[chunk];
+			}
+			if (relaxed >= nodeCount) {
+				relaxed = 0;
+				negativeCycle = findParentCycle();
+				if (negativeCycle != null)
+					break;
+			}
+		}
+
+		for (int v = 0; v < nodeCount; v++)
+			distanceTo[v] = Double.longBitsToDouble(distance.get(v));
+		distance = null;
+		locks = null;
+		queuedRound = null;
+		frontier = null;
+		reachedNodes = null;
+	}
+
+	/**
+	 * Lowers the distance to *v* if the path through *u* is shorter. The
+	 * distance is checked without the lock first, so most failed relaxations
+	 * do not contend.
+	 * 
+	 * @param u
+	 *            node being relaxed
+	 * @param v
+	 *            neighbor of *u*
+	 * @param newDistance
+	 *            distance to *v* through *u*
+	 * @return true if the distance to *v* was reduced
+	 */
+	private boolean relax(int u, int v, double newDistance) {
+		if (newDistance >= Double.longBitsToDouble(distance.get(v)))
+			return false;
+		while (!locks.compareAndSet(v, 0, 1))
+			Thread.yield();
+		boolean reduced = newDistance < Double.longBitsToDouble(distance.get(v));
+		if (reduced) {
+			distance.set(v, Double.doubleToLongBits(newDistance));
+			nodeTo[v] = u;
+		}
+		locks.set(v, 0);
+		return reduced;
+	}
+
+	/**
+	 * Walks up the parent pointers from every node, marking the nodes passed
+	 * with the node the walk started from. A walk reaching a node it marked
+	 * itself has gone around a cycle.
+	 * 
+	 * @return nodes of the cycle in the order of its arcs, null if there is
+	 *         none
+	 */
+	private int[] findParentCycle() {
+		int nodeCount = graph.nodeCount;
+		int[] walk = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++)
+			walk[v] = -1;
+		for (int v = 0; v < nodeCount; v++) {
+			int w = v;
+			while (w != -1 && walk[w] == -1) {
+				walk[w] = v;
+				w = nodeTo[w];
+			}
+			if (w == -1 || walk[w] != v)
+				continue;
+
+			int length = 1;
+			for (int x = nodeTo[w]; x != w; x = nodeTo[x])
+				length++;
+			int[] cycle = new int[length];
+			// Parent pointers run against the arcs
+			for (int x = w; length > 0; x = nodeTo[x])
+				cycle[--length] = x;
+			return cycle;
+		}
+		return null;
+	}
+
+}
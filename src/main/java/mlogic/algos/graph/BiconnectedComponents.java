@@ -0,0 +1,328 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+
+/**
+ * Finds the articulation points, bridges and biconnected components (blocks)
+ * of an undirected graph in a single depth first search, after Hopcroft and
+ * Tarjan. Each node gets the time of its visit, and its low point is the
+ * earliest visit time reached from its subtree by a back edge. A child whose
+ * low point does not reach above its parent closes a block made of the
+ * parent, the child and everything visited under the child that is not yet in
+ * a block; if the low point does not even reach the parent, the tree edge is a
+ * bridge. The search keeps its own stacks of nodes, arcs and edges, so deep
+ * graphs cannot overflow the call stack, and it allocates only arrays sized by
+ * the graph up front. The tree edge is recognised by its edge id rather than
+ * its end point, so a parallel edge counts as a second path.
+ * <p>
+ * Every edge other than a self loop belongs to exactly one block, and a node
+ * without other edges forms a block on its own. Articulation points are the
+ * nodes shared by several blocks; joining each block to the articulation
+ * points it holds gives the block-cut tree, or a forest for a disconnected
+ * graph. Edges are numbered as in {@link CSRGraph}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class BiconnectedComponents {
+
+	/**
+	 * Graph processed
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * True for articulation points
+	 */
+	private boolean[] articulation;
+
+	/**
+	 * True for bridges, indexed by edge
+	 */
+	private boolean[] bridge;
+
+	/**
+	 * Block of each edge, -1 for self loops
+	 */
+	private int[] edgeBlock;
+
+	/**
+	 * Nodes of block b sit at positions blockOffsets[b] to blockOffsets[b + 1]
+	 * - 1 of *blockNodes*
+	 */
+	private int[] blockOffsets;
+	private int[] blockNodes;
+
+	/**
+	 * Number of blocks
+	 */
+	private int blockCount;
+
+	/**
+	 * Number of articulation points
+	 */
+	private int articulationCount;
+
+	/**
+	 * Number of bridges
+	 */
+	private int bridgeCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Undirected graph to process
+	 */
+	public BiconnectedComponents(UndirectedGraph graph) {
+		this(new CSRGraph(graph));
+	}
+
+	/**
+	 * Constructor for an undirected graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            Undirected graph to process
+	 */
+	public BiconnectedComponents(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (graph.directed)
+			throw new IllegalArgumentException("Biconnected components require an undirected graph.");
+		this.graph = graph;
+		search();
+
+	}
+
+	/**
+	 * @return number of blocks
+	 */
+	public int blockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * @param edge
+	 * @return block holding the edge, -1 for self loops
+	 */
+	public int blockOf(int edge) {
+		checkValidEdge(edge);
+		return edgeBlock[edge];
+	}
+
+	/**
+	 * @return block of each edge, -1 for self loops
+	 */
+	public int[] intEdgeBlockArray() {
+		return edgeBlock;
+	}
+
+	/**
+	 * @param block
+	 * @return nodes of the block, starting with the node the search entered
+	 *         it from
+	 */
+	public int[] blockNodes(int block) {
+		if (block < 0 || block >= blockCount)
+			throw new IllegalArgumentException(block + " out of range.");
+		// The node closing the block was stored last
+		int from = blockOffsets[block];
+		int to = blockOffsets[block + 1];
+		int[] nodes = new int[to - from];
+		nodes[0] = blockNodes[to - 1];
+		System.arraycopy(blockNodes, from, nodes, 1, to - from - 1);
+		return nodes;
+	}
+
+	/**
+	 * @param node
+	 * @return true if removing the node disconnects its component
+	 */
+	public boolean isArticulationPoint(int node) {
+		if (node < 0 || node >= graph.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		return articulation[node];
+	}
+
+	/**
+	 * @return articulation points in increasing order
+	 */
+	public int[] articulationPoints() {
+		int[] points = new int[articulationCount];
+		int k = 0;
+		for (int v = 0; v < graph.nodeCount; v++)
+			if (articulation[v])
+				points[k++] = v;
+		return points;
+	}
+
+	/**
+	 * @param edge
+	 * @return true if removing the edge disconnects its component
+	 */
+	public boolean isBridge(int edge) {
+		checkValidEdge(edge);
+		return bridge[edge];
+	}
+
+	/**
+	 * @return bridges in increasing order of edge id
+	 */
+	public int[] bridges() {
+		int[] bridges = new int[bridgeCount];
+		int k = 0;
+		for (int e = 0; e < graph.edgeCount; e++)
+			if (bridge[e])
+				bridges[k++] = e;
+		return bridges;
+	}
+
+	/**
+	 * Builds the block-cut tree. Nodes 0 to B - 1 stand for the blocks and
+	 * node B + i for the i-th node of {@link #articulationPoints()}, and each
+	 * block is joined to the articulation points it holds.
+	 * 
+	 * @return block-cut tree, a forest for disconnected graphs
+	 */
+	public CSRGraph blockCutTree() {
+		int[] cutIndex = new int[graph.nodeCount];
+		int k = blockCount;
+		for (int v = 0; v < graph.nodeCount; v++)
+			if (articulation[v])
+				cutIndex[v] = k++;
+
+		int edgeCount = 0;
+		for (int i = 0; i < blockOffsets[blockCount]; i++)
+			if (articulation[blockNodes[i]])
+				edgeCount++;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		int e = 0;
+		for (int b = 0; b < blockCount; b++) {
+			for (int i = blockOffsets[b]; i < blockOffsets[b + 1]; i++) {
+				if (articulation[blockNodes[i]]) {
+					from[e] = b;
+					to[e++] = cutIndex[blockNodes[i]];
+				}
+			}
+		}
+		return new CSRGraph(k, from, to, null, false);
+	}
+
+	/**
+	 * Depth first search from every node not yet visited. A block is stored
+	 * as the nodes popped from the node stack followed by the parent closing
+	 * it.
+	 */
+	private void search() {
+		int nodeCount = graph.nodeCount;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		int[] edgeIds = graph.edgeIds;
+		articulation = new boolean[nodeCount];
+		bridge = new boolean[graph.edgeCount];
+		edgeBlock = new int[graph.edgeCount];
+		Arrays.fill(edgeBlock, -1);
+		// Every node is popped once, and each block adds its closing node
+		blockOffsets = new int[nodeCount + 1];
+		blockNodes = new int[2 * nodeCount];
+
+		int[] visit = new int[nodeCount];
+		int[] low = new int[nodeCount];
+		int[] treeEdge = new int[nodeCount];
+		int[] callNode = new int[nodeCount];
+		int[] callArc = new int[nodeCount];
+		int[] nodeStack = new int[nodeCount];
+		int[] edgeStack = new int[graph.edgeCount];
+		int nodeTop = 0;
+		int edgeTop = 0;
+		int time = 0;
+		int stored = 0;
+
+		for (int root = 0; root < nodeCount; root++) {
+			if (visit[root] != 0)
+				continue;
+			visit[root] = low[root] = ++time;
+			treeEdge[root] = -1;
+			callNode[0] = root;
+			callArc[0] = offsets[root];
+			int depth = 1;
+			int rootChildren = 0;
+			boolean rootEdges = false;
+			while (depth > 0) {
+				int v = callNode[depth - 1];
+				int arc = callArc[depth - 1];
+				if (arc < offsets[v + 1]) {
+					callArc[depth - 1] = arc + 1;
+					int w = targets[arc];
+					int edge = edgeIds[arc];
+					if (w == v || edge == treeEdge[v])
+						continue;
+					if (v == root)
+						rootEdges = true;
+					if (visit[w] == 0) {
+						edgeStack[edgeTop++] = edge;
+						nodeStack[nodeTop++] = w;
+						visit[w] = low[w] = ++time;
+						treeEdge[w] = edge;
+						callNode[depth] = w;
+						callArc[depth++] = offsets[w];
+					} else if (visit[w] < visit[v]) {
+						// Back edge to an ancestor, seen from below first
+						edgeStack[edgeTop++] = edge;
+						if (visit[w] < low[v])
+							low[v] = visit[w];
+					}
+					continue;
+				}
+
+				// All arcs of v are done, return to its parent
+				depth--;
+				if (depth == 0)
+					break;
+				int u = callNode[depth - 1];
+				if (low[v] < low[u])
+					low[u] = low[v];
+				if (low[v] < visit[u])
+					continue;
+
+				// u separates v's subtree from the rest, close the block
+				if (low[v] > visit[u]) {
+					bridge[treeEdge[v]] = true;
+					bridgeCount++;
+				}
+				int edge;
+				do {
+					edge = edgeStack[--edgeTop];
+					edgeBlock[edge] = blockCount;
+				} while (edge != treeEdge[v]);
+				int w;
+				do {
+					w = nodeStack[--nodeTop];
+					blockNodes[stored++] = w;
+				} while (w != v);
+				blockNodes[stored++] = u;
+				blockOffsets[++blockCount] = stored;
+				if (u != root || ++rootChildren == 2) {
+					if (!articulation[u]) {
+						articulation[u] = true;
+						articulationCount++;
+					}
+				}
+			}
+
+			// A node without other edges is a block on its own
+			if (!rootEdges) {
+				blockNodes[stored++] = root;
+				blockOffsets[++blockCount] = stored;
+			}
+		}
+		blockOffsets = Arrays.copyOf(blockOffsets, blockCount + 1);
+		blockNodes = Arrays.copyOf(blockNodes, stored);
+	}
+
+	private void checkValidEdge(int edge) {
+		if (edge < 0 || edge >= graph.edgeCount)
+			throw new IllegalArgumentException(edge + " out of range.");
+	}
+
+}
@@ -0,0 +1,380 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.exceptions.NoResultException;
+import mlogic.algos.struct.IndexedHeap;
+import mlogic.algos.struct.Stack;
+
+/**
+ * Determines shortest path between two nodes of an edge-weighted graph using
+ * bidirectional Dijkstra. One search runs forward from the start node on the
+ * graph and another runs backward from the end node on the reverse graph,
+ * each step settling the nearer of the two frontier nodes. The search stops
+ * once the two frontier distances add up to at least the shortest path seen
+ * where the searches met, which typically settles about half the nodes a
+ * single search would. Distances are accumulated as doubles.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class BidirectionalShortestWeightedPath {
+
+	/**
+	 * One direction of the search
+	 */
+	private class Search {
+
+		/**
+		 * Graph searched in this direction, unless *csrGraph* is set
+		 */
+		private Graph graph;
+
+		/**
+		 * CSR graph searched in this direction
+		 */
+		private CSRGraph csrGraph;
+
+		/**
+		 * Shortest distance found from the origin of this search to each node
+		 */
+		private double[] distanceTo;
+
+		/**
+		 * Node before each node on the shortest path from the origin of this
+		 * search
+		 */
+		private int[] nodeTo;
+
+		/**
+		 * Nodes settled by this search
+		 */
+		private boolean[] marked;
+
+		/**
+		 * Nodes reached but not yet settled, ordered by distance
+		 */
+		private IndexedHeap pq;
+
+		/**
+		 * Search running in the opposite direction
+		 */
+		private Search other;
+
+		private Search(int nodeCount, int origin) {
+			distanceTo = new double[nodeCount];
+			nodeTo = new int[nodeCount];
+			for (int v = 0; v < nodeCount; v++) {
+				distanceTo[v] = Double.POSITIVE_INFINITY;
+				nodeTo[v] = -1;
+			}
+			distanceTo[origin] = 0;
+			marked = new boolean[nodeCount];
+			pq = new IndexedHeap(nodeCount) {
+				@Override
+				protected int compare(int u, int v) {
+					return Double.compare(distanceTo[u], distanceTo[v]);
+				}
+			};
+			pq.insert(origin);
+		}
+
+		/**
+		 * @return distance of the nearest unsettled node, infinity if none is
+		 *         left
+		 */
+		private double top() {
+			if (pq.isEmpty())
+				return Double.POSITIVE_INFINITY;
+			return distanceTo[pq.peek()];
+		}
+
+		/**
+		 * Settles the nearest unsettled node and relaxes its edges
+		 */
+		private void step() {
+			int u = pq.deleteMin();
+			marked[u] = true;
+			settledNodeCount++;
+			if (csrGraph != null) {
+				for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++)
+					relax(u, csrGraph.targets[arc], csrGraph.weights[arc]);
+			} else {
+				for (Edge e : graph.edges[u])
+					relax(u, e.other(u), e.doubleWeight());
+			}
+		}
+
+		/**
+		 * Updates the distance to *v* if the path through *u* is shorter, and
+		 * the shortest path found if the other search has reached *v*
+		 * 
+		 * @param u
+		 *            node being settled
+		 * @param v
+		 *            neighbor of *u*
+		 * @param weight
+		 *            weight of the edge between *u* and *v*
+		 */
+		private void relax(int u, int v, double weight) {
+			if (weight < 0)
+				throw new NegativeEdgeWeightException(
+						"Dijkstra's algorithm cannot be applied to a graph with negative edges.");
+			if (marked[v])
+				return;
+			double newDistance = distanceTo[u] + weight;
+			if (newDistance < distanceTo[v]) {
+				distanceTo[v] = newDistance;
+				nodeTo[v] = u;
+				if (pq.contains(v))
+					pq.decreaseKey(v);
+				else
+					pq.insert(v);
+			}
+			double through = distanceTo[v] + other.distanceTo[v];
+			if (through < shortestDistance) {
+				shortestDistance = through;
+				meetingNode = v;
+			}
+		}
+
+	}
+
+	/**
+	 * Start node of shortest path
+	 */
+	private Integer start;
+
+	/**
+	 * End node of shortest path
+	 */
+	private Integer end;
+
+	/**
+	 * Search from start node on the graph
+	 */
+	private Search forward;
+
+	/**
+	 * Search from end node on the reverse graph
+	 */
+	private Search backward;
+
+	/**
+	 * Length of the shortest path found so far
+	 */
+	private double shortestDistance = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Node on the shortest path found so far that both searches reached
+	 */
+	private int meetingNode = -1;
+
+	/**
+	 * Number of nodes settled by both searches
+	 */
+	private int settledNodeCount;
+
+	/**
+	 * Stack that pops out the shortest path nodes from start to end
+	 */
+	private Stack<Integer> shortestPathNodes;
+
+	/**
+	 * Constructor. The reverse of a directed graph is built for the backward
+	 * search; callers running many queries on the same graph should build it
+	 * once and use {@link #BidirectionalShortestWeightedPath(Graph, Graph,
+	 * Integer, Integer)}.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public BidirectionalShortestWeightedPath(Graph graph, Integer start, Integer end) {
+		this(graph, graph instanceof DirectedGraph ? ((DirectedGraph) graph).reverse() : graph, start, end);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param reverse
+	 *            graph with every edge of *graph* reversed, or *graph* itself
+	 *            if it is undirected
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public BidirectionalShortestWeightedPath(Graph graph, Graph reverse, Integer start, Integer end) {
+		Graph.checkEmpty(graph);
+		Graph.checkEmpty(reverse);
+		if (reverse.nodeCount != graph.nodeCount)
+			throw new IllegalArgumentException("Reverse graph must have the same nodes as the graph.");
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
+		this.start = start;
+		this.end = end;
+		initialize(graph.nodeCount);
+		forward.graph = graph;
+		backward.graph = reverse;
+		compute();
+
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public BidirectionalShortestWeightedPath(CSRGraph graph, Integer start, Integer end) {
+		this(graph, graph.reverse(), start, end);
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param reverse
+	 *            reverse of the graph, as returned by
+	 *            {@link CSRGraph#reverse()}
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public BidirectionalShortestWeightedPath(CSRGraph graph, CSRGraph reverse, Integer start, Integer end) {
+		CSRGraph.checkEmpty(graph);
+		CSRGraph.checkEmpty(reverse);
+		if (reverse.nodeCount != graph.nodeCount)
+			throw new IllegalArgumentException("Reverse graph must have the same nodes as the graph.");
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
+		this.start = start;
+		this.end = end;
+		initialize(graph.nodeCount);
+		forward.csrGraph = graph;
+		backward.csrGraph = reverse;
+		compute();
+
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes
+	 */
+	public BigDecimal physicalDistance() {
+		return new BigDecimal(shortestDistance);
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes as a double
+	 */
+	public double doublePhysicalDistance() {
+		return shortestDistance;
+	}
+
+	/**
+	 * @return an array with all the nodes on shortest path
+	 */
+	public Integer[] physicalPath() {
+		Integer[] ret = new Integer[shortestPathNodes.size()];
+		shortestPathNodes.toArray(ret);
+
+		return ret;
+	}
+
+	/**
+	 * @return number of nodes settled by the forward and backward searches
+	 */
+	public int settledNodeCount() {
+		return settledNodeCount;
+	}
+
+	/**
+	 * Sets up both searches
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 */
+	private void initialize(int nodeCount) {
+		forward = new Search(nodeCount, start);
+		backward = new Search(nodeCount, end);
+		forward.other = backward;
+		backward.other = forward;
+		shortestPathNodes = new Stack<Integer>();
+	}
+
+	/**
+	 * Advances the search with the nearer frontier until no shorter path can
+	 * be found
+	 */
+	private void compute() {
+		if (start.intValue() == end.intValue()) {
+			shortestDistance = 0;
+			shortestPathNodes.push(start);
+			return;
+		}
+
+		while (true) {
+			double forwardTop = forward.top();
+			double backwardTop = backward.top();
+			if (forwardTop + backwardTop >= shortestDistance)
+				break;
+			if (forwardTop <= backwardTop)
+				forward.step();
+			else
+				backward.step();
+		}
+
+		collectPath();
+
+	}
+
+	/**
+	 * Stacks the shortest path nodes, walking forward from the meeting node
+	 * to end node along the backward search tree and then back from the
+	 * meeting node to start node along the forward search tree
+	 */
+	private void collectPath() {
+		if (meetingNode == -1)
+			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
+
+		Stack<Integer> tail = new Stack<Integer>();
+		for (int node = backward.nodeTo[meetingNode]; node != -1; node = backward.nodeTo[node])
+			tail.push(node);
+		while (true) {
+			Integer node = tail.pop();
+			if (node == null)
+				break;
+			shortestPathNodes.push(node);
+		}
+		for (int node = meetingNode; node != -1; node = forward.nodeTo[node])
+			shortestPathNodes.push(node);
+	}
+
+	/**
+	 * Checks if node exists on graph
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @param node
+	 */
+	private void checkValidNode(int nodeCount, Integer node) {
+		if (node >= nodeCount || node < 0)
+			throw new IllegalArgumentException(node + "is not a valid node index in the graph.");
+	}
+
+}
@@ -0,0 +1,526 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import mlogic.algos.struct.ConcurrentUnionFind;
+import mlogic.algos.struct.List;
+import mlogic.algos.struct.SinglyLinkedList;
+
+/**
+ * Identifies a Minimum Spanning Forest in an edge-weighted undirected graph
+ * using Boruvka's algorithm on a fork-join pool. Each round finds the cheapest
+ * edge leaving every component in parallel, then adds all of them to the
+ * forest at once, merging their components in a concurrent union-find. Edges
+ * are ordered by weight and then by edge index, so ties cannot close a cycle.
+ * Every round at least halves the number of components, so there are at most
+ * log V rounds, and edges found inside a component are dropped as the rounds
+ * go. The first round reads the cheapest edge of each node straight from its
+ * arcs. Weights are compared as doubles. The forest is kept as a flag per edge
+ * and only turned into a list of edges when it is asked for.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class BoruvkasMinimumSpanningTree {
+
+	/**
+	 * Edges or nodes handled by a single fork-join task
+	 */
+	private static final int ITEMS_PER_TASK = 4096;
+
+	/**
+	 * Collects the end points and weight of each edge from the arcs of a
+	 * range of nodes
+	 */
+	private class CollectEdges extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private CSRGraph graph;
+
+		private CollectEdges(CSRGraph graph, int from, int to) {
+			super(from, to, ITEMS_PER_TASK);
+			this.graph = graph;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new CollectEdges(graph, from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int u = from; u < to; u++) {
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					int v = graph.targets[arc];
+					// Each edge is taken from the arc leaving its lower end
+					// point, self loops have none
+					if (u < v) {
+						int edge = graph.edgeIds[arc];
+						edgeFrom[edge] = u;
+						edgeTo[edge] = v;
+						edgeWeight[edge] = graph.weights[arc];
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Offers each live edge in a range to the components at both of its ends,
+	 * and drops edges with both ends in one component. The ends of the edge
+	 * are moved up to the roots found, so later rounds start closer to them.
+	 */
+	private class FindCheapest extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private FindCheapest(int from, int to) {
+			super(from, to, ITEMS_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new FindCheapest(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int i = from; i < to; i++) {
+				int edge = live[i];
+				int ru = root[liveFrom[i]];
+				int rv = root[liveTo[i]];
+				if (ru == rv) {
+					live[i] = -1;
+					continue;
+				}
+				liveFrom[i] = ru;
+				liveTo[i] = rv;
+				offer(ru, edge);
+				offer(rv, edge);
+			}
+		}
+
+		/**
+		 * Makes an edge the cheapest of a component if it is lighter than the
+		 * current one
+		 * 
+		 * @param root
+		 *            root of the component
+		 * @param edge
+		 */
+		private void offer(int root, int edge) {
+			while (true) {
+				int best = cheapest.get(root);
+				if (best != -1 && !lighter(edge, best))
+					return;
+				if (cheapest.compareAndSet(root, best, edge))
+					return;
+			}
+		}
+
+	}
+
+	/**
+	 * Finds the cheapest edge of each node in a range from its own arcs, for
+	 * the first round, when every node is a component of its own
+	 */
+	private class FindCheapestArcs extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private CSRGraph graph;
+
+		private FindCheapestArcs(CSRGraph graph, int from, int to) {
+			super(from, to, ITEMS_PER_TASK);
+			this.graph = graph;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new FindCheapestArcs(graph, from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int u = from; u < to; u++) {
+				int best = -1;
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					int edge = graph.edgeIds[arc];
+					if (graph.targets[arc] != u && (best == -1 || lighter(edge, best)))
+						best = edge;
+				}
+				cheapest.set(u, best);
+			}
+		}
+
+	}
+
+	/**
+	 * Looks up the root of the component of each node in a range
+	 */
+	private class FindRoots extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private FindRoots(int from, int to) {
+			super(from, to, ITEMS_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new FindRoots(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int v = from; v < to; v++)
+				root[v] = components.find(v);
+		}
+
+	}
+
+	/**
+	 * Adds the cheapest edge of each component in a range of nodes to the
+	 * forest. The union succeeds for only one of two components choosing the
+	 * same edge, so every edge is added once.
+	 */
+	private class Contract extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Contract(int from, int to) {
+			super(from, to, ITEMS_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Contract(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int v = from; v < to; v++) {
+				int edge = cheapest.get(v);
+				if (edge == -1)
+					continue;
+				cheapest.set(v, -1);
+				if (components.union(edgeFrom[edge], edgeTo[edge]))
+					inForest[edge] = true;
+			}
+		}
+
+	}
+
+	/**
+	 * Moves the live edges of a range of chunks of the live array to the
+	 * front of their chunk
+	 */
+	private class Compact extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Compact(int from, int to) {
+			super(from, to, 1);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Compact(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int chunk = from; chunk < to; chunk++) {
+				int first = chunk * ITEMS_PER_TASK;
+				int last = Math.min(first + ITEMS_PER_TASK, liveCount);
+				int count = first;
+				for (int i = first; i < last; i++) {
+					if (live[i] != -1) {
+						live[count] = live[i];
+						liveFrom[count] = liveFrom[i];
+						liveTo[count++] = liveTo[i];
+					}
+				}
+				chunkCount[chunk] = count - first;
+			}
+		}
+
+	}
+
+	/**
+	 * Graph to search
+	 */
+	private UndirectedGraph graph;
+
+	/**
+	 * Pool running the rounds
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Lower end point of each edge
+	 */
+	private int[] edgeFrom;
+
+	/**
+	 * Higher end point of each edge
+	 */
+	private int[] edgeTo;
+
+	/**
+	 * Weight of each edge
+	 */
+	private double[] edgeWeight;
+
+	/**
+	 * Edges that may still join two components, -1 for edges dropped in the
+	 * current round
+	 */
+	private int[] live;
+
+	/**
+	 * Node in the component at one end of each live edge
+	 */
+	private int[] liveFrom;
+
+	/**
+	 * Node in the component at the other end of each live edge
+	 */
+	private int[] liveTo;
+
+	/**
+	 * Number of live edges
+	 */
+	private int liveCount;
+
+	/**
+	 * Live edges left in each chunk of the live array after compaction
+	 */
+	private int[] chunkCount;
+
+	/**
+	 * Cheapest edge leaving each component, indexed by its root, -1 if none
+	 * was found
+	 */
+	private AtomicIntegerArray cheapest;
+
+	/**
+	 * Components merged so far
+	 */
+	private ConcurrentUnionFind components;
+
+	/**
+	 * Root of the component of each node at the start of the round
+	 */
+	private int[] root;
+
+	/**
+	 * Edges added to the forest
+	 */
+	private boolean[] inForest;
+
+	/**
+	 * Number of edges added to the forest
+	 */
+	private int forestEdgeCount;
+
+	/**
+	 * Total weight of the forest
+	 */
+	private double forestWeight;
+
+	/**
+	 * Minimum Spanning Forest - List of edges in the minimum spanning tree (or
+	 * trees, if the graph is not fully connected), built on first use
+	 */
+	private List<Edge> minimumSpanningForest;
+
+	/**
+	 * Constructor. The forest holds the edges of the graph.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public BoruvkasMinimumSpanningTree(UndirectedGraph graph, ForkJoinPool pool) {
+		this(new CSRGraph(graph), pool, graph);
+	}
+
+	/**
+	 * Constructor for an undirected graph stored in CSR form. Only the edges of
+	 * the forest are materialized as Edge objects.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public BoruvkasMinimumSpanningTree(CSRGraph graph, ForkJoinPool pool) {
+		this(graph, pool, null);
+	}
+
+	private BoruvkasMinimumSpanningTree(CSRGraph csrGraph, ForkJoinPool pool, UndirectedGraph graph) {
+		CSRGraph.checkEmpty(csrGraph);
+		if (csrGraph.directed)
+			throw new IllegalArgumentException("Boruvka's algorithm requires an undirected graph.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		this.graph = graph;
+		this.pool = pool;
+		compute(csrGraph);
+
+	}
+
+	/**
+	 * @return Minimum Spanning Forest - List of edges in the minimum spanning
+	 *         tree (or trees, if the graph is not fully connected)
+	 */
+	public List<Edge> minimumSpanningForest() {
+		if (minimumSpanningForest == null)
+			collectForest();
+		return minimumSpanningForest;
+	}
+
+	/**
+	 * @return number of edges in the forest
+	 */
+	public int forestEdgeCount() {
+		return forestEdgeCount;
+	}
+
+	/**
+	 * @return total weight of the forest
+	 */
+	public double doubleForestWeight() {
+		return forestWeight;
+	}
+
+	/**
+	 * Reads the forest without building Edge objects, which suits forests too
+	 * large for a {@link List}
+	 * 
+	 * @param edge
+	 *            index of the edge, as numbered by {@link CSRGraph}
+	 * @return true if the edge is in the forest
+	 */
+	public boolean inForest(int edge) {
+		if (edge < 0 || edge >= inForest.length)
+			throw new IllegalArgumentException(edge + " out of range.");
+		return inForest[edge];
+	}
+
+	/**
+	 * Runs rounds until no component has an edge leaving it
+	 * 
+	 * @param csrGraph
+	 */
+	private void compute(CSRGraph csrGraph) {
+		int nodeCount = csrGraph.nodeCount;
+		int edgeCount = csrGraph.edgeCount;
+		edgeFrom = new int[edgeCount];
+		edgeTo = new int[edgeCount];
+		edgeWeight = new double[edgeCount];
+		// Self loops are not collected and are never live
+		Arrays.fill(edgeFrom, -1);
+		pool.invoke(new CollectEdges(csrGraph, 0, nodeCount));
+		live = new int[edgeCount];
+		liveFrom = new int[edgeCount];
+		liveTo = new int[edgeCount];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (edgeFrom[edge] != -1) {
+				live[liveCount] = edge;
+				liveFrom[liveCount] = edgeFrom[edge];
+				liveTo[liveCount++] = edgeTo[edge];
+			}
+		}
+
+		cheapest = new AtomicIntegerArray(nodeCount);
+		components = new ConcurrentUnionFind(nodeCount);
+		inForest = new boolean[edgeCount];
+		root = new int[nodeCount];
+		pool.invoke(new FindCheapestArcs(csrGraph, 0, nodeCount));
+		pool.invoke(new Contract(0, nodeCount));
+		while (liveCount > 0) {
+			pool.invoke(new FindRoots(0, nodeCount));
+			pool.invoke(new FindCheapest(0, liveCount));
+			pool.invoke(new Contract(0, nodeCount));
+			compactLiveEdges();
+		}
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (inForest[edge]) {
+				forestEdgeCount++;
+				forestWeight += edgeWeight[edge];
+			}
+		}
+		// Only the forest edges are needed from here on
+		live = null;
+		liveFrom = null;
+		liveTo = null;
+		chunkCount = null;
+		cheapest = null;
+		components = null;
+		root = null;
+	}
+
+	/**
+	 * Removes the edges dropped in the last round from the live edges. Chunks
+	 * are compacted in parallel and then moved together. Edges added to the
+	 * forest in the last round are dropped in the next.
+	 */
+	private void compactLiveEdges() {
+		int chunks = (liveCount + ITEMS_PER_TASK - 1) / ITEMS_PER_TASK;
+		if (chunkCount == null)
+			chunkCount = new int[chunks];
+		pool.invoke(new Compact(0, chunks));
+		int count = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int first = chunk * ITEMS_PER_TASK;
+			System.arraycopy(live, first, live, count, chunkCount[chunk]);
+			System.arraycopy(liveFrom, first, liveFrom, count, chunkCount[chunk]);
+			System.arraycopy(liveTo, first, liveTo, count, chunkCount[chunk]);
+			count += chunkCount[chunk];
+		}
+		liveCount = count;
+	}
+
+	/**
+	 * Lists the forest edges, as the edges of the graph when one was given
+	 */
+	private void collectForest() {
+		minimumSpanningForest = new SinglyLinkedList<Edge>();
+		if (graph != null) {
+			int edge = 0;
+			for (int u = 0; u < graph.nodeCount; u++) {
+				for (Edge e : graph.edges[u]) {
+					// Same order in which CSRGraph numbers the edges
+					if (e.from().intValue() != u)
+						continue;
+					if (inForest[edge++])
+						minimumSpanningForest.put(e);
+				}
+			}
+		} else {
+			for (int edge = 0; edge < inForest.length; edge++)
+				if (inForest[edge])
+					minimumSpanningForest.put(new Edge(edgeFrom[edge], edgeTo[edge], edgeWeight[edge]));
+		}
+	}
+
+	/**
+	 * @param a
+	 *            edge index
+	 * @param b
+	 *            edge index
+	 * @return true if edge *a* comes before edge *b* by weight, then by index
+	 */
+	private boolean lighter(int a, int b) {
+		int order = Double.compare(edgeWeight[a], edgeWeight[b]);
+		return order < 0 || (order == 0 && a < b);
+	}
+
+}
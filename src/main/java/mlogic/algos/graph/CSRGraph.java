@@ -0,0 +1,299 @@
+package mlogic.algos.graph;
+
+/**
+ * Immutable graph stored in compressed sparse row (CSR) form. The arcs leaving
+ * node u occupy positions offsets[u] to offsets[u + 1] - 1 of the targets and
+ * weights arrays, so a graph with E edges is held in a handful of primitive
+ * arrays instead of one Edge object and one list node per arc. An undirected
+ * edge is stored as an arc in each direction and both arcs carry the same edge
+ * id.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class CSRGraph {
+
+	/**
+	 * Number of nodes in the graph
+	 */
+	int nodeCount;
+
+	/**
+	 * Number of edges in the graph. Undirected edges are counted once.
+	 */
+	int edgeCount;
+
+	/**
+	 * True if arcs are one-way
+	 */
+	boolean directed;
+
+	/**
+	 * Index of the first arc of each node, with offsets[nodeCount] holding the
+	 * total number of arcs
+	 */
+	int[] offsets;
+
+	/**
+	 * Target node of each arc
+	 */
+	int[] targets;
+
+	/**
+	 * Weight of each arc, 0 for un-weighted graphs
+	 */
+	double[] weights;
+
+	/**
+	 * Index of the edge each arc was created from
+	 */
+	int[] edgeIds;
+
+	/**
+	 * Builds a CSR copy of a directed or undirected graph. Edge ids follow the
+	 * order in which the source graph iterates its edges.
+	 * 
+	 * @param graph
+	 *            graph to copy
+	 */
+	public CSRGraph(Graph graph) {
+		Graph.checkEmpty(graph);
+		boolean directed = graph instanceof DirectedGraph;
+		int[] from = new int[graph.edgeCount];
+		int[] to = new int[graph.edgeCount];
+		double[] weights = new double[graph.edgeCount];
+		int k = 0;
+		for (int u = 0; u < graph.nodeCount; u++) {
+			for (Edge e : graph.edges[u]) {
+				// Undirected edges sit in the lists of both end points, copy
+				// them only from the list of their *from* node
+				if (!directed && e.from().intValue() != u)
+					continue;
+				from[k] = e.from();
+				to[k] = e.to();
+				weights[k] = e.doubleWeight();
+				k++;
+			}
+		}
+		build(graph.nodeCount, k, from, to, weights, directed);
+	}
+
+	/**
+	 * Builds a CSR graph from a stream of edges held in parallel arrays
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @param from
+	 *            source node of each edge
+	 * @param to
+	 *            target node of each edge
+	 * @param weights
+	 *            weight of each edge, or null for an un-weighted graph
+	 * @param directed
+	 *            true if the edges are one-way
+	 */
+	public CSRGraph(int nodeCount, int[] from, int[] to, double[] weights, boolean directed) {
+		if (nodeCount <= 0)
+			throw new IllegalArgumentException("No point creating an empty graph.");
+		if (from == null || to == null || from.length != to.length)
+			throw new IllegalArgumentException("Edge end points must be arrays of equal length.");
+		if (weights != null && weights.length != from.length)
+			throw new IllegalArgumentException("Edge weights must match the number of edges.");
+		build(nodeCount, from.length, from, to, weights, directed);
+	}
+
+	/**
+	 * Private constructor used by {@link #reverse()}
+	 */
+	private CSRGraph() {
+
+	}
+
+	/**
+	 * Counts the arcs of each node, then places each arc at the next free
+	 * position of its source node
+	 * 
+	 * @param nodeCount
+	 * @param edgeCount
+	 * @param from
+	 * @param to
+	 * @param weights
+	 * @param directed
+	 */
+	private void build(int nodeCount, int edgeCount, int[] from, int[] to, double[] weights, boolean directed) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+		this.directed = directed;
+		this.offsets = new int[nodeCount + 1];
+		for (int k = 0; k < edgeCount; k++) {
+			checkValidNode(from[k]);
+			checkValidNode(to[k]);
+			offsets[from[k] + 1]++;
+			if (!directed && from[k] != to[k])
+				offsets[to[k] + 1]++;
+		}
+		for (int u = 0; u < nodeCount; u++)
+			offsets[u + 1] += offsets[u];
+
+		int arcCount = offsets[nodeCount];
+		this.targets = new int[arcCount];
+		this.weights = new double[arcCount];
+		this.edgeIds = new int[arcCount];
+		int[] next = new int[nodeCount];
+		System.arraycopy(offsets, 0, next, 0, nodeCount);
+		for (int k = 0; k < edgeCount; k++) {
+			double weight = weights == null ? 0 : weights[k];
+			int arc = next[from[k]]++;
+			this.targets[arc] = to[k];
+			this.weights[arc] = weight;
+			this.edgeIds[arc] = k;
+			if (!directed && from[k] != to[k]) {
+				arc = next[to[k]]++;
+				this.targets[arc] = from[k];
+				this.weights[arc] = weight;
+				this.edgeIds[arc] = k;
+			}
+		}
+	}
+
+	/**
+	 * @return number of nodes in the graph
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return number of edges in the graph, undirected edges counted once
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @return number of arcs in the graph, undirected edges counted twice
+	 */
+	public int arcCount() {
+		return offsets[nodeCount];
+	}
+
+	/**
+	 * @return true if arcs are one-way
+	 */
+	public boolean isDirected() {
+		return directed;
+	}
+
+	/**
+	 * @param node
+	 * @return index of the first arc of the node. Arcs of the node end just
+	 *         before the first arc of the next node.
+	 */
+	public int offset(int node) {
+		return offsets[node];
+	}
+
+	/**
+	 * @param node
+	 * @return number of arcs leaving the node
+	 */
+	public int degree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @param arc
+	 * @return target node of the arc
+	 */
+	public int target(int arc) {
+		return targets[arc];
+	}
+
+	/**
+	 * @param arc
+	 * @return weight of the arc
+	 */
+	public double weight(int arc) {
+		return weights[arc];
+	}
+
+	/**
+	 * @param arc
+	 * @return index of the edge the arc was created from
+	 */
+	public int edgeId(int arc) {
+		return edgeIds[arc];
+	}
+
+	/**
+	 * Creates a graph with all arcs reversed. An undirected graph is its own
+	 * reverse.
+	 * 
+	 * @return reverse of the graph
+	 */
+	public CSRGraph reverse() {
+		if (!directed)
+			return this;
+
+		CSRGraph reverse = new CSRGraph();
+		reverse.nodeCount = this.nodeCount;
+		reverse.edgeCount = this.edgeCount;
+		reverse.directed = true;
+		reverse.offsets = new int[nodeCount + 1];
+		int arcCount = arcCount();
+		for (int arc = 0; arc < arcCount; arc++)
+			reverse.offsets[targets[arc] + 1]++;
+		for (int u = 0; u < nodeCount; u++)
+			reverse.offsets[u + 1] += reverse.offsets[u];
+
+		reverse.targets = new int[arcCount];
+		reverse.weights = new double[arcCount];
+		reverse.edgeIds = new int[arcCount];
+		int[] next = new int[nodeCount];
+		System.arraycopy(reverse.offsets, 0, next, 0, nodeCount);
+		for (int u = 0; u < nodeCount; u++) {
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int r = next[targets[arc]]++;
+				reverse.targets[r] = u;
+				reverse.weights[r] = weights[arc];
+				reverse.edgeIds[r] = edgeIds[arc];
+			}
+		}
+		return reverse;
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		for (int u = 0; u < this.nodeCount; u++) {
+			buf.append(u + " :: ");
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				buf.append(u + "->" + targets[arc] + "(");
+				buf.append(String.format("%.2f", weights[arc]));
+				buf.append(") ");
+			}
+			buf.append("\n");
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Checks if the graph is empty
+	 * 
+	 * @param graph
+	 */
+	public static void checkEmpty(CSRGraph graph) {
+		if (graph == null || graph.nodeCount <= 0)
+			throw new IllegalArgumentException("No point searching in an empty graph.");
+	}
+
+	/**
+	 * Checks if node exists on graph
+	 * 
+	 * @param node
+	 */
+	private void checkValidNode(int node) {
+		if (node < 0 || node >= this.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+	}
+
+}
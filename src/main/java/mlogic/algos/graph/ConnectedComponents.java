@@ -12,6 +12,11 @@ public class ConnectedComponents {
 	 */
 	private Graph graph;
 
+	/**
+	 * CSR graph to process, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
 	/**
 	 * array to store the connected component index
 	 */
@@ -29,6 +34,18 @@ public class ConnectedComponents {
 		compute();
 	}
 
+	/**
+	 * Constructor for a graph stored in CSR form
+	 */
+	public ConnectedComponents(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		this.csrGraph = graph;
+		this.connected = new Integer[graph.nodeCount];
+		for (int v = 0; v < graph.nodeCount; v++)
+			connected[v] = -1;
+		compute();
+	}
+
 	/**
 	 * Identify connected components by iterating through the nodes and
 	 * performing BFS on any unmarked node.
@@ -40,18 +57,23 @@ public class ConnectedComponents {
 
 			@Override
 			protected void processTreeEdge(Edge e, Integer from) {
-				// System.out.println("Visiting edge " + from + "->" +
-				// e.other(from));
 				connected[e.other(from)] = currentIndex[0];
 			}
 
+			@Override
+			protected void processTreeEdge(int from, int arc) {
+				connected[csrGraph.targets[arc]] = currentIndex[0];
+			}
+
 		};
-		for (int v = 0; v < graph.nodeCount; v++) {
-			System.out.println("Visiting node " + v);
+		for (int v = 0; v < connected.length; v++) {
 			if (connected[v] > -1)
 				continue;
 			connected[v] = ++currentIndex[0];
-			bfs.execute(graph, v);
+			if (csrGraph != null)
+				bfs.execute(csrGraph, v);
+			else
+				bfs.execute(graph, v);
 		}
 
 	}
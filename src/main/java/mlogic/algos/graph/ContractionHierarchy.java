@@ -0,0 +1,569 @@
+package mlogic.algos.graph;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.struct.IndexedHeap;
+
+/**
+ * Contraction hierarchy of an edge-weighted graph, preprocessed once so that
+ * point-to-point shortest path queries settle only a few hundred nodes.
+ * Nodes are contracted one at a time, cheapest first, where the cost of a
+ * node is the number of shortcuts its contraction adds less the number of
+ * arcs it removes, plus the number of its neighbors already contracted. A
+ * contracted node is bypassed by a shortcut from each in-neighbor to each
+ * out-neighbor, unless a local witness search finds a path between them that
+ * avoids the node and is no longer. Every shortest path then has a form that
+ * only climbs in contraction order from start node and only descends to end
+ * node, which {@link ContractionHierarchyQuery} searches from both ends.
+ * 
+ * Arcs are numbered: the original arcs come first, followed by shortcuts,
+ * each of which records the two arcs it bypasses so paths can be unpacked.
+ * The hierarchy can be saved to and loaded from a stream.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ContractionHierarchy {
+
+	/**
+	 * Nodes a witness search may settle before giving up and letting the
+	 * shortcut be added
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 100;
+
+	/**
+	 * Number of nodes in the graph
+	 */
+	int nodeCount;
+
+	/**
+	 * Number of arcs, original and shortcut
+	 */
+	int arcCount;
+
+	/**
+	 * Source node of each arc
+	 */
+	int[] arcFrom;
+
+	/**
+	 * Target node of each arc
+	 */
+	int[] arcTo;
+
+	/**
+	 * Weight of each arc
+	 */
+	double[] arcWeight;
+
+	/**
+	 * First of the two arcs a shortcut bypasses, -1 for original arcs
+	 */
+	int[] arcFirst;
+
+	/**
+	 * Second of the two arcs a shortcut bypasses, -1 for original arcs
+	 */
+	int[] arcSecond;
+
+	/**
+	 * Position of each node in the contraction order
+	 */
+	int[] rank;
+
+	/**
+	 * Index of the first upward arc of each node, with upOffsets[nodeCount]
+	 * holding the total
+	 */
+	int[] upOffsets;
+
+	/**
+	 * Arcs leading from each node to a node of higher rank
+	 */
+	int[] upArcs;
+
+	/**
+	 * Index of the first downward arc of each node, with
+	 * downOffsets[nodeCount] holding the total
+	 */
+	int[] downOffsets;
+
+	/**
+	 * Arcs leading to each node from a node of higher rank
+	 */
+	int[] downArcs;
+
+	/**
+	 * Arcs leaving each node during contraction
+	 */
+	private int[][] outArcs;
+
+	/**
+	 * Number of arcs leaving each node during contraction
+	 */
+	private int[] outCount;
+
+	/**
+	 * Arcs entering each node during contraction
+	 */
+	private int[][] inArcs;
+
+	/**
+	 * Number of arcs entering each node during contraction
+	 */
+	private int[] inCount;
+
+	/**
+	 * Nodes already contracted
+	 */
+	private boolean[] contracted;
+
+	/**
+	 * Number of contracted neighbors of each node
+	 */
+	private int[] contractedNeighbors;
+
+	/**
+	 * Distance of each node from the source of the witness search
+	 */
+	private double[] witnessDistance;
+
+	/**
+	 * Nodes reached by the witness search, reset before the next search
+	 */
+	private int[] touched;
+
+	/**
+	 * Number of nodes reached by the witness search
+	 */
+	private int touchedCount;
+
+	/**
+	 * Queue of the witness search
+	 */
+	private IndexedHeap witnessQueue;
+
+	/**
+	 * Shortcuts found while contracting a node: source, target and the two
+	 * bypassed arcs, added once the node is done
+	 */
+	private int[] pendingShortcuts;
+
+	/**
+	 * Weights of the pending shortcuts
+	 */
+	private double[] pendingWeights;
+
+	/**
+	 * Number of pending shortcuts
+	 */
+	private int pendingCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            directed or undirected graph to preprocess
+	 */
+	public ContractionHierarchy(Graph graph) {
+		this(new CSRGraph(graph));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to preprocess
+	 */
+	public ContractionHierarchy(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		nodeCount = graph.nodeCount;
+		int capacity = Math.max(16, graph.arcCount() * 2);
+		arcFrom = new int[capacity];
+		arcTo = new int[capacity];
+		arcWeight = new double[capacity];
+		arcFirst = new int[capacity];
+		arcSecond = new int[capacity];
+		outArcs = new int[nodeCount][];
+		outCount = new int[nodeCount];
+		inArcs = new int[nodeCount][];
+		inCount = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			outArcs[v] = new int[4];
+			inArcs[v] = new int[4];
+		}
+		for (int u = 0; u < nodeCount; u++) {
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				int v = graph.targets[arc];
+				if (graph.weights[arc] < 0)
+					throw new NegativeEdgeWeightException(
+							"Contraction hierarchies cannot be built on a graph with negative edges.");
+				if (u != v)
+					addArc(u, v, graph.weights[arc], -1, -1);
+			}
+		}
+
+		contract();
+		buildSearchGraphs();
+
+	}
+
+	/**
+	 * Constructor for a hierarchy read from a stream
+	 */
+	private ContractionHierarchy() {
+	}
+
+	/**
+	 * @return number of nodes in the graph
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return number of shortcuts added by the contraction
+	 */
+	public int shortcutCount() {
+		int count = 0;
+		for (int arc = 0; arc < arcCount; arc++)
+			if (arcFirst[arc] != -1)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @param node
+	 * @return position of the node in the contraction order
+	 */
+	public int rank(int node) {
+		if (node < 0 || node >= nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		return rank[node];
+	}
+
+	/**
+	 * Writes the hierarchy to a stream
+	 * 
+	 * @param out
+	 *            stream to write to, left open
+	 * @throws IOException
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(nodeCount);
+		data.writeInt(arcCount);
+		for (int v = 0; v < nodeCount; v++)
+			data.writeInt(rank[v]);
+		for (int arc = 0; arc < arcCount; arc++) {
+			data.writeInt(arcFrom[arc]);
+			data.writeInt(arcTo[arc]);
+			data.writeDouble(arcWeight[arc]);
+			data.writeInt(arcFirst[arc]);
+			data.writeInt(arcSecond[arc]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads a hierarchy written by {@link #save(OutputStream)}
+	 * 
+	 * @param in
+	 *            stream to read from, left open
+	 * @return contraction hierarchy
+	 * @throws IOException
+	 */
+	public static ContractionHierarchy load(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		ContractionHierarchy hierarchy = new ContractionHierarchy();
+		int nodeCount = data.readInt();
+		int arcCount = data.readInt();
+		if (nodeCount <= 0 || arcCount < 0)
+			throw new IOException("Stream does not hold a contraction hierarchy.");
+		hierarchy.nodeCount = nodeCount;
+		hierarchy.arcCount = arcCount;
+		hierarchy.rank = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++)
+			hierarchy.rank[v] = data.readInt();
+		hierarchy.arcFrom = new int[arcCount];
+		hierarchy.arcTo = new int[arcCount];
+		hierarchy.arcWeight = new double[arcCount];
+		hierarchy.arcFirst = new int[arcCount];
+		hierarchy.arcSecond = new int[arcCount];
+		for (int arc = 0; arc < arcCount; arc++) {
+			hierarchy.arcFrom[arc] = data.readInt();
+			hierarchy.arcTo[arc] = data.readInt();
+			hierarchy.arcWeight[arc] = data.readDouble();
+			hierarchy.arcFirst[arc] = data.readInt();
+			hierarchy.arcSecond[arc] = data.readInt();
+		}
+		hierarchy.buildSearchGraphs();
+		return hierarchy;
+	}
+
+	/**
+	 * Contracts all nodes, lowest priority first. Priorities only grow as
+	 * neighbors are contracted, so they are updated lazily: a node is
+	 * re-evaluated when it reaches the top of the queue and put back if it is
+	 * no longer the cheapest.
+	 */
+	private void contract() {
+		contracted = new boolean[nodeCount];
+		contractedNeighbors = new int[nodeCount];
+		rank = new int[nodeCount];
+		witnessDistance = new double[nodeCount];
+		for (int v = 0; v < nodeCount; v++)
+			witnessDistance[v] = Double.POSITIVE_INFINITY;
+		touched = new int[nodeCount];
+		witnessQueue = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(witnessDistance[u], witnessDistance[v]);
+			}
+		};
+		pendingShortcuts = new int[64];
+		pendingWeights = new double[16];
+
+		final int[] priority = new int[nodeCount];
+		IndexedHeap order = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Integer.compare(priority[u], priority[v]);
+			}
+		};
+		for (int v = 0; v < nodeCount; v++) {
+			priority[v] = priorityOf(v);
+			order.insert(v);
+		}
+
+		int next = 0;
+		while (!order.isEmpty()) {
+			int v = order.deleteMin();
+			int updated = priorityOf(v);
+			if (!order.isEmpty() && updated > priority[order.peek()]) {
+				priority[v] = updated;
+				order.insert(v);
+				continue;
+			}
+			// The pending shortcuts are still those found by priorityOf(v)
+			for (int i = 0; i < pendingCount; i++)
+				addArc(pendingShortcuts[4 * i], pendingShortcuts[4 * i + 1], pendingWeights[i],
+						pendingShortcuts[4 * i + 2], pendingShortcuts[4 * i + 3]);
+			contracted[v] = true;
+			rank[v] = next++;
+			for (int i = 0; i < outCount[v]; i++)
+				contractedNeighbors[arcTo[outArcs[v][i]]]++;
+			for (int i = 0; i < inCount[v]; i++)
+				contractedNeighbors[arcFrom[inArcs[v][i]]]++;
+		}
+
+		outArcs = null;
+		inArcs = null;
+		witnessQueue = null;
+	}
+
+	/**
+	 * @param v
+	 *            node not yet contracted
+	 * @return edge difference of contracting the node plus the number of its
+	 *         contracted neighbors
+	 */
+	private int priorityOf(int v) {
+		findShortcuts(v);
+		int removed = 0;
+		for (int i = 0; i < outCount[v]; i++)
+			if (!contracted[arcTo[outArcs[v][i]]])
+				removed++;
+		for (int i = 0; i < inCount[v]; i++)
+			if (!contracted[arcFrom[inArcs[v][i]]])
+				removed++;
+		return pendingCount - removed + contractedNeighbors[v];
+	}
+
+	/**
+	 * Collects the shortcuts needed to contract a node into the pending
+	 * shortcuts
+	 * 
+	 * @param v
+	 *            node to contract
+	 */
+	private void findShortcuts(int v) {
+		pendingCount = 0;
+		for (int i = 0; i < inCount[v]; i++) {
+			int in = inArcs[v][i];
+			int u = arcFrom[in];
+			if (contracted[u])
+				continue;
+			double limit = -1;
+			for (int j = 0; j < outCount[v]; j++) {
+				int out = outArcs[v][j];
+				int w = arcTo[out];
+				if (!contracted[w] && w != u)
+					limit = Math.max(limit, arcWeight[in] + arcWeight[out]);
+			}
+			if (limit < 0)
+				continue;
+			witnessSearch(u, v, limit);
+			for (int j = 0; j < outCount[v]; j++) {
+				int out = outArcs[v][j];
+				int w = arcTo[out];
+				if (contracted[w] || w == u)
+					continue;
+				double via = arcWeight[in] + arcWeight[out];
+				if (witnessDistance[w] > via) {
+					// Keep the lowest witness distance up to date, so parallel
+					// arcs through v add one shortcut
+					if (witnessDistance[w] == Double.POSITIVE_INFINITY)
+						touched[touchedCount++] = w;
+					witnessDistance[w] = via;
+					addPendingShortcut(u, w, via, in, out);
+				}
+			}
+			resetWitnessSearch();
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from a node over the nodes not yet contracted,
+	 * skipping the node being contracted, until the distance limit or the
+	 * settle limit is reached
+	 * 
+	 * @param source
+	 *            in-neighbor of the node being contracted
+	 * @param skip
+	 *            node being contracted
+	 * @param limit
+	 *            longest path through the node being contracted
+	 */
+	private void witnessSearch(int source, int skip, double limit) {
+		witnessDistance[source] = 0;
+		touched[touchedCount++] = source;
+		witnessQueue.insert(source);
+		int settled = 0;
+		while (!witnessQueue.isEmpty()) {
+			int u = witnessQueue.deleteMin();
+			if (witnessDistance[u] > limit || ++settled > WITNESS_SETTLE_LIMIT)
+				break;
+			for (int i = 0; i < outCount[u]; i++) {
+				int arc = outArcs[u][i];
+				int w = arcTo[arc];
+				if (w == skip || contracted[w])
+					continue;
+				double d = witnessDistance[u] + arcWeight[arc];
+				if (d < witnessDistance[w]) {
+					if (witnessDistance[w] == Double.POSITIVE_INFINITY)
+						touched[touchedCount++] = w;
+					witnessDistance[w] = d;
+					if (witnessQueue.contains(w))
+						witnessQueue.decreaseKey(w);
+					else
+						witnessQueue.insert(w);
+				}
+			}
+		}
+		witnessQueue.clear();
+	}
+
+	/**
+	 * Clears the distances set by the last witness search
+	 */
+	private void resetWitnessSearch() {
+		for (int i = 0; i < touchedCount; i++)
+			witnessDistance[touched[i]] = Double.POSITIVE_INFINITY;
+		touchedCount = 0;
+	}
+
+	/**
+	 * Queues a shortcut to be added once the node being contracted is done
+	 */
+	private void addPendingShortcut(int u, int w, double weight, int first, int second) {
+		if (pendingCount == pendingWeights.length) {
+			pendingWeights = grow(pendingWeights);
+			int[] grown = new int[pendingShortcuts.length * 2];
+			System.arraycopy(pendingShortcuts, 0, grown, 0, pendingShortcuts.length);
+			pendingShortcuts = grown;
+		}
+		pendingShortcuts[4 * pendingCount] = u;
+		pendingShortcuts[4 * pendingCount + 1] = w;
+		pendingShortcuts[4 * pendingCount + 2] = first;
+		pendingShortcuts[4 * pendingCount + 3] = second;
+		pendingWeights[pendingCount++] = weight;
+	}
+
+	/**
+	 * Adds an arc to the arc arrays and to the contraction lists of its end
+	 * points
+	 */
+	private void addArc(int u, int v, double weight, int first, int second) {
+		if (arcCount == arcFrom.length) {
+			arcFrom = grow(arcFrom);
+			arcTo = grow(arcTo);
+			arcWeight = grow(arcWeight);
+			arcFirst = grow(arcFirst);
+			arcSecond = grow(arcSecond);
+		}
+		arcFrom[arcCount] = u;
+		arcTo[arcCount] = v;
+		arcWeight[arcCount] = weight;
+		arcFirst[arcCount] = first;
+		arcSecond[arcCount] = second;
+		if (outCount[u] == outArcs[u].length)
+			outArcs[u] = grow(outArcs[u]);
+		outArcs[u][outCount[u]++] = arcCount;
+		if (inCount[v] == inArcs[v].length)
+			inArcs[v] = grow(inArcs[v]);
+		inArcs[v][inCount[v]++] = arcCount;
+		arcCount++;
+	}
+
+	/**
+	 * Sorts the arcs into upward arcs, leaving each node towards higher rank,
+	 * and downward arcs, entering each node from higher rank. The forward
+	 * query searches upward arcs and the backward query searches downward arcs
+	 * in reverse.
+	 */
+	private void buildSearchGraphs() {
+		upOffsets = new int[nodeCount + 1];
+		downOffsets = new int[nodeCount + 1];
+		for (int arc = 0; arc < arcCount; arc++) {
+			if (rank[arcTo[arc]] > rank[arcFrom[arc]])
+				upOffsets[arcFrom[arc] + 1]++;
+			else
+				downOffsets[arcTo[arc] + 1]++;
+		}
+		for (int v = 0; v < nodeCount; v++) {
+			upOffsets[v + 1] += upOffsets[v];
+			downOffsets[v + 1] += downOffsets[v];
+		}
+		upArcs = new int[upOffsets[nodeCount]];
+		downArcs = new int[downOffsets[nodeCount]];
+		int[] upNext = new int[nodeCount];
+		int[] downNext = new int[nodeCount];
+		for (int arc = 0; arc < arcCount; arc++) {
+			int u = arcFrom[arc];
+			int v = arcTo[arc];
+			if (rank[v] > rank[u])
+				upArcs[upOffsets[u] + upNext[u]++] = arc;
+			else
+				downArcs[downOffsets[v] + downNext[v]++] = arc;
+		}
+	}
+
+	private static int[] grow(int[] array) {
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static double[] grow(double[] array) {
+		double[] grown = new double[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+}
@@ -0,0 +1,377 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+import mlogic.algos.exceptions.NoResultException;
+import mlogic.algos.struct.IndexedHeap;
+import mlogic.algos.struct.Stack;
+
+/**
+ * Answers shortest path queries on a {@link ContractionHierarchy}. A forward
+ * search from start node follows only arcs leading to higher ranked nodes and
+ * a backward search from end node follows only arcs coming from higher ranked
+ * nodes, and the shortest path passes through the highest ranked node both
+ * reach. Each search stops once its nearest unsettled node is no closer than
+ * the shortest path found. Shortcuts on the path are then unpacked into the
+ * original arcs.
+ * 
+ * The search arrays are allocated once and only the entries touched by a
+ * query are reset, so a query costs time in the size of its search spaces
+ * rather than the graph. A query object is not thread safe; each thread should
+ * use its own.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ContractionHierarchyQuery {
+
+	/**
+	 * Hierarchy to search
+	 */
+	private ContractionHierarchy hierarchy;
+
+	/**
+	 * Start node of the last query
+	 */
+	private Integer start;
+
+	/**
+	 * End node of the last query
+	 */
+	private Integer end;
+
+	/**
+	 * Distance from start node to each node reached by the forward search
+	 */
+	private double[] forwardDistance;
+
+	/**
+	 * Distance from each node reached by the backward search to end node
+	 */
+	private double[] backwardDistance;
+
+	/**
+	 * Arc through which the forward search reached each node
+	 */
+	private int[] forwardArc;
+
+	/**
+	 * Arc through which the backward search reached each node
+	 */
+	private int[] backwardArc;
+
+	/**
+	 * Nodes reached by either search, reset before the next query
+	 */
+	private int[] touched;
+
+	/**
+	 * Number of nodes reached by either search
+	 */
+	private int touchedCount;
+
+	/**
+	 * Nodes reached by the forward search
+	 */
+	private IndexedHeap forwardQueue;
+
+	/**
+	 * Nodes reached by the backward search
+	 */
+	private IndexedHeap backwardQueue;
+
+	/**
+	 * Length of the shortest path found so far
+	 */
+	private double shortestDistance;
+
+	/**
+	 * Node on the shortest path found so far that both searches reached
+	 */
+	private int meetingNode;
+
+	/**
+	 * Number of nodes settled by both searches
+	 */
+	private int settledNodeCount;
+
+	/**
+	 * Stack that pops out the shortest path nodes from start to end
+	 */
+	private Stack<Integer> shortestPathNodes;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param hierarchy
+	 *            contraction hierarchy to search
+	 */
+	public ContractionHierarchyQuery(ContractionHierarchy hierarchy) {
+		if (hierarchy == null)
+			throw new IllegalArgumentException("Contraction hierarchy cannot be null.");
+		this.hierarchy = hierarchy;
+		int nodeCount = hierarchy.nodeCount;
+		forwardDistance = new double[nodeCount];
+		backwardDistance = new double[nodeCount];
+		forwardArc = new int[nodeCount];
+		backwardArc = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			forwardDistance[v] = Double.POSITIVE_INFINITY;
+			backwardDistance[v] = Double.POSITIVE_INFINITY;
+			forwardArc[v] = -1;
+			backwardArc[v] = -1;
+		}
+		touched = new int[nodeCount];
+		forwardQueue = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(forwardDistance[u], forwardDistance[v]);
+			}
+		};
+		backwardQueue = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(backwardDistance[u], backwardDistance[v]);
+			}
+		};
+	}
+
+	/**
+	 * Finds the shortest path from start node to end node
+	 * 
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @throws NoResultException
+	 *             if end node is not reachable from start node
+	 */
+	public void execute(Integer start, Integer end) {
+		checkValidNode(hierarchy.nodeCount, start);
+		checkValidNode(hierarchy.nodeCount, end);
+		reset();
+		this.start = start;
+		this.end = end;
+		shortestPathNodes = new Stack<Integer>();
+		if (start.intValue() == end.intValue()) {
+			shortestDistance = 0;
+			shortestPathNodes.push(start);
+			return;
+		}
+
+		reach(forwardDistance, start);
+		forwardQueue.insert(start);
+		reach(backwardDistance, end);
+		backwardQueue.insert(end);
+		while (true) {
+			double forwardTop = top(forwardQueue, forwardDistance);
+			double backwardTop = top(backwardQueue, backwardDistance);
+			if (forwardTop >= shortestDistance && backwardTop >= shortestDistance)
+				break;
+			if (forwardTop <= backwardTop)
+				settleForward(forwardQueue.deleteMin());
+			else
+				settleBackward(backwardQueue.deleteMin());
+		}
+
+		collectPath();
+
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes of the last query
+	 */
+	public BigDecimal physicalDistance() {
+		return new BigDecimal(shortestDistance);
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes of the last query as a double
+	 */
+	public double doublePhysicalDistance() {
+		return shortestDistance;
+	}
+
+	/**
+	 * @return an array with all the nodes on shortest path of the last query
+	 */
+	public Integer[] physicalPath() {
+		Integer[] ret = new Integer[shortestPathNodes.size()];
+		shortestPathNodes.toArray(ret);
+
+		return ret;
+	}
+
+	/**
+	 * @return number of nodes settled by the forward and backward searches of
+	 *         the last query
+	 */
+	public int settledNodeCount() {
+		return settledNodeCount;
+	}
+
+	/**
+	 * Settles a node of the forward search and relaxes its upward arcs
+	 * 
+	 * @param u
+	 */
+	private void settleForward(int u) {
+		settledNodeCount++;
+		meet(u);
+		for (int i = hierarchy.upOffsets[u]; i < hierarchy.upOffsets[u + 1]; i++) {
+			int arc = hierarchy.upArcs[i];
+			int v = hierarchy.arcTo[arc];
+			double d = forwardDistance[u] + hierarchy.arcWeight[arc];
+			if (d < forwardDistance[v]) {
+				reach(forwardDistance, v);
+				forwardDistance[v] = d;
+				forwardArc[v] = arc;
+				if (forwardQueue.contains(v))
+					forwardQueue.decreaseKey(v);
+				else
+					forwardQueue.insert(v);
+			}
+		}
+	}
+
+	/**
+	 * Settles a node of the backward search and relaxes its downward arcs in
+	 * reverse
+	 * 
+	 * @param u
+	 */
+	private void settleBackward(int u) {
+		settledNodeCount++;
+		meet(u);
+		for (int i = hierarchy.downOffsets[u]; i < hierarchy.downOffsets[u + 1]; i++) {
+			int arc = hierarchy.downArcs[i];
+			int v = hierarchy.arcFrom[arc];
+			double d = backwardDistance[u] + hierarchy.arcWeight[arc];
+			if (d < backwardDistance[v]) {
+				reach(backwardDistance, v);
+				backwardDistance[v] = d;
+				backwardArc[v] = arc;
+				if (backwardQueue.contains(v))
+					backwardQueue.decreaseKey(v);
+				else
+					backwardQueue.insert(v);
+			}
+		}
+	}
+
+	/**
+	 * Updates the shortest path if both searches reached the node
+	 * 
+	 * @param v
+	 */
+	private void meet(int v) {
+		double through = forwardDistance[v] + backwardDistance[v];
+		if (through < shortestDistance) {
+			shortestDistance = through;
+			meetingNode = v;
+		}
+	}
+
+	/**
+	 * Records a node the first time either search reaches it
+	 * 
+	 * @param distance
+	 *            distances of the search reaching the node
+	 * @param v
+	 */
+	private void reach(double[] distance, int v) {
+		if (forwardDistance[v] == Double.POSITIVE_INFINITY && backwardDistance[v] == Double.POSITIVE_INFINITY)
+			touched[touchedCount++] = v;
+		if (distance[v] == Double.POSITIVE_INFINITY)
+			distance[v] = 0;
+	}
+
+	/**
+	 * @return distance of the nearest unsettled node, infinity if none is left
+	 */
+	private static double top(IndexedHeap pq, double[] distance) {
+		if (pq.isEmpty())
+			return Double.POSITIVE_INFINITY;
+		return distance[pq.peek()];
+	}
+
+	/**
+	 * Clears the search state left by the last query
+	 */
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			int v = touched[i];
+			forwardDistance[v] = Double.POSITIVE_INFINITY;
+			backwardDistance[v] = Double.POSITIVE_INFINITY;
+			forwardArc[v] = -1;
+			backwardArc[v] = -1;
+		}
+		touchedCount = 0;
+		forwardQueue.clear();
+		backwardQueue.clear();
+		shortestDistance = Double.POSITIVE_INFINITY;
+		meetingNode = -1;
+		settledNodeCount = 0;
+	}
+
+	/**
+	 * Stacks the shortest path nodes, unpacking the arcs from the meeting node
+	 * to end node along the backward search tree and then those from the
+	 * meeting node back to start node along the forward search tree
+	 */
+	private void collectPath() {
+		if (meetingNode == -1)
+			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
+
+		Stack<Integer> arcs = new Stack<Integer>();
+		for (int node = meetingNode; backwardArc[node] != -1; node = hierarchy.arcTo[backwardArc[node]])
+			arcs.push(backwardArc[node]);
+		while (true) {
+			Integer arc = arcs.pop();
+			if (arc == null)
+				break;
+			unpack(arc);
+		}
+		for (int node = meetingNode; forwardArc[node] != -1; node = hierarchy.arcFrom[forwardArc[node]])
+			unpack(forwardArc[node]);
+		shortestPathNodes.push(start);
+	}
+
+	/**
+	 * Stacks the nodes of an arc after its source node, last node first,
+	 * expanding shortcuts into the arcs they bypass
+	 * 
+	 * @param arc
+	 */
+	private void unpack(int arc) {
+		Stack<Integer> pending = new Stack<Integer>();
+		pending.push(arc);
+		while (true) {
+			Integer next = pending.pop();
+			if (next == null)
+				break;
+			if (hierarchy.arcFirst[next] == -1)
+				shortestPathNodes.push(hierarchy.arcTo[next]);
+			else {
+				// The second arc is pushed last so its nodes are stacked first
+				pending.push(hierarchy.arcFirst[next]);
+				pending.push(hierarchy.arcSecond[next]);
+			}
+		}
+	}
+
+	/**
+	 * Checks if node exists on graph
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @param node
+	 */
+	private void checkValidNode(int nodeCount, Integer node) {
+		if (node >= nodeCount || node < 0)
+			throw new IllegalArgumentException(node + "is not a valid node index in the graph.");
+	}
+
+}
@@ -0,0 +1,36 @@
+package mlogic.algos.graph;
+
+/**
+ * Edge in a flow network that also charges a cost for each unit of flow it
+ * carries. Capacity and cost are longs.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class CostFlowEdge extends FlowEdge {
+
+	/**
+	 * Cost of a unit of flow along the edge
+	 */
+	private long cost;
+
+	/**
+	 * @param from
+	 * @param to
+	 * @param capacity
+	 * @param cost
+	 *            cost of a unit of flow along the edge
+	 */
+	public CostFlowEdge(Integer from, Integer to, long capacity, long cost) {
+		super(from, to, capacity);
+		this.cost = cost;
+	}
+
+	/**
+	 * @return cost of a unit of flow along the edge
+	 */
+	public long cost() {
+		return this.cost;
+	}
+
+}
@@ -0,0 +1,37 @@
+package mlogic.algos.graph;
+
+/**
+ * Flow network whose edges charge a cost per unit of flow, used to find the
+ * cheapest way to route flow. Edges added without a cost carry flow for free.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class CostFlowNetwork extends FlowNetwork {
+
+	/**
+	 * Constructor
+	 * 
+	 * @param nodeCount
+	 */
+	public CostFlowNetwork(Integer nodeCount) {
+		super(nodeCount);
+	}
+
+	/**
+	 * Adds an edge with a cost per unit of flow
+	 * 
+	 * @param from
+	 * @param to
+	 * @param capacity
+	 * @param cost
+	 *            cost of a unit of flow along the edge, may be negative
+	 */
+	public void addEdge(Integer from, Integer to, long capacity, long cost) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Flow network requires positive weighted edges.");
+		put(new CostFlowEdge(from, to, capacity, cost));
+
+	}
+
+}
@@ -1,10 +1,9 @@
 package mlogic.algos.graph;
 
-import java.util.Arrays;
-
 /**
  * Uses DFS to identify cut nodes in a graph. Cut nodes partition the graph when
- * removed.
+ * removed. {@link BiconnectedComponents} finds them without recursion, along
+ * with bridges and blocks.
  * 
  * @author Rajaram G
  *
@@ -108,8 +107,6 @@ public class CutNodeFinder {
 			dfs.execute(graph, v);
 		}
 
-		System.out.println(Arrays.toString(cutNodes));
-
 		return cutNodes;
 	}
 
@@ -1,7 +1,11 @@
 package mlogic.algos.graph;
 
+import java.util.Iterator;
+
 /**
- * Executes depth first search
+ * Executes depth first search. The walk keeps its own stack of nodes instead
+ * of recursing, so its depth is bounded by the size of the graph rather than
+ * the thread stack. Hooks fire in the same order as a recursive walk.
  * 
  * @author Rajaram G
  *
@@ -30,6 +34,11 @@ public class DFS {
 	 */
 	private int[] level;
 
+	/**
+	 * Nodes on the current DFS path, from start node to the node being visited
+	 */
+	private int[] stack;
+
 	/**
 	 * Kill switch
 	 */
@@ -50,30 +59,51 @@ public class DFS {
 		this.graph = graph;
 		this.state = new int[graph.nodeCount];
 		this.level = new int[graph.nodeCount];
+		this.stack = new int[graph.nodeCount];
 		this.level[start] = 0;
+		this.stopWalking = false;
 
 		visit(start);
 
 	}
 
 	/**
-	 * Visit a node and process its edges
+	 * Visits the nodes reachable from the start node and processes their
+	 * edges. The edge iterator of each node on the stack is kept so its walk
+	 * resumes after the sub-tree of a tree edge is finished.
 	 * 
-	 * @param u
-	 *            node to visit
+	 * @param start
+	 *            node to visit first
 	 */
-	private void visit(Integer u) {
-		this.state[u] = PROCESSING;
-		before(u);
-		for (Edge edge : graph.edges[u]) {
-			Integer v = edge.other(u);
+	private void visit(int start) {
+		@SuppressWarnings("unchecked")
+		Iterator<Edge>[] pending = new Iterator[graph.nodeCount];
+		int top = 0;
+		stack[top++] = start;
+		pending[start] = graph.edges[start].iterator();
+		this.state[start] = PROCESSING;
+		before(start);
+		while (top > 0 && !stopWalking) {
+			int u = stack[top - 1];
+			if (!pending[u].hasNext()) {
+				after(u);
+				this.state[u] = PROCESSED;
+				pending[u] = null;
+				top--;
+				continue;
+			}
+			Edge edge = pending[u].next();
+			int v = edge.other(u);
 			processEdge(edge, u);
 			if (this.state[v] == UNVISITED) {
 				// If the next node has not been visited, then this edge
 				// adds to the search tree, hence "Tree Edge"
 				processTreeEdge(edge, u);
 				this.level[v] = this.level[u] + 1;
-				visit(v);
+				stack[top++] = v;
+				pending[v] = graph.edges[v].iterator();
+				this.state[v] = PROCESSING;
+				before(v);
 			} else if (this.state[v] == PROCESSING) {
 				// if the next node is not completely processing, it implies
 				// that the
@@ -101,8 +131,78 @@ public class DFS {
 			}
 
 		}
-		after(u);
-		this.state[u] = PROCESSED;
+
+	}
+
+	/**
+	 * Executes depth first search on a CSR graph starting with specified start
+	 * node. Arcs are passed to the hooks by their index in the CSR arrays, so
+	 * the walk does not allocate an Edge per arc.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 */
+	public void execute(CSRGraph graph, Integer start) {
+		if (graph == null || graph.nodeCount == 0)
+			throw new IllegalArgumentException("No point searching an empty graph");
+
+		this.state = new int[graph.nodeCount];
+		this.level = new int[graph.nodeCount];
+		this.stack = new int[graph.nodeCount];
+		this.level[start] = 0;
+		this.stopWalking = false;
+
+		visit(graph, start);
+
+	}
+
+	/**
+	 * Visits the nodes of a CSR graph reachable from the start node and
+	 * processes their arcs. The next arc of each node on the stack is kept in
+	 * an int array, so the walk allocates nothing beyond its arrays.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            node to visit first
+	 */
+	private void visit(CSRGraph graph, int start) {
+		int[] nextArc = new int[graph.nodeCount];
+		int top = 0;
+		stack[top++] = start;
+		nextArc[start] = graph.offsets[start];
+		this.state[start] = PROCESSING;
+		before(start);
+		while (top > 0 && !stopWalking) {
+			int u = stack[top - 1];
+			if (nextArc[u] == graph.offsets[u + 1]) {
+				after(u);
+				this.state[u] = PROCESSED;
+				top--;
+				continue;
+			}
+			int arc = nextArc[u]++;
+			int v = graph.targets[arc];
+			processEdge(u, arc);
+			if (this.state[v] == UNVISITED) {
+				processTreeEdge(u, arc);
+				this.level[v] = this.level[u] + 1;
+				stack[top++] = v;
+				nextArc[v] = graph.offsets[v];
+				this.state[v] = PROCESSING;
+				before(v);
+			} else if (this.state[v] == PROCESSING) {
+				processBackwardEdge(u, arc);
+			} else if (this.state[v] == PROCESSED) {
+				if (level[u] >= level[v])
+					processCrossEdge(u, arc);
+				else
+					processForwardEdge(u, arc);
+			}
+
+		}
 
 	}
 
@@ -180,7 +280,70 @@ public class DFS {
 	}
 
 	/**
-	 * Activates kill switch
+	 * Process an arc of a CSR graph in the direction pointing away from the
+	 * source node
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to a node already in the current DFS tree
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processBackwardEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to an unvisited node
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processTreeEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to an already processed, different part of the graph
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processCrossEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Process an arc of a CSR graph in the direction pointing from the source
+	 * node to a node below, but one that was an already processed by a
+	 * different part of the graph
+	 * 
+	 * @param source
+	 * @param arc
+	 *            index of the arc in the CSR arrays
+	 */
+	protected void processForwardEdge(int source, int arc) {
+
+	}
+
+	/**
+	 * Activates kill switch. The walk ends before the next edge is processed;
+	 * nodes still on the DFS path are left unfinished and their *after* hook is
+	 * not called.
 	 */
 	protected void stopWalking() {
 		stopWalking = true;
@@ -0,0 +1,530 @@
+package mlogic.algos.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+
+/**
+ * Computes shortest paths from a start node to every node of an edge-weighted
+ * graph using the delta-stepping algorithm of Meyer and Sanders. Nodes are kept
+ * in buckets of width delta by their tentative distance, and the arcs of each
+ * node are split into light arcs, no heavier than delta, and heavy arcs. The
+ * lowest non-empty bucket is emptied in phases: each phase relaxes the light
+ * arcs of all nodes in the bucket in parallel on a fork-join pool, until no
+ * relaxation puts a node back into the bucket. Heavy arcs cannot lead back
+ * into the bucket, so the heavy arcs of all nodes removed from it are relaxed
+ * once, in a last parallel phase. A small delta approaches Dijkstra's
+ * algorithm, and a large delta approaches Bellman-Ford.
+ * <p>
+ * Queued distances lie within the heaviest arc weight of the bucket being
+ * emptied, so the buckets are kept in a cyclic array of ceil(maxWeight /
+ * delta) + 1 bins, bucket b in bin b % bins. The number of bins is capped by
+ * the number of nodes; if the cap is hit, later buckets share bins with
+ * earlier ones and wait in them until their turn, and runs of empty buckets
+ * are skipped. Either way the memory used does not depend on delta.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class DeltaStepping {
+
+	/**
+	 * Bucket nodes relaxed by a single fork-join task
+	 */
+	private static final int NODES_PER_TASK = 256;
+
+	/**
+	 * Relaxes the light or heavy arcs leaving a chunk of the current phase
+	 */
+	private class Phase extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private boolean heavy;
+
+		private Phase(boolean heavy, int from, int to) {
+			super(from, to, 1);
+			this.heavy = heavy;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Phase(heavy, from, to);
+		}
+
+		@Override
+		protected void run() {
+			int[] reached = new int[16];
+			int count = 0;
+			int last = Math.min(frontierSize, (from + 1) * NODES_PER_TASK);
+			for (int i = from * NODES_PER_TASK; i < last; i++) {
+				int u = frontier[i];
+				double d = Double.longBitsToDouble(distance.get(u));
+				int first = heavy ? heavyStart[u] : graph.offsets[u];
+				int end = heavy ? graph.offsets[u + 1] : heavyStart[u];
+				for (int arc = first; arc < end; arc++) {
+					int v = targets[arc];
+					if (relax(u, v, d + weights[arc])) {
+						if (count == reached.length) {
+							int[] grown = new int[count * 2];
+							System.arraycopy(reached, 0, grown, 0, count);
+							reached = grown;
+						}
+						reached[count++] = v;
+					}
+				}
+			}
+			reachedNodes[from] = reached;
+			reachedCount[from] = count;
+		}
+
+	}
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Pool running the phases
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Width of a bucket
+	 */
+	private double delta;
+
+	/**
+	 * Arc targets, with the light arcs of each node before its heavy arcs
+	 */
+	private int[] targets;
+
+	/**
+	 * Arc weights, in the order of *targets*
+	 */
+	private double[] weights;
+
+	/**
+	 * Position of the first heavy arc of each node
+	 */
+	private int[] heavyStart;
+
+	/**
+	 * Tentative distance of each node from start node, as the bits of a double.
+	 * Bits of non-negative doubles order the same way as the doubles.
+	 */
+	private AtomicLongArray distance;
+
+	/**
+	 * Per-node spin locks pairing each distance update with its node update
+	 */
+	private AtomicIntegerArray locks;
+
+	/**
+	 * Array storing the node before each node in shortest path
+	 */
+	private int[] nodeTo;
+
+	/**
+	 * Shortest distance from start node to each node, filled once all buckets
+	 * are empty
+	 */
+	private double[] distanceTo;
+
+	/**
+	 * Bucket each node was last queued in, -1 if it is not queued
+	 */
+	private long[] binOf;
+
+	/**
+	 * Nodes queued in each bin. Entries of nodes that later moved to another
+	 * bucket are left in place and skipped.
+	 */
+	private int[][] bins;
+
+	/**
+	 * Number of entries in each bin
+	 */
+	private int[] binSizes;
+
+	/**
+	 * Number of entries in all bins
+	 */
+	private long queued;
+
+	/**
+	 * Bucket being emptied
+	 */
+	private long bucket;
+
+	/**
+	 * Nodes removed from the bucket being emptied
+	 */
+	private int[] removed;
+
+	/**
+	 * Number of nodes removed from the bucket being emptied
+	 */
+	private int removedSize;
+
+	/**
+	 * Heavy phases run so far
+	 */
+	private int heavyPhases;
+
+	/**
+	 * Number of heavy phases run before each node was last removed from a
+	 * bucket, -1 if never. A node is removed once per heavy phase.
+	 */
+	private int[] removedBefore;
+
+	/**
+	 * Nodes queued for the current phase
+	 */
+	private int[] frontier;
+
+	/**
+	 * Number of nodes relaxed by the current phase
+	 */
+	private int frontierSize;
+
+	/**
+	 * Nodes whose distance was reduced, per chunk of the current phase
+	 */
+	private int[][] reachedNodes;
+
+	/**
+	 * Number of nodes whose distance was reduced, per chunk of the current
+	 * phase
+	 */
+	private int[] reachedCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param delta
+	 *            width of a bucket
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public DeltaStepping(Graph graph, Integer start, double delta, ForkJoinPool pool) {
+		this(new CSRGraph(graph), start, delta, pool);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param delta
+	 *            width of a bucket
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public DeltaStepping(CSRGraph graph, Integer start, double delta, ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		if (start < 0 || start >= graph.nodeCount)
+			throw new IllegalArgumentException(start + " out of range.");
+		if (!(delta > 0) || Double.isInfinite(delta))
+			throw new IllegalArgumentException("Bucket width must be a positive number.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		for (int arc = 0; arc < graph.arcCount(); arc++)
+			if (graph.weights[arc] < 0)
+				throw new NegativeEdgeWeightException(
+						"Delta-stepping cannot be applied to a graph with negative edges.");
+
+		this.graph = graph;
+		this.delta = delta;
+		this.pool = pool;
+		compute(start);
+
+	}
+
+	/**
+	 * @return shortest distance from start node to each node,
+	 *         Double.POSITIVE_INFINITY for nodes not reachable
+	 */
+	public double[] distanceTo() {
+		return distanceTo;
+	}
+
+	/**
+	 * @return node before each node in its shortest path, -1 for start node
+	 *         and nodes not reachable
+	 */
+	public int[] nodeTo() {
+		return nodeTo;
+	}
+
+	/**
+	 * Empties the buckets in increasing order
+	 * 
+	 * @param start
+	 *            start node
+	 */
+	private void compute(int start) {
+		int nodeCount = graph.nodeCount;
+		distance = new AtomicLongArray(nodeCount);
+		locks = new AtomicIntegerArray(nodeCount);
+		nodeTo = new int[nodeCount];
+		binOf = new long[nodeCount];
+		removedBefore = new int[nodeCount];
+		long unreached = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+		for (int v = 0; v < nodeCount; v++) {
+			distance.set(v, unreached);
+			nodeTo[v] = -1;
+			binOf[v] = -1;
+			removedBefore[v] = -1;
+		}
+		double maxWeight = splitArcs();
+		double binCount = Math.ceil(maxWeight / delta) + 1;
+		bins = new int[(int) Math.min(binCount, Math.max(16, nodeCount))][];
+		binSizes = new int[bins.length];
+		removed = new int[16];
+		distance.set(start, Double.doubleToLongBits(0));
+		queue(0, start);
+
+		bucket = 0;
+		long emptyBuckets = 0;
+		while (queued > 0) {
+			takeBucket();
+			if (frontierSize == 0) {
+				if (++emptyBuckets < bins.length)
+					bucket++;
+				else {
+					bucket = lowestQueuedBucket();
+					emptyBuckets = 0;
+				}
+				continue;
+			}
+			emptyBuckets = 0;
+			removedSize = 0;
+			do {
+				while (frontierSize > 0) {
+					remove();
+					runPhase(false);
+				}
+				// Heavy arcs leave the bucket, barring rounding
+				frontier = removed;
+				frontierSize = removedSize;
+				removedSize = 0;
+				runPhase(true);
+				heavyPhases++;
+			} while (frontierSize > 0);
+			bucket++;
+		}
+
+		distanceTo = new double[nodeCount];
+		for (int v = 0; v < nodeCount; v++)
+			distanceTo[v] = Double.longBitsToDouble(distance.get(v));
+	}
+
+	/**
+	 * Orders the arcs of each node with the light arcs first
+	 * 
+	 * @return weight of the heaviest arc
+	 */
+	private double splitArcs() {
+		int arcCount = graph.arcCount();
+		targets = new int[arcCount];
+		weights = new double[arcCount];
+		heavyStart = new int[graph.nodeCount];
+		double maxWeight = 0;
+		for (int u = 0; u < graph.nodeCount; u++) {
+			int light = graph.offsets[u];
+			int heavy = graph.offsets[u + 1];
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				double weight = graph.weights[arc];
+				maxWeight = Math.max(maxWeight, weight);
+				int at = weight <= delta ? light++ : --heavy;
+				targets[at] = graph.targets[arc];
+				weights[at] = weight;
+			}
+			heavyStart[u] = light;
+		}
+		return maxWeight;
+	}
+
+	/**
+	 * Moves the nodes of the current bucket out of its bin into the frontier,
+	 * leaving the nodes of later buckets sharing the bin in place and dropping
+	 * stale entries
+	 */
+	private void takeBucket() {
+		int bin = (int) (bucket % bins.length);
+		int[] entries = bins[bin];
+		int size = binSizes[bin];
+		frontier = new int[Math.max(size, 16)];
+		frontierSize = 0;
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			int v = entries[i];
+			if (binOf[v] == bucket)
+				frontier[frontierSize++] = v;
+			else if (binOf[v] > bucket && binOf[v] % bins.length == bin)
+				entries[kept++] = v;
+		}
+		queued -= size - kept;
+		binSizes[bin] = kept;
+		if (kept == 0)
+			bins[bin] = null;
+	}
+
+	/**
+	 * @return lowest bucket holding a queued node, or the current bucket if
+	 *         every entry left is stale
+	 */
+	private long lowestQueuedBucket() {
+		long lowest = Long.MAX_VALUE;
+		for (int bin = 0; bin < bins.length; bin++)
+			for (int i = 0; i < binSizes[bin]; i++) {
+				long b = binOf[bins[bin][i]];
+				if (b >= bucket)
+					lowest = Math.min(lowest, b);
+			}
+		if (lowest != Long.MAX_VALUE)
+			return lowest;
+		// Only stale entries are left
+		for (int bin = 0; bin < bins.length; bin++) {
+			bins[bin] = null;
+			binSizes[bin] = 0;
+		}
+		queued = 0;
+		return bucket;
+	}
+
+	/**
+	 * Marks the frontier nodes as no longer queued and adds them to the nodes
+	 * removed from the bucket, once each
+	 */
+	private void remove() {
+		for (int i = 0; i < frontierSize; i++) {
+			int v = frontier[i];
+			binOf[v] = -1;
+			if (removedBefore[v] == heavyPhases)
+				continue;
+			removedBefore[v] = heavyPhases;
+			if (removedSize == removed.length) {
+				int[] grown = new int[removedSize * 2];
+				System.arraycopy(removed, 0, grown, 0, removedSize);
+				removed = grown;
+			}
+			removed[removedSize++] = v;
+		}
+	}
+
+	/**
+	 * Relaxes the light or heavy arcs of the frontier nodes in parallel, then
+	 * queues the nodes reached
+	 */
+	private void runPhase(boolean heavy) {
+		int chunks = (frontierSize + NODES_PER_TASK - 1) / NODES_PER_TASK;
+		reachedNodes = new int[chunks][];
+		reachedCount = new int[chunks];
+		if (chunks > 0)
+			pool.invoke(new Phase(heavy, 0, chunks));
+		requeue(chunks);
+	}
+
+	/**
+	 * Queues the nodes reached by the last phase in the buckets of their new
+	 * distances. Nodes that stay in the current bucket form the next phase.
+	 * 
+	 * @param chunks
+	 *            number of chunks of the last phase
+	 */
+	private void requeue(int chunks) {
+		int[] next = new int[16];
+		int nextSize = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			for (int i = 0; i < reachedCount[chunk]; i++) {
+				int v = reachedNodes[chunk][i];
+				long b = bucketOf(Double.longBitsToDouble(distance.get(v)));
+				if (binOf[v] == b)
+					continue;
+				if (b == bucket) {
+					binOf[v] = b;
+					if (nextSize == next.length) {
+						int[] grown = new int[nextSize * 2];
+						System.arraycopy(next, 0, grown, 0, nextSize);
+						next = grown;
+					}
+					next[nextSize++] = v;
+				} else
+					queue(b, v);
+			}
+		}
+		frontier = next;
+		frontierSize = nextSize;
+	}
+
+	/**
+	 * Adds a node to the bin of a bucket
+	 * 
+	 * @param b
+	 *            bucket index
+	 * @param v
+	 *            node
+	 */
+	private void queue(long b, int v) {
+		int i = (int) (b % bins.length);
+		if (bins[i] == null)
+			bins[i] = new int[16];
+		else if (binSizes[i] == bins[i].length) {
+			int[] grown = new int[binSizes[i] * 2];
+			System.arraycopy(bins[i], 0, grown, 0, binSizes[i]);
+			bins[i] = grown;
+		}
+		bins[i][binSizes[i]++] = v;
+		binOf[v] = b;
+		queued++;
+	}
+
+	/**
+	 * Lowers the distance to *v* if the path through *u* is shorter. The
+	 * distance is checked without the lock first, so most failed relaxations
+	 * do not contend.
+	 * 
+	 * @param u
+	 *            node being relaxed
+	 * @param v
+	 *            neighbor of *u*
+	 * @param newDistance
+	 *            distance to *v* through *u*
+	 * @return true if the distance to *v* was reduced
+	 */
+	private boolean relax(int u, int v, double newDistance) {
+		long bits = Double.doubleToLongBits(newDistance);
+		if (bits >= distance.get(v))
+			return false;
+		while (!locks.compareAndSet(v, 0, 1))
+			Thread.yield();
+		boolean reduced = bits < distance.get(v);
+		if (reduced) {
+			distance.set(v, bits);
+			nodeTo[v] = u;
+		}
+		locks.set(v, 0);
+		return reduced;
+	}
+
+	/**
+	 * @param d
+	 *            distance from start node
+	 * @return index of the bucket holding the distance
+	 */
+	private long bucketOf(double d) {
+		return (long) (d / delta);
+	}
+
+}
@@ -0,0 +1,229 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+/**
+ * Computes maxflow / mincut in a flow network using Dinic's algorithm. Each
+ * phase labels the nodes with their BFS distance from source in the residual
+ * graph and then saturates the level graph, the arcs leading one level up,
+ * with a blocking flow found by depth-first search. Each node keeps a current
+ * arc so that arcs found useless are not scanned again in the phase, and a
+ * phase takes O(VE) time. The distance from source to sink grows with every
+ * phase, so there are at most V phases. The search is iterative and works on
+ * the primitive arrays of a {@link ResidualNetwork}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class Dinic {
+
+	/**
+	 * Residual graph of the flow network
+	 */
+	private ResidualNetwork network;
+
+	/**
+	 * Source node for maxflow computation
+	 */
+	private int source;
+
+	/**
+	 * Target node for maxflow computation
+	 */
+	private int sink;
+
+	/**
+	 * BFS distance of each node from source in the residual graph, -1 for
+	 * nodes not reached or found to be dead ends in the current phase
+	 */
+	private int[] level;
+
+	/**
+	 * Next arc of each node to try in the current phase
+	 */
+	private int[] current;
+
+	/**
+	 * Queue of the BFS
+	 */
+	private int[] queue;
+
+	/**
+	 * Arcs of the path being extended from source
+	 */
+	private int[] path;
+
+	/**
+	 * Total flow through the network
+	 */
+	private long totalFlow;
+
+	/**
+	 * Nodes on the source side of the min cut
+	 */
+	private boolean[] connectedToSource;
+
+	/**
+	 * Constructor. Flows are written back to the edges of the network under
+	 * {@link Edge.Arithmetic#LONG}.
+	 * 
+	 * @param graph
+	 *            flow network with integral capacities
+	 * @param source
+	 * @param sink
+	 */
+	public Dinic(FlowNetwork graph, Integer source, Integer sink) {
+		this(new ResidualNetwork(graph), source, sink);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param network
+	 *            residual graph of the flow network, any flow on it is
+	 *            discarded
+	 * @param source
+	 * @param sink
+	 */
+	public Dinic(ResidualNetwork network, Integer source, Integer sink) {
+		if (source < 0 || source >= network.nodeCount)
+			throw new IllegalArgumentException(source + " out of range.");
+		if (sink < 0 || sink >= network.nodeCount)
+			throw new IllegalArgumentException(sink + " out of range.");
+		this.network = network;
+		this.source = source;
+		this.sink = sink;
+		int nodeCount = network.nodeCount;
+		level = new int[nodeCount];
+		current = new int[nodeCount];
+		queue = new int[nodeCount];
+		path = new int[nodeCount];
+
+		network.clearFlow();
+		if (this.source != this.sink)
+			while (buildLevelGraph())
+				totalFlow += blockingFlow();
+		connectedToSource = network.reachableFrom(this.source);
+		network.writeFlow();
+
+	}
+
+	/**
+	 * @return max flow through network
+	 */
+	public BigDecimal maxFlow() {
+		return BigDecimal.valueOf(totalFlow);
+	}
+
+	/**
+	 * @return max flow through network as a long
+	 */
+	public long longMaxFlow() {
+		return totalFlow;
+	}
+
+	/**
+	 * Computes min cut by adding up capacity of all edges leading from the
+	 * nodes reachable from source in the final residual graph to the rest
+	 * 
+	 * @return Sum of capacities of the edges in the min cut.
+	 */
+	public BigDecimal minCut() {
+		return BigDecimal.valueOf(network.cutCapacity(connectedToSource));
+	}
+
+	/**
+	 * @param node
+	 * @return true if the node is on the source side of the min cut
+	 */
+	public boolean inCut(int node) {
+		if (node < 0 || node >= network.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		return connectedToSource[node];
+	}
+
+	/**
+	 * Labels the nodes with their BFS distance from source through arcs with
+	 * residual capacity and resets the current arcs
+	 * 
+	 * @return true if sink is reachable
+	 */
+	private boolean buildLevelGraph() {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		for (int v = 0; v < level.length; v++)
+			level[v] = -1;
+		level[source] = 0;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int w = targets[arc];
+				if (level[w] == -1 && residual[arc] > 0) {
+					level[w] = level[u] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		System.arraycopy(offsets, 0, current, 0, level.length);
+		return level[sink] != -1;
+	}
+
+	/**
+	 * Pushes flow along paths of the level graph until none is left. The path
+	 * is extended from its last node through the current arc. At sink, the
+	 * bottleneck is pushed along the path and the path is cut back to the tail
+	 * of its first saturated arc. At a dead end, the node is dropped from the
+	 * level graph and the path retreats one arc.
+	 * 
+	 * @return flow added in this phase
+	 */
+	private long blockingFlow() {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int[] reverse = network.reverse;
+		long phaseFlow = 0;
+		int length = 0;
+		int u = source;
+		while (true) {
+			if (u == sink) {
+				long bottleneck = Long.MAX_VALUE;
+				for (int i = 0; i < length; i++)
+					bottleneck = Math.min(bottleneck, residual[path[i]]);
+				int cut = -1;
+				for (int i = 0; i < length; i++) {
+					residual[path[i]] -= bottleneck;
+					residual[reverse[path[i]]] += bottleneck;
+					if (cut == -1 && residual[path[i]] == 0)
+						cut = i;
+				}
+				phaseFlow += bottleneck;
+				length = cut;
+				u = cut == 0 ? source : targets[path[cut - 1]];
+				continue;
+			}
+			int arc = current[u];
+			int end = offsets[u + 1];
+			while (arc < end && (residual[arc] == 0 || level[targets[arc]] != level[u] + 1))
+				arc++;
+			current[u] = arc;
+			if (arc < end) {
+				path[length++] = arc;
+				u = targets[arc];
+				continue;
+			}
+			level[u] = -1;
+			if (u == source)
+				break;
+			length--;
+			u = length == 0 ? source : targets[path[length - 1]];
+			current[u]++;
+		}
+		return phaseFlow;
+	}
+
+}
@@ -25,10 +25,7 @@ public class DirectedGraph extends Graph {
 	 */
 	@Override
 	public void addEdge(Integer from, Integer to) {
-		Edge edge = new Edge(from, to);
-		// Allow duplicate edges
-		this.edges[from].put(edge);
-		this.edgeCount++;
+		put(new Edge(from, to));
 
 	}
 
@@ -41,9 +38,44 @@ public class DirectedGraph extends Graph {
 	 */
 	@Override
 	public void addEdge(Integer from, Integer to, BigDecimal weight) {
-		Edge edge = new Edge(from, to, weight);
+		put(new Edge(from, to, weight));
+
+	}
+
+	/**
+	 * Add a weighted edge
+	 * 
+	 * @param from
+	 * @param to
+	 * @param weight
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Double weight) {
+		put(new Edge(from, to, weight.doubleValue()));
+
+	}
+
+	/**
+	 * Add a weighted edge
+	 * 
+	 * @param from
+	 * @param to
+	 * @param weight
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Long weight) {
+		put(new Edge(from, to, weight.longValue()));
+
+	}
+
+	/**
+	 * Adds an edge to the adjacency list of its source node
+	 * 
+	 * @param edge
+	 */
+	private void put(Edge edge) {
 		// Allow duplicate edges
-		this.edges[from].put(edge);
+		this.edges[edge.from()].put(edge);
 		this.edgeCount++;
 
 	}
@@ -62,6 +94,7 @@ public class DirectedGraph extends Graph {
 				reverse.edges[e.other(v)].put(r);
 			}
 		}
+		reverse.edgeCount = this.edgeCount;
 		return reverse;
 	}
 }
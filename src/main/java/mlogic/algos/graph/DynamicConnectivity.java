@@ -0,0 +1,765 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the connected components of an undirected graph while edges
+ * are added and removed, using the algorithm of Holm, de Lichtenberg and
+ * Thorup. Queries take O(log V) time and updates O(log^2 V) amortized time.
+ * <p>
+ * Every edge has a level, starting at 0 and never above log V. Forest F_i
+ * spans the edges of level i and above, so F_0 is a spanning forest of the
+ * graph, and every tree of F_i holds at most V / 2^i nodes. Each forest is
+ * kept as Euler tours in splay trees, in which a tour can be split and joined
+ * in O(log V) time. When a tree edge of level l is removed, the smaller of
+ * the two trees it leaves in each F_i, for i from l down to 0, is searched for
+ * a replacement among the non-tree edges of level i leaving it. Its tree
+ * edges of level i and every non-tree edge of level i found inside it are
+ * first raised a level, which pays for the search. Splay tree nodes record
+ * whether their subtree holds tree edges or nodes with non-tree edges of the
+ * forest's level, so these are found without scanning the tree.
+ * <p>
+ * Components are identified by their lowest node. Self loops and parallel
+ * edges are ignored.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class DynamicConnectivity {
+
+	/**
+	 * Occurrence of a node or an arc in an Euler tour, held in a splay tree
+	 * ordered by tour position
+	 */
+	private static class EulerNode {
+
+		private EulerNode left;
+		private EulerNode right;
+		private EulerNode parent;
+
+		/**
+		 * Node of the graph, or -1 for arcs
+		 */
+		private int node;
+
+		/**
+		 * Edge of arcs
+		 */
+		private EdgeRecord edge;
+
+		/**
+		 * True on one arc of each tree edge whose level is the forest's level
+		 */
+		private boolean treeEdge;
+
+		/**
+		 * True on nodes with non-tree edges of the forest's level
+		 */
+		private boolean nonTreeEdges;
+
+		/**
+		 * Number of graph nodes in the subtree
+		 */
+		private int size;
+
+		/**
+		 * Lowest graph node in the subtree
+		 */
+		private int lowest;
+
+		/**
+		 * True if a node of the subtree has *treeEdge* set
+		 */
+		private boolean subtreeTreeEdge;
+
+		/**
+		 * True if a node of the subtree has *nonTreeEdges* set
+		 */
+		private boolean subtreeNonTreeEdges;
+
+		private EulerNode(int node, EdgeRecord edge) {
+			this.node = node;
+			this.edge = edge;
+			update();
+		}
+
+		/**
+		 * Recomputes the subtree fields from the children
+		 */
+		private void update() {
+			size = node >= 0 ? 1 : 0;
+			lowest = node >= 0 ? node : Integer.MAX_VALUE;
+			subtreeTreeEdge = treeEdge;
+			subtreeNonTreeEdges = nonTreeEdges;
+			if (left != null) {
+				size += left.size;
+				lowest = Math.min(lowest, left.lowest);
+				subtreeTreeEdge |= left.subtreeTreeEdge;
+				subtreeNonTreeEdges |= left.subtreeNonTreeEdges;
+			}
+			if (right != null) {
+				size += right.size;
+				lowest = Math.min(lowest, right.lowest);
+				subtreeTreeEdge |= right.subtreeTreeEdge;
+				subtreeNonTreeEdges |= right.subtreeNonTreeEdges;
+			}
+		}
+
+	}
+
+	/**
+	 * Edge of the graph
+	 */
+	private static class EdgeRecord {
+
+		/**
+		 * Lower end point
+		 */
+		private int u;
+
+		/**
+		 * Higher end point
+		 */
+		private int v;
+
+		private int level;
+
+		private boolean tree;
+
+		/**
+		 * Arcs u to v and v to u of a tree edge in each forest up to its level
+		 */
+		private EulerNode[] arcs;
+
+		/**
+		 * Positions of a non-tree edge in the edge lists of u and v
+		 */
+		private int indexU;
+		private int indexV;
+
+		private EdgeRecord(int u, int v) {
+			this.u = u;
+			this.v = v;
+		}
+
+	}
+
+	/**
+	 * Growable list of the non-tree edges of one level at one node. Edges are
+	 * removed by moving the last edge into their place.
+	 */
+	private static class EdgeList {
+
+		private EdgeRecord[] edges = new EdgeRecord[2];
+		private int size;
+
+	}
+
+	/**
+	 * Open addressing hash table from pairs of end points to edges, with
+	 * linear probing
+	 */
+	private static class EdgeTable {
+
+		private long[] keys = new long[16];
+		private EdgeRecord[] values = new EdgeRecord[16];
+		private int size;
+
+		private EdgeRecord get(long key) {
+			int mask = keys.length - 1;
+			for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask)
+				if (keys[slot] == key)
+					return values[slot];
+			return null;
+		}
+
+		private void put(long key, EdgeRecord value) {
+			if (2 * (size + 1) > keys.length)
+				resize(keys.length * 2);
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (values[slot] != null)
+				slot = (slot + 1) & mask;
+			keys[slot] = key;
+			values[slot] = value;
+			size++;
+		}
+
+		private void remove(long key) {
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (keys[slot] != key || values[slot] == null)
+				slot = (slot + 1) & mask;
+			// Shift back the entries after the hole that probed past it
+			int hole = slot;
+			for (slot = (slot + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+				int home = hash(keys[slot]) & mask;
+				if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+					keys[hole] = keys[slot];
+					values[hole] = values[slot];
+					hole = slot;
+				}
+			}
+			values[hole] = null;
+			size--;
+		}
+
+		private void resize(int capacity) {
+			long[] oldKeys = keys;
+			EdgeRecord[] oldValues = values;
+			keys = new long[capacity];
+			values = new EdgeRecord[capacity];
+			size = 0;
+			for (int slot = 0; slot < oldKeys.length; slot++)
+				if (oldValues[slot] != null)
+					put(oldKeys[slot], oldValues[slot]);
+		}
+
+		private static int hash(long key) {
+			key *= 0x9E3779B97F4A7C15L;
+			return (int) (key ^ (key >>> 32));
+		}
+
+	}
+
+	/**
+	 * Number of nodes
+	 */
+	private int nodeCount;
+
+	/**
+	 * Node occurrences of each forest, indexed by level and node. Levels and
+	 * nodes get them when first needed, a node without one is alone in its
+	 * tree.
+	 */
+	private EulerNode[][] nodes;
+
+	/**
+	 * Non-tree edges of each level at each node, created when first needed
+	 */
+	private EdgeList[][] nonTree;
+
+	/**
+	 * Edges by their end points
+	 */
+	private EdgeTable edges = new EdgeTable();
+
+	/**
+	 * Number of connected components
+	 */
+	private int componentCount;
+
+	/**
+	 * Constructor for a graph without edges
+	 * 
+	 * @param nodeCount
+	 *            number of nodes
+	 */
+	public DynamicConnectivity(int nodeCount) {
+		if (nodeCount <= 0)
+			throw new IllegalArgumentException("Empty graph.");
+		this.nodeCount = nodeCount;
+		this.componentCount = nodeCount;
+		// Trees of F_i hold at most V / 2^i nodes, so levels stay below
+		// log V + 1
+		int levels = 33 - Integer.numberOfLeadingZeros(nodeCount);
+		nodes = new EulerNode[levels][];
+		nonTree = new EdgeList[levels][];
+	}
+
+	/**
+	 * Constructor. Starts with the edges of the graph; later changes to the
+	 * graph are not seen.
+	 * 
+	 * @param graph
+	 *            Undirected graph
+	 */
+	public DynamicConnectivity(UndirectedGraph graph) {
+		this(checkedNodeCount(graph));
+		for (int u = 0; u < graph.nodeCount; u++)
+			for (Edge e : graph.edges[u])
+				if (e.from().intValue() == u)
+					addEdge(u, e.to());
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return edges.size;
+	}
+
+	/**
+	 * @return number of connected components
+	 */
+	public int componentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Adds an edge
+	 * 
+	 * @param u
+	 * @param v
+	 * @return true if the edge was added, false for self loops and edges
+	 *         already present
+	 */
+	public boolean addEdge(int u, int v) {
+		checkValidNode(u);
+		checkValidNode(v);
+		if (u == v)
+			return false;
+		long key = key(u, v);
+		if (edges.get(key) != null)
+			return false;
+		EdgeRecord e = new EdgeRecord(Math.min(u, v), Math.max(u, v));
+		edges.put(key, e);
+		if (connected(u, v)) {
+			addNonTree(e);
+		} else {
+			e.tree = true;
+			e.arcs = new EulerNode[2];
+			link(0, e);
+			componentCount--;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an edge
+	 * 
+	 * @param u
+	 * @param v
+	 * @return true if the edge was removed, false if it was not present
+	 */
+	public boolean removeEdge(int u, int v) {
+		checkValidNode(u);
+		checkValidNode(v);
+		long key = key(u, v);
+		EdgeRecord e = edges.get(key);
+		if (e == null)
+			return false;
+		edges.remove(key);
+		if (!e.tree) {
+			removeNonTree(e);
+			return true;
+		}
+
+		for (int level = e.level; level >= 0; level--)
+			cut(level, e);
+		for (int level = e.level; level >= 0; level--)
+			if (replace(level, e.u, e.v))
+				return true;
+		componentCount++;
+		return true;
+	}
+
+	/**
+	 * @param u
+	 * @param v
+	 * @return true if the graph has an edge between u and v
+	 */
+	public boolean hasEdge(int u, int v) {
+		checkValidNode(u);
+		checkValidNode(v);
+		return edges.get(key(u, v)) != null;
+	}
+
+	/**
+	 * @param u
+	 * @param v
+	 * @return true if there is a path between u and v
+	 */
+	public boolean connected(int u, int v) {
+		checkValidNode(u);
+		checkValidNode(v);
+		return u == v || connected(0, u, v);
+	}
+
+	/**
+	 * @param node
+	 * @return lowest node of the component holding *node*
+	 */
+	public int component(int node) {
+		checkValidNode(node);
+		EulerNode x = node(0, node);
+		if (x == null)
+			return node;
+		splay(x);
+		return x.lowest;
+	}
+
+	/**
+	 * Numbers the components in the order of their lowest node, as
+	 * {@link ConnectedComponents} does
+	 * 
+	 * @return array that stores the connected component index
+	 */
+	public Integer[] connectedComponentArray() {
+		Integer[] connected = new Integer[nodeCount];
+		int next = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			int lowest = component(v);
+			connected[v] = lowest == v ? next++ : connected[lowest];
+		}
+		return connected;
+	}
+
+	/**
+	 * Looks for a replacement for a removed tree edge among the non-tree edges
+	 * of one level. Searches the smaller of the two trees the edge left in
+	 * F_level, after raising its tree edges of that level.
+	 * 
+	 * @param level
+	 * @param u
+	 *            one end of the removed edge
+	 * @param v
+	 *            other end of the removed edge
+	 * @return true if a replacement was found and made a tree edge
+	 */
+	private boolean replace(int level, int u, int v) {
+		int small = treeSize(level, u) <= treeSize(level, v) ? u : v;
+		EulerNode x = node(level, small);
+		// A node alone in its tree has no edges of this level
+		if (x == null)
+			return false;
+
+		while (true) {
+			splay(x);
+			if (!x.subtreeTreeEdge)
+				break;
+			EulerNode arc = findFlagged(x, true);
+			EdgeRecord e = arc.edge;
+			setTreeEdge(arc, false);
+			e.level++;
+			e.arcs = Arrays.copyOf(e.arcs, 2 * (e.level + 1));
+			link(e.level, e);
+		}
+
+		while (true) {
+			splay(x);
+			if (!x.subtreeNonTreeEdges)
+				return false;
+			EulerNode y = findFlagged(x, false);
+			EdgeList list = nonTree[level][y.node];
+			while (list.size > 0) {
+				EdgeRecord e = list.edges[list.size - 1];
+				removeNonTree(e);
+				int other = e.u == y.node ? e.v : e.u;
+				if (!connected(level, y.node, other)) {
+					e.tree = true;
+					e.arcs = new EulerNode[2 * (level + 1)];
+					for (int i = 0; i <= level; i++)
+						link(i, e);
+					return true;
+				}
+				e.level++;
+				addNonTree(e);
+			}
+		}
+	}
+
+	/**
+	 * @return number of nodes in the tree of F_level holding *node*
+	 */
+	private int treeSize(int level, int node) {
+		EulerNode x = node(level, node);
+		if (x == null)
+			return 1;
+		splay(x);
+		return x.size;
+	}
+
+	/**
+	 * @return true if u and v are in the same tree of F_level
+	 */
+	private boolean connected(int level, int u, int v) {
+		EulerNode x = node(level, u);
+		EulerNode y = node(level, v);
+		if (x == null || y == null)
+			return false;
+		splay(x);
+		splay(y);
+		// Splaying y moves x off the root only if they share a tree
+		return x.parent != null;
+	}
+
+	/**
+	 * Joins the trees of F_level holding the ends of a tree edge. The tour
+	 * starting at u, the arc u to v, the tour starting at v and the arc v to u
+	 * are concatenated.
+	 */
+	private void link(int level, EdgeRecord e) {
+		EulerNode tourU = reroot(nodeOrCreate(level, e.u));
+		EulerNode tourV = reroot(nodeOrCreate(level, e.v));
+		EulerNode arcUV = new EulerNode(-1, e);
+		EulerNode arcVU = new EulerNode(-1, e);
+		e.arcs[2 * level] = arcUV;
+		e.arcs[2 * level + 1] = arcVU;
+		if (e.level == level) {
+			arcUV.treeEdge = true;
+			arcUV.update();
+		}
+		join(join(join(tourU, arcUV), tourV), arcVU);
+	}
+
+	/**
+	 * Splits the tree of F_level holding a tree edge in two. The part of the
+	 * tour between the two arcs of the edge becomes one tree, and the parts
+	 * before and after them the other.
+	 */
+	private void cut(int level, EdgeRecord e) {
+		EulerNode first = e.arcs[2 * level];
+		EulerNode second = e.arcs[2 * level + 1];
+		e.arcs[2 * level] = null;
+		e.arcs[2 * level + 1] = null;
+		splay(first);
+		EulerNode before = detachLeft(first);
+		EulerNode after = detachRight(first);
+		EulerNode top = second;
+		while (top.parent != null)
+			top = top.parent;
+		splay(second);
+		if (top == after) {
+			// The part between the arcs is left of the second one
+			detachLeft(second);
+			join(before, detachRight(second));
+		} else {
+			// The part between the arcs is right of the second one
+			EulerNode outer = detachLeft(second);
+			detachRight(second);
+			join(outer, after);
+		}
+	}
+
+	/**
+	 * Makes a node occurrence the start of its tour
+	 * 
+	 * @return root of the splay tree of the tour
+	 */
+	private EulerNode reroot(EulerNode x) {
+		splay(x);
+		EulerNode before = detachLeft(x);
+		return join(x, before);
+	}
+
+	/**
+	 * Concatenates two tours
+	 * 
+	 * @return root of the splay tree of the joined tour
+	 */
+	private EulerNode join(EulerNode a, EulerNode b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		EulerNode last = a;
+		while (last.parent != null)
+			last = last.parent;
+		while (last.right != null)
+			last = last.right;
+		splay(last);
+		EulerNode top = b;
+		while (top.parent != null)
+			top = top.parent;
+		last.right = top;
+		top.parent = last;
+		last.update();
+		return last;
+	}
+
+	/**
+	 * Cuts off the left subtree of a splay tree root
+	 * 
+	 * @return the subtree cut off
+	 */
+	private EulerNode detachLeft(EulerNode x) {
+		EulerNode left = x.left;
+		if (left != null) {
+			left.parent = null;
+			x.left = null;
+			x.update();
+		}
+		return left;
+	}
+
+	/**
+	 * Cuts off the right subtree of a splay tree root
+	 * 
+	 * @return the subtree cut off
+	 */
+	private EulerNode detachRight(EulerNode x) {
+		EulerNode right = x.right;
+		if (right != null) {
+			right.parent = null;
+			x.right = null;
+			x.update();
+		}
+		return right;
+	}
+
+	/**
+	 * Finds a node of a splay tree with the tree edge or the non-tree edges
+	 * flag set and splays it to the root
+	 * 
+	 * @param root
+	 *            root of the splay tree, with the flag set in its subtree
+	 * @param treeEdge
+	 *            true to look for tree edges, false for non-tree edges
+	 */
+	private EulerNode findFlagged(EulerNode root, boolean treeEdge) {
+		EulerNode x = root;
+		while (true) {
+			if (x.left != null && (treeEdge ? x.left.subtreeTreeEdge : x.left.subtreeNonTreeEdges))
+				x = x.left;
+			else if (treeEdge ? x.treeEdge : x.nonTreeEdges)
+				break;
+			else
+				x = x.right;
+		}
+		splay(x);
+		return x;
+	}
+
+	private void setTreeEdge(EulerNode arc, boolean flag) {
+		splay(arc);
+		arc.treeEdge = flag;
+		arc.update();
+	}
+
+	private void setNonTreeEdges(EulerNode x, boolean flag) {
+		splay(x);
+		x.nonTreeEdges = flag;
+		x.update();
+	}
+
+	/**
+	 * Adds a non-tree edge to the edge lists of its level at both ends
+	 */
+	private void addNonTree(EdgeRecord e) {
+		e.indexU = append(e.level, e.u, e);
+		e.indexV = append(e.level, e.v, e);
+	}
+
+	/**
+	 * Removes a non-tree edge from the edge lists of its level at both ends
+	 */
+	private void removeNonTree(EdgeRecord e) {
+		removeAt(e.level, e.u, e.indexU);
+		removeAt(e.level, e.v, e.indexV);
+	}
+
+	/**
+	 * @return position of the edge in the list
+	 */
+	private int append(int level, int node, EdgeRecord e) {
+		if (nonTree[level] == null)
+			nonTree[level] = new EdgeList[nodeCount];
+		EdgeList list = nonTree[level][node];
+		if (list == null)
+			list = nonTree[level][node] = new EdgeList();
+		if (list.size == list.edges.length)
+			list.edges = Arrays.copyOf(list.edges, 2 * list.size);
+		list.edges[list.size] = e;
+		if (list.size == 0)
+			setNonTreeEdges(nodeOrCreate(level, node), true);
+		return list.size++;
+	}
+
+	private void removeAt(int level, int node, int index) {
+		EdgeList list = nonTree[level][node];
+		EdgeRecord last = list.edges[--list.size];
+		list.edges[index] = last;
+		list.edges[list.size] = null;
+		if (last.u == node)
+			last.indexU = index;
+		else
+			last.indexV = index;
+		if (list.size == 0)
+			setNonTreeEdges(node(level, node), false);
+	}
+
+	/**
+	 * @return occurrence of a node in F_level, null if it has none
+	 */
+	private EulerNode node(int level, int node) {
+		return nodes[level] == null ? null : nodes[level][node];
+	}
+
+	/**
+	 * @return occurrence of a node in F_level, created alone in its tree if
+	 *         it has none
+	 */
+	private EulerNode nodeOrCreate(int level, int node) {
+		if (nodes[level] == null)
+			nodes[level] = new EulerNode[nodeCount];
+		EulerNode x = nodes[level][node];
+		if (x == null)
+			x = nodes[level][node] = new EulerNode(node, null);
+		return x;
+	}
+
+	/**
+	 * Moves a node to the root of its splay tree by rotations
+	 */
+	private static void splay(EulerNode x) {
+		while (x.parent != null) {
+			EulerNode p = x.parent;
+			EulerNode g = p.parent;
+			if (g != null)
+				rotate((g.left == p) == (p.left == x) ? p : x);
+			rotate(x);
+		}
+	}
+
+	/**
+	 * Rotates a node above its parent
+	 */
+	private static void rotate(EulerNode x) {
+		EulerNode p = x.parent;
+		EulerNode g = p.parent;
+		if (p.left == x) {
+			p.left = x.right;
+			if (x.right != null)
+				x.right.parent = p;
+			x.right = p;
+		} else {
+			p.right = x.left;
+			if (x.left != null)
+				x.left.parent = p;
+			x.left = p;
+		}
+		p.parent = x;
+		x.parent = g;
+		if (g != null) {
+			if (g.left == p)
+				g.left = x;
+			else
+				g.right = x;
+		}
+		p.update();
+		x.update();
+	}
+
+	private static long key(int u, int v) {
+		return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+	}
+
+	private static int checkedNodeCount(UndirectedGraph graph) {
+		Graph.checkEmpty(graph);
+		return graph.nodeCount;
+	}
+
+	private void checkValidNode(int node) {
+		if (node < 0 || node >= nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+	}
+
+}
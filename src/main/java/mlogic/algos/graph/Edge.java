@@ -11,6 +11,30 @@ import java.math.BigDecimal;
  */
 public class Edge implements Comparable<Edge> {
 
+	/**
+	 * Enumerates the number types that weighted graph algorithms can use to
+	 * accumulate edge weights
+	 * 
+	 */
+	public enum Arithmetic {
+		/**
+		 * Exact decimal arithmetic on BigDecimal weights
+		 */
+		EXACT,
+
+		/**
+		 * Primitive double arithmetic, free of allocation but subject to
+		 * floating point rounding
+		 */
+		DOUBLE,
+
+		/**
+		 * Primitive long arithmetic, free of allocation and exact for integral
+		 * weights. Fractional weights are truncated.
+		 */
+		LONG
+	}
+
 	/**
 	 * Source node index
 	 */
@@ -22,10 +46,21 @@ public class Edge implements Comparable<Edge> {
 	private Integer to;
 
 	/**
-	 * Weight of edge, 0 for un-weighted graphs
+	 * Weight of edge, 0 for un-weighted graphs. Created on first use for edges
+	 * constructed with a primitive weight.
 	 */
 	private BigDecimal weight;
 
+	/**
+	 * Weight of edge as a double
+	 */
+	private double doubleWeight;
+
+	/**
+	 * Weight of edge as a long
+	 */
+	private long longWeight;
+
 	/**
 	 * Constructor for un-weighted edge
 	 * 
@@ -37,7 +72,7 @@ public class Edge implements Comparable<Edge> {
 	public Edge(Integer from, Integer to) {
 		this.from = from;
 		this.to = to;
-		this.weight = new BigDecimal(0);
+		this.weight = BigDecimal.ZERO;
 	}
 
 	/**
@@ -49,9 +84,43 @@ public class Edge implements Comparable<Edge> {
 	 *            index of target node
 	 */
 	public Edge(Integer from, Integer to, BigDecimal weight) {
+		if (weight == null)
+			throw new IllegalArgumentException("Weight of a weighted edge cannot be null.");
 		this.from = from;
 		this.to = to;
 		this.weight = weight;
+		this.doubleWeight = weight.doubleValue();
+		this.longWeight = weight.longValue();
+	}
+
+	/**
+	 * Constructor for weighted edge with a primitive double weight
+	 * 
+	 * @param from
+	 *            index of source node
+	 * @param to
+	 *            index of target node
+	 */
+	public Edge(Integer from, Integer to, double weight) {
+		this.from = from;
+		this.to = to;
+		this.doubleWeight = weight;
+		this.longWeight = (long) weight;
+	}
+
+	/**
+	 * Constructor for weighted edge with a primitive long weight
+	 * 
+	 * @param from
+	 *            index of source node
+	 * @param to
+	 *            index of target node
+	 */
+	public Edge(Integer from, Integer to, long weight) {
+		this.from = from;
+		this.to = to;
+		this.doubleWeight = weight;
+		this.longWeight = weight;
 	}
 
 	/**
@@ -75,9 +144,9 @@ public class Edge implements Comparable<Edge> {
 	 * @return the other node in the edge
 	 */
 	public Integer other(Integer node) {
-		if (node == this.from)
+		if (node.intValue() == this.from.intValue())
 			return this.to;
-		if (node == this.to)
+		if (node.intValue() == this.to.intValue())
 			return this.from;
 		throw new IllegalArgumentException(node + " does not exist on this edge.");
 	}
@@ -87,9 +156,29 @@ public class Edge implements Comparable<Edge> {
 	 * @return weight of the edge
 	 */
 	public BigDecimal weight() {
+		if (weight == null) {
+			if (doubleWeight == longWeight)
+				weight = BigDecimal.valueOf(longWeight);
+			else
+				weight = new BigDecimal(doubleWeight);
+		}
 		return weight;
 	}
 
+	/**
+	 * @return weight of the edge as a double
+	 */
+	public double doubleWeight() {
+		return doubleWeight;
+	}
+
+	/**
+	 * @return weight of the edge as a long, truncated if fractional
+	 */
+	public long longWeight() {
+		return longWeight;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -97,7 +186,7 @@ public class Edge implements Comparable<Edge> {
 	 */
 	@Override
 	public int compareTo(Edge other) {
-		return this.weight.compareTo(other.weight);
+		return this.weight().compareTo(other.weight());
 	}
 
 	@Override
@@ -113,7 +202,10 @@ public class Edge implements Comparable<Edge> {
 	 * @return reverse of the current edge
 	 */
 	public Edge reverse() {
-		return new Edge(this.to, this.from, this.weight);
+		Edge reverse = new Edge(this.to, this.from, this.doubleWeight);
+		reverse.longWeight = this.longWeight;
+		reverse.weight = this.weight;
+		return reverse;
 	}
 
 }
@@ -0,0 +1,51 @@
+package mlogic.algos.graph;
+
+/**
+ * Estimates distances as the straight-line distance between node coordinates.
+ * Valid only for graphs whose edge weights are never shorter than the
+ * straight-line distance between their end points, such as road networks
+ * weighted by length.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class EuclideanHeuristic implements Heuristic {
+
+	/**
+	 * X coordinate of each node
+	 */
+	private double[] x;
+
+	/**
+	 * Y coordinate of each node
+	 */
+	private double[] y;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param x
+	 *            x coordinate of each node
+	 * @param y
+	 *            y coordinate of each node
+	 */
+	public EuclideanHeuristic(double[] x, double[] y) {
+		if (x == null || y == null || x.length != y.length)
+			throw new IllegalArgumentException("Coordinates must be given for every node.");
+		this.x = x;
+		this.y = y;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see mlogic.algos.graph.Heuristic#estimate(int, int)
+	 */
+	@Override
+	public double estimate(int node, int end) {
+		double dx = x[node] - x[end];
+		double dy = y[node] - y[end];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+}
@@ -0,0 +1,390 @@
+package mlogic.algos.graph;
+
+import mlogic.algos.struct.IntUnionFind;
+import mlogic.algos.struct.List;
+import mlogic.algos.struct.SinglyLinkedList;
+
+/**
+ * Identifies a Minimum Spanning Forest in an edge-weighted undirected graph
+ * using the Filter-Kruskal algorithm of Osipov, Sanders and Singler. Instead of
+ * sorting all the edges up front, the edges are partitioned around a pivot
+ * weight as in quick sort. The light side is handled first, recursively, and
+ * then every heavy edge whose ends are already joined is filtered out before
+ * the heavy side is partitioned in turn. Ranges small enough are sorted and
+ * scanned as in Kruskal's algorithm. On sparse graphs most heavy edges fall
+ * inside a component by the time they are reached, so they are dropped in a
+ * linear pass without ever being sorted. Edges are held in primitive arrays
+ * that are permuted in place, components are tracked in an
+ * {@link IntUnionFind}, and weights are compared as doubles.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class FilterKruskalMinimumSpanningTree {
+
+	/**
+	 * Ranges of at most this many edges are sorted instead of partitioned
+	 */
+	private static final int SORT_THRESHOLD = 1024;
+
+	/**
+	 * Graph to search
+	 */
+	private UndirectedGraph graph;
+
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
+	/**
+	 * One end point of each edge, permuted along with the other edge arrays
+	 */
+	private int[] edgeFrom;
+
+	/**
+	 * Other end point of each edge
+	 */
+	private int[] edgeTo;
+
+	/**
+	 * Weight of each edge
+	 */
+	private double[] edgeWeight;
+
+	/**
+	 * Index of each edge, in the order the graph lists its edges
+	 */
+	private int[] edgeId;
+
+	/**
+	 * Components joined by the forest so far
+	 */
+	private IntUnionFind components;
+
+	/**
+	 * Edges added to the forest, by edge index
+	 */
+	private boolean[] inForest;
+
+	/**
+	 * Number of edges added to the forest
+	 */
+	private int forestEdgeCount;
+
+	/**
+	 * Total weight of the forest
+	 */
+	private double forestWeight;
+
+	/**
+	 * Number of edges that reached a sorted range
+	 */
+	private int sortedEdgeCount;
+
+	/**
+	 * Minimum Spanning Forest - List of edges in the minimum spanning tree (or
+	 * trees, if the graph is not fully connected), built on first use
+	 */
+	private List<Edge> minimumSpanningForest;
+
+	/**
+	 * Constructor. The forest holds the edges of the graph.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 */
+	public FilterKruskalMinimumSpanningTree(UndirectedGraph graph) {
+		Graph.checkEmpty(graph);
+		this.graph = graph;
+		int[] from = new int[graph.edgeCount];
+		int[] to = new int[graph.edgeCount];
+		double[] weights = new double[graph.edgeCount];
+		int[] ids = new int[graph.edgeCount];
+		int id = 0;
+		int count = 0;
+		for (int u = 0; u < graph.nodeCount; u++) {
+			for (Edge e : graph.edges[u]) {
+				// Same order in which CSRGraph numbers the edges
+				if (e.from().intValue() != u)
+					continue;
+				if (e.to().intValue() != u) {
+					from[count] = u;
+					to[count] = e.to();
+					weights[count] = e.doubleWeight();
+					ids[count++] = id;
+				}
+				id++;
+			}
+		}
+		compute(graph.nodeCount, id, from, to, weights, ids, count);
+
+	}
+
+	/**
+	 * Constructor for an undirected graph stored in CSR form. Only the edges of
+	 * the forest are materialized as Edge objects.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 */
+	public FilterKruskalMinimumSpanningTree(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (graph.directed)
+			throw new IllegalArgumentException("Kruskal's algorithm requires an undirected graph.");
+		this.csrGraph = graph;
+		int[] from = new int[graph.edgeCount];
+		int[] to = new int[graph.edgeCount];
+		double[] weights = new double[graph.edgeCount];
+		int[] ids = new int[graph.edgeCount];
+		int count = 0;
+		for (int u = 0; u < graph.nodeCount; u++) {
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				// Each edge is taken from the arc leaving its lower end point,
+				// self loops have none
+				if (u < graph.targets[arc]) {
+					from[count] = u;
+					to[count] = graph.targets[arc];
+					weights[count] = graph.weights[arc];
+					ids[count++] = graph.edgeIds[arc];
+				}
+			}
+		}
+		compute(graph.nodeCount, graph.edgeCount, from, to, weights, ids, count);
+
+	}
+
+	/**
+	 * @return Minimum Spanning Forest - List of edges in the minimum spanning
+	 *         tree (or trees, if the graph is not fully connected)
+	 */
+	public List<Edge> minimumSpanningForest() {
+		if (minimumSpanningForest == null)
+			collectForest();
+		return minimumSpanningForest;
+	}
+
+	/**
+	 * @return number of edges in the forest
+	 */
+	public int forestEdgeCount() {
+		return forestEdgeCount;
+	}
+
+	/**
+	 * @return total weight of the forest
+	 */
+	public double doubleForestWeight() {
+		return forestWeight;
+	}
+
+	/**
+	 * Reads the forest without building Edge objects, which suits forests too
+	 * large for a {@link List}
+	 * 
+	 * @param edge
+	 *            index of the edge, as numbered by {@link CSRGraph}
+	 * @return true if the edge is in the forest
+	 */
+	public boolean inForest(int edge) {
+		if (edge < 0 || edge >= inForest.length)
+			throw new IllegalArgumentException(edge + " out of range.");
+		return inForest[edge];
+	}
+
+	/**
+	 * @return number of edges that had to be sorted, the rest were either
+	 *         filtered out or taken from a range of equal weights
+	 */
+	public int sortedEdgeCount() {
+		return sortedEdgeCount;
+	}
+
+	/**
+	 * Runs Filter-Kruskal over the collected edges
+	 */
+	private void compute(int nodeCount, int edgeCount, int[] from, int[] to, double[] weights, int[] ids,
+			int count) {
+		edgeFrom = from;
+		edgeTo = to;
+		edgeWeight = weights;
+		edgeId = ids;
+		components = new IntUnionFind(nodeCount);
+		inForest = new boolean[edgeCount];
+		filterKruskal(0, count);
+		// Only the forest flags are needed from here on
+		edgeFrom = null;
+		edgeTo = null;
+		edgeWeight = null;
+		edgeId = null;
+		components = null;
+	}
+
+	/**
+	 * Adds the forest edges among a range of edges, all of them at least as
+	 * heavy as the edges already scanned. Recurses into the light side of each
+	 * partition and loops over the filtered heavy side.
+	 * 
+	 * @param lo
+	 *            index of first edge in range
+	 * @param hi
+	 *            index past the last edge in range
+	 */
+	private void filterKruskal(int lo, int hi) {
+		while (hi - lo > SORT_THRESHOLD) {
+			if (components.setCount() == 1)
+				return;
+			double pivot = medianOfThree(lo, (lo + hi) >>> 1, hi - 1);
+			int i = lo;
+			int j = hi - 1;
+			while (i <= j) {
+				while (edgeWeight[i] < pivot)
+					i++;
+				while (edgeWeight[j] > pivot)
+					j--;
+				if (i <= j)
+					swap(i++, j--);
+			}
+			filterKruskal(lo, j + 1);
+			// Edges between the two sides weigh the same as the pivot
+			for (int k = j + 1; k < i; k++)
+				addIfJoining(k);
+			lo = i;
+			hi = filter(i, hi);
+		}
+		if (components.setCount() == 1)
+			return;
+		sortedEdgeCount += hi - lo;
+		sortByWeight(lo, hi - 1);
+		for (int k = lo; k < hi; k++)
+			addIfJoining(k);
+	}
+
+	/**
+	 * Moves the edges of a range that still join two components to the front
+	 * of the range
+	 * 
+	 * @param lo
+	 *            index of first edge in range
+	 * @param hi
+	 *            index past the last edge in range
+	 * @return index past the last edge kept
+	 */
+	private int filter(int lo, int hi) {
+		int count = lo;
+		for (int k = lo; k < hi; k++) {
+			if (components.find(edgeFrom[k]) != components.find(edgeTo[k])) {
+				// Edges filtered out are not needed again and are overwritten
+				edgeFrom[count] = edgeFrom[k];
+				edgeTo[count] = edgeTo[k];
+				edgeWeight[count] = edgeWeight[k];
+				edgeId[count++] = edgeId[k];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds an edge to the forest if it joins two components
+	 * 
+	 * @param k
+	 *            position of the edge
+	 */
+	private void addIfJoining(int k) {
+		if (components.union(edgeFrom[k], edgeTo[k])) {
+			inForest[edgeId[k]] = true;
+			forestEdgeCount++;
+			forestWeight += edgeWeight[k];
+		}
+	}
+
+	/**
+	 * @return median of the weights of the edges at three positions
+	 */
+	private double medianOfThree(int a, int b, int c) {
+		double x = edgeWeight[a];
+		double y = edgeWeight[b];
+		double z = edgeWeight[c];
+		if (x < y)
+			return y < z ? y : (x < z ? z : x);
+		return x < z ? x : (y < z ? z : y);
+	}
+
+	/**
+	 * Quick sorts a range of edges by weight. Recurses into the smaller
+	 * partition and loops over the larger one to keep the stack depth
+	 * logarithmic.
+	 * 
+	 * @param lo
+	 *            index of first edge in range
+	 * @param hi
+	 *            index of last edge in range
+	 */
+	private void sortByWeight(int lo, int hi) {
+		while (lo < hi) {
+			double pivot = edgeWeight[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (edgeWeight[i] < pivot)
+					i++;
+				while (edgeWeight[j] > pivot)
+					j--;
+				if (i <= j)
+					swap(i++, j--);
+			}
+			if (j - lo < hi - i) {
+				sortByWeight(lo, j);
+				lo = i;
+			} else {
+				sortByWeight(i, hi);
+				hi = j;
+			}
+		}
+	}
+
+	/**
+	 * Swaps two edges in all the edge arrays
+	 */
+	private void swap(int a, int b) {
+		int from = edgeFrom[a];
+		edgeFrom[a] = edgeFrom[b];
+		edgeFrom[b] = from;
+		int to = edgeTo[a];
+		edgeTo[a] = edgeTo[b];
+		edgeTo[b] = to;
+		double weight = edgeWeight[a];
+		edgeWeight[a] = edgeWeight[b];
+		edgeWeight[b] = weight;
+		int id = edgeId[a];
+		edgeId[a] = edgeId[b];
+		edgeId[b] = id;
+	}
+
+	/**
+	 * Lists the forest edges, as the edges of the graph when one was given
+	 */
+	private void collectForest() {
+		minimumSpanningForest = new SinglyLinkedList<Edge>();
+		if (graph != null) {
+			int edge = 0;
+			for (int u = 0; u < graph.nodeCount; u++) {
+				for (Edge e : graph.edges[u]) {
+					if (e.from().intValue() != u)
+						continue;
+					if (inForest[edge++])
+						minimumSpanningForest.put(e);
+				}
+			}
+		} else {
+			for (int u = 0; u < csrGraph.nodeCount; u++) {
+				for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++) {
+					int v = csrGraph.targets[arc];
+					if (u < v && inForest[csrGraph.edgeIds[arc]])
+						minimumSpanningForest.put(new Edge(u, v, csrGraph.weights[arc]));
+				}
+			}
+		}
+	}
+
+}
@@ -3,7 +3,9 @@ package mlogic.algos.graph;
 import java.math.BigDecimal;
 
 /**
- * Edge in a flow network
+ * Edge in a flow network. Flow is tracked separately for each
+ * {@link Edge.Arithmetic}, and each max flow computation updates only the flow
+ * of the arithmetic it runs in.
  * 
  * @author Rajaram G
  *
@@ -15,6 +17,16 @@ public class FlowEdge extends Edge {
 	 */
 	private BigDecimal flow;
 
+	/**
+	 * Stores the flow assigned to the edge by double arithmetic
+	 */
+	private double doubleFlow;
+
+	/**
+	 * Stores the flow assigned to the edge by long arithmetic
+	 */
+	private long longFlow;
+
 	/**
 	 * @param from
 	 * @param to
@@ -22,7 +34,27 @@ public class FlowEdge extends Edge {
 	 */
 	public FlowEdge(Integer from, Integer to, BigDecimal capacity) {
 		super(from, to, capacity);
-		this.flow = new BigDecimal(0);
+		this.flow = BigDecimal.ZERO;
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @param capacity
+	 */
+	public FlowEdge(Integer from, Integer to, double capacity) {
+		super(from, to, capacity);
+		this.flow = BigDecimal.ZERO;
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @param capacity
+	 */
+	public FlowEdge(Integer from, Integer to, long capacity) {
+		super(from, to, capacity);
+		this.flow = BigDecimal.ZERO;
 	}
 
 	/**
@@ -39,6 +71,20 @@ public class FlowEdge extends Edge {
 		return this.flow;
 	}
 
+	/**
+	 * @return flow assigned to the edge by double arithmetic
+	 */
+	public double doubleFlow() {
+		return this.doubleFlow;
+	}
+
+	/**
+	 * @return flow assigned to the edge by long arithmetic
+	 */
+	public long longFlow() {
+		return this.longFlow;
+	}
+
 	/**
 	 * In the direction of the edge, this equals difference between capacity and
 	 * assigned flow and represents how much flow can be added to potentially
@@ -51,13 +97,43 @@ public class FlowEdge extends Edge {
 	 * @return residual capacity in the direction of the specified node
 	 */
 	public BigDecimal residualCapacityTo(Integer node) {
-		if (node == this.to())
+		if (node.intValue() == this.to().intValue())
 			return this.capacity().subtract(this.flow);
 		else
 			return this.flow;
 
 	}
 
+	/**
+	 * Residual capacity by double arithmetic
+	 * 
+	 * @param node
+	 * @return residual capacity in the direction of the specified node
+	 * @see #residualCapacityTo(Integer)
+	 */
+	public double doubleResidualCapacityTo(int node) {
+		if (node == this.to().intValue())
+			return this.doubleWeight() - this.doubleFlow;
+		else
+			return this.doubleFlow;
+
+	}
+
+	/**
+	 * Residual capacity by long arithmetic
+	 * 
+	 * @param node
+	 * @return residual capacity in the direction of the specified node
+	 * @see #residualCapacityTo(Integer)
+	 */
+	public long longResidualCapacityTo(int node) {
+		if (node == this.to().intValue())
+			return this.longWeight() - this.longFlow;
+		else
+			return this.longFlow;
+
+	}
+
 	/**
 	 * Adds flow to the flow edge. In the original direction of the edge, this
 	 * adds forward flow. In the reverse direction, this reduces forward flow
@@ -67,11 +143,41 @@ public class FlowEdge extends Edge {
 	 * @param node
 	 */
 	public void addFlowTo(BigDecimal bottleneck, Integer node) {
-		if (node == this.to())
+		if (node.intValue() == this.to().intValue())
 			this.flow = this.flow.add(bottleneck);
 		else
 			this.flow = this.flow.subtract(bottleneck);
 
 	}
 
+	/**
+	 * Adds flow to the flow edge by double arithmetic
+	 * 
+	 * @param bottleneck
+	 * @param node
+	 * @see #addFlowTo(BigDecimal, Integer)
+	 */
+	public void addFlowTo(double bottleneck, int node) {
+		if (node == this.to().intValue())
+			this.doubleFlow += bottleneck;
+		else
+			this.doubleFlow -= bottleneck;
+
+	}
+
+	/**
+	 * Adds flow to the flow edge by long arithmetic
+	 * 
+	 * @param bottleneck
+	 * @param node
+	 * @see #addFlowTo(BigDecimal, Integer)
+	 */
+	public void addFlowTo(long bottleneck, int node) {
+		if (node == this.to().intValue())
+			this.longFlow += bottleneck;
+		else
+			this.longFlow -= bottleneck;
+
+	}
+
 }
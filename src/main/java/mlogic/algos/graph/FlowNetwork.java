@@ -40,17 +40,54 @@ public class FlowNetwork extends Graph {
 	 */
 	@Override
 	public void addEdge(Integer from, Integer to, BigDecimal capacity) {
-		if (capacity == null || capacity.compareTo(new BigDecimal(0)) < 0)
+		if (capacity == null || capacity.signum() < 0)
 			throw new IllegalArgumentException("Flow network requires positive weighted edges.");
-		if (from < 0 || from >= this.nodeCount)
-			throw new IllegalArgumentException(from + " out of range.");
-		if (to < 0 || to >= this.nodeCount)
-			throw new IllegalArgumentException(to + " out of range.");
-		FlowEdge edge = new FlowEdge(from, to, capacity);
+		put(new FlowEdge(from, to, capacity));
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see mlogic.algos.graph.Graph#addEdge(java.lang.Integer,
+	 * java.lang.Integer, java.lang.Double)
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Double capacity) {
+		if (capacity == null || capacity < 0)
+			throw new IllegalArgumentException("Flow network requires positive weighted edges.");
+		put(new FlowEdge(from, to, capacity.doubleValue()));
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see mlogic.algos.graph.Graph#addEdge(java.lang.Integer,
+	 * java.lang.Integer, java.lang.Long)
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Long capacity) {
+		if (capacity == null || capacity < 0)
+			throw new IllegalArgumentException("Flow network requires positive weighted edges.");
+		put(new FlowEdge(from, to, capacity.longValue()));
+
+	}
+
+	/**
+	 * Adds an edge to the adjacency list of its end points
+	 * 
+	 * @param edge
+	 */
+	void put(FlowEdge edge) {
+		if (edge.from() < 0 || edge.from() >= this.nodeCount)
+			throw new IllegalArgumentException(edge.from() + " out of range.");
+		if (edge.to() < 0 || edge.to() >= this.nodeCount)
+			throw new IllegalArgumentException(edge.to() + " out of range.");
 		// Allow duplicate edges
-		this.edges[from].put(edge);
-		if (from != to)
-			this.edges[to].put(edge);
+		this.edges[edge.from()].put(edge);
+		if (edge.from().intValue() != edge.to().intValue())
+			this.edges[edge.to()].put(edge);
 		this.edgeCount++;
 
 	}
@@ -72,6 +72,17 @@ public abstract class Graph {
 		addEdge(from, to, new BigDecimal(weight));
 	}
 
+	/**
+	 * Add a weighted edge
+	 * 
+	 * @param from
+	 * @param to
+	 * @param weight
+	 */
+	public void addEdge(Integer from, Integer to, Long weight) {
+		addEdge(from, to, BigDecimal.valueOf(weight));
+	}
+
 	public String toString() {
 		StringBuffer buf = new StringBuffer();
 		for (int u = 0; u < this.nodeCount; u++) {
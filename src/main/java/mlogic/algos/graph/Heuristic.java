@@ -0,0 +1,23 @@
+package mlogic.algos.graph;
+
+/**
+ * Estimates the distance between two nodes for a goal-directed shortest path
+ * search. Estimates must never exceed the true distance, and must not drop by
+ * more than the weight of an edge when moving along it, so the search can
+ * settle each node once.
+ * 
+ * @author Rajaram G
+ *
+ */
+public interface Heuristic {
+
+	/**
+	 * 
+	 * @param node
+	 * @param end
+	 *            end node of the search
+	 * @return lower bound on the distance from node to end node
+	 */
+	double estimate(int node, int end);
+
+}
@@ -0,0 +1,630 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.exceptions.NoResultException;
+import mlogic.algos.struct.IndexedHeap;
+
+/**
+ * Determines the k shortest loopless paths between two nodes using Yen's
+ * algorithm. Each path after the first leaves an earlier path at some spur
+ * node: it follows the earlier path from the start node to the spur node (the
+ * root), then takes the shortest spur path to the end node that avoids the
+ * root nodes and the arcs out of the spur node already taken by found paths
+ * with the same root. Found paths feed a heap of candidates, and the shortest
+ * candidate becomes the next path.
+ * <p>
+ * The search is cut down in three ways:
+ * <ul>
+ * <li>Lawler's rule: a path only spurs from the node where it left its parent
+ * path onwards, since the spurs before that were taken from the parent.</li>
+ * <li>One reverse Dijkstra search from the end node gives the distance of
+ * every node to the end node in the whole graph. Removing arcs can only make
+ * these longer, so when the best arc out of a spur node is followed by a tree
+ * path to the end node that clears the root, the spur path needs no search at
+ * all. The others run A* guided by the distances, settling few nodes beyond
+ * the spur path.</li>
+ * <li>The found paths are kept in a prefix tree, so the arcs to block at a
+ * root are the children of its prefix node, and each path keeps the distance
+ * along it to every node, so the length of a root is read off rather than
+ * summed.</li>
+ * </ul>
+ * Paths are sequences of nodes: of several arcs joining the same two nodes,
+ * only the shortest is used. Distances are accumulated as doubles and arc
+ * weights cannot be negative.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class KShortestPaths {
+
+	/**
+	 * A path waiting in the candidate heap
+	 */
+	private static class Candidate {
+
+		/**
+		 * Nodes of the path
+		 */
+		private int[] nodes;
+
+		/**
+		 * Distance along the path to each of its nodes
+		 */
+		private double[] distances;
+
+		/**
+		 * Found path it was spurred from
+		 */
+		private int parent;
+
+		/**
+		 * Position of its spur node, where it leaves its parent
+		 */
+		private int deviation;
+
+		private Candidate(int[] nodes, double[] distances, int parent, int deviation) {
+			this.nodes = nodes;
+			this.distances = distances;
+			this.parent = parent;
+			this.deviation = deviation;
+		}
+
+		private double length() {
+			return distances[distances.length - 1];
+		}
+
+		/**
+		 * Orders candidates by length, then by number of nodes
+		 */
+		private int compareTo(Candidate other) {
+			int c = Double.compare(length(), other.length());
+			return c != 0 ? c : Integer.compare(nodes.length, other.nodes.length);
+		}
+
+	}
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Start node of the paths
+	 */
+	private int start;
+
+	/**
+	 * End node of the paths
+	 */
+	private int end;
+
+	/**
+	 * Shortest distance from each node to end node in the whole graph
+	 */
+	private double[] toEnd;
+
+	/**
+	 * Node after each node on its shortest path to end node, -1 for end node
+	 * and nodes that cannot reach it
+	 */
+	private int[] nextToEnd;
+
+	/**
+	 * Weight of the arc from each node to its next node towards end node
+	 */
+	private double[] weightToNext;
+
+	/**
+	 * Found paths, shortest first
+	 */
+	private int[][] paths;
+
+	/**
+	 * Distance along each found path to each of its nodes
+	 */
+	private double[][] pathDistances;
+
+	/**
+	 * Prefix tree node of each prefix of each found path
+	 */
+	private int[][] pathPrefixes;
+
+	/**
+	 * Position of the spur node of each found path
+	 */
+	private int[] deviations;
+
+	/**
+	 * Number of found paths
+	 */
+	private int pathCount;
+
+	/**
+	 * Last node of each prefix tree node, with node 0 the path made of start
+	 * node alone
+	 */
+	private int[] prefixNode;
+
+	/**
+	 * First child of each prefix tree node, -1 if none
+	 */
+	private int[] prefixChild;
+
+	/**
+	 * Next sibling of each prefix tree node, -1 if none
+	 */
+	private int[] prefixSibling;
+
+	/**
+	 * Number of prefix tree nodes
+	 */
+	private int prefixCount;
+
+	/**
+	 * Candidate heap, ordered by length
+	 */
+	private Candidate[] candidates = new Candidate[16];
+
+	/**
+	 * Number of candidates in the heap
+	 */
+	private int candidateCount;
+
+	/**
+	 * Nodes of the root being spurred from are marked with the number of the
+	 * path spurred from, plus one
+	 */
+	private int[] rootMark;
+
+	/**
+	 * Nodes after the spur node on found paths with the same root are marked
+	 * with the number of the spur search
+	 */
+	private int[] blockedMark;
+
+	/**
+	 * Nodes reached by a spur search are marked with its number
+	 */
+	private int[] reachedMark;
+
+	/**
+	 * Nodes settled by a spur search are marked with its number
+	 */
+	private int[] settledMark;
+
+	/**
+	 * Number of the current spur search
+	 */
+	private int search;
+
+	/**
+	 * Distance from spur node in the current spur search
+	 */
+	private double[] spurDistance;
+
+	/**
+	 * Node before each node in the current spur search
+	 */
+	private int[] spurNodeTo;
+
+	/**
+	 * Heap of the spur searches, ordered by the distance from spur node plus
+	 * the distance to end node
+	 */
+	private IndexedHeap spurQueue;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param k
+	 *            number of paths wanted
+	 */
+	public KShortestPaths(Graph graph, Integer start, Integer end, int k) {
+		this(new CSRGraph(graph), start, end, k);
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param k
+	 *            number of paths wanted
+	 */
+	public KShortestPaths(CSRGraph graph, Integer start, Integer end, int k) {
+		CSRGraph.checkEmpty(graph);
+		if (start < 0 || start >= graph.nodeCount)
+			throw new IllegalArgumentException(start + " out of range.");
+		if (end < 0 || end >= graph.nodeCount)
+			throw new IllegalArgumentException(end + " out of range.");
+		if (k <= 0)
+			throw new IllegalArgumentException(k + " out of range.");
+		for (int arc = 0; arc < graph.arcCount(); arc++)
+			if (graph.weights[arc] < 0)
+				throw new NegativeEdgeWeightException(
+						"Dijkstra's algorithm cannot be applied to a graph with negative edges.");
+		this.graph = graph;
+		this.start = start;
+		this.end = end;
+		compute(k);
+
+	}
+
+	/**
+	 * @return number of paths found, less than k if the graph has fewer
+	 *         loopless paths between start and end nodes
+	 */
+	public int pathCount() {
+		return pathCount;
+	}
+
+	/**
+	 * @param i
+	 *            rank of the path, 0 for the shortest
+	 * @return nodes on the path, from start node to end node
+	 */
+	public int[] path(int i) {
+		checkPath(i);
+		return paths[i];
+	}
+
+	/**
+	 * @param i
+	 *            rank of the path, 0 for the shortest
+	 * @return length of the path
+	 */
+	public double distance(int i) {
+		checkPath(i);
+		return pathDistances[i][paths[i].length - 1];
+	}
+
+	/**
+	 * @return nodes on each path, shortest first
+	 */
+	public int[][] paths() {
+		return Arrays.copyOf(paths, pathCount);
+	}
+
+	/**
+	 * Finds the shortest path from the reverse search, then spurs from each
+	 * path in turn until k paths are found or no candidate is left
+	 * 
+	 * @param k
+	 */
+	private void compute(int k) {
+		int nodeCount = graph.nodeCount;
+		searchToEnd();
+		if (nextToEnd[start] == -1 && start != end)
+			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
+
+		paths = new int[Math.min(k, 16)][];
+		pathDistances = new double[paths.length][];
+		pathPrefixes = new int[paths.length][];
+		deviations = new int[paths.length];
+		prefixNode = new int[64];
+		prefixChild = new int[64];
+		prefixSibling = new int[64];
+		prefixNode[0] = start;
+		prefixChild[0] = -1;
+		prefixSibling[0] = -1;
+		prefixCount = 1;
+		accept(treePath(new int[] { start }, new double[] { 0 }, -1, 0, -1));
+		if (k == 1 || start == end)
+			return;
+
+		rootMark = new int[nodeCount];
+		blockedMark = new int[nodeCount];
+		reachedMark = new int[nodeCount];
+		settledMark = new int[nodeCount];
+		spurDistance = new double[nodeCount];
+		spurNodeTo = new int[nodeCount];
+		spurQueue = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(spurDistance[u] + toEnd[u], spurDistance[v] + toEnd[v]);
+			}
+		};
+		while (pathCount < k) {
+			spur(pathCount - 1);
+			if (candidateCount == 0)
+				break;
+			accept(pollCandidate());
+		}
+		spurQueue = null;
+	}
+
+	/**
+	 * Dijkstra's algorithm from end node over the reversed arcs
+	 */
+	private void searchToEnd() {
+		int nodeCount = graph.nodeCount;
+		final CSRGraph reverse = graph.reverse();
+		toEnd = new double[nodeCount];
+		nextToEnd = new int[nodeCount];
+		weightToNext = new double[nodeCount];
+		Arrays.fill(toEnd, Double.POSITIVE_INFINITY);
+		Arrays.fill(nextToEnd, -1);
+		toEnd[end] = 0;
+		IndexedHeap pq = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(toEnd[u], toEnd[v]);
+			}
+		};
+		pq.insert(end);
+		while (!pq.isEmpty()) {
+			int v = pq.deleteMin();
+			for (int arc = reverse.offsets[v]; arc < reverse.offsets[v + 1]; arc++) {
+				int u = reverse.targets[arc];
+				double newDistance = toEnd[v] + reverse.weights[arc];
+				if (newDistance < toEnd[u]) {
+					toEnd[u] = newDistance;
+					nextToEnd[u] = v;
+					weightToNext[u] = reverse.weights[arc];
+					if (pq.contains(u))
+						pq.decreaseKey(u);
+					else
+						pq.insert(u);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates a candidate from each spur node of a found path, from its own
+	 * spur node on
+	 * 
+	 * @param p
+	 *            number of the found path
+	 */
+	private void spur(int p) {
+		int[] path = paths[p];
+		double[] distances = pathDistances[p];
+		for (int i = 0; i < deviations[p]; i++)
+			rootMark[path[i]] = p + 1;
+		for (int i = deviations[p]; i < path.length - 1; i++) {
+			int spurNode = path[i];
+			search++;
+			for (int child = prefixChild[pathPrefixes[p][i]]; child != -1; child = prefixSibling[child])
+				blockedMark[prefixNode[child]] = search;
+
+			int arc = bestFirstArc(spurNode, p);
+			if (arc != -1) {
+				Candidate candidate = treePath(path, distances, p, i, arc);
+				if (candidate == null)
+					candidate = searchSpur(spurNode, path, distances, p, i);
+				if (candidate != null)
+					addCandidate(candidate);
+			}
+			rootMark[spurNode] = p + 1;
+		}
+	}
+
+	/**
+	 * Finds the arc out of the spur node that leads to end node soonest in
+	 * the whole graph. No spur path is shorter than the arc followed by the
+	 * shortest path tree from its target.
+	 * 
+	 * @return arc not blocked and not entering the root, -1 if none reaches
+	 *         end node
+	 */
+	private int bestFirstArc(int spurNode, int p) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int arc = graph.offsets[spurNode]; arc < graph.offsets[spurNode + 1]; arc++) {
+			int v = graph.targets[arc];
+			if (v == spurNode || rootMark[v] == p + 1 || blockedMark[v] == search)
+				continue;
+			double distance = graph.weights[arc] + toEnd[v];
+			if (distance < bestDistance) {
+				best = arc;
+				bestDistance = distance;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Extends the root up to position i with an arc out of the spur node,
+	 * then follows the shortest path tree from its target to end node
+	 * 
+	 * @param arc
+	 *            first arc of the spur path, -1 to follow the tree from the
+	 *            spur node
+	 * @return the extended root, or null if the tree path runs into the root
+	 */
+	private Candidate treePath(int[] path, double[] distances, int p, int i, int arc) {
+		int spurNode = path[i];
+		int first = arc == -1 ? spurNode : graph.targets[arc];
+		int length = arc == -1 ? i + 1 : i + 2;
+		for (int v = first; v != end; v = nextToEnd[v]) {
+			int next = nextToEnd[v];
+			if (p != -1 && (next == spurNode || rootMark[next] == p + 1))
+				return null;
+			length++;
+		}
+		int[] nodes = Arrays.copyOf(path, length);
+		double[] nodeDistances = Arrays.copyOf(distances, length);
+		int j = i;
+		if (arc != -1) {
+			nodes[j + 1] = first;
+			nodeDistances[j + 1] = nodeDistances[j] + graph.weights[arc];
+			j++;
+		}
+		for (; j < length - 1; j++) {
+			nodes[j + 1] = nextToEnd[nodes[j]];
+			nodeDistances[j + 1] = nodeDistances[j] + weightToNext[nodes[j]];
+		}
+		return new Candidate(nodes, nodeDistances, p, i);
+	}
+
+	/**
+	 * A* from the spur node to end node, guided by the distances to end node
+	 * in the whole graph, avoiding the root and the blocked arcs
+	 * 
+	 * @return the root extended with the spur path, or null if end node cannot
+	 *         be reached
+	 */
+	private Candidate searchSpur(int spurNode, int[] path, double[] distances, int p, int i) {
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		double[] weights = graph.weights;
+		spurQueue.clear();
+		spurDistance[spurNode] = 0;
+		spurNodeTo[spurNode] = -1;
+		reachedMark[spurNode] = search;
+		spurQueue.insert(spurNode);
+		while (!spurQueue.isEmpty()) {
+			int u = spurQueue.deleteMin();
+			if (u == end)
+				break;
+			settledMark[u] = search;
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int v = targets[arc];
+				if (settledMark[v] == search || rootMark[v] == p + 1 || toEnd[v] == Double.POSITIVE_INFINITY)
+					continue;
+				if (u == spurNode && blockedMark[v] == search)
+					continue;
+				double newDistance = spurDistance[u] + weights[arc];
+				if (reachedMark[v] != search) {
+					reachedMark[v] = search;
+					spurDistance[v] = newDistance;
+					spurNodeTo[v] = u;
+					spurQueue.insert(v);
+				} else if (newDistance < spurDistance[v]) {
+					spurDistance[v] = newDistance;
+					spurNodeTo[v] = u;
+					spurQueue.decreaseKey(v);
+				}
+			}
+		}
+		if (reachedMark[end] != search)
+			return null;
+
+		int length = i + 1;
+		for (int v = end; v != spurNode; v = spurNodeTo[v])
+			length++;
+		int[] nodes = Arrays.copyOf(path, length);
+		double[] nodeDistances = Arrays.copyOf(distances, length);
+		for (int j = length - 1, v = end; v != spurNode; j--, v = spurNodeTo[v]) {
+			nodes[j] = v;
+			nodeDistances[j] = distances[i] + spurDistance[v];
+		}
+		return new Candidate(nodes, nodeDistances, p, i);
+	}
+
+	/**
+	 * Adds a candidate to the found paths and its nodes after the spur node
+	 * to the prefix tree
+	 * 
+	 * @param candidate
+	 */
+	private void accept(Candidate candidate) {
+		if (pathCount == paths.length) {
+			int capacity = 2 * pathCount;
+			paths = Arrays.copyOf(paths, capacity);
+			pathDistances = Arrays.copyOf(pathDistances, capacity);
+			pathPrefixes = Arrays.copyOf(pathPrefixes, capacity);
+			deviations = Arrays.copyOf(deviations, capacity);
+		}
+		int[] nodes = candidate.nodes;
+		int deviation = candidate.deviation;
+		int[] prefixes = new int[nodes.length];
+		if (candidate.parent != -1)
+			System.arraycopy(pathPrefixes[candidate.parent], 0, prefixes, 0, deviation + 1);
+		for (int j = deviation + 1; j < nodes.length; j++)
+			prefixes[j] = addPrefix(prefixes[j - 1], nodes[j]);
+		paths[pathCount] = nodes;
+		pathDistances[pathCount] = candidate.distances;
+		pathPrefixes[pathCount] = prefixes;
+		deviations[pathCount] = deviation;
+		pathCount++;
+	}
+
+	/**
+	 * Adds a child to a prefix tree node
+	 * 
+	 * @param parent
+	 *            prefix tree node
+	 * @param node
+	 *            node extending the prefix
+	 * @return the new prefix tree node
+	 */
+	private int addPrefix(int parent, int node) {
+		if (prefixCount == prefixNode.length) {
+			int capacity = 2 * prefixCount;
+			prefixNode = Arrays.copyOf(prefixNode, capacity);
+			prefixChild = Arrays.copyOf(prefixChild, capacity);
+			prefixSibling = Arrays.copyOf(prefixSibling, capacity);
+		}
+		int prefix = prefixCount++;
+		prefixNode[prefix] = node;
+		prefixChild[prefix] = -1;
+		prefixSibling[prefix] = prefixChild[parent];
+		prefixChild[parent] = prefix;
+		return prefix;
+	}
+
+	/**
+	 * Adds a candidate to the heap and moves it up to its place
+	 * 
+	 * @param candidate
+	 */
+	private void addCandidate(Candidate candidate) {
+		if (candidateCount == candidates.length)
+			candidates = Arrays.copyOf(candidates, 2 * candidateCount);
+		int slot = candidateCount++;
+		while (slot > 0) {
+			int parent = (slot - 1) >>> 1;
+			if (candidates[parent].compareTo(candidate) <= 0)
+				break;
+			candidates[slot] = candidates[parent];
+			slot = parent;
+		}
+		candidates[slot] = candidate;
+	}
+
+	/**
+	 * Removes the shortest candidate from the heap
+	 * 
+	 * @return shortest candidate
+	 */
+	private Candidate pollCandidate() {
+		Candidate top = candidates[0];
+		Candidate last = candidates[--candidateCount];
+		candidates[candidateCount] = null;
+		int slot = 0;
+		while (true) {
+			int child = 2 * slot + 1;
+			if (child >= candidateCount)
+				break;
+			if (child + 1 < candidateCount && candidates[child + 1].compareTo(candidates[child]) < 0)
+				child++;
+			if (last.compareTo(candidates[child]) <= 0)
+				break;
+			candidates[slot] = candidates[child];
+			slot = child;
+		}
+		if (candidateCount > 0)
+			candidates[slot] = last;
+		return top;
+	}
+
+	private void checkPath(int i) {
+		if (i < 0 || i >= pathCount)
+			throw new IllegalArgumentException(i + " out of range.");
+	}
+
+}
@@ -0,0 +1,363 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sorts a directed graph in topological order with Kahn's algorithm, one
+ * level at a time on a fork-join pool. Every node holds an atomic count of
+ * its incoming arcs not yet released. Level 0 is made of the nodes without
+ * incoming arcs, and releasing the outgoing arcs of a level brings the count
+ * of some nodes to 0, which then form the next level. A node's level is the
+ * length of the longest path reaching it, so no arc joins two nodes of the
+ * same level: the nodes of a level can be processed concurrently once all the
+ * levels before it are done. Tasks gather the nodes they release in a small
+ * buffer of their own and reserve room for them in the order with a single
+ * atomic add.
+ * <p>
+ * Nodes on a cycle, or reachable from one, never reach a count of 0. They are
+ * left out of the order and get level {@link #UNSORTED} instead of throwing
+ * in the middle of the sort, see {@link #isAcyclic()}. The order of the nodes
+ * within a level depends on the scheduling of the tasks.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class KahnsTopologicalSort {
+
+	/**
+	 * Level of nodes on or behind a cycle
+	 */
+	public static final int UNSORTED = -1;
+
+	/**
+	 * Nodes handled by a single fork-join task
+	 */
+	private static final int NODES_PER_TASK = 4096;
+
+	/**
+	 * Released nodes a task gathers before moving them into the order
+	 */
+	private static final int BUFFER_SIZE = 256;
+
+	/**
+	 * Range task that buffers the nodes it releases and moves them into the
+	 * order together once its range is done
+	 */
+	private abstract class ReleasingTask extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Nodes ready to be moved into the order
+		 */
+		private int[] buffer;
+		private int buffered;
+
+		protected ReleasingTask(int from, int to) {
+			super(from, to, NODES_PER_TASK);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see mlogic.algos.graph.RangeTask#compute()
+		 */
+		@Override
+		protected void compute() {
+			super.compute();
+			flush();
+		}
+
+		/**
+		 * Adds a node to the next level
+		 */
+		protected void release(int node) {
+			if (buffer == null)
+				buffer = new int[BUFFER_SIZE];
+			else if (buffered == BUFFER_SIZE)
+				flush();
+			level[node] = levelCount;
+			buffer[buffered++] = node;
+		}
+
+		/**
+		 * Moves the buffered nodes to the end of the order
+		 */
+		private void flush() {
+			if (buffered == 0)
+				return;
+			int at = sorted.getAndAdd(buffered);
+			System.arraycopy(buffer, 0, order, at, buffered);
+			buffered = 0;
+		}
+
+	}
+
+	/**
+	 * Counts the incoming arcs of the targets of a range of nodes
+	 */
+	private class CountInDegrees extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private CountInDegrees(int from, int to) {
+			super(from, to, NODES_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new CountInDegrees(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int arc = graph.offsets[from]; arc < graph.offsets[to]; arc++)
+				inDegree.incrementAndGet(graph.targets[arc]);
+		}
+
+	}
+
+	/**
+	 * Releases the nodes of a range without incoming arcs
+	 */
+	private class FindSources extends ReleasingTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private FindSources(int from, int to) {
+			super(from, to);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new FindSources(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int v = from; v < to; v++)
+				if (inDegree.get(v) == 0)
+					release(v);
+		}
+
+	}
+
+	/**
+	 * Releases the outgoing arcs of the nodes at a range of positions in the
+	 * order, releasing the targets whose last incoming arc it was
+	 */
+	private class ReleaseArcs extends ReleasingTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private ReleaseArcs(int from, int to) {
+			super(from, to);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new ReleaseArcs(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int i = from; i < to; i++) {
+				int u = order[i];
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					int w = graph.targets[arc];
+					if (inDegree.decrementAndGet(w) == 0)
+						release(w);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Graph to sort
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Incoming arcs of each node not yet released
+	 */
+	private AtomicIntegerArray inDegree;
+
+	/**
+	 * Number of nodes in the order
+	 */
+	private AtomicInteger sorted;
+
+	/**
+	 * Sorted nodes, level by level
+	 */
+	private int[] order;
+
+	/**
+	 * Position in *order* of the first node of each level, with the number of
+	 * sorted nodes at the end
+	 */
+	private int[] levelStart;
+
+	/**
+	 * Level of each node
+	 */
+	private int[] level;
+
+	/**
+	 * Number of levels, and the level being released while sorting
+	 */
+	private int levelCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Directed graph to sort
+	 * @param pool
+	 *            fork-join pool to run the sort on
+	 */
+	public KahnsTopologicalSort(DirectedGraph graph, ForkJoinPool pool) {
+		this(new CSRGraph(graph), pool);
+	}
+
+	/**
+	 * Constructor for a directed graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            Directed graph to sort
+	 * @param pool
+	 *            fork-join pool to run the sort on
+	 */
+	public KahnsTopologicalSort(CSRGraph graph, ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		if (!graph.directed)
+			throw new IllegalArgumentException("Topological sort requires a directed graph.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		this.graph = graph;
+		sort(pool);
+
+	}
+
+	/**
+	 * @return true if every node was sorted, false if the graph has a cycle
+	 */
+	public boolean isAcyclic() {
+		return levelStart[levelCount] == graph.nodeCount;
+	}
+
+	/**
+	 * @return sorted nodes in topological order
+	 */
+	public Integer[] order() {
+		Integer[] nodes = new Integer[order.length];
+		for (int i = 0; i < order.length; i++)
+			nodes[i] = order[i];
+		return nodes;
+	}
+
+	/**
+	 * @return sorted nodes in topological order, without boxing. The nodes of
+	 *         level i sit at positions {@link #levelStart(int) levelStart(i)}
+	 *         to levelStart(i + 1) - 1.
+	 */
+	public int[] intOrder() {
+		return order;
+	}
+
+	/**
+	 * @return number of levels
+	 */
+	public int levelCount() {
+		return levelCount;
+	}
+
+	/**
+	 * @param level
+	 *            level index, or the number of levels for the end of the
+	 *            order
+	 * @return position in the order of the first node of the level
+	 */
+	public int levelStart(int level) {
+		if (level < 0 || level > levelCount)
+			throw new IllegalArgumentException(level + " out of range.");
+		return levelStart[level];
+	}
+
+	/**
+	 * @param level
+	 * @return nodes of the level, an antichain of the graph
+	 */
+	public int[] level(int level) {
+		if (level < 0 || level >= levelCount)
+			throw new IllegalArgumentException(level + " out of range.");
+		return Arrays.copyOfRange(order, levelStart[level], levelStart[level + 1]);
+	}
+
+	/**
+	 * @return level of each node, the length of the longest path reaching it,
+	 *         or {@link #UNSORTED}
+	 */
+	public int[] intLevelArray() {
+		return level;
+	}
+
+	/**
+	 * Sorts a directed graph with Kahn's algorithm on the calling thread,
+	 * using the order array as the queue
+	 * 
+	 * @param graph
+	 *            directed graph to sort
+	 * @return sorted nodes in topological order, fewer than the nodes of the
+	 *         graph if it has a cycle
+	 */
+	static int[] sequentialOrder(CSRGraph graph) {
+		int nodeCount = graph.nodeCount;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		int[] inDegree = new int[nodeCount];
+		for (int arc = 0; arc < offsets[nodeCount]; arc++)
+			inDegree[targets[arc]]++;
+		int[] order = new int[nodeCount];
+		int tail = 0;
+		for (int v = 0; v < nodeCount; v++)
+			if (inDegree[v] == 0)
+				order[tail++] = v;
+		for (int head = 0; head < tail; head++) {
+			int u = order[head];
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++)
+				if (--inDegree[targets[arc]] == 0)
+					order[tail++] = targets[arc];
+		}
+		return tail < nodeCount ? Arrays.copyOf(order, tail) : order;
+	}
+
+	/**
+	 * Counts the incoming arcs, releases the sources and then each level in
+	 * turn until no node is left to release
+	 */
+	private void sort(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		inDegree = new AtomicIntegerArray(nodeCount);
+		sorted = new AtomicInteger();
+		order = new int[nodeCount];
+		levelStart = new int[nodeCount + 1];
+		level = new int[nodeCount];
+		Arrays.fill(level, UNSORTED);
+		pool.invoke(new CountInDegrees(0, nodeCount));
+		pool.invoke(new FindSources(0, nodeCount));
+		while (sorted.get() > levelStart[levelCount]) {
+			levelStart[++levelCount] = sorted.get();
+			pool.invoke(new ReleaseArcs(levelStart[levelCount - 1], levelStart[levelCount]));
+		}
+		levelStart = Arrays.copyOf(levelStart, levelCount + 1);
+		order = Arrays.copyOf(order, levelStart[levelCount]);
+		inDegree = null;
+		sorted = null;
+	}
+
+}
@@ -1,7 +1,10 @@
 package mlogic.algos.graph;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
+import mlogic.algos.graph.Edge.Arithmetic;
 import mlogic.algos.struct.List;
-import mlogic.algos.struct.PriorityQueue;
 import mlogic.algos.struct.SinglyLinkedList;
 import mlogic.algos.struct.UnionFind;
 
@@ -21,6 +24,16 @@ public class KruskalsMinimumSpanningTree {
 	 */
 	private UndirectedGraph graph;
 
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
+	/**
+	 * Number type used to compare edge weights
+	 */
+	private Arithmetic arithmetic;
+
 	/**
 	 * Minimum Spanning Forest - List of edges in the minimum spanning tree (or
 	 * trees, if the graph is not fully connected)
@@ -34,13 +47,44 @@ public class KruskalsMinimumSpanningTree {
 	 *            Undirected graph to search
 	 */
 	public KruskalsMinimumSpanningTree(UndirectedGraph graph) {
+		this(graph, Arithmetic.EXACT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 * @param arithmetic
+	 *            number type used to compare edge weights
+	 */
+	public KruskalsMinimumSpanningTree(UndirectedGraph graph, Arithmetic arithmetic) {
 		Graph.checkEmpty(graph);
 		this.graph = graph;
+		this.arithmetic = arithmetic;
 		minimumSpanningForest = new SinglyLinkedList<Edge>();
 		compute();
 
 	}
 
+	/**
+	 * Constructor for an undirected graph stored in CSR form. Only the edges of
+	 * the forest are materialized as Edge objects.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 */
+	public KruskalsMinimumSpanningTree(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (graph.directed)
+			throw new IllegalArgumentException("Kruskal's algorithm requires an undirected graph.");
+		this.csrGraph = graph;
+		this.arithmetic = Arithmetic.DOUBLE;
+		minimumSpanningForest = new SinglyLinkedList<Edge>();
+		computeOnCSR();
+
+	}
+
 	/**
 	 * @return Minimum Spanning Forest - List of edges in the minimum spanning
 	 *         tree (or trees, if the graph is not fully connected)
@@ -50,24 +94,28 @@ public class KruskalsMinimumSpanningTree {
 	}
 
 	/**
-	 * Executes Prim's algorithm on an edge weighted graph to compute the MSTs
+	 * Executes Kruskal's algorithm on an edge weighted graph to compute the
+	 * MSTs. Edges are sorted by weight in an array, compared in the arithmetic
+	 * chosen at construction.
 	 * 
 	 */
 	private void compute() {
 		UnionFind uf = new UnionFind(graph.nodeCount);
-		PriorityQueue<Edge> pq = new PriorityQueue<Edge>();
-		for (Integer u = 0; u < graph.nodeCount; u++) {
+		Edge[] sorted = new Edge[graph.edgeCount];
+		int count = 0;
+		for (int u = 0; u < graph.nodeCount; u++) {
 			for (Edge e : graph.edges[u]) {
-				if (e.from() == u)
-					pq.enqueue(e);
+				if (e.from().intValue() == u)
+					sorted[count++] = e;
 			}
 
 		}
+		Arrays.sort(sorted, 0, count, weightOrder());
 
-		while (!pq.isEmpty()) {
-			Edge e = pq.dequeue();
-			Integer fromRoot = uf.find(e.from());
-			Integer toRoot = uf.find(e.to());
+		for (int i = 0; i < count; i++) {
+			Edge e = sorted[i];
+			int fromRoot = uf.find(e.from());
+			int toRoot = uf.find(e.to());
 
 			if (fromRoot != toRoot) {
 				minimumSpanningForest.put(e);
@@ -78,4 +126,108 @@ public class KruskalsMinimumSpanningTree {
 
 	}
 
+	/**
+	 * @return comparator that orders edges by weight in the arithmetic chosen
+	 *         at construction
+	 */
+	private Comparator<Edge> weightOrder() {
+		switch (arithmetic) {
+		case DOUBLE:
+			return new Comparator<Edge>() {
+				@Override
+				public int compare(Edge a, Edge b) {
+					return Double.compare(a.doubleWeight(), b.doubleWeight());
+				}
+			};
+		case LONG:
+			return new Comparator<Edge>() {
+				@Override
+				public int compare(Edge a, Edge b) {
+					return Long.compare(a.longWeight(), b.longWeight());
+				}
+			};
+		default:
+			return new Comparator<Edge>() {
+				@Override
+				public int compare(Edge a, Edge b) {
+					return a.compareTo(b);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Executes Kruskal's algorithm on a CSR graph. Each undirected edge is
+	 * taken once, from the arc leaving its lower numbered end point, and the
+	 * arcs are sorted by weight in a plain int array.
+	 * 
+	 */
+	private void computeOnCSR() {
+		int[] arcs = new int[csrGraph.edgeCount];
+		int[] sources = new int[csrGraph.arcCount()];
+		int count = 0;
+		for (int u = 0; u < csrGraph.nodeCount; u++) {
+			for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++) {
+				sources[arc] = u;
+				if (u < csrGraph.targets[arc])
+					arcs[count++] = arc;
+			}
+		}
+		sortByWeight(arcs, csrGraph.weights, 0, count - 1);
+
+		UnionFind uf = new UnionFind(csrGraph.nodeCount);
+		for (int i = 0; i < count; i++) {
+			int arc = arcs[i];
+			int u = sources[arc];
+			int v = csrGraph.targets[arc];
+			if (uf.find(u).intValue() != uf.find(v).intValue()) {
+				minimumSpanningForest.put(new Edge(u, v, csrGraph.weights[arc]));
+				uf.merge(u, v);
+			}
+		}
+
+	}
+
+	/**
+	 * Quick sorts a range of arc indices by the weight of each arc. Recurses
+	 * into the smaller partition and loops over the larger one to keep the
+	 * stack depth logarithmic.
+	 * 
+	 * @param arcs
+	 *            arc indices to sort
+	 * @param weights
+	 *            weight of each arc
+	 * @param lo
+	 *            index of first item in range
+	 * @param hi
+	 *            index of last item in range
+	 */
+	private static void sortByWeight(int[] arcs, double[] weights, int lo, int hi) {
+		while (lo < hi) {
+			double pivot = weights[arcs[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (weights[arcs[i]] < pivot)
+					i++;
+				while (weights[arcs[j]] > pivot)
+					j--;
+				if (i <= j) {
+					int tmp = arcs[i];
+					arcs[i] = arcs[j];
+					arcs[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (j - lo < hi - i) {
+				sortByWeight(arcs, weights, lo, j);
+				lo = i;
+			} else {
+				sortByWeight(arcs, weights, i, hi);
+				hi = j;
+			}
+		}
+	}
+
 }
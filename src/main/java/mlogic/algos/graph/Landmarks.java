@@ -0,0 +1,251 @@
+package mlogic.algos.graph;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.struct.IndexedHeap;
+
+/**
+ * ALT heuristic: estimates distances from precomputed shortest distances
+ * between a few landmark nodes and every node. By the triangle inequality, the
+ * distance from v to t is at least d(L, t) - d(L, v) and at least d(v, L) -
+ * d(t, L) for every landmark L, and the estimate is the largest of these
+ * bounds. Landmarks are chosen one at a time as the node farthest from those
+ * already chosen, which places them on the edges of the graph where they bound
+ * the most queries. The tables take 2 * k * V doubles on a directed graph and
+ * half that on an undirected one, and can be saved and loaded so they are
+ * computed once per graph.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class Landmarks implements Heuristic {
+
+	/**
+	 * Number of nodes in the graph the tables were computed for
+	 */
+	private int nodeCount;
+
+	/**
+	 * Landmark nodes
+	 */
+	private int[] landmarks;
+
+	/**
+	 * Shortest distance from each landmark to each node
+	 */
+	private double[][] fromLandmark;
+
+	/**
+	 * Shortest distance from each node to each landmark. Same as
+	 * *fromLandmark* on undirected graphs.
+	 */
+	private double[][] toLandmark;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to compute the tables for
+	 * @param count
+	 *            number of landmarks
+	 */
+	public Landmarks(Graph graph, int count) {
+		this(new CSRGraph(graph), count);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to compute the tables for
+	 * @param count
+	 *            number of landmarks
+	 */
+	public Landmarks(CSRGraph graph, int count) {
+		CSRGraph.checkEmpty(graph);
+		if (count < 1 || count > graph.nodeCount)
+			throw new IllegalArgumentException("Landmark count must be between 1 and the number of nodes.");
+		this.nodeCount = graph.nodeCount;
+		this.landmarks = new int[count];
+		this.fromLandmark = new double[count][];
+		this.toLandmark = new double[count][];
+
+		CSRGraph reverse = graph.reverse();
+		// Distance from the chosen landmarks to each node, the next landmark
+		// is the reachable node farthest from all of them
+		double[] nearest = distancesFrom(graph, 0);
+		for (int i = 0; i < count; i++) {
+			int landmark = 0;
+			for (int v = 1; v < nodeCount; v++)
+				if (isFarther(nearest[v], nearest[landmark]))
+					landmark = v;
+			landmarks[i] = landmark;
+			fromLandmark[i] = distancesFrom(graph, landmark);
+			toLandmark[i] = graph.directed ? distancesFrom(reverse, landmark) : fromLandmark[i];
+			for (int v = 0; v < nodeCount; v++)
+				if (i == 0 || fromLandmark[i][v] < nearest[v])
+					nearest[v] = fromLandmark[i][v];
+		}
+	}
+
+	/**
+	 * Constructor for tables read from a stream
+	 */
+	private Landmarks() {
+	}
+
+	/**
+	 * @return landmark nodes
+	 */
+	public int[] landmarks() {
+		return landmarks;
+	}
+
+	/**
+	 * @return number of nodes in the graph the tables were computed for
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see mlogic.algos.graph.Heuristic#estimate(int, int)
+	 */
+	@Override
+	public double estimate(int node, int end) {
+		double bound = 0;
+		for (int i = 0; i < landmarks.length; i++) {
+			double forward = fromLandmark[i][end] - fromLandmark[i][node];
+			if (forward > bound)
+				bound = forward;
+			double backward = toLandmark[i][node] - toLandmark[i][end];
+			if (backward > bound)
+				bound = backward;
+		}
+		return bound;
+	}
+
+	/**
+	 * Writes the landmark tables to a stream
+	 * 
+	 * @param out
+	 *            stream to write to, left open
+	 * @throws IOException
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		boolean directed = toLandmark[0] != fromLandmark[0];
+		data.writeInt(nodeCount);
+		data.writeInt(landmarks.length);
+		data.writeBoolean(directed);
+		for (int i = 0; i < landmarks.length; i++) {
+			data.writeInt(landmarks[i]);
+			for (int v = 0; v < nodeCount; v++)
+				data.writeDouble(fromLandmark[i][v]);
+			if (directed)
+				for (int v = 0; v < nodeCount; v++)
+					data.writeDouble(toLandmark[i][v]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads landmark tables written by {@link #save(OutputStream)}
+	 * 
+	 * @param in
+	 *            stream to read from, left open
+	 * @return landmark tables
+	 * @throws IOException
+	 */
+	public static Landmarks load(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		Landmarks tables = new Landmarks();
+		tables.nodeCount = data.readInt();
+		int count = data.readInt();
+		boolean directed = data.readBoolean();
+		if (tables.nodeCount <= 0 || count <= 0)
+			throw new IOException("Stream does not hold landmark tables.");
+		tables.landmarks = new int[count];
+		tables.fromLandmark = new double[count][];
+		tables.toLandmark = new double[count][];
+		for (int i = 0; i < count; i++) {
+			tables.landmarks[i] = data.readInt();
+			tables.fromLandmark[i] = new double[tables.nodeCount];
+			for (int v = 0; v < tables.nodeCount; v++)
+				tables.fromLandmark[i][v] = data.readDouble();
+			if (directed) {
+				tables.toLandmark[i] = new double[tables.nodeCount];
+				for (int v = 0; v < tables.nodeCount; v++)
+					tables.toLandmark[i][v] = data.readDouble();
+			} else
+				tables.toLandmark[i] = tables.fromLandmark[i];
+		}
+		return tables;
+	}
+
+	/**
+	 * Distances of unreachable nodes are infinite and never chosen, so each
+	 * landmark stays in reach of the nodes it bounds
+	 * 
+	 * @param distance
+	 * @param farthest
+	 *            distance of the farthest node so far
+	 * @return true if the distance is finite and farther
+	 */
+	private static boolean isFarther(double distance, double farthest) {
+		return distance != Double.POSITIVE_INFINITY
+				&& (farthest == Double.POSITIVE_INFINITY || distance > farthest);
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from a node to every node of a CSR graph
+	 * 
+	 * @param graph
+	 * @param origin
+	 *            node to measure distances from
+	 * @return shortest distance to each node, infinity for nodes not reachable
+	 */
+	private static double[] distancesFrom(CSRGraph graph, int origin) {
+		final double[] distanceTo = new double[graph.nodeCount];
+		for (int v = 0; v < graph.nodeCount; v++)
+			distanceTo[v] = Double.POSITIVE_INFINITY;
+		distanceTo[origin] = 0;
+		boolean[] marked = new boolean[graph.nodeCount];
+		IndexedHeap pq = new IndexedHeap(graph.nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Double.compare(distanceTo[u], distanceTo[v]);
+			}
+		};
+		pq.insert(origin);
+		while (!pq.isEmpty()) {
+			int u = pq.deleteMin();
+			marked[u] = true;
+			for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+				int v = graph.targets[arc];
+				if (marked[v])
+					continue;
+				double weight = graph.weights[arc];
+				if (weight < 0)
+					throw new NegativeEdgeWeightException(
+							"Landmark distances cannot be computed on a graph with negative edges.");
+				if (distanceTo[u] + weight < distanceTo[v]) {
+					distanceTo[v] = distanceTo[u] + weight;
+					if (pq.contains(v))
+						pq.decreaseKey(v);
+					else
+						pq.insert(v);
+				}
+			}
+		}
+		return distanceTo;
+	}
+
+}
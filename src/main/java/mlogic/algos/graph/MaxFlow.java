@@ -1,7 +1,9 @@
 package mlogic.algos.graph;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
+import mlogic.algos.graph.Edge.Arithmetic;
 import mlogic.algos.struct.List;
 import mlogic.algos.struct.Queue;
 import mlogic.algos.struct.SinglyLinkedList;
@@ -16,7 +18,8 @@ import mlogic.algos.struct.SinglyLinkedList;
  * all augmenting paths may not provide the maximum bottleneck capacity. So the
  * implementation allows for reversing / reducing flow through a particular edge
  * if it results in increasing overall flow. This allows the algorithm to
- * recover from sub-optimal paths chosen by shortest path heuristic.
+ * recover from sub-optimal paths chosen by shortest path heuristic. Flow is
+ * accumulated in the {@link Arithmetic} chosen at construction.
  * 
  * @author Rajaram G
  *
@@ -28,6 +31,11 @@ public class MaxFlow {
 	 */
 	private FlowNetwork graph;
 
+	/**
+	 * Number type used to accumulate flow
+	 */
+	private Arithmetic arithmetic;
+
 	/**
 	 * Stores current augmenting path
 	 */
@@ -53,6 +61,16 @@ public class MaxFlow {
 	 */
 	private BigDecimal totalFlow;
 
+	/**
+	 * Total flow through the network under double arithmetic
+	 */
+	private double doubleTotalFlow;
+
+	/**
+	 * Total flow through the network under long arithmetic
+	 */
+	private long longTotalFlow;
+
 	/**
 	 * Tracks maxflow computation state
 	 */
@@ -67,8 +85,23 @@ public class MaxFlow {
 	 * @param sink
 	 */
 	public MaxFlow(FlowNetwork graph, Integer source, Integer sink) {
+		this(graph, source, sink, Arithmetic.EXACT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            flow network
+	 * @param source
+	 * @param sink
+	 * @param arithmetic
+	 *            number type used to accumulate flow
+	 */
+	public MaxFlow(FlowNetwork graph, Integer source, Integer sink, Arithmetic arithmetic) {
 		Graph.checkEmpty(graph);
 		this.graph = graph;
+		this.arithmetic = arithmetic;
 
 		if (source < 0 || source >= graph.nodeCount)
 			throw new IllegalArgumentException(source + " out of range.");
@@ -80,8 +113,16 @@ public class MaxFlow {
 		this.totalFlow = new BigDecimal(0);
 
 		while (findAugmentingPath()) {
-			BigDecimal bottleneck = computeBottleneckCapacity();
-			addFlowToNetwork(bottleneck);
+			switch (arithmetic) {
+			case DOUBLE:
+				addFlowToNetwork(computeDoubleBottleneckCapacity());
+				break;
+			case LONG:
+				addFlowToNetwork(computeLongBottleneckCapacity());
+				break;
+			default:
+				addFlowToNetwork(computeBottleneckCapacity());
+			}
 		}
 
 		isMaxFlowComplete = true;
@@ -94,14 +135,53 @@ public class MaxFlow {
 	public BigDecimal maxFlow() {
 		if (!isMaxFlowComplete)
 			throw new UnsupportedOperationException("Max flow yet to be computed");
-		else
+		switch (arithmetic) {
+		case DOUBLE:
+			return new BigDecimal(doubleTotalFlow);
+		case LONG:
+			return BigDecimal.valueOf(longTotalFlow);
+		default:
 			return totalFlow;
+		}
+	}
+
+	/**
+	 * @return max flow through network as a double
+	 */
+	public double doubleMaxFlow() {
+		if (!isMaxFlowComplete)
+			throw new UnsupportedOperationException("Max flow yet to be computed");
+		switch (arithmetic) {
+		case DOUBLE:
+			return doubleTotalFlow;
+		case LONG:
+			return longTotalFlow;
+		default:
+			return totalFlow.doubleValue();
+		}
+	}
+
+	/**
+	 * @return max flow through network as a long
+	 */
+	public long longMaxFlow() {
+		if (!isMaxFlowComplete)
+			throw new UnsupportedOperationException("Max flow yet to be computed");
+		switch (arithmetic) {
+		case DOUBLE:
+			return (long) doubleTotalFlow;
+		case LONG:
+			return longTotalFlow;
+		default:
+			return totalFlow.longValue();
+		}
 	}
 
 	/**
 	 * Computes min cut by adding up capacity of all edges that need to be
 	 * removed from the graph to disconnect source from sink in the final
-	 * residual graph.
+	 * residual graph. Capacities are added in the arithmetic of the max flow
+	 * computation.
 	 * 
 	 * @return Sum of capacities of the edges in the min cut.
 	 */
@@ -110,22 +190,36 @@ public class MaxFlow {
 		if (!isMaxFlowComplete)
 			throw new UnsupportedOperationException("Max flow yet to be computed");
 		else {
-			for (Integer v = 0; v < this.graph.nodeCount; v++) {
+			for (int v = 0; v < this.graph.nodeCount; v++) {
 				if (connectedToSource[v]) {
 					for (Edge e : this.graph.edges[v]) {
-						Integer w = e.other(v);
+						int w = e.other(v);
 						if (!connectedToSource[w])
 							minCutEdges.put((FlowEdge) e);
 					}
 				}
 			}
 		}
-		BigDecimal minCut = new BigDecimal(0);
-		for (FlowEdge fe : minCutEdges) {
-			minCut = minCut.add(fe.capacity());
+		switch (arithmetic) {
+		case DOUBLE: {
+			double minCut = 0;
+			for (FlowEdge fe : minCutEdges)
+				minCut += fe.doubleWeight();
+			return new BigDecimal(minCut);
+		}
+		case LONG: {
+			long minCut = 0;
+			for (FlowEdge fe : minCutEdges)
+				minCut += fe.longWeight();
+			return BigDecimal.valueOf(minCut);
+		}
+		default: {
+			BigDecimal minCut = new BigDecimal(0);
+			for (FlowEdge fe : minCutEdges)
+				minCut = minCut.add(fe.capacity());
+			return minCut;
+		}
 		}
-
-		return minCut;
 
 	}
 
@@ -141,24 +235,23 @@ public class MaxFlow {
 	 */
 	private boolean findAugmentingPath() {
 
-		edgeTo = new FlowEdge[graph.nodeCount];
-		connectedToSource = new boolean[graph.nodeCount];
+		if (edgeTo == null) {
+			edgeTo = new FlowEdge[graph.nodeCount];
+			connectedToSource = new boolean[graph.nodeCount];
+		} else
+			Arrays.fill(connectedToSource, false);
 		connectedToSource[this.source] = true;
 		Queue<Integer> queue = new Queue<Integer>();
-		Integer u = this.source;
-		queue.enqueue(u);
+		queue.enqueue(this.source);
 		while (!queue.isEmpty()) {
-			Integer v = queue.dequeue();
+			int v = queue.dequeue();
 			for (Edge e : graph.edges[v]) {
 				FlowEdge fe = (FlowEdge) e;
-				Integer w = e.other(v);
-				if (!connectedToSource[w]) {
-					System.out.println("Visiting edge" + v + "->" + w + " " + fe.residualCapacityTo(w));
-					if (fe.residualCapacityTo(w).compareTo(new BigDecimal(0)) > 0) {
-						edgeTo[w] = fe;
-						connectedToSource[w] = true;
-						queue.enqueue(w);
-					}
+				int w = e.other(v);
+				if (!connectedToSource[w] && hasResidualCapacityTo(fe, w)) {
+					edgeTo[w] = fe;
+					connectedToSource[w] = true;
+					queue.enqueue(w);
 				}
 
 			}
@@ -170,6 +263,24 @@ public class MaxFlow {
 			return false;
 	}
 
+	/**
+	 * @param fe
+	 *            edge in the residual graph
+	 * @param node
+	 *            end point of the edge
+	 * @return true if flow can be pushed along the edge towards the node
+	 */
+	private boolean hasResidualCapacityTo(FlowEdge fe, int node) {
+		switch (arithmetic) {
+		case DOUBLE:
+			return fe.doubleResidualCapacityTo(node) > 0;
+		case LONG:
+			return fe.longResidualCapacityTo(node) > 0;
+		default:
+			return fe.residualCapacityTo(node).signum() > 0;
+		}
+	}
+
 	/**
 	 * Walks back from sink node along the current augmenting path to identify
 	 * the edge with lowest residual capacity
@@ -177,15 +288,36 @@ public class MaxFlow {
 	 * @return bottleneck capacity along current augmenting path
 	 */
 	private BigDecimal computeBottleneckCapacity() {
-		BigDecimal bottleneck = new BigDecimal(Double.MAX_VALUE);
-		System.out.print("\nAugmenting path " + this.sink);
-		for (Integer v = this.sink; v != this.source; v = edgeTo[v].other(v)) {
-			System.out.print("<-" + edgeTo[v].other(v));
+		BigDecimal bottleneck = null;
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v)) {
 			BigDecimal residual = edgeTo[v].residualCapacityTo(v);
-			if (residual.compareTo(bottleneck) < 0)
+			if (bottleneck == null || residual.compareTo(bottleneck) < 0)
 				bottleneck = residual;
 		}
-		System.out.print(" bottleneck" + bottleneck + "\n");
+		return bottleneck;
+	}
+
+	/**
+	 * @return bottleneck capacity along current augmenting path under double
+	 *         arithmetic
+	 * @see #computeBottleneckCapacity()
+	 */
+	private double computeDoubleBottleneckCapacity() {
+		double bottleneck = Double.MAX_VALUE;
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v))
+			bottleneck = Math.min(bottleneck, edgeTo[v].doubleResidualCapacityTo(v));
+		return bottleneck;
+	}
+
+	/**
+	 * @return bottleneck capacity along current augmenting path under long
+	 *         arithmetic
+	 * @see #computeBottleneckCapacity()
+	 */
+	private long computeLongBottleneckCapacity() {
+		long bottleneck = Long.MAX_VALUE;
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v))
+			bottleneck = Math.min(bottleneck, edgeTo[v].longResidualCapacityTo(v));
 		return bottleneck;
 	}
 
@@ -194,11 +326,28 @@ public class MaxFlow {
 	 */
 	private void addFlowToNetwork(BigDecimal bottleneck) {
 		this.totalFlow = this.totalFlow.add(bottleneck);
-		for (Integer v = this.sink; v != this.source; v = edgeTo[v].other(v)) {
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v))
+			edgeTo[v].addFlowTo(bottleneck, v);
+
+	}
+
+	/**
+	 * @param bottleneck
+	 */
+	private void addFlowToNetwork(double bottleneck) {
+		this.doubleTotalFlow += bottleneck;
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v))
+			edgeTo[v].addFlowTo(bottleneck, v);
+
+	}
+
+	/**
+	 * @param bottleneck
+	 */
+	private void addFlowToNetwork(long bottleneck) {
+		this.longTotalFlow += bottleneck;
+		for (int v = this.sink; v != this.source; v = edgeTo[v].other(v))
 			edgeTo[v].addFlowTo(bottleneck, v);
-			System.out.println("Added flow to " + edgeTo[v].other(v) + "->" + v + "new residual flow "
-					+ edgeTo[v].residualCapacityTo(v));
-		}
 
 	}
 
@@ -0,0 +1,384 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+import mlogic.algos.struct.IndexedHeap;
+
+/**
+ * Computes a maximum flow of minimum cost in a flow network whose edges charge
+ * a cost per unit of flow. Two methods are available:
+ * <ul>
+ * <li>Successive shortest paths augments along the cheapest path from source
+ * to sink until none is left. Node potentials, as in Johnson's algorithm,
+ * keep every reduced cost non-negative so each path is found with Dijkstra's
+ * algorithm; they start as Bellman-Ford distances when some costs are
+ * negative. The number of augmentations is bounded by the flow value, so it
+ * suits networks with small capacities. Networks with a negative cost cycle
+ * are rejected.</li>
+ * <li>Cost scaling starts from a maximum flow found by {@link Dinic} and
+ * cancels its excess cost with Goldberg's push-relabel method. Each phase
+ * makes the flow epsilon-optimal, no residual arc has a reduced cost below
+ * -epsilon, for an epsilon a fixed factor smaller than the last. Costs are
+ * multiplied by V + 1 so that the final 1-optimal flow is optimal. The
+ * running time does not depend on the capacities, and negative cost cycles
+ * are allowed.</li>
+ * </ul>
+ * Both run on the primitive arrays of a {@link ResidualNetwork}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class MinCostFlow {
+
+	/**
+	 * Min-cost flow methods
+	 */
+	public enum Method {
+		SUCCESSIVE_SHORTEST_PATHS, COST_SCALING
+	}
+
+	/**
+	 * Factor by which epsilon shrinks between cost scaling phases
+	 */
+	private static final int SCALING_FACTOR = 8;
+
+	/**
+	 * Residual graph of the flow network
+	 */
+	private ResidualNetwork network;
+
+	/**
+	 * Source node
+	 */
+	private int source;
+
+	/**
+	 * Target node
+	 */
+	private int sink;
+
+	/**
+	 * Potential of each node. Reduced costs, the cost of an arc plus the
+	 * potential of its tail less that of its head, are non-negative on
+	 * residual arcs under successive shortest paths and at least -epsilon
+	 * under cost scaling.
+	 */
+	private long[] potential;
+
+	/**
+	 * Total flow through the network
+	 */
+	private long totalFlow;
+
+	/**
+	 * Total cost of the flow
+	 */
+	private long totalCost;
+
+	/**
+	 * Constructor. Uses successive shortest paths; flows are written back to
+	 * the edges of the network under {@link Edge.Arithmetic#LONG}.
+	 * 
+	 * @param graph
+	 *            flow network with integral capacities
+	 * @param source
+	 * @param sink
+	 */
+	public MinCostFlow(CostFlowNetwork graph, Integer source, Integer sink) {
+		this(new ResidualNetwork(graph), source, sink, Method.SUCCESSIVE_SHORTEST_PATHS);
+	}
+
+	/**
+	 * Constructor. Flows are written back to the edges of the network under
+	 * {@link Edge.Arithmetic#LONG}.
+	 * 
+	 * @param graph
+	 *            flow network with integral capacities
+	 * @param source
+	 * @param sink
+	 * @param method
+	 *            min-cost flow method
+	 */
+	public MinCostFlow(CostFlowNetwork graph, Integer source, Integer sink, Method method) {
+		this(new ResidualNetwork(graph), source, sink, method);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param network
+	 *            residual graph of the flow network, with costs; any flow on
+	 *            it is discarded
+	 * @param source
+	 * @param sink
+	 * @param method
+	 *            min-cost flow method
+	 */
+	public MinCostFlow(ResidualNetwork network, Integer source, Integer sink, Method method) {
+		if (source < 0 || source >= network.nodeCount)
+			throw new IllegalArgumentException(source + " out of range.");
+		if (sink < 0 || sink >= network.nodeCount)
+			throw new IllegalArgumentException(sink + " out of range.");
+		if (network.cost == null)
+			throw new IllegalArgumentException("Min-cost flow requires edge costs.");
+		if (method == null)
+			throw new IllegalArgumentException("Method cannot be null.");
+		this.network = network;
+		this.source = source;
+		this.sink = sink;
+		potential = new long[network.nodeCount];
+
+		network.clearFlow();
+		if (method == Method.COST_SCALING) {
+			totalFlow = this.source == this.sink ? 0 : new Dinic(network, source, sink).longMaxFlow();
+			costScaling();
+		} else
+			successiveShortestPaths();
+		for (int edge = 0; edge < network.edgeCount; edge++)
+			totalCost += network.flow(edge) * network.cost[network.edgeArc[edge]];
+		network.writeFlow();
+
+	}
+
+	/**
+	 * @return max flow through network
+	 */
+	public BigDecimal maxFlow() {
+		return BigDecimal.valueOf(totalFlow);
+	}
+
+	/**
+	 * @return max flow through network as a long
+	 */
+	public long longMaxFlow() {
+		return totalFlow;
+	}
+
+	/**
+	 * @return cost of the max flow
+	 */
+	public BigDecimal minCost() {
+		return BigDecimal.valueOf(totalCost);
+	}
+
+	/**
+	 * @return cost of the max flow as a long
+	 */
+	public long longMinCost() {
+		return totalCost;
+	}
+
+	/**
+	 * Augments along cheapest paths from source to sink until sink cannot be
+	 * reached
+	 */
+	private void successiveShortestPaths() {
+		if (source == sink)
+			return;
+		int nodeCount = network.nodeCount;
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		long[] cost = network.cost;
+		int[] reverse = network.reverse;
+		for (int arc = 0; arc < cost.length; arc++) {
+			if (residual[arc] > 0 && cost[arc] < 0) {
+				initialPotentials();
+				break;
+			}
+		}
+
+		final long[] distance = new long[nodeCount];
+		int[] arcTo = new int[nodeCount];
+		boolean[] settled = new boolean[nodeCount];
+		IndexedHeap pq = new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				return Long.compare(distance[u], distance[v]);
+			}
+		};
+		while (true) {
+			for (int v = 0; v < nodeCount; v++) {
+				distance[v] = Long.MAX_VALUE;
+				settled[v] = false;
+			}
+			distance[source] = 0;
+			pq.clear();
+			pq.insert(source);
+			while (!pq.isEmpty()) {
+				int u = pq.deleteMin();
+				settled[u] = true;
+				if (u == sink)
+					break;
+				for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+					if (residual[arc] == 0)
+						continue;
+					int w = targets[arc];
+					long d = distance[u] + cost[arc] + potential[u] - potential[w];
+					if (d < distance[w]) {
+						distance[w] = d;
+						arcTo[w] = arc;
+						if (pq.contains(w))
+							pq.decreaseKey(w);
+						else
+							pq.insert(w);
+					}
+				}
+			}
+			if (!settled[sink])
+				break;
+
+			// Nodes not settled are at least as far as sink, so raising them
+			// by the sink distance keeps reduced costs non-negative
+			for (int v = 0; v < nodeCount; v++)
+				potential[v] += settled[v] ? distance[v] : distance[sink];
+			long bottleneck = Long.MAX_VALUE;
+			for (int v = sink; v != source; v = targets[reverse[arcTo[v]]])
+				bottleneck = Math.min(bottleneck, residual[arcTo[v]]);
+			for (int v = sink; v != source; v = targets[reverse[arcTo[v]]]) {
+				residual[arcTo[v]] -= bottleneck;
+				residual[reverse[arcTo[v]]] += bottleneck;
+			}
+			totalFlow += bottleneck;
+		}
+	}
+
+	/**
+	 * Sets the potentials to Bellman-Ford shortest distances over the residual
+	 * arcs, so that reduced costs start non-negative
+	 */
+	private void initialPotentials() {
+		int nodeCount = network.nodeCount;
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		long[] cost = network.cost;
+		// Every node starts at distance 0 as if reached from a virtual root, so
+		// nodes source cannot reach still get potentials
+		for (int round = 0; round <= nodeCount; round++) {
+			boolean changed = false;
+			for (int u = 0; u < nodeCount; u++) {
+				for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+					int w = targets[arc];
+					if (residual[arc] > 0 && potential[u] + cost[arc] < potential[w]) {
+						potential[w] = potential[u] + cost[arc];
+						changed = true;
+					}
+				}
+			}
+			if (!changed)
+				return;
+		}
+		throw new IllegalArgumentException(
+				"Successive shortest paths cannot be applied to a network with a negative cost cycle.");
+	}
+
+	/**
+	 * Refines the max flow through phases of shrinking epsilon until it is
+	 * 1-optimal under costs multiplied by V + 1
+	 */
+	private void costScaling() {
+		int nodeCount = network.nodeCount;
+		long[] cost = network.cost;
+		long scale = nodeCount + 1;
+		long[] scaledCost = new long[cost.length];
+		long epsilon = 1;
+		for (int arc = 0; arc < cost.length; arc++) {
+			scaledCost[arc] = cost[arc] * scale;
+			epsilon = Math.max(epsilon, Math.abs(scaledCost[arc]));
+		}
+
+		long[] excess = new long[nodeCount];
+		int[] current = new int[nodeCount];
+		int[] queue = new int[nodeCount];
+		boolean[] queued = new boolean[nodeCount];
+		do {
+			epsilon = Math.max(1, epsilon / SCALING_FACTOR);
+			refine(epsilon, scaledCost, excess, current, queue, queued);
+		} while (epsilon > 1);
+	}
+
+	/**
+	 * Turns the current flow into an epsilon-optimal one. Every residual arc
+	 * of negative reduced cost is saturated, and the resulting excesses are
+	 * pushed along admissible arcs, residual arcs of negative reduced cost,
+	 * lowering the potential of a node by at least epsilon when it has none.
+	 * Active nodes are discharged in FIFO order.
+	 * 
+	 * @param epsilon
+	 * @param scaledCost
+	 *            cost of each arc multiplied by V + 1
+	 * @param excess
+	 *            work array for the flow excess of each node
+	 * @param current
+	 *            work array for the next arc of each node to push along
+	 * @param queue
+	 *            work array for the circular queue of active nodes
+	 * @param queued
+	 *            work array marking the nodes in the queue
+	 */
+	private void refine(long epsilon, long[] scaledCost, long[] excess, int[] current, int[] queue,
+			boolean[] queued) {
+		int nodeCount = network.nodeCount;
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int[] reverse = network.reverse;
+		for (int u = 0; u < nodeCount; u++) {
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				long delta = residual[arc];
+				int w = targets[arc];
+				if (delta > 0 && scaledCost[arc] + potential[u] - potential[w] < 0) {
+					residual[arc] = 0;
+					residual[reverse[arc]] += delta;
+					excess[u] -= delta;
+					excess[w] += delta;
+				}
+			}
+		}
+		int head = 0;
+		int size = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			current[v] = offsets[v];
+			if (excess[v] > 0) {
+				queue[(head + size++) % nodeCount] = v;
+				queued[v] = true;
+			}
+		}
+
+		while (size > 0) {
+			int u = queue[head];
+			head = (head + 1) % nodeCount;
+			size--;
+			queued[u] = false;
+			while (excess[u] > 0) {
+				int arc = current[u];
+				if (arc == offsets[u + 1]) {
+					// Relabel: lower the potential just enough to make the
+					// cheapest residual arc admissible
+					long highest = Long.MIN_VALUE;
+					for (int a = offsets[u]; a < offsets[u + 1]; a++)
+						if (residual[a] > 0)
+							highest = Math.max(highest, potential[targets[a]] - scaledCost[a]);
+					potential[u] = highest - epsilon;
+					current[u] = offsets[u];
+					continue;
+				}
+				int w = targets[arc];
+				if (residual[arc] > 0 && scaledCost[arc] + potential[u] - potential[w] < 0) {
+					long delta = Math.min(excess[u], residual[arc]);
+					residual[arc] -= delta;
+					residual[reverse[arc]] += delta;
+					excess[u] -= delta;
+					excess[w] += delta;
+					if (excess[w] > 0 && !queued[w]) {
+						queue[(head + size++) % nodeCount] = w;
+						queued[w] = true;
+					}
+				} else
+					current[u]++;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+
+/**
+ * Executes breadth first search from many start nodes at once, after the
+ * MS-BFS algorithm of Then et al. Each node holds one bit per search of a
+ * batch in a few longs: the searches that have seen it, the searches that
+ * reached it at the current level, and the searches that reach it at the
+ * next level. Expanding a level scans the arcs of each node once for all the
+ * searches it is in the frontier of, so searches that overlap share their arc
+ * scans, and a single bitwise operation moves up to 64 of them across an arc.
+ * Start nodes beyond a batch are searched in further batches, reusing the
+ * bitsets.
+ * <p>
+ * Nodes are reported to {@link #visit(int, int, int)} as they are reached.
+ * {@link #execute(int[])} records them as one distance array per start node;
+ * subclasses may override the hook instead and call
+ * {@link #traverse(int[])}, which then allocates nothing per start node.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class MultiSourceBFS {
+
+	/**
+	 * Distance to nodes not reachable from a start node
+	 */
+	public static final int UNREACHED = -1;
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Longs per node, so a batch runs 64 searches per long
+	 */
+	private int words;
+
+	/**
+	 * Bits of the searches that have reached each node, *words* longs per
+	 * node
+	 */
+	private long[] seen;
+
+	/**
+	 * Bits of the searches with each node in their frontier
+	 */
+	private long[] visit;
+
+	/**
+	 * Bits of the searches reaching each node at the next level
+	 */
+	private long[] visitNext;
+
+	/**
+	 * Distances recorded by {@link #execute(int[])}, one array per start node
+	 */
+	private int[][] distances;
+
+	/**
+	 * Constructor for batches of 64 searches
+	 * 
+	 * @param graph
+	 *            graph to search
+	 */
+	public MultiSourceBFS(Graph graph) {
+		this(new CSRGraph(graph), 1);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param words
+	 *            longs of search bits per node, so batches run 64 x words
+	 *            searches
+	 */
+	public MultiSourceBFS(CSRGraph graph, int words) {
+		CSRGraph.checkEmpty(graph);
+		if (words <= 0 || (long) words * graph.nodeCount > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException(words + " out of range.");
+		this.graph = graph;
+		this.words = words;
+		this.seen = new long[words * graph.nodeCount];
+		this.visit = new long[words * graph.nodeCount];
+		this.visitNext = new long[words * graph.nodeCount];
+	}
+
+	/**
+	 * @return number of searches run together in a batch
+	 */
+	public int batchSize() {
+		return 64 * words;
+	}
+
+	/**
+	 * Executes breadth first search from each start node
+	 * 
+	 * @param starts
+	 *            start nodes, repeats allowed
+	 * @return level of each node in the BFS tree of each start node, indexed
+	 *         by the position of the start node in *starts*, UNREACHED for
+	 *         nodes not reached
+	 */
+	public int[][] execute(int[] starts) {
+		distances = new int[starts.length][graph.nodeCount];
+		for (int[] distance : distances)
+			Arrays.fill(distance, UNREACHED);
+		try {
+			traverse(starts);
+			return distances;
+		} finally {
+			distances = null;
+		}
+	}
+
+	/**
+	 * Executes breadth first search from each start node, reporting every
+	 * node reached to {@link #visit(int, int, int)}
+	 * 
+	 * @param starts
+	 *            start nodes, repeats allowed
+	 */
+	public void traverse(int[] starts) {
+		for (int start : starts)
+			if (start < 0 || start >= graph.nodeCount)
+				throw new IllegalArgumentException(start + " out of range.");
+		int batch = batchSize();
+		for (int first = 0; first < starts.length; first += batch)
+			traverseBatch(starts, first, Math.min(starts.length, first + batch));
+	}
+
+	/**
+	 * Called once for each start node and each node it reaches, level by
+	 * level. Records the distance when called from {@link #execute(int[])}.
+	 * 
+	 * @param search
+	 *            position of the start node in the array of start nodes
+	 * @param node
+	 *            node reached
+	 * @param distance
+	 *            number of arcs from the start node
+	 */
+	protected void visit(int search, int node, int distance) {
+		if (distances != null)
+			distances[search][node] = distance;
+	}
+
+	/**
+	 * Runs one batch of searches. Bit b of word w stands for the start node at
+	 * position first + 64 w + b.
+	 */
+	private void traverseBatch(int[] starts, int first, int last) {
+		int nodeCount = graph.nodeCount;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		Arrays.fill(seen, 0);
+		Arrays.fill(visit, 0);
+		for (int i = first; i < last; i++) {
+			int bit = i - first;
+			int at = starts[i] * words + (bit >>> 6);
+			seen[at] |= 1L << bit;
+			visit[at] |= 1L << bit;
+			visit(i, starts[i], 0);
+		}
+
+		boolean active = true;
+		for (int level = 1; active; level++) {
+			// Push the frontier bits of each node along its arcs
+			for (int u = 0; u < nodeCount; u++) {
+				int base = u * words;
+				for (int w = 0; w < words; w++) {
+					long bits = visit[base + w];
+					if (bits == 0)
+						continue;
+					for (int arc = offsets[u]; arc < offsets[u + 1]; arc++)
+						visitNext[targets[arc] * words + w] |= bits;
+				}
+			}
+
+			// Keep the searches reaching each node for the first time
+			active = false;
+			for (int v = 0; v < nodeCount; v++) {
+				int base = v * words;
+				for (int w = 0; w < words; w++) {
+					int at = base + w;
+					long bits = visitNext[at] & ~seen[at];
+					visitNext[at] = 0;
+					visit[at] = bits;
+					if (bits == 0)
+						continue;
+					active = true;
+					seen[at] |= bits;
+					int offset = first + 64 * w;
+					while (bits != 0) {
+						visit(offset + Long.numberOfTrailingZeros(bits), v, level);
+						bits &= bits - 1;
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,420 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes the PageRank of each node of a graph on a fork-join pool. A random
+ * surfer follows an arc out of its node, picked uniformly, with the
+ * probability of the damping factor, and otherwise jumps to a node picked from
+ * the teleport distribution; the rank of a node is the share of time the
+ * surfer spends on it. The teleport distribution is uniform over all nodes,
+ * or over a seed set for personalized PageRank. A node without outgoing arcs
+ * sends its surfer to the teleport distribution.
+ * <p>
+ * Each pass pulls, for every node, the rank shares of the nodes with an arc
+ * into it over the CSR arrays of the reverse graph, so each node is written by
+ * one task only and no atomic update is needed. Nodes are swept in chunks,
+ * one fork-join task per chunk, and the passes stop once one moves the ranks
+ * by less than the tolerance in L1 norm. The change made by each pass is
+ * kept, see {@link #residuals()}.
+ * <p>
+ * The Jacobi method computes each pass from the ranks of the pass before.
+ * The Gauss-Seidel method lets a chunk use the ranks it has already updated
+ * in the same pass, which usually takes fewer passes; the chunks then hold an
+ * equal share of the nodes per thread of the pool, and a pool of one thread
+ * gives plain Gauss-Seidel. Such a pass no longer keeps the total rank at 1,
+ * so the teleport share of each pass is scaled by the total of the pass
+ * before, and the ranks are scaled to add up to 1 at the end; the change of a
+ * pass is measured relative to its total. The result of either method only
+ * depends on the graph, the parameters and the parallelism of the pool.
+ * <p>
+ * Arc weights are ignored, and each of several parallel arcs is followed on
+ * its own.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class PageRank {
+
+	/**
+	 * Way the passes are computed
+	 */
+	public enum Method {
+		JACOBI, GAUSS_SEIDEL
+	}
+
+	/**
+	 * Damping factor used when none is given
+	 */
+	public static final double DEFAULT_DAMPING = 0.85;
+
+	/**
+	 * L1 change of the ranks below which a pass ends the computation, when no
+	 * tolerance is given
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-10;
+
+	/**
+	 * Most passes run when the ranks do not converge sooner
+	 */
+	public static final int MAX_ITERATIONS = 1000;
+
+	/**
+	 * Nodes swept by a single fork-join task under the Jacobi method
+	 */
+	private static final int NODES_PER_TASK = 4096;
+
+	/**
+	 * Sweeps a chunk of the nodes
+	 */
+	private class Sweep extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Sweep(int from, int to) {
+			super(from, to, 1);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Sweep(from, to);
+		}
+
+		@Override
+		protected void run() {
+			int first = from * chunkSize;
+			int last = Math.min(reverse.nodeCount, first + chunkSize);
+			int[] offsets = reverse.offsets;
+			int[] targets = reverse.targets;
+			double residual = 0;
+			double total = 0;
+			double dangling = 0;
+			double base = (1 - damping) * rankTotal + damping * danglingRank;
+			for (int v = first; v < last; v++) {
+				double sum = 0;
+				for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+					int u = targets[arc];
+					// Under Gauss-Seidel, nodes of the chunk before v are done
+					sum += gaussSeidel && u >= first && u < v ? nextShare[u] : share[u];
+				}
+				double newRank = base * teleport(v) + damping * sum;
+				residual += Math.abs(newRank - rank[v]);
+				total += newRank;
+				nextRank[v] = newRank;
+				if (outDegree[v] != 0)
+					nextShare[v] = newRank / outDegree[v];
+				else {
+					dangling += newRank;
+					// Under Gauss-Seidel, the rank it teleports is updated too
+					if (gaussSeidel)
+						base += damping * (newRank - rank[v]);
+				}
+			}
+			chunkResidual[from] = residual;
+			chunkTotal[from] = total;
+			chunkDangling[from] = dangling;
+		}
+
+	}
+
+	/**
+	 * Reverse of the graph to rank
+	 */
+	private CSRGraph reverse;
+
+	/**
+	 * Probability of following an arc rather than teleporting
+	 */
+	private double damping;
+
+	/**
+	 * True under the Gauss-Seidel method
+	 */
+	private boolean gaussSeidel;
+
+	/**
+	 * Outgoing arcs of each node
+	 */
+	private int[] outDegree;
+
+	/**
+	 * Teleport probability of each node, null if uniform
+	 */
+	private double[] teleport;
+
+	/**
+	 * Teleport probability of every node when uniform
+	 */
+	private double uniformTeleport;
+
+	/**
+	 * Rank of each node
+	 */
+	private double[] rank;
+
+	/**
+	 * Rank of each node being computed by a pass
+	 */
+	private double[] nextRank;
+
+	/**
+	 * Rank of each node divided by its outgoing arcs, 0 for nodes without any
+	 */
+	private double[] share;
+
+	/**
+	 * Shares being computed by a pass
+	 */
+	private double[] nextShare;
+
+	/**
+	 * Total rank of the nodes without outgoing arcs
+	 */
+	private double danglingRank;
+
+	/**
+	 * Total rank of all nodes
+	 */
+	private double rankTotal;
+
+	/**
+	 * Nodes per chunk
+	 */
+	private int chunkSize;
+
+	/**
+	 * L1 change of the ranks of each chunk in a pass
+	 */
+	private double[] chunkResidual;
+
+	/**
+	 * Total rank of each chunk in a pass
+	 */
+	private double[] chunkTotal;
+
+	/**
+	 * Rank of the nodes without outgoing arcs of each chunk in a pass
+	 */
+	private double[] chunkDangling;
+
+	/**
+	 * L1 change of the ranks made by each pass
+	 */
+	private double[] residuals;
+
+	/**
+	 * Number of passes run
+	 */
+	private int iterationCount;
+
+	/**
+	 * True if the last pass changed the ranks by less than the tolerance
+	 */
+	private boolean converged;
+
+	/**
+	 * Constructor with the default damping factor and tolerance, under the
+	 * Jacobi method
+	 * 
+	 * @param graph
+	 *            graph to rank
+	 * @param pool
+	 *            fork-join pool to run the passes on
+	 */
+	public PageRank(DirectedGraph graph, ForkJoinPool pool) {
+		this(new CSRGraph(graph), DEFAULT_DAMPING, DEFAULT_TOLERANCE, Method.JACOBI, pool);
+	}
+
+	/**
+	 * Constructor for personalized PageRank with the default damping factor
+	 * and tolerance, under the Jacobi method
+	 * 
+	 * @param graph
+	 *            graph to rank
+	 * @param seeds
+	 *            nodes to teleport to, repeats weighing a node more
+	 * @param pool
+	 *            fork-join pool to run the passes on
+	 */
+	public PageRank(DirectedGraph graph, int[] seeds, ForkJoinPool pool) {
+		this(new CSRGraph(graph), seeds, DEFAULT_DAMPING, DEFAULT_TOLERANCE, Method.JACOBI, pool);
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to rank
+	 * @param damping
+	 *            probability of following an arc, from 0 to less than 1
+	 * @param tolerance
+	 *            L1 change of the ranks below which a pass ends the
+	 *            computation
+	 * @param method
+	 *            way the passes are computed
+	 * @param pool
+	 *            fork-join pool to run the passes on
+	 */
+	public PageRank(CSRGraph graph, double damping, double tolerance, Method method, ForkJoinPool pool) {
+		this(graph, null, damping, tolerance, method, pool);
+	}
+
+	/**
+	 * Constructor for personalized PageRank on a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to rank
+	 * @param seeds
+	 *            nodes to teleport to, repeats weighing a node more, or null
+	 *            for all nodes
+	 * @param damping
+	 *            probability of following an arc, from 0 to less than 1
+	 * @param tolerance
+	 *            L1 change of the ranks below which a pass ends the
+	 *            computation
+	 * @param method
+	 *            way the passes are computed
+	 * @param pool
+	 *            fork-join pool to run the passes on
+	 */
+	public PageRank(CSRGraph graph, int[] seeds, double damping, double tolerance, Method method,
+			ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		if (!(damping >= 0 && damping < 1))
+			throw new IllegalArgumentException(damping + " out of range.");
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException(tolerance + " out of range.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		if (seeds != null) {
+			if (seeds.length == 0)
+				throw new IllegalArgumentException("Personalized PageRank requires at least one seed.");
+			teleport = new double[graph.nodeCount];
+			for (int seed : seeds) {
+				if (seed < 0 || seed >= graph.nodeCount)
+					throw new IllegalArgumentException(seed + " out of range.");
+				teleport[seed] += 1.0 / seeds.length;
+			}
+		}
+		this.damping = damping;
+		this.gaussSeidel = method == Method.GAUSS_SEIDEL;
+		compute(graph, tolerance, pool);
+
+	}
+
+	/**
+	 * @return rank of each node, adding up to 1
+	 */
+	public double[] rank() {
+		return rank;
+	}
+
+	/**
+	 * @param node
+	 * @return rank of the node
+	 */
+	public double rank(int node) {
+		if (node < 0 || node >= rank.length)
+			throw new IllegalArgumentException(node + " out of range.");
+		return rank[node];
+	}
+
+	/**
+	 * @return number of passes run
+	 */
+	public int iterationCount() {
+		return iterationCount;
+	}
+
+	/**
+	 * @return L1 change of the ranks made by each pass, in order
+	 */
+	public double[] residuals() {
+		return Arrays.copyOf(residuals, iterationCount);
+	}
+
+	/**
+	 * @return true if the last pass changed the ranks by less than the
+	 *         tolerance, false if {@link #MAX_ITERATIONS} passes were run
+	 *         first
+	 */
+	public boolean converged() {
+		return converged;
+	}
+
+	/**
+	 * Starts from the teleport distribution and runs passes until the ranks
+	 * converge
+	 */
+	private void compute(CSRGraph graph, double tolerance, ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		uniformTeleport = 1.0 / nodeCount;
+		reverse = graph.reverse();
+		outDegree = new int[nodeCount];
+		for (int u = 0; u < nodeCount; u++)
+			outDegree[u] = graph.offsets[u + 1] - graph.offsets[u];
+		rank = new double[nodeCount];
+		nextRank = new double[nodeCount];
+		share = new double[nodeCount];
+		nextShare = new double[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			rank[v] = teleport(v);
+			if (outDegree[v] == 0)
+				danglingRank += rank[v];
+			else
+				share[v] = rank[v] / outDegree[v];
+		}
+
+		chunkSize = NODES_PER_TASK;
+		if (gaussSeidel)
+			chunkSize = Math.max(chunkSize, (nodeCount + pool.getParallelism() - 1) / pool.getParallelism());
+		int chunks = (nodeCount + chunkSize - 1) / chunkSize;
+		chunkResidual = new double[chunks];
+		chunkTotal = new double[chunks];
+		chunkDangling = new double[chunks];
+		rankTotal = 1;
+		residuals = new double[16];
+		while (iterationCount < MAX_ITERATIONS) {
+			pool.invoke(new Sweep(0, chunks));
+			double residual = 0;
+			double total = 0;
+			danglingRank = 0;
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				residual += chunkResidual[chunk];
+				total += chunkTotal[chunk];
+				danglingRank += chunkDangling[chunk];
+			}
+			residual /= total;
+			rankTotal = total;
+			double[] swap = rank;
+			rank = nextRank;
+			nextRank = swap;
+			swap = share;
+			share = nextShare;
+			nextShare = swap;
+			if (iterationCount == residuals.length)
+				residuals = Arrays.copyOf(residuals, 2 * iterationCount);
+			residuals[iterationCount++] = residual;
+			if (residual < tolerance) {
+				converged = true;
+				break;
+			}
+		}
+		for (int v = 0; v < nodeCount; v++)
+			rank[v] /= rankTotal;
+		reverse = null;
+		nextRank = null;
+		share = null;
+		nextShare = null;
+	}
+
+	/**
+	 * @param v
+	 * @return teleport probability of the node
+	 */
+	private double teleport(int v) {
+		return teleport == null ? uniformTeleport : teleport[v];
+	}
+
+}
@@ -0,0 +1,363 @@
+package mlogic.algos.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Executes breadth first search on a CSR graph one level at a time, expanding
+ * each level in parallel on a fork-join pool. A level is expanded either
+ * top-down, from the frontier along outgoing arcs, or bottom-up, from every
+ * unvisited node along incoming arcs until a parent in the frontier is found.
+ * Bottom-up steps pay off once the frontier is large, since most arcs then
+ * lead to nodes already visited, and the walk switches between the two using
+ * the heuristic of Beamer, Asanovic and Patterson. The frontier and the visited
+ * set are held as bitmaps.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ParallelBFS {
+
+	/**
+	 * Level of nodes not reachable from start node
+	 */
+	public static final int UNREACHED = -1;
+
+	/**
+	 * Switch to bottom-up once the arcs of the frontier exceed this fraction of
+	 * the arcs of unvisited nodes
+	 */
+	private static final int ALPHA = 14;
+
+	/**
+	 * Switch back to top-down once the frontier holds fewer than this fraction
+	 * of the nodes
+	 */
+	private static final int BETA = 24;
+
+	/**
+	 * Bitmap words handled by a single fork-join task
+	 */
+	private static final int WORDS_PER_TASK = 16;
+
+	/**
+	 * Expands the frontier over a range of bitmap words, splitting the range
+	 * between sub-tasks until it is small enough
+	 */
+	private class Step extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private boolean bottomUp;
+		private int fromWord;
+		private int toWord;
+
+		/**
+		 * Nodes added to the next frontier
+		 */
+		private long nodes;
+
+		/**
+		 * Outgoing arcs of the nodes added to the next frontier
+		 */
+		private long arcs;
+
+		private Step(boolean bottomUp, int fromWord, int toWord) {
+			this.bottomUp = bottomUp;
+			this.fromWord = fromWord;
+			this.toWord = toWord;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (toWord - fromWord > WORDS_PER_TASK) {
+				int mid = (fromWord + toWord) >>> 1;
+				Step left = new Step(bottomUp, fromWord, mid);
+				Step right = new Step(bottomUp, mid, toWord);
+				invokeAll(left, right);
+				nodes = left.nodes + right.nodes;
+				arcs = left.arcs + right.arcs;
+			} else {
+				for (int word = fromWord; word < toWord; word++) {
+					if (bottomUp)
+						bottomUp(word);
+					else
+						topDown(word);
+				}
+			}
+		}
+
+		/**
+		 * Visits the unvisited targets of the frontier nodes in a bitmap word.
+		 * Targets are claimed by setting their visited bit, so each node gets
+		 * exactly one parent.
+		 * 
+		 * @param word
+		 *            index of the bitmap word
+		 */
+		private void topDown(int word) {
+			long bits = frontier.get(word);
+			while (bits != 0) {
+				int u = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++) {
+					int v = graph.targets[arc];
+					if (!testBit(visited, v) && setBit(visited, v)) {
+						level[v] = depth + 1;
+						parent[v] = u;
+						setBit(next, v);
+						nodes++;
+						arcs += graph.offsets[v + 1] - graph.offsets[v];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Looks for a frontier parent of each unvisited node in a bitmap word.
+		 * The task owns the word, so the visited and next bitmaps are written
+		 * once without contention.
+		 * 
+		 * @param word
+		 *            index of the bitmap word
+		 */
+		private void bottomUp(int word) {
+			long seen = visited.get(word);
+			long found = 0;
+			int first = word << 6;
+			int last = Math.min(first + 64, graph.nodeCount);
+			for (int v = first; v < last; v++) {
+				if ((seen & (1L << v)) != 0)
+					continue;
+				for (int arc = reverse.offsets[v]; arc < reverse.offsets[v + 1]; arc++) {
+					int u = reverse.targets[arc];
+					if (testBit(frontier, u)) {
+						level[v] = depth + 1;
+						parent[v] = u;
+						found |= 1L << v;
+						nodes++;
+						arcs += graph.offsets[v + 1] - graph.offsets[v];
+						break;
+					}
+				}
+			}
+			if (found != 0) {
+				visited.set(word, seen | found);
+				next.set(word, found);
+			}
+		}
+
+	}
+
+	/**
+	 * Pool running the level expansions
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Graph to search
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Graph with every arc reversed, walked by bottom-up steps
+	 */
+	private CSRGraph reverse;
+
+	/**
+	 * Level of each node in the BFS tree, UNREACHED for nodes not reached
+	 */
+	private int[] level;
+
+	/**
+	 * Parent of each node in the BFS tree, -1 for start node and nodes not
+	 * reached
+	 */
+	private int[] parent;
+
+	/**
+	 * Bitmap of visited nodes
+	 */
+	private AtomicLongArray visited;
+
+	/**
+	 * Bitmap of nodes at the current level
+	 */
+	private AtomicLongArray frontier;
+
+	/**
+	 * Bitmap of nodes at the next level
+	 */
+	private AtomicLongArray next;
+
+	/**
+	 * Level being expanded
+	 */
+	private int depth;
+
+	/**
+	 * Constructor for a search on the common fork-join pool
+	 */
+	public ParallelBFS() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ParallelBFS(ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		this.pool = pool;
+	}
+
+	/**
+	 * Executes breadth first search on a graph starting with specified start
+	 * node
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @return level of each node in the BFS tree, UNREACHED for nodes not
+	 *         reached
+	 */
+	public int[] execute(Graph graph, Integer start) {
+		return execute(new CSRGraph(graph), start);
+	}
+
+	/**
+	 * Executes breadth first search on a CSR graph starting with specified
+	 * start node
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @return level of each node in the BFS tree, UNREACHED for nodes not
+	 *         reached
+	 */
+	public int[] execute(CSRGraph graph, Integer start) {
+		return execute(graph, start, -1);
+	}
+
+	/**
+	 * Executes breadth first search on a CSR graph starting with specified
+	 * start node, and stops after the level that reaches the end node. Nodes
+	 * beyond that level are left UNREACHED.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            node at which the search may stop, -1 to search the whole
+	 *            graph
+	 * @return level of each node in the BFS tree, UNREACHED for nodes not
+	 *         reached
+	 */
+	public int[] execute(CSRGraph graph, Integer start, Integer end) {
+		CSRGraph.checkEmpty(graph);
+		if (start < 0 || start >= graph.nodeCount)
+			throw new IllegalArgumentException(start + " out of range.");
+		if (end < -1 || end >= graph.nodeCount)
+			throw new IllegalArgumentException(end + " out of range.");
+
+		if (this.graph != graph) {
+			this.graph = graph;
+			this.reverse = null;
+		}
+		int nodeCount = graph.nodeCount;
+		int words = (nodeCount + 63) >>> 6;
+		level = new int[nodeCount];
+		parent = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			level[v] = UNREACHED;
+			parent[v] = -1;
+		}
+		visited = new AtomicLongArray(words);
+		frontier = new AtomicLongArray(words);
+		next = new AtomicLongArray(words);
+
+		level[start] = 0;
+		setBit(visited, start);
+		setBit(frontier, start);
+		long frontierNodes = 1;
+		long frontierArcs = graph.degree(start);
+		long unvisitedArcs = graph.arcCount() - frontierArcs;
+		boolean bottomUp = false;
+		depth = 0;
+		while (frontierNodes > 0 && (end == -1 || level[end] == UNREACHED)) {
+			if (!bottomUp && frontierArcs > unvisitedArcs / ALPHA)
+				bottomUp = true;
+			else if (bottomUp && frontierNodes < nodeCount / BETA)
+				bottomUp = false;
+			if (bottomUp && reverse == null)
+				reverse = graph.reverse();
+
+			Step step = new Step(bottomUp, 0, words);
+			pool.invoke(step);
+
+			AtomicLongArray done = frontier;
+			frontier = next;
+			next = done;
+			for (int word = 0; word < words; word++)
+				next.set(word, 0);
+			frontierNodes = step.nodes;
+			frontierArcs = step.arcs;
+			unvisitedArcs -= frontierArcs;
+			depth++;
+		}
+
+		return level;
+
+	}
+
+	/**
+	 * @return parent of each node in the BFS tree of the last search, -1 for
+	 *         start node and nodes not reached
+	 */
+	public int[] parents() {
+		return parent;
+	}
+
+	/**
+	 * @param bits
+	 *            bitmap
+	 * @param node
+	 * @return true if the bit of the node is set
+	 */
+	private static boolean testBit(AtomicLongArray bits, int node) {
+		return (bits.get(node >>> 6) & (1L << node)) != 0;
+	}
+
+	/**
+	 * Atomically sets the bit of a node
+	 * 
+	 * @param bits
+	 *            bitmap
+	 * @param node
+	 * @return true if the bit was set by this call, false if it was already set
+	 */
+	private static boolean setBit(AtomicLongArray bits, int node) {
+		int word = node >>> 6;
+		long mask = 1L << node;
+		while (true) {
+			long old = bits.get(word);
+			if ((old & mask) != 0)
+				return false;
+			if (bits.compareAndSet(word, old, old | mask))
+				return true;
+		}
+	}
+
+}
@@ -0,0 +1,355 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Finds the connected components of an undirected graph on a fork-join pool
+ * using the Afforest algorithm of Sutton, Ben-Nun and Barak, a refinement of
+ * Shiloach-Vishkin hooking and compressing. Each node holds a label pointing
+ * at another node of its component, and an edge is processed by hooking the
+ * root of the higher label below the root of the lower one with a
+ * compare-and-set. Labels are first linked along the first few arcs of every
+ * node and compressed, which already places most nodes of a large component
+ * in one tree. That tree is found by sampling, and the remaining arcs are
+ * only followed from nodes outside it, since any edge leaving it is seen from
+ * its other end. A final compression points every node at the lowest node of
+ * its component, so components are numbered as in
+ * {@link ConnectedComponents}, in the order of their lowest node. Labels are
+ * only ever lowered, so the root of each tree is its lowest node.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ParallelConnectedComponents {
+
+	/**
+	 * Arcs of each node followed before the largest component is sampled
+	 */
+	private static final int NEIGHBOR_ROUNDS = 2;
+
+	/**
+	 * Nodes sampled to find the largest component
+	 */
+	private static final int SAMPLES = 1024;
+
+	/**
+	 * Nodes handled by a single fork-join task
+	 */
+	private static final int NODES_PER_TASK = 4096;
+
+	/**
+	 * Phases of numbering the components
+	 */
+	private static final int COUNT_ROOTS = 0;
+	private static final int NUMBER_ROOTS = 1;
+	private static final int NUMBER_NODES = 2;
+
+	/**
+	 * Links each node of a range with the target of one of its arcs
+	 */
+	private class LinkArc extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private int round;
+
+		private LinkArc(int round, int from, int to) {
+			super(from, to, NODES_PER_TASK);
+			this.round = round;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new LinkArc(round, from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int u = from; u < to; u++) {
+				int arc = graph.offsets[u] + round;
+				if (arc < graph.offsets[u + 1])
+					link(u, graph.targets[arc]);
+			}
+		}
+
+	}
+
+	/**
+	 * Links each node of a range outside the largest component with the
+	 * targets of the arcs not yet followed
+	 */
+	private class LinkRemaining extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private int largest;
+
+		private LinkRemaining(int largest, int from, int to) {
+			super(from, to, NODES_PER_TASK);
+			this.largest = largest;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new LinkRemaining(largest, from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int u = from; u < to; u++) {
+				if (label.get(u) == largest)
+					continue;
+				for (int arc = graph.offsets[u] + NEIGHBOR_ROUNDS; arc < graph.offsets[u + 1]; arc++)
+					link(u, graph.targets[arc]);
+			}
+		}
+
+	}
+
+	/**
+	 * Points each node of a range directly at the root of its tree
+	 */
+	private class Compress extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private Compress(int from, int to) {
+			super(from, to, NODES_PER_TASK);
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Compress(from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int v = from; v < to; v++) {
+				while (true) {
+					int up = label.get(v);
+					int grand = label.get(up);
+					if (up == grand)
+						break;
+					label.set(v, grand);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Counts the roots in a range of chunks of nodes, numbers them once the
+	 * counts of the chunks before are known, and then gives every other node
+	 * the number of its root
+	 */
+	private class NumberComponents extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private int phase;
+
+		private NumberComponents(int phase, int from, int to) {
+			super(from, to, 1);
+			this.phase = phase;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new NumberComponents(phase, from, to);
+		}
+
+		@Override
+		protected void run() {
+			for (int chunk = from; chunk < to; chunk++) {
+				int first = chunk * NODES_PER_TASK;
+				int last = Math.min(first + NODES_PER_TASK, component.length);
+				if (phase == COUNT_ROOTS) {
+					int roots = 0;
+					for (int v = first; v < last; v++)
+						if (label.get(v) == v)
+							roots++;
+					chunkRoots[chunk] = roots;
+				} else if (phase == NUMBER_ROOTS) {
+					int next = chunkRoots[chunk];
+					for (int v = first; v < last; v++)
+						if (label.get(v) == v)
+							component[v] = next++;
+				} else {
+					for (int v = first; v < last; v++)
+						component[v] = component[label.get(v)];
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Graph to process
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Pool running the search
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Node each node points at, only ever lowered. Nodes pointing at
+	 * themselves are roots.
+	 */
+	private AtomicIntegerArray label;
+
+	/**
+	 * Roots in each chunk of nodes, then the component index of the first
+	 * root of each chunk
+	 */
+	private int[] chunkRoots;
+
+	/**
+	 * Component index of each node
+	 */
+	private int[] component;
+
+	/**
+	 * Number of components
+	 */
+	private int componentCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Undirected graph to process
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ParallelConnectedComponents(UndirectedGraph graph, ForkJoinPool pool) {
+		this(new CSRGraph(graph), pool);
+	}
+
+	/**
+	 * Constructor for an undirected graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            Undirected graph to process
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ParallelConnectedComponents(CSRGraph graph, ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		if (graph.directed)
+			throw new IllegalArgumentException("Connected components require an undirected graph.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		this.graph = graph;
+		this.pool = pool;
+		compute();
+
+	}
+
+	/**
+	 * @return array that stores the connected component index
+	 */
+	public Integer[] connectedComponentArray() {
+		Integer[] connected = new Integer[component.length];
+		for (int v = 0; v < component.length; v++)
+			connected[v] = component[v];
+		return connected;
+	}
+
+	/**
+	 * @return array that stores the connected component index, without boxing
+	 */
+	public int[] intConnectedComponentArray() {
+		return component;
+	}
+
+	/**
+	 * @return number of connected components
+	 */
+	public int componentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Links the nodes along a few arcs each, samples the largest component,
+	 * links the rest of the arcs from outside it and numbers the components
+	 */
+	private void compute() {
+		int nodeCount = graph.nodeCount;
+		label = new AtomicIntegerArray(nodeCount);
+		for (int v = 0; v < nodeCount; v++)
+			label.set(v, v);
+		for (int round = 0; round < NEIGHBOR_ROUNDS; round++) {
+			pool.invoke(new LinkArc(round, 0, nodeCount));
+			pool.invoke(new Compress(0, nodeCount));
+		}
+		pool.invoke(new LinkRemaining(sampleLargest(), 0, nodeCount));
+		pool.invoke(new Compress(0, nodeCount));
+
+		component = new int[nodeCount];
+		int chunks = (nodeCount + NODES_PER_TASK - 1) / NODES_PER_TASK;
+		chunkRoots = new int[chunks];
+		pool.invoke(new NumberComponents(COUNT_ROOTS, 0, chunks));
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int roots = chunkRoots[chunk];
+			chunkRoots[chunk] = componentCount;
+			componentCount += roots;
+		}
+		pool.invoke(new NumberComponents(NUMBER_ROOTS, 0, chunks));
+		pool.invoke(new NumberComponents(NUMBER_NODES, 0, chunks));
+		label = null;
+		chunkRoots = null;
+	}
+
+	/**
+	 * Hooks the trees holding two nodes together. The root of the higher
+	 * label is pointed at the lower label, retrying from the new labels when
+	 * another thread moved the root first.
+	 * 
+	 * @param u
+	 * @param v
+	 */
+	private void link(int u, int v) {
+		int p1 = label.get(u);
+		int p2 = label.get(v);
+		while (p1 != p2) {
+			int high = Math.max(p1, p2);
+			int low = Math.min(p1, p2);
+			int up = label.get(high);
+			if (up == low)
+				return;
+			if (up == high && label.compareAndSet(high, high, low))
+				return;
+			p1 = label.get(label.get(high));
+			p2 = label.get(low);
+		}
+	}
+
+	/**
+	 * @return label shared by the most of a sample of nodes, the root of the
+	 *         largest component with high probability
+	 */
+	private int sampleLargest() {
+		Random random = new Random(graph.nodeCount);
+		int[] samples = new int[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++)
+			samples[i] = label.get(random.nextInt(graph.nodeCount));
+		Arrays.sort(samples);
+		int best = samples[0];
+		int bestRun = 0;
+		int run = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			run = i > 0 && samples[i] == samples[i - 1] ? run + 1 : 1;
+			if (run > bestRun) {
+				bestRun = run;
+				best = samples[i];
+			}
+		}
+		return best;
+	}
+
+}
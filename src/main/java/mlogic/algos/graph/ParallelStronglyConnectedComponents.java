@@ -0,0 +1,425 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Identifies the strongly connected components of a directed graph on a
+ * fork-join pool with the forward-backward method of Fleischer, Hendrickson
+ * and Pinar. The nodes reachable both forward and backward from a pivot form
+ * its component. What is reached only forward, only backward, or neither
+ * cannot share a component with the other two sets, so the three sets are
+ * searched again as independent tasks. Every set carries its own color, and
+ * a search claims the nodes of its set by a compare-and-set of their color,
+ * so large reachability searches run level by level in parallel. Backward
+ * searches follow the arcs of a CSR reverse index instead of a copy of the
+ * graph's edges.
+ * <p>
+ * Nodes with no incoming or no outgoing arcs are first trimmed off as
+ * components of their own, and small sets are handed to
+ * {@link TarjansStronglyConnectedComponents}. Components are numbered in the
+ * order of their lowest node.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ParallelStronglyConnectedComponents {
+
+	/**
+	 * Sets of at most this many nodes are searched with Tarjan's algorithm
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+	/**
+	 * Nodes handled by a single fork-join task
+	 */
+	private static final int NODES_PER_TASK = 4096;
+
+	/**
+	 * Passes of trimming nodes without incoming or outgoing arcs
+	 */
+	private static final int TRIM_ROUNDS = 3;
+
+	/**
+	 * Color of nodes trimmed off
+	 */
+	private static final int TRIMMED = -1;
+
+	/**
+	 * Color no node has
+	 */
+	private static final int NO_COLOR = Integer.MIN_VALUE;
+
+	/**
+	 * Marks each node of a range that has no incoming or no outgoing arc from
+	 * another node left, as a component of its own
+	 */
+	private class Trim extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int from;
+		private int to;
+
+		/**
+		 * Nodes trimmed by this task
+		 */
+		private int trimmed;
+
+		private Trim(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (to - from > NODES_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				Trim left = new Trim(from, mid);
+				Trim right = new Trim(mid, to);
+				invokeAll(left, right);
+				trimmed = left.trimmed + right.trimmed;
+				return;
+			}
+			for (int v = from; v < to; v++) {
+				if (color.get(v) != 0)
+					continue;
+				// Nodes trimmed meanwhile are components of their own, so
+				// ignoring them cannot merge two components
+				if (!hasArc(graph, v) || !hasArc(reverse, v)) {
+					color.set(v, TRIMMED);
+					label[v] = nextLabel.getAndIncrement();
+					trimmed++;
+				}
+			}
+		}
+
+		/**
+		 * @return true if v has an arc to another node that was not trimmed
+		 */
+		private boolean hasArc(CSRGraph g, int v) {
+			for (int arc = g.offsets[v]; arc < g.offsets[v + 1]; arc++) {
+				int w = g.targets[arc];
+				if (w != v && color.get(w) == 0)
+					return true;
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Finds the components among a set of nodes of one color
+	 */
+	private class ForwardBackward extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int[] nodes;
+		private int setColor;
+
+		private ForwardBackward(int[] nodes, int setColor) {
+			this.nodes = nodes;
+			this.setColor = setColor;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			int count = nodes.length;
+			if (count <= SEQUENTIAL_THRESHOLD) {
+				int found = TarjansStronglyConnectedComponents.search(graph, nodes, count, rindex, root, color,
+						setColor);
+				int first = nextLabel.getAndAdd(found);
+				for (int v : nodes)
+					label[v] = first + count - 1 - rindex[v];
+				return;
+			}
+
+			int pivot = nodes[count >>> 1];
+			int forwardColor = nextColor.getAndAdd(3);
+			int backwardColor = forwardColor + 1;
+			int bothColor = forwardColor + 2;
+			color.set(pivot, forwardColor);
+			reach(graph, pivot, setColor, forwardColor, NO_COLOR, NO_COLOR);
+			color.set(pivot, bothColor);
+			reach(reverse, pivot, setColor, backwardColor, forwardColor, bothColor);
+
+			int[] forward = new int[count];
+			int[] backward = new int[count];
+			int[] rest = new int[count];
+			int forwardCount = 0;
+			int backwardCount = 0;
+			int restCount = 0;
+			int component = nextLabel.getAndIncrement();
+			for (int v : nodes) {
+				int c = color.get(v);
+				if (c == bothColor)
+					label[v] = component;
+				else if (c == forwardColor)
+					forward[forwardCount++] = v;
+				else if (c == backwardColor)
+					backward[backwardCount++] = v;
+				else
+					rest[restCount++] = v;
+			}
+			nodes = null;
+			ForwardBackward[] tasks = new ForwardBackward[3];
+			int k = 0;
+			if (forwardCount > 0)
+				tasks[k++] = new ForwardBackward(Arrays.copyOf(forward, forwardCount), forwardColor);
+			if (backwardCount > 0)
+				tasks[k++] = new ForwardBackward(Arrays.copyOf(backward, backwardCount), backwardColor);
+			if (restCount > 0)
+				tasks[k++] = new ForwardBackward(Arrays.copyOf(rest, restCount), setColor);
+			invokeAll(Arrays.asList(tasks).subList(0, k));
+		}
+
+	}
+
+	/**
+	 * Expands a range of the current frontier of a reachability search by one
+	 * level, claiming nodes by changing their color
+	 */
+	private class Expand extends RangeTask {
+
+		private static final long serialVersionUID = 1L;
+
+		private CSRGraph g;
+		private int[] frontier;
+		private int[] next;
+		private AtomicInteger nextCount;
+		private int fromA;
+		private int toA;
+		private int fromB;
+		private int toB;
+
+		private Expand(CSRGraph g, int[] frontier, int from, int to, int[] next, AtomicInteger nextCount, int fromA,
+				int toA, int fromB, int toB) {
+			super(from, to, NODES_PER_TASK);
+			this.g = g;
+			this.frontier = frontier;
+			this.next = next;
+			this.nextCount = nextCount;
+			this.fromA = fromA;
+			this.toA = toA;
+			this.fromB = fromB;
+			this.toB = toB;
+		}
+
+		@Override
+		protected RangeTask split(int from, int to) {
+			return new Expand(g, frontier, from, to, next, nextCount, fromA, toA, fromB, toB);
+		}
+
+		@Override
+		protected void run() {
+			int[] claimed = new int[16];
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				int u = frontier[i];
+				for (int arc = g.offsets[u]; arc < g.offsets[u + 1]; arc++) {
+					int w = g.targets[arc];
+					int c = color.get(w);
+					boolean won = (c == fromA && color.compareAndSet(w, fromA, toA))
+							|| (c == fromB && color.compareAndSet(w, fromB, toB));
+					if (won) {
+						if (size == claimed.length)
+							claimed = Arrays.copyOf(claimed, size * 2);
+						claimed[size++] = w;
+					}
+				}
+			}
+			int first = nextCount.getAndAdd(size);
+			System.arraycopy(claimed, 0, next, first, size);
+		}
+
+	}
+
+	/**
+	 * Graph to process
+	 */
+	private CSRGraph graph;
+
+	/**
+	 * Reverse of the graph
+	 */
+	private CSRGraph reverse;
+
+	/**
+	 * Color of the set each node belongs to, 0 for the first set
+	 */
+	private AtomicIntegerArray color;
+
+	/**
+	 * Next unused color
+	 */
+	private AtomicInteger nextColor;
+
+	/**
+	 * Component label of each node, unique to its component
+	 */
+	private int[] label;
+
+	/**
+	 * Next unused component label
+	 */
+	private AtomicInteger nextLabel;
+
+	/**
+	 * Work array for Tarjan's algorithm, each set uses the entries of its
+	 * own nodes
+	 */
+	private int[] rindex;
+
+	/**
+	 * Work array for Tarjan's algorithm
+	 */
+	private boolean[] root;
+
+	/**
+	 * Component index of each node
+	 */
+	private int[] component;
+
+	/**
+	 * Number of components
+	 */
+	private int componentCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Directed graph to process
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ParallelStronglyConnectedComponents(DirectedGraph graph, ForkJoinPool pool) {
+		this(new CSRGraph(graph), pool);
+	}
+
+	/**
+	 * Constructor for a directed graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            Directed graph to process
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ParallelStronglyConnectedComponents(CSRGraph graph, ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		if (!graph.directed)
+			throw new IllegalArgumentException("Strongly connected components require a directed graph.");
+		if (pool == null)
+			throw new IllegalArgumentException("Fork-join pool cannot be null.");
+		this.graph = graph;
+		this.reverse = graph.reverse();
+		compute(pool);
+
+	}
+
+	/**
+	 * @return array that stores the strongly connected component index
+	 */
+	public Integer[] connectedComponentArray() {
+		Integer[] connected = new Integer[component.length];
+		for (int v = 0; v < component.length; v++)
+			connected[v] = component[v];
+		return connected;
+	}
+
+	/**
+	 * @return array that stores the strongly connected component index,
+	 *         without boxing
+	 */
+	public int[] intConnectedComponentArray() {
+		return component;
+	}
+
+	/**
+	 * @return number of strongly connected components
+	 */
+	public int componentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Trims the graph, runs forward-backward over the nodes left and numbers
+	 * the components
+	 */
+	private void compute(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		color = new AtomicIntegerArray(nodeCount);
+		nextColor = new AtomicInteger(1);
+		label = new int[nodeCount];
+		nextLabel = new AtomicInteger();
+		rindex = new int[nodeCount];
+		root = new boolean[nodeCount];
+		for (int round = 0; round < TRIM_ROUNDS; round++) {
+			Trim trim = new Trim(0, nodeCount);
+			pool.invoke(trim);
+			if (trim.trimmed == 0)
+				break;
+		}
+		int[] nodes = new int[nodeCount];
+		int count = 0;
+		for (int v = 0; v < nodeCount; v++)
+			if (color.get(v) == 0)
+				nodes[count++] = v;
+		if (count > 0)
+			pool.invoke(new ForwardBackward(Arrays.copyOf(nodes, count), 0));
+
+		int[] index = new int[nextLabel.get()];
+		Arrays.fill(index, -1);
+		component = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			if (index[label[v]] == -1)
+				index[label[v]] = componentCount++;
+			component[v] = index[label[v]];
+		}
+		color = null;
+		label = null;
+		rindex = null;
+		root = null;
+	}
+
+	/**
+	 * Claims every node reachable from a start node through nodes of the
+	 * given colors. Nodes of color *fromA* are recolored *toA*, and nodes of
+	 * color *fromB* are recolored *toB*.
+	 * 
+	 * @param g
+	 *            graph or its reverse
+	 * @param start
+	 *            start node, already claimed
+	 */
+	private void reach(CSRGraph g, int start, int fromA, int toA, int fromB, int toB) {
+		int[] frontier = new int[] { start };
+		int size = 1;
+		AtomicInteger nextCount = new AtomicInteger();
+		while (size > 0) {
+			long arcs = 0;
+			for (int i = 0; i < size; i++)
+				arcs += g.offsets[frontier[i] + 1] - g.offsets[frontier[i]];
+			int[] next = new int[(int) Math.min(arcs, graph.nodeCount)];
+			nextCount.set(0);
+			new Expand(g, frontier, 0, size, next, nextCount, fromA, toA, fromB, toB).invoke();
+			frontier = next;
+			size = nextCount.get();
+		}
+	}
+
+}
@@ -3,8 +3,9 @@ package mlogic.algos.graph;
 import java.math.BigDecimal;
 
 import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.graph.Edge.Arithmetic;
 import mlogic.algos.struct.List;
-import mlogic.algos.struct.PriorityQueue;
+import mlogic.algos.struct.IndexedHeap;
 import mlogic.algos.struct.SinglyLinkedList;
 
 /**
@@ -18,34 +19,26 @@ import mlogic.algos.struct.SinglyLinkedList;
  */
 public class PrimsMinimumSpanningTree {
 
-	private class EdgePlus implements Comparable<EdgePlus> {
-		private Integer from;
-		private Integer to;
-		private BigDecimal distance;
-
-		private EdgePlus(Integer from, Integer to, BigDecimal dist) {
-			this.from = from;
-			this.to = to;
-			this.distance = dist;
-		}
-
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.lang.Comparable#compareTo(java.lang.Object)
-		 */
-		@Override
-		public int compareTo(EdgePlus o) {
-			return distance.compareTo(o.distance);
-		}
-
-	}
+	/**
+	 * Distance to nodes not yet reached under exact arithmetic
+	 */
+	private static final BigDecimal UNREACHED = new BigDecimal(Double.MAX_VALUE);
 
 	/**
 	 * Graph to search
 	 */
 	private UndirectedGraph graph;
 
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
+	/**
+	 * Number type used to compare edge weights
+	 */
+	private Arithmetic arithmetic;
+
 	/**
 	 * Array storing the edge that points to each node in its minimum spanning
 	 * tree
@@ -63,6 +56,18 @@ public class PrimsMinimumSpanningTree {
 	 */
 	private BigDecimal[] distanceTo;
 
+	/**
+	 * Weight of the edges that connect MST nodes to their non-MST neighbors
+	 * under double arithmetic
+	 */
+	private double[] doubleDistanceTo;
+
+	/**
+	 * Weight of the edges that connect MST nodes to their non-MST neighbors
+	 * under long arithmetic
+	 */
+	private long[] longDistanceTo;
+
 	/**
 	 * Minimum Spanning Forest - List of edges in the minimum spanning tree (or
 	 * trees, if the graph is not fully connected)
@@ -76,20 +81,45 @@ public class PrimsMinimumSpanningTree {
 	 *            Undirected graph to search
 	 */
 	public PrimsMinimumSpanningTree(UndirectedGraph graph) {
+		this(graph, Arithmetic.EXACT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 * @param arithmetic
+	 *            number type used to compare edge weights
+	 */
+	public PrimsMinimumSpanningTree(UndirectedGraph graph, Arithmetic arithmetic) {
 		Graph.checkEmpty(graph);
 		this.graph = graph;
+		this.arithmetic = arithmetic;
 		edgeTo = new Edge[graph.nodeCount];
-		distanceTo = new BigDecimal[graph.nodeCount];
-		for (int v = 0; v < graph.nodeCount; v++) {
-			edgeTo[v] = null;
-			distanceTo[v] = new BigDecimal(Double.MAX_VALUE);
-		}
-		marked = new boolean[graph.nodeCount];
-		minimumSpanningForest = new SinglyLinkedList<Edge>();
+		initialize(graph.nodeCount);
 		compute();
 
 	}
 
+	/**
+	 * Constructor for an undirected graph stored in CSR form. Only the edges of
+	 * the forest are materialized as Edge objects.
+	 * 
+	 * @param graph
+	 *            Undirected graph to search
+	 */
+	public PrimsMinimumSpanningTree(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (graph.directed)
+			throw new IllegalArgumentException("Prim's algorithm requires an undirected graph.");
+		this.csrGraph = graph;
+		this.arithmetic = Arithmetic.DOUBLE;
+		initialize(graph.nodeCount);
+		computeOnCSR();
+
+	}
+
 	/**
 	 * @return Minimum Spanning Forest - List of edges in the minimum spanning
 	 *         tree (or trees, if the graph is not fully connected)
@@ -98,46 +128,101 @@ public class PrimsMinimumSpanningTree {
 		return minimumSpanningForest;
 	}
 
+	/**
+	 * Allocates the search arrays, with distances only for the arithmetic in
+	 * use
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 */
+	private void initialize(int nodeCount) {
+		switch (arithmetic) {
+		case DOUBLE:
+			doubleDistanceTo = new double[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				doubleDistanceTo[v] = Double.MAX_VALUE;
+			break;
+		case LONG:
+			longDistanceTo = new long[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				longDistanceTo[v] = Long.MAX_VALUE;
+			break;
+		default:
+			distanceTo = new BigDecimal[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				distanceTo[v] = UNREACHED;
+		}
+		marked = new boolean[nodeCount];
+		minimumSpanningForest = new SinglyLinkedList<Edge>();
+	}
+
 	/**
 	 * Executes Prim's algorithm on an edge weighted graph to compute the MSTs
 	 * 
 	 */
 	private void compute() {
 
-		for (Integer u = 0; u < graph.nodeCount; u++) {
-			if (edgeTo[u] != null)
+		IndexedHeap pq = distanceHeap(graph.nodeCount);
+		for (int root = 0; root < graph.nodeCount; root++) {
+			if (marked[root])
 				continue;
-			marked[u] = true;
-			PriorityQueue<EdgePlus> pq = new PriorityQueue<EdgePlus>();
-			while (true) {
+			pq.insert(root);
+			while (!pq.isEmpty()) {
+				int u = pq.deleteMin();
+				marked[u] = true;
+				if (edgeTo[u] != null)
+					minimumSpanningForest.put(edgeTo[u]);
 				for (Edge e : graph.edges[u]) {
-					Integer v = e.other(u);
+					int v = e.other(u);
 					if (marked[v])
 						continue;
-					if (e.weight().compareTo(new BigDecimal(0)) < 0)
-						throw new NegativeEdgeWeightException(
-								"Prim's algorithm cannot be applied to a graph with negative edges.");
-					if (e.weight().compareTo(distanceTo[v]) < 0) {
-						distanceTo[v] = e.weight();
+					if (improves(v, e)) {
 						edgeTo[v] = e;
-						pq.enqueue(new EdgePlus(u, v, distanceTo[v]));
+						enqueue(pq, v);
 					}
 				}
-				EdgePlus nearest = null;
-				while (true) {
-					nearest = pq.dequeue();
-					if (nearest == null)
-						break;
-					if (!marked[nearest.to]) {
-						break;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Executes Prim's algorithm on a CSR graph, tracking the arc that connects
+	 * each node to the tree instead of an Edge object
+	 * 
+	 */
+	private void computeOnCSR() {
+		int[] arcTo = new int[csrGraph.nodeCount];
+		int[] nodeTo = new int[csrGraph.nodeCount];
+		for (int v = 0; v < csrGraph.nodeCount; v++)
+			nodeTo[v] = -1;
+
+		IndexedHeap pq = distanceHeap(csrGraph.nodeCount);
+		for (int root = 0; root < csrGraph.nodeCount; root++) {
+			if (marked[root])
+				continue;
+			pq.insert(root);
+			while (!pq.isEmpty()) {
+				int u = pq.deleteMin();
+				marked[u] = true;
+				if (nodeTo[u] != -1)
+					minimumSpanningForest.put(new Edge(nodeTo[u], u, csrGraph.weights[arcTo[u]]));
+				for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++) {
+					int v = csrGraph.targets[arc];
+					if (marked[v])
+						continue;
+					double weight = csrGraph.weights[arc];
+					if (weight < 0)
+						throw negativeEdgeWeight();
+					if (weight < doubleDistanceTo[v]) {
+						doubleDistanceTo[v] = weight;
+						arcTo[v] = arc;
+						nodeTo[v] = u;
+						enqueue(pq, v);
 					}
 				}
-				if (nearest != null) {
-					marked[nearest.to] = true;
-					u = nearest.to;
-					minimumSpanningForest.put(edgeTo[nearest.to]);
-				} else
-					break;
 
 			}
 
@@ -145,4 +230,83 @@ public class PrimsMinimumSpanningTree {
 
 	}
 
+	/**
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @return heap of nodes ordered by the weight of their cheapest edge to the
+	 *         tree in the arithmetic in use
+	 */
+	private IndexedHeap distanceHeap(int nodeCount) {
+		return new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				switch (arithmetic) {
+				case DOUBLE:
+					return Double.compare(doubleDistanceTo[u], doubleDistanceTo[v]);
+				case LONG:
+					return Long.compare(longDistanceTo[u], longDistanceTo[v]);
+				default:
+					return distanceTo[u].compareTo(distanceTo[v]);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Adds a node to the heap, or moves it up if its edge weight was reduced
+	 * while queued
+	 * 
+	 * @param pq
+	 * @param v
+	 */
+	private static void enqueue(IndexedHeap pq, int v) {
+		if (pq.contains(v))
+			pq.decreaseKey(v);
+		else
+			pq.insert(v);
+	}
+
+	/**
+	 * Updates the weight of the cheapest edge from the tree to *v* if *e* is
+	 * cheaper
+	 * 
+	 * @param v
+	 *            node outside the tree
+	 * @param e
+	 *            edge from the tree to *v*
+	 * @return true if the weight was reduced
+	 */
+	private boolean improves(int v, Edge e) {
+		switch (arithmetic) {
+		case DOUBLE:
+			if (e.doubleWeight() < 0)
+				throw negativeEdgeWeight();
+			if (e.doubleWeight() >= doubleDistanceTo[v])
+				return false;
+			doubleDistanceTo[v] = e.doubleWeight();
+			return true;
+		case LONG:
+			if (e.longWeight() < 0)
+				throw negativeEdgeWeight();
+			if (e.longWeight() >= longDistanceTo[v])
+				return false;
+			longDistanceTo[v] = e.longWeight();
+			return true;
+		default:
+			if (e.weight().signum() < 0)
+				throw negativeEdgeWeight();
+			if (e.weight().compareTo(distanceTo[v]) >= 0)
+				return false;
+			distanceTo[v] = e.weight();
+			return true;
+		}
+	}
+
+	/**
+	 * @return exception thrown on finding a negative edge
+	 */
+	private NegativeEdgeWeightException negativeEdgeWeight() {
+		return new NegativeEdgeWeightException("Prim's algorithm cannot be applied to a graph with negative edges.");
+	}
+
 }
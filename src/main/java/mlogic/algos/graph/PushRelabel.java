@@ -0,0 +1,374 @@
+package mlogic.algos.graph;
+
+import java.math.BigDecimal;
+
+/**
+ * Computes maxflow / mincut in a flow network using the highest-label
+ * push-relabel algorithm of Goldberg and Tarjan. Source first saturates its
+ * arcs, and nodes holding excess flow push it along residual arcs leading one
+ * label down, relabeling themselves above their lowest residual neighbor when
+ * none is left. The active node with the highest label is always discharged
+ * first, which bounds the work to O(V^2 sqrt(E)). Two heuristics keep the
+ * labels close to exact distances:
+ * <ul>
+ * <li>Global relabeling recomputes every label as the BFS distance to sink,
+ * or V plus the distance to source for nodes cut off from sink, once as many
+ * relabels as there are nodes have been done.</li>
+ * <li>Gap relabeling lifts every node above an emptied label below V straight
+ * past V, since none of them can reach sink any more.</li>
+ * </ul>
+ * Excess that cannot reach sink flows back to source, so the algorithm ends
+ * with a valid flow. It works on the primitive arrays of a
+ * {@link ResidualNetwork}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class PushRelabel {
+
+	/**
+	 * Residual graph of the flow network
+	 */
+	private ResidualNetwork network;
+
+	/**
+	 * Source node for maxflow computation
+	 */
+	private int source;
+
+	/**
+	 * Target node for maxflow computation
+	 */
+	private int sink;
+
+	/**
+	 * Label of each node, a lower bound on its residual distance to sink, or
+	 * to source plus the number of nodes
+	 */
+	private int[] label;
+
+	/**
+	 * Flow entering each node less the flow leaving it
+	 */
+	private long[] excess;
+
+	/**
+	 * Next arc of each node to push along
+	 */
+	private int[] current;
+
+	/**
+	 * First active node of each label, -1 if there is none
+	 */
+	private int[] activeHead;
+
+	/**
+	 * Next active node with the same label, -1 at the end of the list
+	 */
+	private int[] activeNext;
+
+	/**
+	 * Number of nodes with each label
+	 */
+	private int[] labelCount;
+
+	/**
+	 * Highest label that may have an active node
+	 */
+	private int highest;
+
+	/**
+	 * Relabels done since the last global relabeling
+	 */
+	private int relabelsSinceGlobal;
+
+	/**
+	 * Queue of the global relabeling BFS
+	 */
+	private int[] queue;
+
+	/**
+	 * Nodes on the source side of the min cut
+	 */
+	private boolean[] connectedToSource;
+
+	/**
+	 * Constructor. Flows are written back to the edges of the network under
+	 * {@link Edge.Arithmetic#LONG}.
+	 * 
+	 * @param graph
+	 *            flow network with integral capacities
+	 * @param source
+	 * @param sink
+	 */
+	public PushRelabel(FlowNetwork graph, Integer source, Integer sink) {
+		this(new ResidualNetwork(graph), source, sink);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param network
+	 *            residual graph of the flow network, any flow on it is
+	 *            discarded
+	 * @param source
+	 * @param sink
+	 */
+	public PushRelabel(ResidualNetwork network, Integer source, Integer sink) {
+		if (source < 0 || source >= network.nodeCount)
+			throw new IllegalArgumentException(source + " out of range.");
+		if (sink < 0 || sink >= network.nodeCount)
+			throw new IllegalArgumentException(sink + " out of range.");
+		this.network = network;
+		this.source = source;
+		this.sink = sink;
+		int nodeCount = network.nodeCount;
+		label = new int[nodeCount];
+		excess = new long[nodeCount];
+		current = new int[nodeCount];
+		activeHead = new int[2 * nodeCount + 1];
+		activeNext = new int[nodeCount];
+		labelCount = new int[2 * nodeCount + 1];
+		queue = new int[nodeCount];
+
+		network.clearFlow();
+		if (this.source != this.sink)
+			compute();
+		connectedToSource = network.reachableFrom(this.source);
+		network.writeFlow();
+
+	}
+
+	/**
+	 * @return max flow through network
+	 */
+	public BigDecimal maxFlow() {
+		return BigDecimal.valueOf(longMaxFlow());
+	}
+
+	/**
+	 * @return max flow through network as a long
+	 */
+	public long longMaxFlow() {
+		return source == sink ? 0 : excess[sink];
+	}
+
+	/**
+	 * Computes min cut by adding up capacity of all edges leading from the
+	 * nodes reachable from source in the final residual graph to the rest
+	 * 
+	 * @return Sum of capacities of the edges in the min cut.
+	 */
+	public BigDecimal minCut() {
+		return BigDecimal.valueOf(network.cutCapacity(connectedToSource));
+	}
+
+	/**
+	 * @param node
+	 * @return true if the node is on the source side of the min cut
+	 */
+	public boolean inCut(int node) {
+		if (node < 0 || node >= network.nodeCount)
+			throw new IllegalArgumentException(node + " out of range.");
+		return connectedToSource[node];
+	}
+
+	/**
+	 * Saturates the arcs of source and discharges active nodes, highest label
+	 * first, until none is left
+	 */
+	private void compute() {
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int[] reverse = network.reverse;
+		for (int arc = network.offsets[source]; arc < network.offsets[source + 1]; arc++) {
+			long delta = residual[arc];
+			residual[arc] = 0;
+			residual[reverse[arc]] += delta;
+			excess[targets[arc]] += delta;
+			excess[source] -= delta;
+		}
+		globalRelabel();
+
+		while (true) {
+			while (highest >= 0 && activeHead[highest] == -1)
+				highest--;
+			if (highest < 0)
+				break;
+			int u = activeHead[highest];
+			activeHead[highest] = activeNext[u];
+			discharge(u);
+			if (relabelsSinceGlobal >= network.nodeCount)
+				globalRelabel();
+		}
+	}
+
+	/**
+	 * Pushes the excess of a node along admissible arcs, relabeling it when
+	 * none is left. Stops early, leaving the node active, when a global
+	 * relabeling is due.
+	 * 
+	 * @param u
+	 *            active node
+	 */
+	private void discharge(int u) {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int[] reverse = network.reverse;
+		int nodeCount = network.nodeCount;
+		while (excess[u] > 0) {
+			int arc = current[u];
+			if (arc == offsets[u + 1]) {
+				// After a gap the rebuilt active lists already hold u
+				if (relabel(u))
+					return;
+				if (relabelsSinceGlobal >= nodeCount) {
+					activate(u);
+					return;
+				}
+				continue;
+			}
+			int w = targets[arc];
+			if (residual[arc] > 0 && label[u] == label[w] + 1) {
+				long delta = Math.min(excess[u], residual[arc]);
+				residual[arc] -= delta;
+				residual[reverse[arc]] += delta;
+				excess[u] -= delta;
+				if (excess[w] == 0 && w != source && w != sink)
+					activate(w);
+				excess[w] += delta;
+			} else
+				current[u]++;
+		}
+	}
+
+	/**
+	 * Lifts a node one above its lowest neighbor across a residual arc, and
+	 * lifts every node above an emptied label past the number of nodes
+	 * 
+	 * @param u
+	 *            active node with no admissible arc
+	 * @return true if a gap was found and the active lists rebuilt
+	 */
+	private boolean relabel(int u) {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int nodeCount = network.nodeCount;
+		relabelsSinceGlobal++;
+		int lowest = 2 * nodeCount - 1;
+		for (int arc = offsets[u]; arc < offsets[u + 1]; arc++)
+			if (residual[arc] > 0 && label[targets[arc]] < lowest)
+				lowest = label[targets[arc]];
+		int old = label[u];
+		labelCount[old]--;
+		label[u] = Math.min(lowest + 1, 2 * nodeCount - 1);
+		labelCount[label[u]]++;
+		current[u] = offsets[u];
+		if (labelCount[old] == 0 && old < nodeCount) {
+			gap(old);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Lifts the nodes labeled between an emptied label and the number of
+	 * nodes to one past the number of nodes, and rebuilds the active lists
+	 * 
+	 * @param empty
+	 *            label no node has any more
+	 */
+	private void gap(int empty) {
+		int nodeCount = network.nodeCount;
+		for (int v = 0; v < nodeCount; v++) {
+			if (label[v] > empty && label[v] < nodeCount) {
+				labelCount[label[v]]--;
+				label[v] = nodeCount + 1;
+				labelCount[label[v]]++;
+				current[v] = network.offsets[v];
+			}
+		}
+		rebuildActiveLists();
+	}
+
+	/**
+	 * Sets every label to the BFS distance to sink through arcs with residual
+	 * capacity, or to the number of nodes plus the distance to source for
+	 * nodes that cannot reach sink, and rebuilds the active lists
+	 */
+	private void globalRelabel() {
+		int nodeCount = network.nodeCount;
+		for (int v = 0; v < nodeCount; v++)
+			label[v] = -1;
+		label[sink] = 0;
+		labelFrom(sink);
+		label[source] = nodeCount;
+		labelFrom(source);
+		for (int h = 0; h < labelCount.length; h++)
+			labelCount[h] = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			// Nodes reaching neither terminal hold no excess and never move
+			if (label[v] == -1)
+				label[v] = 2 * nodeCount - 1;
+			labelCount[label[v]]++;
+			current[v] = network.offsets[v];
+		}
+		relabelsSinceGlobal = 0;
+		rebuildActiveLists();
+	}
+
+	/**
+	 * Labels the unlabeled nodes that can reach a labeled node through arcs
+	 * with residual capacity by their BFS distance to it
+	 * 
+	 * @param root
+	 *            labeled node to search backward from
+	 */
+	private void labelFrom(int root) {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		long[] residual = network.residual;
+		int[] reverse = network.reverse;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = root;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int w = targets[arc];
+				if (label[w] == -1 && residual[reverse[arc]] > 0) {
+					label[w] = label[u] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts every node with excess, other than source and sink, in the active
+	 * list of its label
+	 */
+	private void rebuildActiveLists() {
+		for (int h = 0; h < activeHead.length; h++)
+			activeHead[h] = -1;
+		highest = -1;
+		for (int v = 0; v < network.nodeCount; v++)
+			if (excess[v] > 0 && v != source && v != sink)
+				activate(v);
+	}
+
+	/**
+	 * Adds a node to the active list of its label
+	 * 
+	 * @param v
+	 */
+	private void activate(int v) {
+		activeNext[v] = activeHead[label[v]];
+		activeHead[label[v]] = v;
+		if (label[v] > highest)
+			highest = label[v];
+	}
+
+}
@@ -0,0 +1,61 @@
+package mlogic.algos.graph;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task running one kind of work over a range of items, halving the
+ * range between sub-tasks until it holds no more than a given number of items
+ * 
+ * @author Rajaram G
+ *
+ */
+abstract class RangeTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * First item of the range
+	 */
+	protected final int from;
+
+	/**
+	 * Item after the last of the range
+	 */
+	protected final int to;
+
+	/**
+	 * Largest range run without splitting
+	 */
+	private final int grain;
+
+	protected RangeTask(int from, int to, int grain) {
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+	/**
+	 * @return task of the same kind over another range
+	 */
+	protected abstract RangeTask split(int from, int to);
+
+	/**
+	 * Does the work for a range small enough for one task
+	 */
+	protected abstract void run();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.RecursiveAction#compute()
+	 */
+	@Override
+	protected void compute() {
+		if (to - from > grain) {
+			int mid = (from + to) >>> 1;
+			invokeAll(split(from, mid), split(mid, to));
+		} else
+			run();
+	}
+
+}
@@ -0,0 +1,315 @@
+package mlogic.algos.graph;
+
+import java.util.Arrays;
+
+/**
+ * Flow network held as a residual graph in primitive arrays, for flow
+ * algorithms that run on networks with millions of arcs. Each edge becomes a
+ * forward arc carrying its capacity and a paired reverse arc of zero capacity,
+ * and arcs are grouped by their tail node in compressed sparse row form.
+ * Pushing flow along an arc moves residual capacity to its pair. Arcs may
+ * also carry a cost per unit of flow, negated on reverse arcs, for min-cost
+ * flow. Capacities and costs are longs; flows computed on a network built
+ * from a {@link FlowNetwork} can be written back to its edges under
+ * {@link Edge.Arithmetic#LONG}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ResidualNetwork {
+
+	/**
+	 * Number of nodes
+	 */
+	int nodeCount;
+
+	/**
+	 * Number of edges
+	 */
+	int edgeCount;
+
+	/**
+	 * Index of the first arc of each node, with offsets[nodeCount] holding the
+	 * total number of arcs
+	 */
+	int[] offsets;
+
+	/**
+	 * Head node of each arc
+	 */
+	int[] targets;
+
+	/**
+	 * Capacity of each arc, zero for reverse arcs
+	 */
+	long[] capacity;
+
+	/**
+	 * Capacity left on each arc by the flow pushed so far
+	 */
+	long[] residual;
+
+	/**
+	 * Cost of a unit of flow along each arc, the negated edge cost on reverse
+	 * arcs. Null when the edges have no costs.
+	 */
+	long[] cost;
+
+	/**
+	 * Arc paired with each arc, running the opposite way
+	 */
+	int[] reverse;
+
+	/**
+	 * Forward arc of each edge
+	 */
+	int[] edgeArc;
+
+	/**
+	 * Edges of the flow network the arcs were built from, null when built
+	 * from arrays
+	 */
+	private FlowEdge[] flowEdges;
+
+	/**
+	 * Constructor. Capacities are read as longs, and costs are read from the
+	 * edges of a {@link CostFlowNetwork}.
+	 * 
+	 * @param network
+	 *            flow network with integral capacities
+	 */
+	public ResidualNetwork(FlowNetwork network) {
+		Graph.checkEmpty(network);
+		int nodeCount = network.nodeCount;
+		flowEdges = new FlowEdge[network.edgeCount];
+		int[] from = new int[network.edgeCount];
+		int[] to = new int[network.edgeCount];
+		long[] capacities = new long[network.edgeCount];
+		long[] costs = network instanceof CostFlowNetwork ? new long[network.edgeCount] : null;
+		int k = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			for (Edge e : network.edges[v]) {
+				// Each edge is listed under both end points, take it once
+				if (e.from().intValue() != v)
+					continue;
+				FlowEdge fe = (FlowEdge) e;
+				if (fe.doubleWeight() != fe.longWeight())
+					throw new IllegalArgumentException("Residual network requires integral capacities.");
+				flowEdges[k] = fe;
+				from[k] = v;
+				to[k] = fe.to();
+				if (costs != null && fe instanceof CostFlowEdge)
+					costs[k] = ((CostFlowEdge) fe).cost();
+				capacities[k++] = fe.longWeight();
+			}
+		}
+		// FlowNetwork.addEdge goes through SinglyLinkedList.put, which replaces
+		// a listed edge with the same from and to while edgeCount still counts
+		// both, so trim the arrays to the edges read
+		if (k < flowEdges.length) {
+			flowEdges = Arrays.copyOf(flowEdges, k);
+			from = Arrays.copyOf(from, k);
+			to = Arrays.copyOf(to, k);
+			capacities = Arrays.copyOf(capacities, k);
+			if (costs != null)
+				costs = Arrays.copyOf(costs, k);
+		}
+		build(nodeCount, from, to, capacities, costs);
+
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param nodeCount
+	 *            number of nodes
+	 * @param from
+	 *            tail node of each edge
+	 * @param to
+	 *            head node of each edge
+	 * @param capacities
+	 *            capacity of each edge
+	 */
+	public ResidualNetwork(int nodeCount, int[] from, int[] to, long[] capacities) {
+		if (nodeCount <= 0)
+			throw new IllegalArgumentException("Empty graph.");
+		if (from == null || to == null || capacities == null || from.length != to.length
+				|| capacities.length != from.length)
+			throw new IllegalArgumentException("Edge arrays must have the same length.");
+		build(nodeCount, from, to, capacities, null);
+
+	}
+
+	/**
+	 * Constructor for a network with edge costs
+	 * 
+	 * @param nodeCount
+	 *            number of nodes
+	 * @param from
+	 *            tail node of each edge
+	 * @param to
+	 *            head node of each edge
+	 * @param capacities
+	 *            capacity of each edge
+	 * @param costs
+	 *            cost of a unit of flow along each edge
+	 */
+	public ResidualNetwork(int nodeCount, int[] from, int[] to, long[] capacities, long[] costs) {
+		if (nodeCount <= 0)
+			throw new IllegalArgumentException("Empty graph.");
+		if (from == null || to == null || capacities == null || costs == null || from.length != to.length
+				|| capacities.length != from.length || costs.length != from.length)
+			throw new IllegalArgumentException("Edge arrays must have the same length.");
+		build(nodeCount, from, to, capacities, costs);
+
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @param edge
+	 *            index of the edge, in the order the edges were given
+	 * @return flow on the edge
+	 */
+	public long flow(int edge) {
+		if (edge < 0 || edge >= edgeCount)
+			throw new IllegalArgumentException(edge + " out of range.");
+		int arc = edgeArc[edge];
+		return capacity[arc] - residual[arc];
+	}
+
+	/**
+	 * @param edge
+	 *            index of the edge, in the order the edges were given
+	 * @return cost of a unit of flow along the edge, 0 if the edges have no
+	 *         costs
+	 */
+	public long cost(int edge) {
+		if (edge < 0 || edge >= edgeCount)
+			throw new IllegalArgumentException(edge + " out of range.");
+		return cost == null ? 0 : cost[edgeArc[edge]];
+	}
+
+	/**
+	 * Removes all flow
+	 */
+	void clearFlow() {
+		System.arraycopy(capacity, 0, residual, 0, capacity.length);
+	}
+
+	/**
+	 * Sets the long flow of each edge of the flow network the arcs were built
+	 * from to the flow on its forward arc
+	 */
+	void writeFlow() {
+		if (flowEdges == null)
+			return;
+		for (int edge = 0; edge < edgeCount; edge++) {
+			FlowEdge fe = flowEdges[edge];
+			fe.addFlowTo(flow(edge) - fe.longFlow(), fe.to());
+		}
+	}
+
+	/**
+	 * Marks the nodes reachable from a node through arcs with residual
+	 * capacity
+	 * 
+	 * @param source
+	 * @return true for each node reachable from *source*
+	 */
+	boolean[] reachableFrom(int source) {
+		boolean[] reached = new boolean[nodeCount];
+		int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		reached[source] = true;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int w = targets[arc];
+				if (!reached[w] && residual[arc] > 0) {
+					reached[w] = true;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * @param side
+	 *            nodes on the source side of the cut
+	 * @return sum of capacities of the edges leaving the source side
+	 */
+	long cutCapacity(boolean[] side) {
+		long cut = 0;
+		for (int u = 0; u < nodeCount; u++) {
+			if (!side[u])
+				continue;
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++)
+				if (!side[targets[arc]])
+					cut += capacity[arc];
+		}
+		return cut;
+	}
+
+	/**
+	 * Lays out the forward and reverse arcs of the edges by tail node
+	 */
+	private void build(int nodeCount, int[] from, int[] to, long[] capacities, long[] costs) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = from.length;
+		offsets = new int[nodeCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (from[edge] < 0 || from[edge] >= nodeCount)
+				throw new IllegalArgumentException(from[edge] + " out of range.");
+			if (to[edge] < 0 || to[edge] >= nodeCount)
+				throw new IllegalArgumentException(to[edge] + " out of range.");
+			if (capacities[edge] < 0)
+				throw new IllegalArgumentException("Flow network requires positive weighted edges.");
+			offsets[from[edge] + 1]++;
+			offsets[to[edge] + 1]++;
+		}
+		for (int v = 0; v < nodeCount; v++)
+			offsets[v + 1] += offsets[v];
+		int arcCount = offsets[nodeCount];
+		targets = new int[arcCount];
+		capacity = new long[arcCount];
+		residual = new long[arcCount];
+		reverse = new int[arcCount];
+		if (costs != null)
+			cost = new long[arcCount];
+		edgeArc = new int[edgeCount];
+		int[] next = new int[nodeCount];
+		System.arraycopy(offsets, 0, next, 0, nodeCount);
+		for (int edge = 0; edge < edgeCount; edge++) {
+			int forward = next[from[edge]]++;
+			int backward = next[to[edge]]++;
+			targets[forward] = to[edge];
+			targets[backward] = from[edge];
+			capacity[forward] = capacities[edge];
+			if (costs != null) {
+				cost[forward] = costs[edge];
+				cost[backward] = -costs[edge];
+			}
+			reverse[forward] = backward;
+			reverse[backward] = forward;
+			edgeArc[edge] = forward;
+		}
+		clearFlow();
+	}
+
+}
@@ -1,11 +1,13 @@
 package mlogic.algos.graph;
 
+import java.util.concurrent.ForkJoinPool;
+
 import mlogic.algos.exceptions.NoResultException;
 import mlogic.algos.struct.Stack;
 
 /**
  * Determines shortest path in un-weighted and undirected graphs using various
- * algorithms
+ * algorithms. Graphs in CSR form are searched with {@link ParallelBFS}.
  * 
  * @author Rajaram G
  *
@@ -17,6 +19,11 @@ public class ShortestPath {
 	 */
 	private Graph graph;
 
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
 	/**
 	 * Start node of shortest path
 	 */
@@ -49,8 +56,8 @@ public class ShortestPath {
 	 */
 	public ShortestPath(Graph graph, Integer start, Integer end) {
 		checkEmptyGraph(graph);
-		checkValidNode(graph, start);
-		checkValidNode(graph, end);
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
 		this.graph = graph;
 		this.start = start;
 		this.end = end;
@@ -59,6 +66,45 @@ public class ShortestPath {
 
 	}
 
+	/**
+	 * Constructor for a graph stored in CSR form, searched on the common
+	 * fork-join pool
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public ShortestPath(CSRGraph graph, Integer start, Integer end) {
+		this(graph, start, end, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor for a graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	public ShortestPath(CSRGraph graph, Integer start, Integer end, ForkJoinPool pool) {
+		CSRGraph.checkEmpty(graph);
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
+		this.csrGraph = graph;
+		this.start = start;
+		this.end = end;
+
+		computeInParallel(pool);
+
+	}
+
 	/**
 	 * Identifies topological path i.e. nodes on path from start to end using
 	 * BFS
@@ -66,7 +112,6 @@ public class ShortestPath {
 	 * @return an array with all the nodes on shortest path
 	 */
 	public Integer[] topologicalPath() {
-		System.out.println(shortestPathNodes);
 		Integer[] ret = new Integer[shortestPathNodes.size()];
 		shortestPathNodes.toArray(ret);
 		return ret;
@@ -90,7 +135,7 @@ public class ShortestPath {
 	private void compute() {
 		nodeTo = new Integer[graph.nodeCount];
 		shortestPathNodes = new Stack<Integer>();
-		if (start == end) {
+		if (start.intValue() == end.intValue()) {
 			shortestPathNodes.push(start);
 			return;
 		}
@@ -102,7 +147,7 @@ public class ShortestPath {
 			protected void processTreeEdge(Edge edge, Integer node) {
 				Integer v = edge.other(node);
 				nodeTo[v] = node;
-				if (v == end)
+				if (v.intValue() == end.intValue())
 					stopWalking();
 			}
 		};
@@ -117,14 +162,40 @@ public class ShortestPath {
 		}
 	}
 
+	/**
+	 * Executes a direction-optimizing parallel BFS on a CSR graph and walks
+	 * back along its tree from end node
+	 * 
+	 * @param pool
+	 *            fork-join pool to run the search on
+	 */
+	private void computeInParallel(ForkJoinPool pool) {
+		shortestPathNodes = new Stack<Integer>();
+		if (start.intValue() == end.intValue()) {
+			shortestPathNodes.push(start);
+			return;
+		}
+
+		ParallelBFS bfs = new ParallelBFS(pool);
+		int[] level = bfs.execute(csrGraph, start, end);
+		if (level[end] == ParallelBFS.UNREACHED)
+			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
+
+		int[] parent = bfs.parents();
+		for (int current = end; current != -1; current = parent[current]) {
+			shortestPathNodes.push(current);
+		}
+	}
+
 	/**
 	 * Checks if node exists on graph
 	 * 
-	 * @param graph
+	 * @param nodeCount
+	 *            number of nodes in the graph
 	 * @param node
 	 */
-	private void checkValidNode(Graph graph, Integer node) {
-		if (node >= graph.nodeCount || node < 0)
+	private void checkValidNode(int nodeCount, Integer node) {
+		if (node >= nodeCount || node < 0)
 			throw new IllegalArgumentException(node + "is not a valid node index in the graph.");
 	}
 
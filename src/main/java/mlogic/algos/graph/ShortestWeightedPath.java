@@ -4,45 +4,40 @@ import java.math.BigDecimal;
 
 import mlogic.algos.exceptions.NegativeEdgeWeightException;
 import mlogic.algos.exceptions.NoResultException;
-import mlogic.algos.struct.PriorityQueue;
+import mlogic.algos.graph.Edge.Arithmetic;
+import mlogic.algos.struct.IndexedHeap;
 import mlogic.algos.struct.Stack;
 
 /**
- * Determines shortest path in edge-weighted graphs using Dijkstra's algorithm
+ * Determines shortest path in edge-weighted graphs using Dijkstra's algorithm.
+ * Distances are accumulated in the {@link Arithmetic} chosen at construction;
+ * the primitive arithmetics keep BigDecimal out of the relaxation loop.
  * 
  * @author Rajaram G
  *
  */
 public class ShortestWeightedPath {
 
-	private class EdgePlus implements Comparable<EdgePlus> {
-		private Integer from;
-		private Integer to;
-		private BigDecimal distanceFromOrigin;
-
-		private EdgePlus(Integer from, Integer to, BigDecimal dist) {
-			this.from = from;
-			this.to = to;
-			this.distanceFromOrigin = dist;
-		}
-
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see java.lang.Comparable#compareTo(java.lang.Object)
-		 */
-		@Override
-		public int compareTo(EdgePlus o) {
-			return distanceFromOrigin.compareTo(o.distanceFromOrigin);
-		}
-
-	}
+	/**
+	 * Distance to nodes not yet reached under exact arithmetic
+	 */
+	private static final BigDecimal UNREACHED = new BigDecimal(Double.MAX_VALUE);
 
 	/**
 	 * Graph to search
 	 */
 	private Graph graph;
 
+	/**
+	 * CSR graph to search, used instead of *graph* when set
+	 */
+	private CSRGraph csrGraph;
+
+	/**
+	 * Number type used to accumulate distances
+	 */
+	private Arithmetic arithmetic;
+
 	/**
 	 * Start node of shortest path
 	 */
@@ -56,7 +51,7 @@ public class ShortestWeightedPath {
 	/**
 	 * Array storing the node before each node in shortest path
 	 */
-	private Integer[] nodeTo;
+	private int[] nodeTo;
 
 	/**
 	 * Array storing the shortest distance from start node to each node in BFS
@@ -64,6 +59,16 @@ public class ShortestWeightedPath {
 	 */
 	private BigDecimal[] distanceTo;
 
+	/**
+	 * Shortest distance from start node to each node under double arithmetic
+	 */
+	private double[] doubleDistanceTo;
+
+	/**
+	 * Shortest distance from start node to each node under long arithmetic
+	 */
+	private long[] longDistanceTo;
+
 	/**
 	 * Stack that pops out the shortest path nodes from start to end
 	 */
@@ -85,35 +90,107 @@ public class ShortestWeightedPath {
 	 *            end node
 	 */
 	public ShortestWeightedPath(Graph graph, Integer start, Integer end) {
+		this(graph, start, end, Arithmetic.EXACT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 * @param arithmetic
+	 *            number type used to accumulate distances
+	 */
+	public ShortestWeightedPath(Graph graph, Integer start, Integer end, Arithmetic arithmetic) {
 		Graph.checkEmpty(graph);
-		checkValidNode(graph, start);
-		checkValidNode(graph, end);
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
 		this.graph = graph;
 		this.start = start;
 		this.end = end;
-		nodeTo = new Integer[graph.nodeCount];
-		distanceTo = new BigDecimal[graph.nodeCount];
-		for (int v = 0; v < graph.nodeCount; v++) {
-			nodeTo[v] = -1;
-			distanceTo[v] = new BigDecimal(Double.MAX_VALUE);
-		}
-		marked = new boolean[graph.nodeCount];
-		shortestPathNodes = new Stack<Integer>();
-		if (start == end) {
+		this.arithmetic = arithmetic;
+		initialize(graph.nodeCount);
+		if (start.intValue() == end.intValue())
 			shortestPathNodes.push(start);
-			distanceTo[end] = new BigDecimal(0);
-			return;
-		} else
+		else
 			compute();
 
 	}
 
+	/**
+	 * Constructor for a graph stored in CSR form. Distances are accumulated as
+	 * doubles.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param start
+	 *            start node
+	 * @param end
+	 *            end node
+	 */
+	public ShortestWeightedPath(CSRGraph graph, Integer start, Integer end) {
+		CSRGraph.checkEmpty(graph);
+		checkValidNode(graph.nodeCount, start);
+		checkValidNode(graph.nodeCount, end);
+		this.csrGraph = graph;
+		this.start = start;
+		this.end = end;
+		this.arithmetic = Arithmetic.DOUBLE;
+		initialize(graph.nodeCount);
+		if (start.intValue() == end.intValue())
+			shortestPathNodes.push(start);
+		else
+			computeOnCSR();
+
+	}
+
 	/**
 	 * @return physical distance along the shortest path between start and end
 	 *         nodes
 	 */
 	public BigDecimal physicalDistance() {
-		return distanceTo[this.end];
+		switch (arithmetic) {
+		case DOUBLE:
+			return new BigDecimal(doubleDistanceTo[this.end]);
+		case LONG:
+			return BigDecimal.valueOf(longDistanceTo[this.end]);
+		default:
+			return distanceTo[this.end];
+		}
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes as a double
+	 */
+	public double doublePhysicalDistance() {
+		switch (arithmetic) {
+		case DOUBLE:
+			return doubleDistanceTo[this.end];
+		case LONG:
+			return longDistanceTo[this.end];
+		default:
+			return distanceTo[this.end].doubleValue();
+		}
+	}
+
+	/**
+	 * @return physical distance along the shortest path between start and end
+	 *         nodes as a long
+	 */
+	public long longPhysicalDistance() {
+		switch (arithmetic) {
+		case DOUBLE:
+			return (long) doubleDistanceTo[this.end];
+		case LONG:
+			return longDistanceTo[this.end];
+		default:
+			return distanceTo[this.end].longValue();
+		}
 	}
 
 	/**
@@ -129,6 +206,40 @@ public class ShortestWeightedPath {
 		return ret;
 	}
 
+	/**
+	 * Allocates the search arrays, with distances only for the arithmetic in
+	 * use, and sets the distance to start node to zero
+	 * 
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 */
+	private void initialize(int nodeCount) {
+		nodeTo = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++)
+			nodeTo[v] = -1;
+		switch (arithmetic) {
+		case DOUBLE:
+			doubleDistanceTo = new double[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				doubleDistanceTo[v] = Double.MAX_VALUE;
+			doubleDistanceTo[start] = 0;
+			break;
+		case LONG:
+			longDistanceTo = new long[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				longDistanceTo[v] = Long.MAX_VALUE;
+			longDistanceTo[start] = 0;
+			break;
+		default:
+			distanceTo = new BigDecimal[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				distanceTo[v] = UNREACHED;
+			distanceTo[start] = BigDecimal.ZERO;
+		}
+		marked = new boolean[nodeCount];
+		shortestPathNodes = new Stack<Integer>();
+	}
+
 	/**
 	 * Executes Dijkstra's algorithm on an edge weighted graph to compute
 	 * shortest path
@@ -136,58 +247,175 @@ public class ShortestWeightedPath {
 	 */
 	private void compute() {
 
-		Integer u = start;
-		marked[u] = true;
-		distanceTo[u] = new BigDecimal(0);
-		PriorityQueue<EdgePlus> pq = new PriorityQueue<EdgePlus>();
-		while (u != end) {
+		IndexedHeap pq = distanceHeap(graph.nodeCount);
+		pq.insert(start);
+		while (!pq.isEmpty()) {
+			int u = pq.deleteMin();
+			marked[u] = true;
+			if (u == end)
+				break;
 			for (Edge e : graph.edges[u]) {
-				Integer v = e.other(u);
+				int v = e.other(u);
 				if (marked[v])
 					continue;
-				if (e.weight().compareTo(new BigDecimal(0)) < 0)
-					throw new NegativeEdgeWeightException(
-							"Dijkstra's algorithm cannot be applied to a graph with negative edges.");
-				BigDecimal newDistance = distanceTo[u].add(e.weight());
-				if (newDistance.compareTo(distanceTo[v]) < 0) {
-					distanceTo[v] = newDistance;
+				if (relax(u, v, e))
+					enqueue(pq, v);
+			}
+
+		}
+
+		collectPath();
+
+	}
+
+	/**
+	 * Executes Dijkstra's algorithm on a CSR graph, reading arc weights
+	 * straight from the CSR arrays
+	 * 
+	 */
+	private void computeOnCSR() {
+
+		IndexedHeap pq = distanceHeap(csrGraph.nodeCount);
+		pq.insert(start);
+		while (!pq.isEmpty()) {
+			int u = pq.deleteMin();
+			marked[u] = true;
+			if (u == end)
+				break;
+			for (int arc = csrGraph.offsets[u]; arc < csrGraph.offsets[u + 1]; arc++) {
+				int v = csrGraph.targets[arc];
+				if (marked[v])
+					continue;
+				double weight = csrGraph.weights[arc];
+				if (weight < 0)
+					throw negativeEdgeWeight();
+				double newDistance = doubleDistanceTo[u] + weight;
+				if (newDistance < doubleDistanceTo[v]) {
+					doubleDistanceTo[v] = newDistance;
 					nodeTo[v] = u;
-					pq.enqueue(new EdgePlus(u, v, distanceTo[v]));
+					enqueue(pq, v);
 				}
 			}
-			EdgePlus nearest = null;
-			while (true) {
-				nearest = pq.dequeue();
-				if (nearest == null)
-					break;
-				if (!marked[nearest.to])
-					break;
+
+		}
+
+		collectPath();
+
+	}
+
+	/**
+	 * @param nodeCount
+	 *            number of nodes in the graph
+	 * @return heap of nodes ordered by their distance from start node in the
+	 *         arithmetic in use
+	 */
+	private IndexedHeap distanceHeap(int nodeCount) {
+		return new IndexedHeap(nodeCount) {
+			@Override
+			protected int compare(int u, int v) {
+				switch (arithmetic) {
+				case DOUBLE:
+					return Double.compare(doubleDistanceTo[u], doubleDistanceTo[v]);
+				case LONG:
+					return Long.compare(longDistanceTo[u], longDistanceTo[v]);
+				default:
+					return distanceTo[u].compareTo(distanceTo[v]);
+				}
 			}
-			if (nearest != null) {
-				marked[nearest.to] = true;
-				u = nearest.to;
-			} else
-				break;
+		};
+	}
+
+	/**
+	 * Adds a node to the heap, or moves it up if its distance was reduced
+	 * while queued
+	 * 
+	 * @param pq
+	 * @param v
+	 */
+	private static void enqueue(IndexedHeap pq, int v) {
+		if (pq.contains(v))
+			pq.decreaseKey(v);
+		else
+			pq.insert(v);
+	}
 
+	/**
+	 * Updates the distance to *v* if the path through *u* along edge *e* is
+	 * shorter
+	 * 
+	 * @param u
+	 *            node being evaluated
+	 * @param v
+	 *            neighbor of *u*
+	 * @param e
+	 *            edge between *u* and *v*
+	 * @return true if the distance to *v* was reduced
+	 */
+	private boolean relax(int u, int v, Edge e) {
+		switch (arithmetic) {
+		case DOUBLE: {
+			double weight = e.doubleWeight();
+			if (weight < 0)
+				throw negativeEdgeWeight();
+			double newDistance = doubleDistanceTo[u] + weight;
+			if (newDistance >= doubleDistanceTo[v])
+				return false;
+			doubleDistanceTo[v] = newDistance;
+			break;
+		}
+		case LONG: {
+			long weight = e.longWeight();
+			if (weight < 0)
+				throw negativeEdgeWeight();
+			long newDistance = longDistanceTo[u] + weight;
+			if (newDistance >= longDistanceTo[v])
+				return false;
+			longDistanceTo[v] = newDistance;
+			break;
+		}
+		default: {
+			if (e.weight().signum() < 0)
+				throw negativeEdgeWeight();
+			BigDecimal newDistance = distanceTo[u].add(e.weight());
+			if (newDistance.compareTo(distanceTo[v]) >= 0)
+				return false;
+			distanceTo[v] = newDistance;
+		}
 		}
+		nodeTo[v] = u;
+		return true;
+	}
 
+	/**
+	 * Walks back from end node to start node and stacks the shortest path
+	 * nodes
+	 */
+	private void collectPath() {
 		if (nodeTo[end] == -1)
 			throw new NoResultException("No path from " + start + " to " + end + " found in the graph.");
 
-		for (Integer node = end; node != -1; node = nodeTo[node]) {
+		for (int node = end; node != -1; node = nodeTo[node]) {
 			shortestPathNodes.push(node);
 		}
+	}
 
+	/**
+	 * @return exception thrown on finding a negative edge
+	 */
+	private NegativeEdgeWeightException negativeEdgeWeight() {
+		return new NegativeEdgeWeightException(
+				"Dijkstra's algorithm cannot be applied to a graph with negative edges.");
 	}
 
 	/**
 	 * Checks if node exists on graph
 	 * 
-	 * @param graph
+	 * @param nodeCount
+	 *            number of nodes in the graph
 	 * @param node
 	 */
-	private void checkValidNode(Graph graph, Integer node) {
-		if (node >= graph.nodeCount || node < 0)
+	private void checkValidNode(int nodeCount, Integer node) {
+		if (node >= nodeCount || node < 0)
 			throw new IllegalArgumentException(node + "is not a valid node index in the graph.");
 	}
 
@@ -0,0 +1,184 @@
+package mlogic.algos.graph;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Identifies the strongly connected components of a directed graph in a single
+ * depth first search, using Pearce's space efficient refinement of Tarjan's
+ * algorithm. Each node gets the index of its visit, lowered to the smallest
+ * index it reaches through nodes still open. A node whose index is not
+ * lowered is the root of a component, and the nodes visited after it that are
+ * still on the stack form its component. Completed nodes take a component
+ * number counting down from V - 1, which is always above the index of any
+ * open node, so one int per node serves as both index and result, and no
+ * separate on-stack flag is needed. The search keeps its own stack of nodes
+ * and arcs, so deep graphs cannot overflow the call stack, and the graph is
+ * read in CSR form without building its reverse.
+ * <p>
+ * Components are numbered in the order they complete, which is a reverse
+ * topological order of the component graph: every arc between two components
+ * leads from a higher number to a lower one.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class TarjansStronglyConnectedComponents {
+
+	/**
+	 * Component index of each node
+	 */
+	private int[] component;
+
+	/**
+	 * Number of components
+	 */
+	private int componentCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param graph
+	 *            Directed graph to process
+	 */
+	public TarjansStronglyConnectedComponents(DirectedGraph graph) {
+		this(new CSRGraph(graph));
+	}
+
+	/**
+	 * Constructor for a directed graph stored in CSR form
+	 * 
+	 * @param graph
+	 *            Directed graph to process
+	 */
+	public TarjansStronglyConnectedComponents(CSRGraph graph) {
+		CSRGraph.checkEmpty(graph);
+		if (!graph.directed)
+			throw new IllegalArgumentException("Strongly connected components require a directed graph.");
+		int nodeCount = graph.nodeCount;
+		component = new int[nodeCount];
+		componentCount = search(graph, null, nodeCount, component, new boolean[nodeCount], null, 0);
+		// Turn the numbers counting down from V - 1 into completion order
+		for (int v = 0; v < nodeCount; v++)
+			component[v] = nodeCount - 1 - component[v];
+
+	}
+
+	/**
+	 * @return array that stores the strongly connected component index
+	 */
+	public Integer[] connectedComponentArray() {
+		Integer[] connected = new Integer[component.length];
+		for (int v = 0; v < component.length; v++)
+			connected[v] = component[v];
+		return connected;
+	}
+
+	/**
+	 * @return array that stores the strongly connected component index,
+	 *         without boxing
+	 */
+	public int[] intConnectedComponentArray() {
+		return component;
+	}
+
+	/**
+	 * @return number of strongly connected components
+	 */
+	public int componentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Runs Pearce's search over a set of nodes, following only arcs that stay
+	 * inside the set. On return each node of the set holds count - 1 - i in
+	 * *rindex*, where i is the completion order of its component. Only the
+	 * entries of the set's nodes are read or written, so searches over
+	 * disjoint sets may share the arrays.
+	 * 
+	 * @param graph
+	 *            graph to search
+	 * @param nodes
+	 *            nodes of the set, or null for all the nodes of the graph
+	 * @param count
+	 *            number of nodes in the set
+	 * @param rindex
+	 *            work array indexed by node, receives the component numbers
+	 * @param root
+	 *            work array indexed by node, marking nodes whose index has
+	 *            not been lowered
+	 * @param color
+	 *            color of each node, or null to search every node
+	 * @param setColor
+	 *            color of the nodes of the set
+	 * @return number of components found
+	 */
+	static int search(CSRGraph graph, int[] nodes, int count, int[] rindex, boolean[] root, AtomicIntegerArray color,
+			int setColor) {
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		int[] callNode = new int[count];
+		int[] callArc = new int[count];
+		int[] stack = new int[count];
+		int depth = 0;
+		int top = 0;
+		int index = 1;
+		int c = count - 1;
+		for (int i = 0; i < count; i++)
+			rindex[nodes == null ? i : nodes[i]] = 0;
+
+		for (int i = 0; i < count; i++) {
+			int start = nodes == null ? i : nodes[i];
+			if (rindex[start] != 0)
+				continue;
+			rindex[start] = index++;
+			root[start] = true;
+			callNode[0] = start;
+			callArc[0] = offsets[start];
+			depth = 1;
+			while (depth > 0) {
+				int v = callNode[depth - 1];
+				int arc = callArc[depth - 1];
+				if (arc < offsets[v + 1]) {
+					callArc[depth - 1] = arc + 1;
+					int w = targets[arc];
+					if (color != null && color.get(w) != setColor)
+						continue;
+					if (rindex[w] == 0) {
+						rindex[w] = index++;
+						root[w] = true;
+						callNode[depth] = w;
+						callArc[depth++] = offsets[w];
+					} else if (rindex[w] < rindex[v]) {
+						rindex[v] = rindex[w];
+						root[v] = false;
+					}
+					continue;
+				}
+
+				// All arcs of v are done, return to its caller
+				depth--;
+				if (root[v]) {
+					// v is the root of a component
+					index--;
+					while (top > 0 && rindex[v] <= rindex[stack[top - 1]]) {
+						int w = stack[--top];
+						rindex[w] = c;
+						index--;
+					}
+					rindex[v] = c--;
+					root[v] = false;
+				} else
+					stack[top++] = v;
+				if (depth > 0) {
+					int u = callNode[depth - 1];
+					if (rindex[v] < rindex[u]) {
+						rindex[u] = rindex[v];
+						root[u] = false;
+					}
+				}
+			}
+		}
+		return count - 1 - c;
+	}
+
+}
@@ -7,7 +7,8 @@ import mlogic.algos.struct.Stack;
  * Identifies the topological sort order of nodes in a directed graph.
  * Topological order is an arrangement such that for any edge, the *from* node
  * is to the left of the *to* node in the sorted order. Topological sort is
- * infeasible on cyclic graphs.
+ * infeasible on cyclic graphs. {@link KahnsTopologicalSort} sorts without
+ * recursion and splits the order into levels that can run in parallel.
  * 
  * @author Rajaram G
  *
@@ -25,12 +25,7 @@ public class UndirectedGraph extends Graph {
 	 */
 	@Override
 	public void addEdge(Integer from, Integer to) {
-		Edge edge = new Edge(from, to);
-		// Allow duplicate edges
-		this.edges[from].put(edge);
-		if (from != to)
-			this.edges[to].put(edge);
-		this.edgeCount++;
+		put(new Edge(from, to));
 
 	}
 
@@ -43,11 +38,46 @@ public class UndirectedGraph extends Graph {
 	 */
 	@Override
 	public void addEdge(Integer from, Integer to, BigDecimal weight) {
-		Edge edge = new Edge(from, to, weight);
+		put(new Edge(from, to, weight));
+
+	}
+
+	/**
+	 * Add a weighted edge
+	 * 
+	 * @param from
+	 * @param to
+	 * @param weight
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Double weight) {
+		put(new Edge(from, to, weight.doubleValue()));
+
+	}
+
+	/**
+	 * Add a weighted edge
+	 * 
+	 * @param from
+	 * @param to
+	 * @param weight
+	 */
+	@Override
+	public void addEdge(Integer from, Integer to, Long weight) {
+		put(new Edge(from, to, weight.longValue()));
+
+	}
+
+	/**
+	 * Adds an edge to the adjacency list of its end points
+	 * 
+	 * @param edge
+	 */
+	private void put(Edge edge) {
 		// Allow duplicate edges
-		this.edges[from].put(edge);
-		if (from != to)
-			this.edges[to].put(edge);
+		this.edges[edge.from()].put(edge);
+		if (edge.from().intValue() != edge.to().intValue())
+			this.edges[edge.to()].put(edge);
 		this.edgeCount++;
 
 	}
@@ -0,0 +1,134 @@
+package mlogic.algos.struct;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union-find over integer ids that many threads can update at once without
+ * locks, after Anderson and Woll. All state lives in one AtomicIntegerArray:
+ * an id that is not a root holds its parent, and a root holds its rank as a
+ * negative number, -(rank + 1). A root is linked below another by a
+ * compare-and-set of its own entry, which fails if it was linked or its rank
+ * grew in the meantime, in which case the union retries from the new roots.
+ * Roots are linked in the order of their rank and then their id, read in the
+ * same word that is set, so two threads cannot link two roots below each
+ * other. Finds halve the paths they walk by pointing every other node at its
+ * grandparent with a compare-and-set that fails harmlessly under contention.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class ConcurrentUnionFind {
+
+	/**
+	 * Parent of each id, or -(rank + 1) for roots
+	 */
+	private AtomicIntegerArray parent;
+
+	/**
+	 * @param size
+	 *            number of ids
+	 */
+	public ConcurrentUnionFind(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException(size + " out of range.");
+		parent = new AtomicIntegerArray(size);
+		for (int v = 0; v < size; v++)
+			parent.set(v, -1);
+	}
+
+	/**
+	 * @return number of ids
+	 */
+	public int size() {
+		return parent.length();
+	}
+
+	/**
+	 * Walks up to the root of the set holding an id, pointing each node passed
+	 * at its grandparent on the way. With concurrent unions the root may be
+	 * linked below another by the time it is returned.
+	 * 
+	 * @param id
+	 * @return root of the set holding *id*
+	 */
+	public int find(int id) {
+		checkRange(id);
+		int node = id;
+		while (true) {
+			int up = parent.get(node);
+			if (up < 0)
+				return node;
+			int grand = parent.get(up);
+			if (grand < 0)
+				return up;
+			// Fails harmlessly if another thread moved the node first
+			parent.compareAndSet(node, up, grand);
+			node = grand;
+		}
+	}
+
+	/**
+	 * Merges the sets holding two ids, linking the root of lower rank below
+	 * the other
+	 * 
+	 * @param u
+	 * @param v
+	 * @return true if the ids were in different sets, false if they already
+	 *         shared one
+	 */
+	public boolean union(int u, int v) {
+		checkRange(u);
+		checkRange(v);
+		while (true) {
+			int ru = find(u);
+			int rv = find(v);
+			if (ru == rv)
+				return false;
+			int wu = parent.get(ru);
+			int wv = parent.get(rv);
+			// One of them was linked since it was found
+			if (wu >= 0 || wv >= 0)
+				continue;
+			// Ranks are stored negated, so the lower rank has the higher word
+			if (wu < wv || (wu == wv && ru > rv)) {
+				int tmp = ru;
+				ru = rv;
+				rv = tmp;
+				tmp = wu;
+				wu = wv;
+				wv = tmp;
+			}
+			if (!parent.compareAndSet(ru, wu, rv))
+				continue;
+			// Losing this race only leaves the rank lower than it could be
+			if (wu == wv)
+				parent.compareAndSet(rv, wv, wv - 1);
+			return true;
+		}
+	}
+
+	/**
+	 * @param u
+	 * @param v
+	 * @return true if both ids are in the same set
+	 */
+	public boolean connected(int u, int v) {
+		checkRange(u);
+		checkRange(v);
+		while (true) {
+			int ru = find(u);
+			int rv = find(v);
+			if (ru == rv)
+				return true;
+			// A root that is still a root was not linked since it was found
+			if (parent.get(ru) < 0)
+				return false;
+		}
+	}
+
+	private void checkRange(int id) {
+		if (id < 0 || id >= parent.length())
+			throw new IllegalArgumentException(id + " out of range.");
+	}
+
+}
@@ -0,0 +1,227 @@
+package mlogic.algos.struct;
+
+/**
+ * Array-backed d-ary min-heap over integer ids in the range [0, capacity). The
+ * heap does not store keys; subclasses compare two ids by whatever keys they
+ * keep, typically an array of distances indexed by id. A position array maps
+ * each id to its slot in the heap, so membership tests and decrease-key
+ * operations do not need to search the heap. Each id is held at most once, so
+ * the heap never grows beyond capacity entries.
+ * 
+ * @author Rajaram G
+ *
+ */
+public abstract class IndexedHeap {
+
+	/**
+	 * Arity used when none is specified
+	 */
+	public static final int DEFAULT_ARITY = 4;
+
+	/**
+	 * Ids in heap order, the first *size* slots are in use
+	 */
+	private int[] heap;
+
+	/**
+	 * Slot of each id in the heap, -1 for ids not in the heap
+	 */
+	private int[] position;
+
+	/**
+	 * Number of children of each slot
+	 */
+	private int arity;
+
+	/**
+	 * Number of ids in the heap
+	 */
+	private int size;
+
+	/**
+	 * Constructor for a heap of default arity
+	 * 
+	 * @param capacity
+	 *            number of ids the heap can hold
+	 */
+	public IndexedHeap(int capacity) {
+		this(capacity, DEFAULT_ARITY);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            number of ids the heap can hold
+	 * @param arity
+	 *            number of children of each slot; 2, 4 or 8
+	 */
+	public IndexedHeap(int capacity, int arity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity of the heap cannot be negative.");
+		if (arity != 2 && arity != 4 && arity != 8)
+			throw new IllegalArgumentException("Arity of the heap must be 2, 4 or 8.");
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		for (int id = 0; id < capacity; id++)
+			position[id] = -1;
+		this.arity = arity;
+	}
+
+	/**
+	 * Compares the keys of two ids
+	 * 
+	 * @param u
+	 *            first id
+	 * @param v
+	 *            second id
+	 * @return a negative integer, zero, or a positive integer indicating if the
+	 *         key of the first id is less than, equal to, or greater than the
+	 *         key of the second id
+	 */
+	protected abstract int compare(int u, int v);
+
+	/**
+	 * @return number of ids in the heap
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the heap is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param id
+	 * @return true if the id is in the heap
+	 */
+	public boolean contains(int id) {
+		checkValidId(id);
+		return position[id] != -1;
+	}
+
+	/**
+	 * Adds an id to the heap, placing it by its current key
+	 * 
+	 * @param id
+	 */
+	public void insert(int id) {
+		checkValidId(id);
+		if (position[id] != -1)
+			throw new IllegalArgumentException(id + " is already in the heap.");
+		heap[size] = id;
+		position[id] = size;
+		size++;
+		swim(size - 1);
+	}
+
+	/**
+	 * Restores heap order after the key of an id has been reduced
+	 * 
+	 * @param id
+	 */
+	public void decreaseKey(int id) {
+		checkValidId(id);
+		if (position[id] == -1)
+			throw new IllegalArgumentException(id + " is not in the heap.");
+		swim(position[id]);
+	}
+
+	/**
+	 * @return id with the smallest key, or -1 if the heap is empty
+	 */
+	public int peek() {
+		if (size == 0)
+			return -1;
+		return heap[0];
+	}
+
+	/**
+	 * Removes and returns the id with the smallest key
+	 * 
+	 * @return id with the smallest key, or -1 if the heap is empty
+	 */
+	public int deleteMin() {
+		if (size == 0)
+			return -1;
+		int min = heap[0];
+		size--;
+		position[min] = -1;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			sink(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Removes all ids from the heap
+	 */
+	public void clear() {
+		for (int slot = 0; slot < size; slot++)
+			position[heap[slot]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Moves the id at the given slot up until its parent key is not greater
+	 * 
+	 * @param slot
+	 */
+	private void swim(int slot) {
+		int id = heap[slot];
+		while (slot > 0) {
+			int parent = (slot - 1) / arity;
+			if (compare(id, heap[parent]) >= 0)
+				break;
+			heap[slot] = heap[parent];
+			position[heap[slot]] = slot;
+			slot = parent;
+		}
+		heap[slot] = id;
+		position[id] = slot;
+	}
+
+	/**
+	 * Moves the id at the given slot down until none of its children has a
+	 * smaller key
+	 * 
+	 * @param slot
+	 */
+	private void sink(int slot) {
+		int id = heap[slot];
+		while (true) {
+			int first = slot * arity + 1;
+			if (first >= size)
+				break;
+			int last = Math.min(first + arity, size);
+			int min = first;
+			for (int child = first + 1; child < last; child++)
+				if (compare(heap[child], heap[min]) < 0)
+					min = child;
+			if (compare(heap[min], id) >= 0)
+				break;
+			heap[slot] = heap[min];
+			position[heap[slot]] = slot;
+			slot = min;
+		}
+		heap[slot] = id;
+		position[id] = slot;
+	}
+
+	/**
+	 * Checks if id is within the capacity of the heap
+	 * 
+	 * @param id
+	 */
+	private void checkValidId(int id) {
+		if (id < 0 || id >= position.length)
+			throw new IllegalArgumentException(id + " out of range.");
+	}
+
+}
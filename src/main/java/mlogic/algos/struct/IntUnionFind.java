@@ -0,0 +1,117 @@
+package mlogic.algos.struct;
+
+/**
+ * Union-find over primitive int ids. Sets are merged by rank, so a tree of
+ * rank r holds at least 2^r ids, and every find points the nodes it passes
+ * straight at the root. Together they make any sequence of operations run in
+ * nearly constant amortized time per operation. Not safe for concurrent use,
+ * see {@link ConcurrentUnionFind}.
+ * 
+ * @author Rajaram G
+ *
+ */
+public class IntUnionFind {
+
+	/**
+	 * Parent of each id, roots are their own parent
+	 */
+	private int[] parent;
+
+	/**
+	 * Upper bound on the height of the tree below each root
+	 */
+	private byte[] rank;
+
+	/**
+	 * Number of disjoint sets
+	 */
+	private int setCount;
+
+	/**
+	 * @param size
+	 *            number of ids
+	 */
+	public IntUnionFind(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException(size + " out of range.");
+		parent = new int[size];
+		rank = new byte[size];
+		for (int v = 0; v < size; v++)
+			parent[v] = v;
+		setCount = size;
+	}
+
+	/**
+	 * @return number of ids
+	 */
+	public int size() {
+		return parent.length;
+	}
+
+	/**
+	 * @return number of disjoint sets
+	 */
+	public int setCount() {
+		return setCount;
+	}
+
+	/**
+	 * Walks up to the root of the set holding an id, then walks the path again
+	 * pointing each node at the root
+	 * 
+	 * @param id
+	 * @return root of the set holding *id*
+	 */
+	public int find(int id) {
+		checkRange(id);
+		int root = id;
+		while (parent[root] != root)
+			root = parent[root];
+		while (parent[id] != root) {
+			int up = parent[id];
+			parent[id] = root;
+			id = up;
+		}
+		return root;
+	}
+
+	/**
+	 * Merges the sets holding two ids, making the root of lower rank a child
+	 * of the other
+	 * 
+	 * @param u
+	 * @param v
+	 * @return true if the ids were in different sets, false if they already
+	 *         shared one
+	 */
+	public boolean union(int u, int v) {
+		int ru = find(u);
+		int rv = find(v);
+		if (ru == rv)
+			return false;
+		if (rank[ru] < rank[rv]) {
+			parent[ru] = rv;
+		} else {
+			parent[rv] = ru;
+			if (rank[ru] == rank[rv])
+				rank[ru]++;
+		}
+		setCount--;
+		return true;
+	}
+
+	/**
+	 * @param u
+	 * @param v
+	 * @return true if both ids are in the same set
+	 */
+	public boolean connected(int u, int v) {
+		return find(u) == find(v);
+	}
+
+	private void checkRange(int id) {
+		if (id < 0 || id >= parent.length)
+			throw new IllegalArgumentException(id + " out of range.");
+	}
+
+}
@@ -0,0 +1,166 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class AStarShortestWeightedPathTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Side of the grid graph
+	 */
+	private static final int SIDE = 40;
+
+	@Test
+	public void testPhysicalPathSimpleGraph() {
+		Graph graph = new UndirectedGraph(6);
+		graph.addEdge(0, 1, new BigDecimal(5));
+		graph.addEdge(0, 2, new BigDecimal(10));
+		graph.addEdge(1, 3, new BigDecimal(8));
+		graph.addEdge(2, 4, new BigDecimal(4));
+		graph.addEdge(3, 5, new BigDecimal(4));
+		graph.addEdge(4, 5, new BigDecimal(4));
+		AStarShortestWeightedPath algo = new AStarShortestWeightedPath(graph, 0, 5, new Landmarks(graph, 2));
+		assertEquals("[0, 1, 3, 5]", Arrays.toString(algo.physicalPath()));
+		assertEquals(new BigDecimal(17), algo.physicalDistance());
+	}
+
+	@Test
+	public void testEuclideanHeuristicOnGrid() {
+		CSRGraph graph = getGridGraph();
+		double[] x = new double[SIDE * SIDE];
+		double[] y = new double[SIDE * SIDE];
+		for (int v = 0; v < SIDE * SIDE; v++) {
+			x[v] = v % SIDE;
+			y[v] = v / SIDE;
+		}
+		Heuristic euclidean = new EuclideanHeuristic(x, y);
+		Heuristic none = new Heuristic() {
+			@Override
+			public double estimate(int node, int end) {
+				return 0;
+			}
+		};
+		int start = SIDE / 2 * SIDE + SIDE / 2;
+		int end = start + SIDE / 4;
+		AStarShortestWeightedPath astar = new AStarShortestWeightedPath(graph, start, end, euclidean);
+		AStarShortestWeightedPath dijkstra = new AStarShortestWeightedPath(graph, start, end, none);
+		assertEquals(new ShortestWeightedPath(graph, start, end).doublePhysicalDistance(),
+				astar.doublePhysicalDistance(), 0);
+		assertEquals(dijkstra.doublePhysicalDistance(), astar.doublePhysicalDistance(), 0);
+		assertTrue(astar.settledNodeCount() * 4 < dijkstra.settledNodeCount());
+	}
+
+	@Test
+	public void testLandmarksMatchDijkstra() throws IOException {
+		CSRGraph graph = getGridGraph();
+		Landmarks landmarks = new Landmarks(graph, 4);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		landmarks.save(out);
+		Landmarks loaded = Landmarks.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(Arrays.toString(landmarks.landmarks()), Arrays.toString(loaded.landmarks()));
+
+		Random random = new Random(42);
+		int totalSettled = 0;
+		for (int query = 0; query < 20; query++) {
+			int start = random.nextInt(SIDE * SIDE);
+			int end = random.nextInt(SIDE * SIDE);
+			AStarShortestWeightedPath alt = new AStarShortestWeightedPath(graph, start, end, loaded);
+			assertEquals(new ShortestWeightedPath(graph, start, end).doublePhysicalDistance(),
+					alt.doublePhysicalDistance(), 1e-9);
+			Integer[] path = alt.physicalPath();
+			assertEquals(new Integer(start), path[0]);
+			assertEquals(new Integer(end), path[path.length - 1]);
+			totalSettled += alt.settledNodeCount();
+		}
+		assertTrue(totalSettled < 20 * SIDE * SIDE / 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLandmarksFromAnotherGraph() {
+		CSRGraph graph = getGridGraph();
+		Landmarks landmarks = new Landmarks(new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, null, false), 1);
+		new AStarShortestWeightedPath(graph, 0, 1, landmarks);
+	}
+
+	/**
+	 * @return directed grid graph with right and down edges of weight 1 and
+	 *         left and up edges of random weight above 1
+	 */
+	private CSRGraph getGridGraph() {
+		Random random = new Random(7);
+		int edgeCount = 4 * SIDE * (SIDE - 1);
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		int k = 0;
+		for (int r = 0; r < SIDE; r++) {
+			for (int c = 0; c < SIDE; c++) {
+				int v = r * SIDE + c;
+				if (c + 1 < SIDE) {
+					from[k] = v;
+					to[k] = v + 1;
+					weights[k++] = 1;
+					from[k] = v + 1;
+					to[k] = v;
+					weights[k++] = 1 + random.nextInt(3);
+				}
+				if (r + 1 < SIDE) {
+					from[k] = v;
+					to[k] = v + SIDE;
+					weights[k++] = 1;
+					from[k] = v + SIDE;
+					to[k] = v;
+					weights[k++] = 1 + random.nextInt(3);
+				}
+			}
+		}
+		return new CSRGraph(SIDE * SIDE, from, to, weights, true);
+	}
+
+}
@@ -0,0 +1,180 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.CyclicGraphException;
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class AcyclicPathsTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testShortestPathWithNegativeWeights() {
+		AcyclicPaths algo = new AcyclicPaths(getWeightedDag(), 0, false);
+		assertEquals("[0.0, 3.0, -1.0, 1.0, 2.0, 4.0]", Arrays.toString(algo.distanceTo()));
+		assertEquals("[0, 2, 3, 4]", Arrays.toString(algo.pathTo(4)));
+		assertEquals(2, algo.farthestNode());
+	}
+
+	@Test
+	public void testLongestPath() {
+		AcyclicPaths algo = new AcyclicPaths(getWeightedDag(), 0, true);
+		assertEquals("[0.0, 3.0, 5.0, 7.0, 8.0, 10.0]", Arrays.toString(algo.distanceTo()));
+		assertEquals("[0, 1, 2, 3, 4, 5]", Arrays.toString(algo.criticalPath()));
+	}
+
+	@Test
+	public void testCriticalPathFromEveryNode() {
+		// Stage durations on the arcs leaving each stage
+		int[] from = { 0, 0, 1, 2, 3, 4 };
+		int[] to = { 1, 2, 3, 3, 5, 5 };
+		double[] weights = { 4, 4, 2, 7, 3, 1 };
+		AcyclicPaths algo = new AcyclicPaths(new CSRGraph(6, from, to, weights, true), true);
+		assertEquals("[0.0, 4.0, 4.0, 11.0, 0.0, 14.0]", Arrays.toString(algo.distanceTo()));
+		assertEquals("[0, 2, 3, 5]", Arrays.toString(algo.criticalPath()));
+	}
+
+	@Test(expected = NoResultException.class)
+	public void testUnreachableNode() {
+		new AcyclicPaths(getWeightedDag(), 1, false).pathTo(0);
+	}
+
+	@Test(expected = CyclicGraphException.class)
+	public void testCyclicGraph() {
+		int[] from = { 0, 1, 2 };
+		int[] to = { 1, 2, 1 };
+		new AcyclicPaths(new CSRGraph(3, from, to, null, true), 0, false);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndirectedGraph() {
+		new AcyclicPaths(new CSRGraph(new UndirectedGraph(3)), 0, false);
+	}
+
+	@Test
+	public void testLongChain() {
+		int nodeCount = 200000;
+		int[] from = new int[nodeCount - 1];
+		int[] to = new int[nodeCount - 1];
+		double[] weights = new double[nodeCount - 1];
+		for (int v = 0; v < nodeCount - 1; v++) {
+			from[v] = v;
+			to[v] = v + 1;
+			weights[v] = 1;
+		}
+		AcyclicPaths algo = new AcyclicPaths(new CSRGraph(nodeCount, from, to, weights, true), 0, true);
+		assertEquals(nodeCount, algo.criticalPath().length);
+	}
+
+	@Test
+	public void testRandomDagsAgainstBellmanFord() {
+		Random random = new Random(20);
+		for (int round = 0; round < 30; round++) {
+			int nodeCount = 1 + random.nextInt(40);
+			int edgeCount = nodeCount == 1 ? 0 : random.nextInt(4 * nodeCount);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			double[] weights = new double[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				int a = random.nextInt(nodeCount);
+				int b = random.nextInt(nodeCount - 1);
+				if (b >= a)
+					b++;
+				// Arcs lead from higher to lower nodes
+				from[i] = Math.max(a, b);
+				to[i] = Math.min(a, b);
+				weights[i] = random.nextInt(21) - 10;
+			}
+			CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, true);
+			int start = random.nextInt(nodeCount);
+			for (int mode = 0; mode < 2; mode++) {
+				boolean longest = mode == 1;
+				double[] expected = new double[nodeCount];
+				Arrays.fill(expected, longest ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+				expected[start] = 0;
+				for (int pass = 0; pass < nodeCount; pass++) {
+					for (int i = 0; i < edgeCount; i++) {
+						double d = expected[from[i]] + weights[i];
+						if (Double.isInfinite(expected[from[i]]))
+							continue;
+						if (longest ? d > expected[to[i]] : d < expected[to[i]])
+							expected[to[i]] = d;
+					}
+				}
+				AcyclicPaths algo = new AcyclicPaths(graph, start, longest);
+				assertEquals(Arrays.toString(expected), Arrays.toString(algo.distanceTo()));
+
+				// Paths add up to the distances
+				for (int v = 0; v < nodeCount; v++) {
+					if (Double.isInfinite(expected[v]))
+						continue;
+					int[] path = algo.pathTo(v);
+					assertEquals(start, path[0]);
+					double length = 0;
+					for (int k = 1; k < path.length; k++) {
+						double best = longest ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+						for (int i = 0; i < edgeCount; i++)
+							if (from[i] == path[k - 1] && to[i] == path[k])
+								best = longest ? Math.max(best, weights[i]) : Math.min(best, weights[i]);
+						length += best;
+					}
+					assertEquals(expected[v], length, 0);
+				}
+			}
+		}
+	}
+
+	private DirectedGraph getWeightedDag() {
+		DirectedGraph graph = new DirectedGraph(6);
+		graph.addEdge(0, 1, 3L);
+		graph.addEdge(0, 2, -1L);
+		graph.addEdge(1, 2, 2L);
+		graph.addEdge(2, 3, 2L);
+		graph.addEdge(1, 3, 3L);
+		graph.addEdge(3, 4, 1L);
+		graph.addEdge(4, 5, 2L);
+		graph.addEdge(1, 5, 2L);
+		return graph;
+	}
+
+}
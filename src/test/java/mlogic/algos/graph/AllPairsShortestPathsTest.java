@@ -0,0 +1,154 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.graph.AllPairsShortestPaths.Method;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class AllPairsShortestPathsTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleGraph() {
+		int[] from = { 0, 1, 1, 2 };
+		int[] to = { 1, 2, 3, 3 };
+		double[] weights = { 4, -2, 5, 1 };
+		CSRGraph graph = new CSRGraph(4, from, to, weights, true);
+		for (Method method : Method.values()) {
+			AllPairsShortestPaths algo = new AllPairsShortestPaths(graph, method, pool);
+			assertEquals(method.toString(),
+					"[0.0, 4.0, 2.0, 3.0, Infinity, 0.0, -2.0, -1.0, Infinity, Infinity, 0.0, 1.0, "
+							+ "Infinity, Infinity, Infinity, 0.0]",
+					Arrays.toString(algo.matrix()));
+			assertEquals(-1, algo.distance(1, 3), 0);
+		}
+	}
+
+	@Test
+	public void testRandomGraphsAgainstBellmanFord() {
+		Random random = new Random(22);
+		for (int round = 0; round < 8; round++) {
+			int nodeCount = 1 + random.nextInt(round < 4 ? 20 : 200);
+			int edgeCount = random.nextInt(3 * nodeCount);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			double[] weights = new double[edgeCount];
+			// Weights lowered by node potentials keep every cycle positive
+			int[] potential = new int[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				potential[v] = random.nextInt(20);
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+				weights[i] = random.nextInt(10) + potential[from[i]] - potential[to[i]];
+			}
+			CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, true);
+			double[] expected = new double[nodeCount * nodeCount];
+			for (int s = 0; s < nodeCount; s++)
+				System.arraycopy(new BellmanFord(graph, s).distanceTo(), 0, expected, s * nodeCount, nodeCount);
+			for (Method method : Method.values()) {
+				AllPairsShortestPaths algo = new AllPairsShortestPaths(graph, method, pool);
+				assertEquals(method.toString(), Arrays.toString(expected), Arrays.toString(algo.matrix()));
+			}
+		}
+	}
+
+	@Test
+	public void testMappedMatrix() throws Exception {
+		int nodeCount = 130;
+		int[] from = new int[nodeCount];
+		int[] to = new int[nodeCount];
+		double[] weights = new double[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			from[v] = v;
+			to[v] = (v + 1) % nodeCount;
+			weights[v] = 1;
+		}
+		CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, false);
+		File file = File.createTempFile("apsp", ".bin");
+		file.deleteOnExit();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			for (Method method : Method.values()) {
+				DoubleBuffer mapped = AllPairsShortestPaths.mapMatrix(channel, nodeCount);
+				AllPairsShortestPaths algo = new AllPairsShortestPaths(graph, method, pool, mapped);
+				assertNull(algo.matrix());
+				assertEquals(1, mapped.get(nodeCount - 1), 0);
+				assertEquals(65, mapped.get(65), 0);
+				assertEquals(64, algo.distance(10, 74), 0);
+				assertEquals(8L * nodeCount * nodeCount, file.length());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCycleJohnson() {
+		new AllPairsShortestPaths(getNegativeCycle(), Method.JOHNSON, pool);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCycleFloydWarshall() {
+		new AllPairsShortestPaths(getNegativeCycle(), Method.FLOYD_WARSHALL, pool);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSmallBuffer() {
+		new AllPairsShortestPaths(getNegativeCycle(), Method.JOHNSON, pool, DoubleBuffer.allocate(8));
+	}
+
+	private CSRGraph getNegativeCycle() {
+		int[] from = { 0, 1, 2 };
+		int[] to = { 1, 2, 0 };
+		double[] weights = { 1, 1, -3 };
+		return new CSRGraph(3, from, to, weights, true);
+	}
+
+}
@@ -0,0 +1,186 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class BellmanFordTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testNegativeWeights() {
+		DirectedGraph graph = getWeightedDiGraph();
+		for (BellmanFord algo : new BellmanFord[] { new BellmanFord(graph, 0),
+				new BellmanFord(new CSRGraph(graph), 0, pool) }) {
+			assertFalse(algo.hasNegativeCycle());
+			assertEquals("[0.0, 2.0, 4.0, 1.0, 3.0, Infinity]", Arrays.toString(algo.distanceTo()));
+			assertEquals("[0, 1, 3, 4, 2]", Arrays.toString(algo.pathTo(2)));
+		}
+	}
+
+	@Test
+	public void testNegativeCycle() {
+		DirectedGraph graph = getWeightedDiGraph();
+		// 2 -> 3 -> 4 -> 2 weighs -1
+		graph.addEdge(2, 3, -6L);
+		for (BellmanFord algo : new BellmanFord[] { new BellmanFord(graph, 0),
+				new BellmanFord(new CSRGraph(graph), 0, pool) }) {
+			assertTrue(algo.hasNegativeCycle());
+			int[] cycle = algo.negativeCycle().clone();
+			Arrays.sort(cycle);
+			assertEquals("[2, 3, 4]", Arrays.toString(cycle));
+		}
+	}
+
+	@Test
+	public void testUnreachableNegativeCycle() {
+		DirectedGraph graph = getWeightedDiGraph();
+		graph.addEdge(5, 5, -1L);
+		BellmanFord algo = new BellmanFord(graph, 0);
+		assertFalse(algo.hasNegativeCycle());
+		assertTrue(new BellmanFord(graph, 5).hasNegativeCycle());
+		assertEquals("[5]", Arrays.toString(new BellmanFord(graph, 5).negativeCycle()));
+	}
+
+	@Test
+	public void testUndirectedNegativeEdge() {
+		UndirectedGraph graph = new UndirectedGraph(3);
+		graph.addEdge(0, 1, 2L);
+		graph.addEdge(1, 2, -1L);
+		BellmanFord algo = new BellmanFord(graph, 0);
+		assertTrue(algo.hasNegativeCycle());
+		assertEquals(2, algo.negativeCycle().length);
+	}
+
+	@Test(expected = NoResultException.class)
+	public void testUnreachableNode() {
+		new BellmanFord(getWeightedDiGraph(), 0).pathTo(5);
+	}
+
+	@Test
+	public void testRandomGraphsAgainstBellmanFord() {
+		Random random = new Random(21);
+		for (int round = 0; round < 40; round++) {
+			int nodeCount = 1 + random.nextInt(round < 30 ? 40 : 3000);
+			int edgeCount = random.nextInt(4 * nodeCount);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			double[] weights = new double[edgeCount];
+			// Weights lowered by node potentials keep every cycle positive,
+			// unless a few arcs are made very negative
+			int[] potential = new int[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				potential[v] = random.nextInt(50);
+			boolean cycles = round % 2 == 1;
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+				weights[i] = 1 + random.nextInt(10) + potential[from[i]] - potential[to[i]];
+				if (cycles && random.nextInt(nodeCount) == 0)
+					weights[i] -= 100;
+			}
+			CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, true);
+			int start = random.nextInt(nodeCount);
+
+			double[] expected = new double[nodeCount];
+			Arrays.fill(expected, Double.POSITIVE_INFINITY);
+			expected[start] = 0;
+			boolean dropped = true;
+			for (int pass = 0; pass <= nodeCount && dropped; pass++) {
+				dropped = false;
+				for (int i = 0; i < edgeCount; i++) {
+					if (expected[from[i]] + weights[i] < expected[to[i]]) {
+						expected[to[i]] = expected[from[i]] + weights[i];
+						dropped = true;
+					}
+				}
+			}
+
+			for (BellmanFord algo : new BellmanFord[] { new BellmanFord(graph, start),
+					new BellmanFord(graph, start, pool) }) {
+				assertEquals(dropped, algo.hasNegativeCycle());
+				if (!dropped) {
+					assertEquals(Arrays.toString(expected), Arrays.toString(algo.distanceTo()));
+					continue;
+				}
+				// The cycle follows arcs of the graph, weighs less than 0 and
+				// is reachable from start node
+				int[] cycle = algo.negativeCycle();
+				double weight = 0;
+				for (int k = 0; k < cycle.length; k++) {
+					int u = cycle[k];
+					int v = cycle[(k + 1) % cycle.length];
+					double best = Double.POSITIVE_INFINITY;
+					for (int i = 0; i < edgeCount; i++)
+						if (from[i] == u && to[i] == v)
+							best = Math.min(best, weights[i]);
+					assertTrue(best < Double.POSITIVE_INFINITY);
+					weight += best;
+				}
+				assertTrue(weight < 0);
+				assertTrue(expected[cycle[0]] < Double.POSITIVE_INFINITY);
+			}
+		}
+	}
+
+	private DirectedGraph getWeightedDiGraph() {
+		DirectedGraph graph = new DirectedGraph(6);
+		graph.addEdge(0, 1, 2L);
+		graph.addEdge(0, 3, 4L);
+		graph.addEdge(1, 3, -1L);
+		graph.addEdge(3, 4, 2L);
+		graph.addEdge(4, 2, 1L);
+		graph.addEdge(1, 2, 3L);
+		graph.addEdge(2, 0, 1L);
+		graph.addEdge(5, 0, 1L);
+		return graph;
+	}
+
+}
@@ -0,0 +1,165 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.struct.IntUnionFind;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class BiconnectedComponentsTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleGraph() {
+		BiconnectedComponents algo = new BiconnectedComponents(new UndirectedGraph(3));
+		assertEquals(3, algo.blockCount());
+		assertEquals("[1]", Arrays.toString(algo.blockNodes(1)));
+		assertEquals("[]", Arrays.toString(algo.articulationPoints()));
+		assertEquals(3, algo.blockCutTree().nodeCount());
+	}
+
+	@Test
+	public void testComplexGraph() {
+		// Cycle 0-1-4-2, triangle 2-5-9 and a tree hanging from 1 and 9
+		int[] from = { 0, 0, 1, 1, 2, 2, 3, 5, 6, 6, 9, 9 };
+		int[] to = { 1, 2, 3, 4, 4, 5, 6, 9, 7, 8, 10, 2 };
+		BiconnectedComponents algo = new BiconnectedComponents(new CSRGraph(11, from, to, null, false));
+		assertEquals("[1, 2, 3, 6, 9]", Arrays.toString(algo.articulationPoints()));
+		assertEquals("[2, 6, 8, 9, 10]", Arrays.toString(algo.bridges()));
+		assertEquals(7, algo.blockCount());
+		assertEquals(algo.blockOf(0), algo.blockOf(4));
+		assertEquals(algo.blockOf(5), algo.blockOf(11));
+		assertTrue(algo.blockOf(0) != algo.blockOf(5));
+		int[] cycle = algo.blockNodes(algo.blockOf(1));
+		Arrays.sort(cycle);
+		assertEquals("[0, 1, 2, 4]", Arrays.toString(cycle));
+
+		CSRGraph tree = algo.blockCutTree();
+		assertEquals(12, tree.nodeCount());
+		assertEquals(11, tree.edgeCount());
+		// Node 2 is shared by the cycle and the triangle
+		assertEquals(2, tree.degree(7 + 1));
+	}
+
+	@Test
+	public void testParallelEdgesAndSelfLoops() {
+		int[] from = { 0, 1, 1, 2 };
+		int[] to = { 1, 0, 2, 2 };
+		BiconnectedComponents algo = new BiconnectedComponents(new CSRGraph(3, from, to, null, false));
+		assertEquals("[2]", Arrays.toString(algo.bridges()));
+		assertEquals("[1]", Arrays.toString(algo.articulationPoints()));
+		assertEquals(2, algo.blockCount());
+		assertEquals(algo.blockOf(0), algo.blockOf(1));
+		assertEquals(-1, algo.blockOf(3));
+	}
+
+	@Test
+	public void testLongPath() {
+		int nodeCount = 200000;
+		int[] from = new int[nodeCount - 1];
+		int[] to = new int[nodeCount - 1];
+		for (int v = 0; v < nodeCount - 1; v++) {
+			from[v] = v;
+			to[v] = v + 1;
+		}
+		BiconnectedComponents algo = new BiconnectedComponents(new CSRGraph(nodeCount, from, to, null, false));
+		assertEquals(nodeCount - 1, algo.blockCount());
+		assertEquals(nodeCount - 1, algo.bridges().length);
+		assertEquals(nodeCount - 2, algo.articulationPoints().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDirectedGraph() {
+		new BiconnectedComponents(new CSRGraph(new DirectedGraph(3)));
+	}
+
+	@Test
+	public void testRandomGraphsAgainstRemoval() {
+		Random random = new Random(18);
+		for (int round = 0; round < 40; round++) {
+			int nodeCount = 1 + random.nextInt(30);
+			int edgeCount = random.nextInt(2 * nodeCount);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+			}
+			CSRGraph graph = new CSRGraph(nodeCount, from, to, null, false);
+			BiconnectedComponents algo = new BiconnectedComponents(graph);
+			int components = componentCount(nodeCount, from, to, -1, -1);
+
+			for (int v = 0; v < nodeCount; v++) {
+				// Removing v leaves it alone as a component of its own
+				boolean cut = componentCount(nodeCount, from, to, v, -1) > components + 1;
+				assertEquals(cut, algo.isArticulationPoint(v));
+			}
+			for (int e = 0; e < edgeCount; e++) {
+				boolean cut = componentCount(nodeCount, from, to, -1, e) > components;
+				assertEquals(cut, algo.isBridge(e));
+				if (from[e] != to[e]) {
+					int[] nodes = algo.blockNodes(algo.blockOf(e));
+					Arrays.sort(nodes);
+					assertTrue(Arrays.binarySearch(nodes, from[e]) >= 0);
+					assertTrue(Arrays.binarySearch(nodes, to[e]) >= 0);
+				}
+			}
+
+			// The block-cut forest has one tree per component
+			CSRGraph tree = algo.blockCutTree();
+			assertEquals(algo.blockCount() + algo.articulationPoints().length, tree.nodeCount());
+			assertEquals(tree.nodeCount() - components, tree.edgeCount());
+		}
+	}
+
+	/**
+	 * Counts components with union-find, leaving out a node's edges or an
+	 * edge
+	 */
+	private int componentCount(int nodeCount, int[] from, int[] to, int skipNode, int skipEdge) {
+		IntUnionFind sets = new IntUnionFind(nodeCount);
+		for (int e = 0; e < from.length; e++)
+			if (e != skipEdge && from[e] != skipNode && to[e] != skipNode)
+				sets.union(from[e], to[e]);
+		return sets.setCount();
+	}
+}
@@ -0,0 +1,142 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class BidirectionalShortestWeightedPathTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testPhysicalPathComplexGraph() {
+		Graph graph = getComplexGraph();
+		BidirectionalShortestWeightedPath algo = new BidirectionalShortestWeightedPath(graph, 0, 9);
+		assertEquals("[0, 2, 4, 3, 5, 6, 7, 9]", Arrays.toString(algo.physicalPath()));
+		assertEquals(new BigDecimal(36), algo.physicalDistance());
+
+		algo = new BidirectionalShortestWeightedPath(graph, 9, 0);
+		assertEquals("[9, 7, 6, 5, 3, 4, 2, 0]", Arrays.toString(algo.physicalPath()));
+
+		algo = new BidirectionalShortestWeightedPath(graph, 3, 3);
+		assertEquals("[3]", Arrays.toString(algo.physicalPath()));
+		assertEquals(new BigDecimal(0), algo.physicalDistance());
+	}
+
+	@Test
+	public void testDirectedGraph() {
+		DirectedGraph graph = new DirectedGraph(4);
+		graph.addEdge(0, 1, new BigDecimal(1));
+		graph.addEdge(1, 2, new BigDecimal(1));
+		graph.addEdge(2, 3, new BigDecimal(1));
+		graph.addEdge(3, 0, new BigDecimal(1));
+		BidirectionalShortestWeightedPath algo = new BidirectionalShortestWeightedPath(graph, 1, 0);
+		assertEquals("[1, 2, 3, 0]", Arrays.toString(algo.physicalPath()));
+		assertEquals(new BigDecimal(3), algo.physicalDistance());
+	}
+
+	@Test(expected = NoResultException.class)
+	public void testNoPath() {
+		DirectedGraph graph = new DirectedGraph(3);
+		graph.addEdge(0, 1, new BigDecimal(1));
+		graph.addEdge(2, 1, new BigDecimal(1));
+		new BidirectionalShortestWeightedPath(graph, 0, 2);
+	}
+
+	@Test
+	public void testDistancesMatchDijkstra() {
+		Random random = new Random(42);
+		int nodeCount = 2000;
+		int edgeCount = nodeCount * 4;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			from[i] = random.nextInt(nodeCount);
+			to[i] = random.nextInt(nodeCount);
+			weights[i] = random.nextInt(100);
+		}
+		CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, true);
+		CSRGraph reverse = graph.reverse();
+		for (int query = 0; query < 50; query++) {
+			int start = random.nextInt(nodeCount);
+			int end = random.nextInt(nodeCount);
+			ShortestWeightedPath dijkstra;
+			try {
+				dijkstra = new ShortestWeightedPath(graph, start, end);
+			} catch (NoResultException e) {
+				continue;
+			}
+			BidirectionalShortestWeightedPath algo = new BidirectionalShortestWeightedPath(graph, reverse, start,
+					end);
+			assertEquals(dijkstra.doublePhysicalDistance(), algo.doublePhysicalDistance(), 0);
+			Integer[] path = algo.physicalPath();
+			assertEquals(new Integer(start), path[0]);
+			assertEquals(new Integer(end), path[path.length - 1]);
+			assertTrue(algo.settledNodeCount() <= nodeCount);
+		}
+	}
+
+	private Graph getComplexGraph() {
+		Graph graph = new UndirectedGraph(10);
+		graph.addEdge(0, 1, new BigDecimal(5));
+		graph.addEdge(1, 2, new BigDecimal(3));
+		graph.addEdge(1, 3, new BigDecimal(10));
+		graph.addEdge(1, 4, new BigDecimal(5));
+		graph.addEdge(2, 0, new BigDecimal(2));
+		graph.addEdge(2, 3, new BigDecimal(4));
+		graph.addEdge(2, 4, new BigDecimal(1));
+		graph.addEdge(3, 5, new BigDecimal(15));
+		graph.addEdge(4, 3, new BigDecimal(2));
+		graph.addEdge(4, 0, new BigDecimal(5));
+		graph.addEdge(5, 6, new BigDecimal(4));
+		graph.addEdge(5, 7, new BigDecimal(9));
+		graph.addEdge(6, 7, new BigDecimal(4));
+		graph.addEdge(6, 9, new BigDecimal(15));
+		graph.addEdge(7, 8, new BigDecimal(5));
+		graph.addEdge(7, 9, new BigDecimal(8));
+		return graph;
+	}
+
+}
@@ -0,0 +1,187 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.struct.List;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class BoruvkasMinimumSpanningTreeTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testGetMSTWeightComplexGraph() {
+		BoruvkasMinimumSpanningTree algo = new BoruvkasMinimumSpanningTree(getComplexGraph(), pool);
+		List<Edge> msf = algo.minimumSpanningForest();
+		assertEquals(new BigDecimal(48), sumMSTEdges(msf));
+		assertEquals(8, msf.size().intValue());
+	}
+
+	@Test
+	public void testReturnsGraphEdges() {
+		UndirectedGraph graph = getComplexGraph();
+		for (Edge e : new BoruvkasMinimumSpanningTree(graph, pool).minimumSpanningForest()) {
+			boolean found = false;
+			for (Edge g : graph.edges[e.from()])
+				found |= g == e;
+			assertTrue(found);
+		}
+	}
+
+	@Test
+	public void testUnweightedDisconnectedGraph() {
+		List<Edge> msf = new BoruvkasMinimumSpanningTree(getComplexDisconnectedGraph(), pool).minimumSpanningForest();
+		// 11 nodes in two trees, of 8 and 3 nodes
+		assertEquals(9, msf.size().intValue());
+	}
+
+	@Test
+	public void testSelfLoopsAndSingleNode() {
+		CSRGraph graph = new CSRGraph(3, new int[] { 0, 1, 1 }, new int[] { 0, 1, 2 }, new double[] { 1, 2, 3 },
+				false);
+		List<Edge> msf = new BoruvkasMinimumSpanningTree(graph, pool).minimumSpanningForest();
+		assertEquals(1, msf.size().intValue());
+		assertEquals(3.0, msf.iterator().next().doubleWeight(), 0);
+		msf = new BoruvkasMinimumSpanningTree(new UndirectedGraph(1), pool).minimumSpanningForest();
+		assertEquals(0, msf.size().intValue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDirectedGraph() {
+		new BoruvkasMinimumSpanningTree(new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, new double[] { 1 }, true),
+				pool);
+	}
+
+	@Test
+	public void testRandomGraphsAgainstKruskal() {
+		Random random = new Random(12);
+		for (int round = 0; round < 20; round++) {
+			int nodeCount = 1 + random.nextInt(3000);
+			int edgeCount = random.nextInt(4 * nodeCount);
+			// Few distinct weights so that many edges tie
+			int weights = 1 + random.nextInt(round % 2 == 0 ? 5 : 1000);
+			UndirectedGraph graph = new UndirectedGraph(nodeCount);
+			Set<Long> pairs = new HashSet<Long>();
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			double[] weight = new double[edgeCount];
+			int count = 0;
+			for (int i = 0; i < edgeCount; i++) {
+				int u = random.nextInt(nodeCount);
+				int v = random.nextInt(nodeCount);
+				// Graph keeps one edge per pair of nodes
+				if (u == v || !pairs.add((long) Math.min(u, v) * nodeCount + Math.max(u, v)))
+					continue;
+				from[count] = u;
+				to[count] = v;
+				weight[count] = random.nextInt(weights);
+				graph.addEdge(u, v, weight[count++]);
+			}
+			List<Edge> expected = new KruskalsMinimumSpanningTree(graph).minimumSpanningForest();
+			List<Edge> actual = new BoruvkasMinimumSpanningTree(graph, pool).minimumSpanningForest();
+			assertEquals(expected.size(), actual.size());
+			assertEquals(sumMSTEdges(expected), sumMSTEdges(actual));
+
+			CSRGraph csr = new CSRGraph(nodeCount, Arrays.copyOf(from, count),
+					Arrays.copyOf(to, count), Arrays.copyOf(weight, count), false);
+			actual = new BoruvkasMinimumSpanningTree(csr, pool).minimumSpanningForest();
+			assertEquals(expected.size(), actual.size());
+			assertEquals(sumMSTEdges(expected), sumMSTEdges(actual));
+		}
+	}
+
+	/**
+	 * @param list
+	 *            of edges
+	 * @return
+	 */
+	private BigDecimal sumMSTEdges(List<Edge> edges) {
+		BigDecimal total = new BigDecimal(0);
+		for (Edge e : edges)
+			total = total.add(e.weight());
+		return total;
+	}
+
+	private UndirectedGraph getComplexGraph() {
+		UndirectedGraph graph = new UndirectedGraph(10);
+		graph.addEdge(0, 1, 10.0);
+		graph.addEdge(0, 2, 5.0);
+		graph.addEdge(1, 3, 10.0);
+		graph.addEdge(1, 2, 4.0);
+		graph.addEdge(2, 3, 15.0);
+		graph.addEdge(3, 4, 6.0);
+		graph.addEdge(3, 5, 9.0);
+		graph.addEdge(4, 5, 2.0);
+		graph.addEdge(6, 7, 8.0);
+		graph.addEdge(6, 8, 12.0);
+		graph.addEdge(6, 9, 10.0);
+		graph.addEdge(7, 9, 15.0);
+		graph.addEdge(8, 9, 3.0);
+
+		return graph;
+	}
+
+	private UndirectedGraph getComplexDisconnectedGraph() {
+		UndirectedGraph graph = new UndirectedGraph(11);
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 4);
+		graph.addEdge(2, 5);
+		graph.addEdge(5, 9);
+		graph.addEdge(6, 7);
+		graph.addEdge(6, 8);
+		graph.addEdge(9, 10);
+		graph.addEdge(9, 2);
+
+		return graph;
+	}
+}
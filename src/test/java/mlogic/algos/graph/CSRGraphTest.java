@@ -0,0 +1,166 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.struct.List;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class CSRGraphTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testUndirectedGraphCopy() {
+		CSRGraph graph = new CSRGraph(getComplexGraph());
+		assertEquals(10, graph.nodeCount());
+		assertEquals(13, graph.edgeCount());
+		assertEquals(26, graph.arcCount());
+		assertEquals(4, graph.degree(3));
+		for (int u = 0; u < graph.nodeCount(); u++) {
+			for (int arc = graph.offset(u); arc < graph.offset(u + 1); arc++) {
+				int v = graph.target(arc);
+				int twin = -1;
+				for (int r = graph.offset(v); r < graph.offset(v + 1); r++)
+					if (graph.edgeId(r) == graph.edgeId(arc))
+						twin = r;
+				assertEquals(u, graph.target(twin));
+				assertEquals(graph.weight(arc), graph.weight(twin), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testDirectedGraphReverse() {
+		CSRGraph graph = new CSRGraph(4, new int[] { 0, 0, 1, 2 }, new int[] { 1, 2, 3, 3 }, null, true);
+		CSRGraph reverse = graph.reverse();
+		assertEquals(4, reverse.arcCount());
+		assertEquals(0, reverse.degree(0));
+		assertEquals(2, reverse.degree(3));
+		assertEquals(1, reverse.target(reverse.offset(3)));
+		assertEquals(2, reverse.target(reverse.offset(3) + 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNodeOutOfRange() {
+		new CSRGraph(2, new int[] { 0 }, new int[] { 2 }, null, true);
+	}
+
+	@Test
+	public void testBFSLevels() {
+		final int[] level = new int[6];
+		final CSRGraph graph = new CSRGraph(6, new int[] { 0, 0, 1, 2, 3, 4 }, new int[] { 1, 2, 3, 4, 5, 5 },
+				null, false);
+		BFS bfs = new BFS() {
+			@Override
+			protected void processTreeEdge(int node, int arc) {
+				level[graph.target(arc)] = level[node] + 1;
+			}
+		};
+		bfs.execute(graph, 0);
+		assertEquals("[0, 1, 1, 2, 2, 3]", Arrays.toString(level));
+	}
+
+	@Test
+	public void testDFSCountBackEdges() {
+		final int[] backEdgeCount = new int[1];
+		CSRGraph graph = new CSRGraph(3, new int[] { 0, 1, 2 }, new int[] { 1, 2, 0 }, null, true);
+		DFS dfs = new DFS() {
+			@Override
+			protected void processBackwardEdge(int node, int arc) {
+				backEdgeCount[0]++;
+			}
+		};
+		dfs.execute(graph, 0);
+		assertEquals(1, backEdgeCount[0]);
+	}
+
+	@Test
+	public void testConnectedComponents() {
+		ConnectedComponents algo = new ConnectedComponents(new CSRGraph(getComplexGraph()));
+		assertEquals("[0, 0, 0, 0, 0, 0, 1, 1, 1, 1]", Arrays.toString(algo.connectedComponentArray()));
+	}
+
+	@Test
+	public void testShortestWeightedPath() {
+		ShortestWeightedPath algo = new ShortestWeightedPath(new CSRGraph(getComplexGraph()), 0, 5);
+		assertEquals("[0, 2, 1, 3, 4, 5]", Arrays.toString(algo.physicalPath()));
+		assertEquals(new BigDecimal(27), algo.physicalDistance());
+	}
+
+	@Test
+	public void testMinimumSpanningForest() {
+		CSRGraph graph = new CSRGraph(getComplexGraph());
+		assertEquals(new BigDecimal(48), sumMSTEdges(new PrimsMinimumSpanningTree(graph).minimumSpanningForest()));
+		assertEquals(new BigDecimal(48), sumMSTEdges(new KruskalsMinimumSpanningTree(graph).minimumSpanningForest()));
+	}
+
+	/**
+	 * @param list
+	 *            of edges
+	 * @return
+	 */
+	private BigDecimal sumMSTEdges(List<Edge> edges) {
+		BigDecimal total = new BigDecimal(0);
+		for (Edge e : edges)
+			total = total.add(e.weight());
+		return total;
+	}
+
+	private UndirectedGraph getComplexGraph() {
+		UndirectedGraph graph = new UndirectedGraph(10);
+		graph.addEdge(0, 1, 10.0);
+		graph.addEdge(0, 2, 5.0);
+		graph.addEdge(1, 3, 10.0);
+		graph.addEdge(1, 2, 4.0);
+		graph.addEdge(2, 3, 15.0);
+		graph.addEdge(3, 4, 6.0);
+		graph.addEdge(3, 5, 9.0);
+		graph.addEdge(4, 5, 2.0);
+		graph.addEdge(6, 7, 8.0);
+		graph.addEdge(6, 8, 12.0);
+		graph.addEdge(6, 9, 10.0);
+		graph.addEdge(7, 9, 15.0);
+		graph.addEdge(8, 9, 3.0);
+
+		return graph;
+	}
+
+}
@@ -0,0 +1,176 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class ContractionHierarchyTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testPhysicalPathSimpleGraph() {
+		Graph graph = new UndirectedGraph(6);
+		graph.addEdge(0, 1, new BigDecimal(5));
+		graph.addEdge(0, 2, new BigDecimal(10));
+		graph.addEdge(1, 3, new BigDecimal(8));
+		graph.addEdge(2, 4, new BigDecimal(4));
+		graph.addEdge(3, 5, new BigDecimal(4));
+		graph.addEdge(4, 5, new BigDecimal(4));
+		ContractionHierarchyQuery query = new ContractionHierarchyQuery(new ContractionHierarchy(graph));
+		query.execute(0, 5);
+		assertEquals("[0, 1, 3, 5]", Arrays.toString(query.physicalPath()));
+		assertEquals(new BigDecimal(17), query.physicalDistance());
+		query.execute(5, 0);
+		assertEquals("[5, 3, 1, 0]", Arrays.toString(query.physicalPath()));
+		query.execute(2, 2);
+		assertEquals("[2]", Arrays.toString(query.physicalPath()));
+		assertEquals(0, query.doublePhysicalDistance(), 0);
+	}
+
+	@Test
+	public void testRandomDirectedGraphMatchesDijkstra() throws IOException {
+		Random random = new Random(11);
+		int nodeCount = 500;
+		int edgeCount = 2500;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			from[i] = random.nextInt(nodeCount);
+			to[i] = random.nextInt(nodeCount);
+			weights[i] = random.nextInt(100);
+		}
+		CSRGraph graph = new CSRGraph(nodeCount, from, to, weights, true);
+		ContractionHierarchy hierarchy = new ContractionHierarchy(graph);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		hierarchy.save(out);
+		ContractionHierarchy loaded = ContractionHierarchy.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(hierarchy.shortcutCount(), loaded.shortcutCount());
+
+		ContractionHierarchyQuery query = new ContractionHierarchyQuery(loaded);
+		for (int i = 0; i < 200; i++) {
+			int start = random.nextInt(nodeCount);
+			int end = random.nextInt(nodeCount);
+			double expected;
+			try {
+				expected = new ShortestWeightedPath(graph, start, end).doublePhysicalDistance();
+			} catch (NoResultException e) {
+				expected = Double.POSITIVE_INFINITY;
+			}
+			try {
+				query.execute(start, end);
+			} catch (NoResultException e) {
+				assertEquals(Double.POSITIVE_INFINITY, expected, 0);
+				continue;
+			}
+			assertEquals(expected, query.doublePhysicalDistance(), 1e-9);
+			assertEquals(expected, pathLength(graph, query.physicalPath(), start, end), 1e-9);
+		}
+	}
+
+	@Test
+	public void testGridSettlesFewNodes() {
+		int side = 40;
+		Graph graph = new UndirectedGraph(side * side);
+		Random random = new Random(3);
+		for (int r = 0; r < side; r++) {
+			for (int c = 0; c < side; c++) {
+				int v = r * side + c;
+				if (c + 1 < side)
+					graph.addEdge(v, v + 1, (double) (1 + random.nextInt(9)));
+				if (r + 1 < side)
+					graph.addEdge(v, v + side, (double) (1 + random.nextInt(9)));
+			}
+		}
+		CSRGraph csrGraph = new CSRGraph(graph);
+		ContractionHierarchyQuery query = new ContractionHierarchyQuery(new ContractionHierarchy(graph));
+		int totalSettled = 0;
+		for (int i = 0; i < 50; i++) {
+			int start = random.nextInt(side * side);
+			int end = random.nextInt(side * side);
+			query.execute(start, end);
+			double expected = new ShortestWeightedPath(csrGraph, start, end).doublePhysicalDistance();
+			assertEquals(expected, query.doublePhysicalDistance(), 1e-9);
+			assertEquals(expected, pathLength(csrGraph, query.physicalPath(), start, end), 1e-9);
+			totalSettled += query.settledNodeCount();
+		}
+		assertTrue(totalSettled < 50 * side * side / 4);
+	}
+
+	@Test(expected = NoResultException.class)
+	public void testUnreachableEndNode() {
+		CSRGraph graph = new CSRGraph(3, new int[] { 0 }, new int[] { 1 }, new double[] { 2 }, true);
+		new ContractionHierarchyQuery(new ContractionHierarchy(graph)).execute(1, 0);
+	}
+
+	@Test(expected = NegativeEdgeWeightException.class)
+	public void testNegativeEdge() {
+		new ContractionHierarchy(new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, new double[] { -1 }, true));
+	}
+
+	/**
+	 * @return length of the path along the lightest arcs between its
+	 *         consecutive nodes
+	 */
+	private double pathLength(CSRGraph graph, Integer[] path, int start, int end) {
+		assertEquals(new Integer(start), path[0]);
+		assertEquals(new Integer(end), path[path.length - 1]);
+		double length = 0;
+		for (int i = 0; i + 1 < path.length; i++) {
+			double lightest = Double.POSITIVE_INFINITY;
+			for (int arc = graph.offset(path[i]); arc < graph.offset(path[i]) + graph.degree(path[i]); arc++)
+				if (graph.target(arc) == path[i + 1].intValue())
+					lightest = Math.min(lightest, graph.weight(arc));
+			length += lightest;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,121 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class DFSTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testDFSComputePreAndPostOrder() {
+		final int[] preorder = new int[6];
+		final int[] postorder = new int[6];
+		DFS dfs = new DFS() {
+			private int pre = 0;
+			private int post = 0;
+
+			@Override
+			protected void before(Integer node) {
+				preorder[node] = pre++;
+			}
+
+			@Override
+			protected void after(Integer node) {
+				postorder[node] = post++;
+			}
+		};
+		Graph graph = new UndirectedGraph(6);
+		graph.addEdge(0, 2);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(3, 5);
+		graph.addEdge(4, 5);
+		dfs.execute(graph, 0);
+		assertEquals("[0, 1, 5, 2, 4, 3]", Arrays.toString(preorder));
+		assertEquals("[5, 4, 0, 3, 1, 2]", Arrays.toString(postorder));
+	}
+
+	@Test
+	public void testDFSStopWalking() {
+		final int[] visited = new int[1];
+		DFS dfs = new DFS() {
+			@Override
+			protected void before(Integer node) {
+				visited[0]++;
+				if (node == 3)
+					stopWalking();
+			}
+		};
+		Graph graph = new DirectedGraph(6);
+		for (int v = 0; v < 5; v++)
+			graph.addEdge(v, v + 1);
+		dfs.execute(graph, 0);
+		assertEquals(4, visited[0]);
+
+		visited[0] = 0;
+		dfs.execute(new CSRGraph(graph), 0);
+		assertEquals(4, visited[0]);
+	}
+
+	@Test
+	public void testDFSOnDeepGraph() {
+		int nodeCount = 200000;
+		DirectedGraph graph = new DirectedGraph(nodeCount);
+		for (int v = 0; v < nodeCount - 1; v++)
+			graph.addEdge(v, v + 1);
+		Integer[] order = Topological.sort(graph);
+		assertEquals(nodeCount, order.length);
+		assertEquals(new Integer(0), order[0]);
+		assertEquals(new Integer(nodeCount - 1), order[nodeCount - 1]);
+
+		final int[] deepest = new int[1];
+		DFS dfs = new DFS() {
+			@Override
+			protected void after(Integer node) {
+				deepest[0] = Math.max(deepest[0], node);
+			}
+		};
+		dfs.execute(new CSRGraph(graph), 0);
+		assertEquals(nodeCount - 1, deepest[0]);
+	}
+
+}
@@ -0,0 +1,149 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class DeltaSteppingTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testDistancesOnASimpleGraph() {
+		Graph graph = new UndirectedGraph(7);
+		graph.addEdge(0, 1, new BigDecimal(5));
+		graph.addEdge(0, 2, new BigDecimal(10));
+		graph.addEdge(1, 3, new BigDecimal(8));
+		graph.addEdge(2, 4, new BigDecimal(4));
+		graph.addEdge(3, 5, new BigDecimal(4));
+		graph.addEdge(4, 5, new BigDecimal(4));
+		ForkJoinPool pool = new ForkJoinPool(2);
+		DeltaStepping algo = new DeltaStepping(graph, 0, 3, pool);
+		pool.shutdown();
+		assertEquals("[0.0, 5.0, 10.0, 13.0, 14.0, 17.0, Infinity]", Arrays.toString(algo.distanceTo()));
+		assertEquals("[-1, 0, 0, 1, 2, 3, -1]", Arrays.toString(algo.nodeTo()));
+	}
+
+	@Test
+	public void testDistancesMatchDijkstra() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		CSRGraph graph = getRandomGraph(5000, 6);
+		for (double delta : new double[] { 0.5, 4, 1000 }) {
+			DeltaStepping algo = new DeltaStepping(graph, 0, delta, pool);
+			double[] distanceTo = algo.distanceTo();
+			int[] nodeTo = algo.nodeTo();
+			for (int end = 1; end < graph.nodeCount(); end += 97) {
+				ShortestWeightedPath dijkstra = new ShortestWeightedPath(graph, 0, end);
+				assertEquals(dijkstra.doublePhysicalDistance(), distanceTo[end], 1e-9);
+			}
+			for (int v = 1; v < graph.nodeCount(); v++) {
+				int u = nodeTo[v];
+				double best = Double.POSITIVE_INFINITY;
+				for (int arc = graph.offset(u); arc < graph.offset(u + 1); arc++)
+					if (graph.target(arc) == v)
+						best = Math.min(best, distanceTo[u] + graph.weight(arc));
+				assertEquals(distanceTo[v], best, 0);
+			}
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSmallBucketWidth() {
+		// Far more buckets than nodes, so buckets share bins
+		ForkJoinPool pool = new ForkJoinPool(2);
+		CSRGraph graph = getRandomGraph(200, 4);
+		DeltaStepping algo = new DeltaStepping(graph, 0, 1e-4, pool);
+		for (int end = 1; end < graph.nodeCount(); end++) {
+			ShortestWeightedPath dijkstra = new ShortestWeightedPath(graph, 0, end);
+			assertEquals(dijkstra.doublePhysicalDistance(), algo.distanceTo()[end], 1e-9);
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testLongGapsBetweenBuckets() {
+		int[] from = { 0, 1, 1, 2 };
+		int[] to = { 1, 2, 3, 3 };
+		double[] weights = { 1e9, 2e9, 1, 0.5 };
+		CSRGraph graph = new CSRGraph(4, from, to, weights, true);
+		DeltaStepping algo = new DeltaStepping(graph, 0, 1e-3, ForkJoinPool.commonPool());
+		assertEquals("[0.0, 1.0E9, 3.0E9, 1.000000001E9]", Arrays.toString(algo.distanceTo()));
+		assertEquals("[-1, 0, 1, 1]", Arrays.toString(algo.nodeTo()));
+	}
+
+	@Test(expected = NegativeEdgeWeightException.class)
+	public void testNegativeEdge() {
+		CSRGraph graph = new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, new double[] { -1 }, true);
+		new DeltaStepping(graph, 0, 1, ForkJoinPool.commonPool());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBucketWidth() {
+		CSRGraph graph = new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, null, true);
+		new DeltaStepping(graph, 0, 0, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param nodeCount
+	 * @param degree
+	 *            average number of edges per node
+	 * @return connected random graph with a fixed seed
+	 */
+	private CSRGraph getRandomGraph(int nodeCount, int degree) {
+		Random random = new Random(42);
+		int edgeCount = nodeCount * degree;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			// The first nodeCount - 1 edges form a path through every node
+			from[i] = i < nodeCount - 1 ? i : random.nextInt(nodeCount);
+			to[i] = i < nodeCount - 1 ? i + 1 : random.nextInt(nodeCount);
+			weights[i] = random.nextInt(1000) / 10.0;
+		}
+		return new CSRGraph(nodeCount, from, to, weights, false);
+	}
+
+}
@@ -0,0 +1,174 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class DinicTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleFlowNetwork() {
+		FlowNetwork graph = getSimpleFlowNetwork();
+		Dinic algo = new Dinic(graph, 0, 8);
+		assertEquals(new BigDecimal(20), algo.maxFlow());
+		assertEquals(algo.maxFlow(), algo.minCut());
+		assertTrue(algo.inCut(0));
+		assertFalse(algo.inCut(8));
+		long intoSink = 0;
+		for (Edge e : graph.edges[8])
+			intoSink += ((FlowEdge) e).longFlow();
+		assertEquals(20, intoSink);
+	}
+
+	@Test
+	public void testRandomNetworks() {
+		Random random = new Random(13);
+		for (int round = 0; round < 20; round++) {
+			int nodeCount = 2 + random.nextInt(60);
+			int edgeCount = random.nextInt(nodeCount * 5);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			long[] capacities = new long[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+				capacities[i] = random.nextInt(50);
+			}
+			int source = random.nextInt(nodeCount);
+			int sink = (source + 1 + random.nextInt(nodeCount - 1)) % nodeCount;
+			ResidualNetwork network = new ResidualNetwork(nodeCount, from, to, capacities);
+			long expected = new PushRelabel(network, source, sink).longMaxFlow();
+			Dinic algo = new Dinic(network, source, sink);
+			assertEquals(expected, algo.longMaxFlow());
+			// A valid flow as large as a cut is a maximum flow
+			assertEquals(algo.maxFlow(), algo.minCut());
+
+			long[] balance = new long[nodeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				long flow = network.flow(i);
+				assertTrue(flow >= 0 && flow <= capacities[i]);
+				balance[from[i]] -= flow;
+				balance[to[i]] += flow;
+			}
+			for (int v = 0; v < nodeCount; v++)
+				if (v != source && v != sink)
+					assertEquals(0, balance[v]);
+			assertEquals(expected, balance[sink]);
+		}
+	}
+
+	@Test
+	public void testLongLayeredNetwork() {
+		int width = 50;
+		int depth = 400;
+		int nodeCount = width * depth + 2;
+		int source = nodeCount - 2;
+		int sink = nodeCount - 1;
+		int edgeCount = 2 * width + (depth - 1) * width * 2;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		long[] capacities = new long[edgeCount];
+		Random random = new Random(5);
+		int k = 0;
+		for (int i = 0; i < width; i++) {
+			from[k] = source;
+			to[k] = i;
+			capacities[k++] = 1000;
+			from[k] = (depth - 1) * width + i;
+			to[k] = sink;
+			capacities[k++] = 1000;
+		}
+		for (int layer = 0; layer + 1 < depth; layer++) {
+			for (int i = 0; i < width; i++) {
+				int v = layer * width + i;
+				from[k] = v;
+				to[k] = v + width;
+				capacities[k++] = 1 + random.nextInt(100);
+				from[k] = v;
+				to[k] = (layer + 1) * width + random.nextInt(width);
+				capacities[k++] = 1 + random.nextInt(100);
+			}
+		}
+		ResidualNetwork network = new ResidualNetwork(nodeCount, from, to, capacities);
+		Dinic algo = new Dinic(network, source, sink);
+		assertEquals(algo.maxFlow(), algo.minCut());
+		assertEquals(new PushRelabel(network, source, sink).longMaxFlow(), algo.longMaxFlow());
+	}
+
+	@Test
+	public void testReplacedDuplicateEdge() {
+		FlowNetwork graph = new FlowNetwork(2);
+		graph.addEdge(0, 1, 3L);
+		graph.addEdge(0, 1, 2L);
+		Dinic algo = new Dinic(graph, 0, 1);
+		assertEquals(new MaxFlow(graph, 0, 1).maxFlow(), algo.maxFlow());
+		assertEquals(1, new ResidualNetwork(graph).edgeCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSink() {
+		new Dinic(getSimpleFlowNetwork(), 0, 10);
+	}
+
+	/**
+	 * @return
+	 */
+	private FlowNetwork getSimpleFlowNetwork() {
+		FlowNetwork graph = new FlowNetwork(10);
+		graph.addEdge(0, 1, new BigDecimal(15));
+		graph.addEdge(0, 2, new BigDecimal(20));
+		graph.addEdge(0, 3, new BigDecimal(10));
+		graph.addEdge(1, 4, new BigDecimal(10));
+		graph.addEdge(1, 5, new BigDecimal(8));
+		graph.addEdge(2, 5, new BigDecimal(12));
+		graph.addEdge(3, 5, new BigDecimal(9));
+		graph.addEdge(3, 6, new BigDecimal(7));
+		graph.addEdge(4, 7, new BigDecimal(25));
+		graph.addEdge(4, 8, new BigDecimal(20));
+		graph.addEdge(5, 8, new BigDecimal(10));
+		graph.addEdge(6, 9, new BigDecimal(30));
+		return graph;
+	}
+
+}
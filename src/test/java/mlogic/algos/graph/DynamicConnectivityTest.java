@@ -0,0 +1,165 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class DynamicConnectivityTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleGraph() {
+		DynamicConnectivity algo = new DynamicConnectivity(new UndirectedGraph(6));
+		assertEquals("[0, 1, 2, 3, 4, 5]", Arrays.toString(algo.connectedComponentArray()));
+		assertEquals(6, algo.componentCount());
+		assertFalse(algo.connected(0, 1));
+		assertTrue(algo.connected(3, 3));
+	}
+
+	@Test
+	public void testComplexGraph() {
+		DynamicConnectivity algo = new DynamicConnectivity(getComplexGraph());
+		assertEquals("[0, 0, 0, 0, 0, 1, 1, 1, 2, 1]", Arrays.toString(algo.connectedComponentArray()));
+		assertEquals(3, algo.componentCount());
+		assertEquals(13, algo.edgeCount());
+		assertEquals(5, algo.component(9));
+
+		// 6 stays connected through 9 and 7
+		assertTrue(algo.removeEdge(5, 6));
+		assertTrue(algo.connected(5, 6));
+		assertTrue(algo.removeEdge(7, 6));
+		assertTrue(algo.connected(5, 6));
+		assertTrue(algo.removeEdge(9, 7));
+		assertFalse(algo.connected(5, 6));
+		assertEquals(6, algo.component(9));
+		assertEquals("[0, 0, 0, 0, 0, 1, 2, 1, 3, 2]", Arrays.toString(algo.connectedComponentArray()));
+		assertEquals(4, algo.componentCount());
+
+		assertTrue(algo.addEdge(8, 9));
+		assertTrue(algo.addEdge(0, 8));
+		assertEquals(0, algo.component(6));
+		assertEquals(2, algo.componentCount());
+	}
+
+	@Test
+	public void testIgnoredEdges() {
+		DynamicConnectivity algo = new DynamicConnectivity(4);
+		assertFalse(algo.addEdge(2, 2));
+		assertTrue(algo.addEdge(1, 2));
+		assertFalse(algo.addEdge(2, 1));
+		assertTrue(algo.hasEdge(2, 1));
+		assertFalse(algo.removeEdge(0, 1));
+		assertTrue(algo.removeEdge(2, 1));
+		assertFalse(algo.hasEdge(1, 2));
+		assertEquals(0, algo.edgeCount());
+		assertEquals(4, algo.componentCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNodeOutOfRange() {
+		new DynamicConnectivity(3).addEdge(0, 3);
+	}
+
+	@Test
+	public void testRandomUpdatesAgainstRecomputation() {
+		Random random = new Random(17);
+		for (int round = 0; round < 6; round++) {
+			int nodeCount = 2 + random.nextInt(round < 3 ? 20 : 300);
+			DynamicConnectivity algo = new DynamicConnectivity(nodeCount);
+			int[] from = new int[4 * nodeCount];
+			int[] to = new int[4 * nodeCount];
+			int edgeCount = 0;
+			for (int step = 0; step < 3000; step++) {
+				// Hover around one edge per node, where removals often split
+				// components
+				if (edgeCount > 0 && random.nextInt(2 * nodeCount) < edgeCount) {
+					int i = random.nextInt(edgeCount);
+					assertTrue(algo.removeEdge(from[i], to[i]));
+					edgeCount--;
+					from[i] = from[edgeCount];
+					to[i] = to[edgeCount];
+				} else {
+					int u = random.nextInt(nodeCount);
+					int v = random.nextInt(nodeCount);
+					if (algo.addEdge(u, v)) {
+						from[edgeCount] = u;
+						to[edgeCount++] = v;
+					}
+				}
+				if (step % 50 != 0)
+					continue;
+				CSRGraph graph = new CSRGraph(nodeCount, Arrays.copyOf(from, edgeCount),
+						Arrays.copyOf(to, edgeCount), new double[edgeCount], false);
+				Integer[] expected = new ConnectedComponents(graph).connectedComponentArray();
+				assertArrayEquals(expected, algo.connectedComponentArray());
+				int u = random.nextInt(nodeCount);
+				int v = random.nextInt(nodeCount);
+				assertEquals(expected[u].equals(expected[v]), algo.connected(u, v));
+				assertEquals(edgeCount, algo.edgeCount());
+				int count = 0;
+				for (Integer c : expected)
+					count = Math.max(count, c + 1);
+				assertEquals(count, algo.componentCount());
+			}
+		}
+	}
+
+	private UndirectedGraph getComplexGraph() {
+		UndirectedGraph graph = new UndirectedGraph(10);
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		graph.addEdge(4, 0);
+		graph.addEdge(6, 5);
+		graph.addEdge(5, 7);
+		graph.addEdge(7, 6);
+		graph.addEdge(6, 9);
+		graph.addEdge(9, 7);
+		return graph;
+	}
+}
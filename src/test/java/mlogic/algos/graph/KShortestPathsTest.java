@@ -0,0 +1,214 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.exceptions.NegativeEdgeWeightException;
+import mlogic.algos.exceptions.NoResultException;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class KShortestPathsTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testThreeShortestPaths() {
+		KShortestPaths algo = new KShortestPaths(getSimpleGraph(), 0, 5, 3);
+		assertEquals(3, algo.pathCount());
+		assertEquals("[0, 2, 3, 5]", Arrays.toString(algo.path(0)));
+		assertEquals(5.0, algo.distance(0), 0);
+		assertEquals("[0, 2, 4, 5]", Arrays.toString(algo.path(1)));
+		assertEquals(7.0, algo.distance(1), 0);
+		assertEquals("[0, 1, 3, 5]", Arrays.toString(algo.path(2)));
+		assertEquals(8.0, algo.distance(2), 0);
+	}
+
+	@Test
+	public void testFewerPathsThanAsked() {
+		KShortestPaths algo = new KShortestPaths(getSimpleGraph(), 0, 5, 20);
+		assertEquals(7, algo.pathCount());
+		assertEquals("[0, 2, 1, 3, 4, 5]", Arrays.toString(algo.path(6)));
+		assertEquals(11.0, algo.distance(6), 0);
+	}
+
+	@Test
+	public void testUndirectedGraph() {
+		UndirectedGraph graph = new UndirectedGraph(4);
+		graph.addEdge(0, 1, 1L);
+		graph.addEdge(1, 3, 1L);
+		graph.addEdge(0, 2, 2L);
+		graph.addEdge(2, 3, 2L);
+		graph.addEdge(1, 2, 1L);
+		KShortestPaths algo = new KShortestPaths(graph, 0, 3, 5);
+		assertEquals(4, algo.pathCount());
+		assertEquals("[[0, 1, 3], [0, 2, 3], [0, 1, 2, 3], [0, 2, 1, 3]]", Arrays.deepToString(algo.paths()));
+	}
+
+	@Test
+	public void testStartIsEnd() {
+		KShortestPaths algo = new KShortestPaths(getSimpleGraph(), 3, 3, 4);
+		assertEquals(1, algo.pathCount());
+		assertEquals("[3]", Arrays.toString(algo.path(0)));
+		assertEquals(0.0, algo.distance(0), 0);
+	}
+
+	@Test
+	public void testAgainstAllSimplePaths() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 30; trial++) {
+			int nodeCount = 7 + random.nextInt(3);
+			boolean directed = trial % 2 == 0;
+			CSRGraph graph = getRandomGraph(nodeCount, 3 * nodeCount, directed, random);
+			int start = random.nextInt(nodeCount);
+			int end = (start + 1 + random.nextInt(nodeCount - 1)) % nodeCount;
+			List<Double> lengths = new ArrayList<Double>();
+			collectPaths(graph, start, end, new boolean[nodeCount], 0, lengths);
+			Collections.sort(lengths);
+			if (lengths.isEmpty())
+				continue;
+
+			int k = 1 + random.nextInt(25);
+			KShortestPaths algo = new KShortestPaths(graph, start, end, k);
+			assertEquals(Math.min(k, lengths.size()), algo.pathCount());
+			Set<String> seen = new HashSet<String>();
+			for (int i = 0; i < algo.pathCount(); i++) {
+				int[] path = algo.path(i);
+				assertEquals(lengths.get(i), algo.distance(i), 0);
+				assertEquals(algo.distance(i), length(graph, path), 0);
+				assertEquals(start, path[0]);
+				assertEquals(end, path[path.length - 1]);
+				Set<Integer> nodes = new HashSet<Integer>();
+				for (int node : path)
+					assertTrue(nodes.add(node));
+				assertTrue(seen.add(Arrays.toString(path)));
+			}
+		}
+	}
+
+	@Test(expected = NoResultException.class)
+	public void testNoPath() {
+		new KShortestPaths(getSimpleGraph(), 5, 0, 2);
+	}
+
+	@Test(expected = NegativeEdgeWeightException.class)
+	public void testNegativeWeight() {
+		DirectedGraph graph = new DirectedGraph(2);
+		graph.addEdge(0, 1, -1L);
+		new KShortestPaths(graph, 0, 1, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPathOutOfRange() {
+		new KShortestPaths(getSimpleGraph(), 0, 5, 2).path(2);
+	}
+
+	private DirectedGraph getSimpleGraph() {
+		DirectedGraph graph = new DirectedGraph(6);
+		graph.addEdge(0, 1, 3L);
+		graph.addEdge(0, 2, 2L);
+		graph.addEdge(1, 3, 4L);
+		graph.addEdge(2, 1, 1L);
+		graph.addEdge(2, 3, 2L);
+		graph.addEdge(2, 4, 3L);
+		graph.addEdge(3, 4, 2L);
+		graph.addEdge(3, 5, 1L);
+		graph.addEdge(4, 5, 2L);
+		return graph;
+	}
+
+	/**
+	 * @param nodeCount
+	 * @param edgeCount
+	 * @param directed
+	 * @param random
+	 *            source of the end points and weights
+	 * @return random graph without self loops or parallel edges
+	 */
+	private CSRGraph getRandomGraph(int nodeCount, int edgeCount, boolean directed, Random random) {
+		Set<Long> pairs = new HashSet<Long>();
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		int count = 0;
+		while (count < edgeCount) {
+			int u = random.nextInt(nodeCount);
+			int v = random.nextInt(nodeCount);
+			if (u == v || !pairs.add((long) u * nodeCount + v) || (!directed && !pairs.add((long) v * nodeCount + u)))
+				continue;
+			from[count] = u;
+			to[count] = v;
+			weights[count] = 1 + random.nextInt(9);
+			count++;
+		}
+		return new CSRGraph(nodeCount, from, to, weights, directed);
+	}
+
+	private static void collectPaths(CSRGraph graph, int u, int end, boolean[] onPath, double length,
+			List<Double> lengths) {
+		if (u == end) {
+			lengths.add(length);
+			return;
+		}
+		onPath[u] = true;
+		for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++)
+			if (!onPath[graph.targets[arc]])
+				collectPaths(graph, graph.targets[arc], end, onPath, length + graph.weights[arc], lengths);
+		onPath[u] = false;
+	}
+
+	private static double length(CSRGraph graph, int[] path) {
+		double length = 0;
+		for (int i = 0; i + 1 < path.length; i++) {
+			double weight = Double.POSITIVE_INFINITY;
+			for (int arc = graph.offsets[path[i]]; arc < graph.offsets[path[i] + 1]; arc++)
+				if (graph.targets[arc] == path[i + 1])
+					weight = Math.min(weight, graph.weights[arc]);
+			length += weight;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,183 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class KahnsTopologicalSortTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testComplexDiGraphWithoutCycle() {
+		KahnsTopologicalSort algo = new KahnsTopologicalSort(getComplexDiGraphWithoutCycle(), pool);
+		assertTrue(algo.isAcyclic());
+		assertEquals(4, algo.levelCount());
+		assertEquals("[3, 0, 1, 3, 2, 1, 0, 2, 0, 1]", Arrays.toString(algo.intLevelArray()));
+		int[] sources = algo.level(0);
+		Arrays.sort(sources);
+		assertEquals("[1, 6, 8]", Arrays.toString(sources));
+		assertEquals(10, algo.order().length);
+		assertEquals(10, algo.levelStart(4));
+	}
+
+	@Test
+	public void testComplexDiGraphWithCycle() {
+		KahnsTopologicalSort algo = new KahnsTopologicalSort(getComplexDiGraphWithCycle(), pool);
+		assertFalse(algo.isAcyclic());
+		// 5, 6, 7 and 9 form a cycle
+		assertEquals("[3, 0, 1, 3, 2, -1, -1, -1, 0, -1]", Arrays.toString(algo.intLevelArray()));
+		assertEquals(6, algo.intOrder().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndirectedGraph() {
+		new KahnsTopologicalSort(new CSRGraph(new UndirectedGraph(3)), pool);
+	}
+
+	@Test
+	public void testLongChain() {
+		int nodeCount = 100000;
+		int[] from = new int[nodeCount - 1];
+		int[] to = new int[nodeCount - 1];
+		for (int v = 0; v < nodeCount - 1; v++) {
+			from[v] = nodeCount - 1 - v;
+			to[v] = nodeCount - 2 - v;
+		}
+		KahnsTopologicalSort algo = new KahnsTopologicalSort(new CSRGraph(nodeCount, from, to, null, true), pool);
+		assertEquals(nodeCount, algo.levelCount());
+		assertEquals(nodeCount - 1, algo.intOrder()[0]);
+		assertEquals(0, algo.intOrder()[nodeCount - 1]);
+	}
+
+	@Test
+	public void testRandomDagsAgainstLongestPath() {
+		Random random = new Random(19);
+		for (int round = 0; round < 10; round++) {
+			int nodeCount = 1 + random.nextInt(round < 5 ? 50 : 50000);
+			int edgeCount = random.nextInt(3 * nodeCount);
+			// Arcs lead from lower to higher positions of a random permutation
+			int[] rank = new int[nodeCount];
+			for (int v = 0; v < nodeCount; v++)
+				rank[v] = v;
+			for (int v = nodeCount - 1; v > 0; v--) {
+				int k = random.nextInt(v + 1);
+				int swap = rank[v];
+				rank[v] = rank[k];
+				rank[k] = swap;
+			}
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				int a = random.nextInt(nodeCount);
+				int b = random.nextInt(nodeCount);
+				if (a == b)
+					b = (b + 1) % nodeCount;
+				from[i] = rank[Math.min(a, b)];
+				to[i] = rank[Math.max(a, b)];
+			}
+			if (nodeCount == 1)
+				edgeCount = 0;
+			CSRGraph graph = new CSRGraph(nodeCount, Arrays.copyOf(from, edgeCount), Arrays.copyOf(to, edgeCount),
+					null, true);
+			KahnsTopologicalSort algo = new KahnsTopologicalSort(graph, pool);
+			assertTrue(algo.isAcyclic());
+
+			// Longest path lengths, relaxing in permutation order
+			int[] expected = new int[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				int u = rank[i];
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++)
+					expected[graph.targets[arc]] = Math.max(expected[graph.targets[arc]], expected[u] + 1);
+			}
+			assertEquals(Arrays.toString(expected), Arrays.toString(algo.intLevelArray()));
+
+			int[] position = new int[nodeCount];
+			int[] order = algo.intOrder();
+			for (int i = 0; i < nodeCount; i++)
+				position[order[i]] = i;
+			for (int i = 0; i < edgeCount; i++)
+				assertTrue(position[from[i]] < position[to[i]]);
+		}
+	}
+
+	private DirectedGraph getComplexDiGraphWithCycle() {
+		DirectedGraph graph = new DirectedGraph(10);
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		graph.addEdge(4, 0);
+		graph.addEdge(6, 5);
+		graph.addEdge(5, 7);
+		graph.addEdge(7, 6);
+		graph.addEdge(6, 9);
+		graph.addEdge(9, 7);
+		return graph;
+	}
+
+	private DirectedGraph getComplexDiGraphWithoutCycle() {
+		DirectedGraph graph = new DirectedGraph(10);
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		graph.addEdge(4, 0);
+		graph.addEdge(6, 5);
+		graph.addEdge(5, 7);
+		graph.addEdge(6, 9);
+		graph.addEdge(9, 7);
+		return graph;
+	}
+
+}
@@ -52,6 +52,19 @@ public class MaxFlowTest {
 
 	}
 
+	@Test
+	public void testPrimitiveArithmetic() {
+		MaxFlow algo = new MaxFlow(getSimpleFlowNetwork(), 0, 8, Edge.Arithmetic.DOUBLE);
+		assertEquals(20, algo.doubleMaxFlow(), 0);
+		assertEquals(algo.maxFlow(), algo.minCut());
+
+		algo = new MaxFlow(getSimpleFlowNetwork(), 0, 8, Edge.Arithmetic.LONG);
+		assertEquals(20, algo.longMaxFlow());
+		assertEquals(new BigDecimal(20), algo.maxFlow());
+		assertEquals(algo.maxFlow(), algo.minCut());
+
+	}
+
 	/**
 	 * @return
 	 */
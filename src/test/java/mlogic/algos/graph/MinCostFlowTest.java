@@ -0,0 +1,153 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.graph.MinCostFlow.Method;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class MinCostFlowTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleCostFlowNetwork() {
+		for (Method method : Method.values()) {
+			CostFlowNetwork graph = new CostFlowNetwork(4);
+			graph.addEdge(0, 1, 2, 1);
+			graph.addEdge(0, 2, 2, 5);
+			graph.addEdge(1, 2, 1, 1);
+			graph.addEdge(1, 3, 1, 6);
+			graph.addEdge(2, 3, 3, 1);
+			MinCostFlow algo = new MinCostFlow(graph, 0, 3, method);
+			assertEquals(new BigDecimal(4), algo.maxFlow());
+			// 0-1-2-3 carries 1 at 3, 0-1-3 carries 1 at 7, 0-2-3 carries 2 at 6
+			assertEquals(new BigDecimal(22), algo.minCost());
+			long intoSink = 0;
+			for (Edge e : graph.edges[3])
+				intoSink += ((FlowEdge) e).longFlow();
+			assertEquals(4, intoSink);
+		}
+	}
+
+	@Test
+	public void testRandomNetworksMethodsAgree() {
+		Random random = new Random(21);
+		for (int round = 0; round < 30; round++) {
+			int nodeCount = 2 + random.nextInt(40);
+			int edgeCount = random.nextInt(nodeCount * 5);
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			long[] capacities = new long[edgeCount];
+			long[] costs = new long[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+				capacities[i] = random.nextInt(30);
+				costs[i] = random.nextInt(100);
+			}
+			int source = random.nextInt(nodeCount);
+			int sink = (source + 1 + random.nextInt(nodeCount - 1)) % nodeCount;
+			ResidualNetwork network = new ResidualNetwork(nodeCount, from, to, capacities, costs);
+			long maxFlow = new Dinic(network, source, sink).longMaxFlow();
+
+			MinCostFlow paths = new MinCostFlow(network, source, sink, Method.SUCCESSIVE_SHORTEST_PATHS);
+			assertEquals(maxFlow, paths.longMaxFlow());
+			assertTrue(isOptimal(network));
+			MinCostFlow scaling = new MinCostFlow(network, source, sink, Method.COST_SCALING);
+			assertEquals(maxFlow, scaling.longMaxFlow());
+			assertTrue(isOptimal(network));
+			assertEquals(paths.longMinCost(), scaling.longMinCost());
+		}
+	}
+
+	@Test
+	public void testNegativeCostCycle() {
+		ResidualNetwork network = new ResidualNetwork(4, new int[] { 0, 1, 2, 1, 2 }, new int[] { 1, 2, 1, 3, 3 },
+				new long[] { 2, 5, 5, 1, 1 }, new long[] { 1, -3, 1, 1, 1 });
+		MinCostFlow algo = new MinCostFlow(network, 0, 3, Method.COST_SCALING);
+		assertEquals(2, algo.longMaxFlow());
+		assertTrue(isOptimal(network));
+		// 1-2 is saturated with 5 units, 4 of them running back along 2-1
+		assertEquals(2 + 1 + 1 - 3 * 5 + 4, algo.longMinCost());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCostCycleWithPaths() {
+		ResidualNetwork network = new ResidualNetwork(3, new int[] { 0, 1, 2 }, new int[] { 1, 2, 1 },
+				new long[] { 2, 5, 5 }, new long[] { 1, -3, 1 });
+		new MinCostFlow(network, 0, 2, Method.SUCCESSIVE_SHORTEST_PATHS);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNetworkWithoutCosts() {
+		new MinCostFlow(new ResidualNetwork(2, new int[] { 0 }, new int[] { 1 }, new long[] { 1 }), 0, 1,
+				Method.COST_SCALING);
+	}
+
+	/**
+	 * A flow is of minimum cost among flows of its value if its residual graph
+	 * has no negative cost cycle
+	 * 
+	 * @param network
+	 * @return true if Bellman-Ford finds no negative cycle over the residual
+	 *         arcs
+	 */
+	private boolean isOptimal(ResidualNetwork network) {
+		long[] distance = new long[network.nodeCount];
+		for (int round = 0; round <= network.nodeCount; round++) {
+			boolean changed = false;
+			for (int u = 0; u < network.nodeCount; u++) {
+				for (int arc = network.offsets[u]; arc < network.offsets[u + 1]; arc++) {
+					int w = network.targets[arc];
+					if (network.residual[arc] > 0 && distance[u] + network.cost[arc] < distance[w]) {
+						distance[w] = distance[u] + network.cost[arc];
+						changed = true;
+					}
+				}
+			}
+			if (!changed)
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,159 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class MultiSourceBFSTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testDirectedGraph() {
+		DirectedGraph graph = new DirectedGraph(5);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(4, 3);
+		int[][] distances = new MultiSourceBFS(graph).execute(new int[] { 0, 3, 4 });
+		assertEquals("[0, 1, 2, 3, -1]", Arrays.toString(distances[0]));
+		assertEquals("[-1, -1, -1, 0, -1]", Arrays.toString(distances[1]));
+		assertEquals("[-1, -1, -1, 1, 0]", Arrays.toString(distances[2]));
+	}
+
+	@Test
+	public void testRepeatedStarts() {
+		UndirectedGraph graph = new UndirectedGraph(4);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		graph.addEdge(2, 3);
+		int[][] distances = new MultiSourceBFS(graph).execute(new int[] { 2, 0, 2 });
+		assertEquals("[2, 1, 0, 1]", Arrays.toString(distances[0]));
+		assertEquals("[0, 1, 2, 3]", Arrays.toString(distances[1]));
+		assertEquals("[2, 1, 0, 1]", Arrays.toString(distances[2]));
+	}
+
+	@Test
+	public void testVisitHook() {
+		UndirectedGraph graph = new UndirectedGraph(5);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		graph.addEdge(3, 4);
+		final long[] farness = new long[2];
+		final int[] reached = new int[2];
+		new MultiSourceBFS(new CSRGraph(graph), 1) {
+			@Override
+			protected void visit(int search, int node, int distance) {
+				farness[search] += distance;
+				reached[search]++;
+			}
+		}.traverse(new int[] { 0, 4 });
+		assertArrayEquals(new long[] { 3, 1 }, farness);
+		assertArrayEquals(new int[] { 3, 2 }, reached);
+	}
+
+	@Test
+	public void testManyBatches() {
+		CSRGraph graph = getRandomGraph(2000, 6000, false, 7);
+		int[] starts = new int[300];
+		for (int i = 0; i < starts.length; i++)
+			starts[i] = (i * 37) % graph.nodeCount;
+		checkAgainstParallelBFS(graph, starts, new MultiSourceBFS(graph, 1).execute(starts));
+	}
+
+	@Test
+	public void testWideBatches() {
+		CSRGraph graph = getRandomGraph(1000, 2500, true, 11);
+		int[] starts = new int[200];
+		for (int i = 0; i < starts.length; i++)
+			starts[i] = i * 5;
+		MultiSourceBFS algo = new MultiSourceBFS(graph, 3);
+		assertEquals(192, algo.batchSize());
+		checkAgainstParallelBFS(graph, starts, algo.execute(starts));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStartOutOfRange() {
+		UndirectedGraph graph = new UndirectedGraph(2);
+		graph.addEdge(0, 1);
+		new MultiSourceBFS(graph).execute(new int[] { 0, 2 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWordsOutOfRange() {
+		UndirectedGraph graph = new UndirectedGraph(2);
+		graph.addEdge(0, 1);
+		new MultiSourceBFS(new CSRGraph(graph), 0);
+	}
+
+	private static void checkAgainstParallelBFS(CSRGraph graph, int[] starts, int[][] distances) {
+		ParallelBFS bfs = new ParallelBFS(pool);
+		assertEquals(starts.length, distances.length);
+		for (int i = 0; i < starts.length; i++)
+			assertArrayEquals(bfs.execute(graph, starts[i]), distances[i]);
+	}
+
+	/**
+	 * @param nodeCount
+	 * @param edgeCount
+	 * @param directed
+	 * @param seed
+	 *            seed of the random end points
+	 * @return unweighted random graph
+	 */
+	private CSRGraph getRandomGraph(int nodeCount, int edgeCount, boolean directed, long seed) {
+		Random random = new Random(seed);
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			from[i] = random.nextInt(nodeCount);
+			to[i] = random.nextInt(nodeCount);
+		}
+		return new CSRGraph(nodeCount, from, to, null, directed);
+	}
+
+}
@@ -0,0 +1,191 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import mlogic.algos.graph.PageRank.Method;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class PageRankTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testCycle() {
+		DirectedGraph graph = new DirectedGraph(4);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		graph.addEdge(2, 3);
+		graph.addEdge(3, 0);
+		PageRank algo = new PageRank(graph, pool);
+		assertTrue(algo.converged());
+		assertArrayEquals(new double[] { 0.25, 0.25, 0.25, 0.25 }, algo.rank(), 1e-12);
+	}
+
+	@Test
+	public void testDanglingNode() {
+		// 0 -> 1 -> 2, with 2 sending its surfer anywhere
+		DirectedGraph graph = new DirectedGraph(3);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		PageRank algo = new PageRank(new CSRGraph(graph), 0.5, 1e-12, Method.JACOBI, pool);
+		// With a = (1 + r2) / 6: r0 = a, r1 = a + r0 / 2, r2 = a + r1 / 2
+		assertArrayEquals(new double[] { 4.0 / 17, 6.0 / 17, 7.0 / 17 }, algo.rank(), 1e-10);
+		assertEquals(1.0, sum(algo.rank()), 1e-10);
+	}
+
+	@Test
+	public void testAgainstPowerIteration() {
+		CSRGraph graph = getRandomGraph(20000, 100000, 3);
+		double[] expected = powerIteration(graph, null, 0.85);
+		PageRank jacobi = new PageRank(graph, 0.85, 1e-12, Method.JACOBI, pool);
+		PageRank gaussSeidel = new PageRank(graph, 0.85, 1e-12, Method.GAUSS_SEIDEL, new ForkJoinPool(1));
+		assertArrayEquals(expected, jacobi.rank(), 1e-11);
+		assertArrayEquals(expected, gaussSeidel.rank(), 1e-11);
+		assertTrue(jacobi.converged());
+		assertTrue(gaussSeidel.converged());
+		assertTrue(gaussSeidel.iterationCount() < jacobi.iterationCount());
+	}
+
+	@Test
+	public void testPersonalized() {
+		CSRGraph graph = getRandomGraph(5000, 12000, 9);
+		int[] seeds = { 7, 42, 42 };
+		double[] expected = powerIteration(graph, seeds, 0.85);
+		PageRank algo = new PageRank(graph, seeds, 0.85, 1e-12, Method.GAUSS_SEIDEL, pool);
+		assertArrayEquals(expected, algo.rank(), 1e-11);
+		assertEquals(1.0, sum(algo.rank()), 1e-10);
+	}
+
+	@Test
+	public void testPersonalizedUnreachable() {
+		DirectedGraph graph = new DirectedGraph(4);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 0);
+		graph.addEdge(2, 3);
+		PageRank algo = new PageRank(graph, new int[] { 0 }, pool);
+		assertEquals(0.0, algo.rank(2), 0);
+		assertEquals(0.0, algo.rank(3), 0);
+		assertEquals(1.0, algo.rank(0) + algo.rank(1), 1e-10);
+	}
+
+	@Test
+	public void testResiduals() {
+		CSRGraph graph = getRandomGraph(1000, 5000, 5);
+		PageRank algo = new PageRank(graph, 0.85, 1e-6, Method.JACOBI, pool);
+		double[] residuals = algo.residuals();
+		assertEquals(algo.iterationCount(), residuals.length);
+		assertTrue(residuals[residuals.length - 1] < 1e-6);
+		for (int i = 0; i < residuals.length - 1; i++)
+			assertTrue(residuals[i] >= 1e-6);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDampingOutOfRange() {
+		new PageRank(getRandomGraph(10, 20, 1), 1.0, 1e-9, Method.JACOBI, pool);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptySeeds() {
+		new PageRank(getRandomGraph(10, 20, 1), new int[0], 0.85, 1e-9, Method.JACOBI, pool);
+	}
+
+	/**
+	 * Plain power iteration pushing each node's rank along its arcs
+	 */
+	private static double[] powerIteration(CSRGraph graph, int[] seeds, double damping) {
+		int n = graph.nodeCount;
+		double[] teleport = new double[n];
+		if (seeds == null)
+			for (int v = 0; v < n; v++)
+				teleport[v] = 1.0 / n;
+		else
+			for (int seed : seeds)
+				teleport[seed] += 1.0 / seeds.length;
+		double[] rank = teleport.clone();
+		for (int iteration = 0; iteration < 500; iteration++) {
+			double[] next = new double[n];
+			double dangling = 0;
+			for (int u = 0; u < n; u++) {
+				int degree = graph.offsets[u + 1] - graph.offsets[u];
+				if (degree == 0)
+					dangling += rank[u];
+				for (int arc = graph.offsets[u]; arc < graph.offsets[u + 1]; arc++)
+					next[graph.targets[arc]] += damping * rank[u] / degree;
+			}
+			for (int v = 0; v < n; v++)
+				next[v] += (1 - damping + damping * dangling) * teleport[v];
+			rank = next;
+		}
+		return rank;
+	}
+
+	/**
+	 * @param nodeCount
+	 * @param edgeCount
+	 * @param seed
+	 *            seed of the random end points
+	 * @return unweighted random directed graph
+	 */
+	private CSRGraph getRandomGraph(int nodeCount, int edgeCount, long seed) {
+		Random random = new Random(seed);
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			from[i] = random.nextInt(nodeCount);
+			to[i] = random.nextInt(nodeCount);
+		}
+		return new CSRGraph(nodeCount, from, to, null, true);
+	}
+
+	private static double sum(double[] values) {
+		double sum = 0;
+		for (double value : values)
+			sum += value;
+		return sum;
+	}
+
+}
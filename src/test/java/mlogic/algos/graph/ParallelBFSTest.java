@@ -0,0 +1,133 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class ParallelBFSTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testLevelsOnASimpleGraph() {
+		Graph graph = new UndirectedGraph(7);
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(3, 5);
+		graph.addEdge(4, 5);
+		int[] level = new ParallelBFS().execute(graph, 0);
+		assertEquals("[0, 1, 1, 2, 2, 3, -1]", Arrays.toString(level));
+	}
+
+	@Test
+	public void testLevelsMatchSerialBFS() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (boolean directed : new boolean[] { false, true }) {
+			CSRGraph graph = getRandomGraph(20000, 8, directed);
+			final int[] expected = new int[graph.nodeCount()];
+			Arrays.fill(expected, ParallelBFS.UNREACHED);
+			expected[0] = 0;
+			final CSRGraph g = graph;
+			BFS bfs = new BFS() {
+				@Override
+				protected void processTreeEdge(int node, int arc) {
+					expected[g.target(arc)] = expected[node] + 1;
+				}
+			};
+			bfs.execute(graph, 0);
+
+			ParallelBFS parallelBFS = new ParallelBFS(pool);
+			int[] level = parallelBFS.execute(graph, 0);
+			assertEquals(Arrays.toString(expected), Arrays.toString(level));
+
+			int[] parent = parallelBFS.parents();
+			for (int v = 1; v < graph.nodeCount(); v++) {
+				if (level[v] == ParallelBFS.UNREACHED)
+					continue;
+				int u = parent[v];
+				assertEquals(level[v] - 1, level[u]);
+				boolean arcFound = false;
+				for (int arc = graph.offset(u); arc < graph.offset(u + 1); arc++)
+					if (graph.target(arc) == v)
+						arcFound = true;
+				assertTrue(arcFound);
+			}
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testStopAtEndNode() {
+		CSRGraph graph = new CSRGraph(5, new int[] { 0, 1, 2, 3 }, new int[] { 1, 2, 3, 4 }, null, false);
+		int[] level = new ParallelBFS().execute(graph, 0, 2);
+		assertEquals(2, level[2]);
+		assertEquals(ParallelBFS.UNREACHED, level[4]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStartOutOfRange() {
+		CSRGraph graph = new CSRGraph(2, new int[] { 0 }, new int[] { 1 }, null, false);
+		new ParallelBFS().execute(graph, 2);
+	}
+
+	/**
+	 * @param nodeCount
+	 * @param degree
+	 *            average number of edges per node
+	 * @param directed
+	 * @return random graph with a fixed seed
+	 */
+	private CSRGraph getRandomGraph(int nodeCount, int degree, boolean directed) {
+		Random random = new Random(42);
+		int edgeCount = nodeCount * degree;
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			from[i] = random.nextInt(nodeCount);
+			to[i] = random.nextInt(nodeCount);
+		}
+		return new CSRGraph(nodeCount, from, to, null, directed);
+	}
+
+}
@@ -0,0 +1,115 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class ParallelConnectedComponentsTest {
+
+	private static ForkJoinPool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSimpleGraph() {
+		ParallelConnectedComponents algo = new ParallelConnectedComponents(new UndirectedGraph(6), pool);
+		assertEquals("[0, 1, 2, 3, 4, 5]", Arrays.toString(algo.connectedComponentArray()));
+		assertEquals(6, algo.componentCount());
+	}
+
+	@Test
+	public void testComplexGraph() {
+		ParallelConnectedComponents algo = new ParallelConnectedComponents(getComplexGraph(), pool);
+		assertEquals("[0, 0, 0, 0, 0, 1, 1, 1, 2, 1]", Arrays.toString(algo.connectedComponentArray()));
+		assertEquals(3, algo.componentCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDirectedGraph() {
+		new ParallelConnectedComponents(new CSRGraph(new DirectedGraph(3)), pool);
+	}
+
+	@Test
+	public void testRandomGraphsAgainstBFS() {
+		Random random = new Random(4);
+		for (int round = 0; round < 12; round++) {
+			int nodeCount = 1 + random.nextInt(round < 6 ? 100 : 100000);
+			// Around one edge per node leaves many components besides the
+			// largest one
+			int edgeCount = random.nextInt(nodeCount + 1) * (1 + round % 3) / 2;
+			int[] from = new int[edgeCount];
+			int[] to = new int[edgeCount];
+			for (int i = 0; i < edgeCount; i++) {
+				from[i] = random.nextInt(nodeCount);
+				to[i] = random.nextInt(nodeCount);
+			}
+			CSRGraph graph = new CSRGraph(nodeCount, from, to, new double[edgeCount], false);
+			Integer[] expected = new ConnectedComponents(graph).connectedComponentArray();
+			ParallelConnectedComponents algo = new ParallelConnectedComponents(graph, pool);
+			assertArrayEquals(expected, algo.connectedComponentArray());
+			int count = 0;
+			for (Integer c : expected)
+				count = Math.max(count, c + 1);
+			assertEquals(count, algo.componentCount());
+		}
+	}
+
+	private UndirectedGraph getComplexGraph() {
+		UndirectedGraph graph = new UndirectedGraph(10);
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		graph.addEdge(4, 0);
+		graph.addEdge(6, 5);
+		graph.addEdge(5, 7);
+		graph.addEdge(7, 6);
+		graph.addEdge(6, 9);
+		graph.addEdge(9, 7);
+		return graph;
+	}
+}
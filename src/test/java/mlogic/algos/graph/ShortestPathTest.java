@@ -115,6 +115,28 @@ public class ShortestPathTest {
 		assertEquals(new Integer(3), shortestPathDist);
 	}
 
+	/**
+	 * Test method for
+	 * {@link mlogic.algos.graph.ShortestPath#ShortestPath(CSRGraph, Integer, Integer)}.
+	 * Ties between paths of equal length may be broken either way by the
+	 * parallel search, so only distances and end points are checked.
+	 */
+	@Test
+	public void testTopologicalDistanceCSR() {
+		CSRGraph graph = new CSRGraph(getComplexGraph());
+		ShortestPath algo = new ShortestPath(graph, 8, 1);
+		assertEquals(new Integer(4), algo.topologicalDistance());
+		Integer[] shortestPathNodes = algo.topologicalPath();
+		assertEquals(new Integer(8), shortestPathNodes[0]);
+		assertEquals(new Integer(1), shortestPathNodes[4]);
+
+		algo = new ShortestPath(graph, 4, 7);
+		assertEquals("[4, 3, 5, 7]", Arrays.toString(algo.topologicalPath()));
+
+		algo = new ShortestPath(graph, 0, 0);
+		assertEquals(new Integer(0), algo.topologicalDistance());
+	}
+
 	private Graph getSimpleGraph() {
 		Graph graph = new UndirectedGraph(6);
 		graph.addEdge(0, 1);
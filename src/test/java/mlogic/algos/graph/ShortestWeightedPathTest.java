@@ -102,6 +102,24 @@ public class ShortestWeightedPathTest {
 
 	}
 
+	/**
+	 * Test method for
+	 * {@link mlogic.algos.graph.ShortestWeightedPath#doublePhysicalDistance()}
+	 * and {@link mlogic.algos.graph.ShortestWeightedPath#longPhysicalDistance()}.
+	 */
+	@Test
+	public void testPrimitiveArithmeticComplexGraph() {
+		Graph graph = getComplexGraph();
+		ShortestWeightedPath algo = new ShortestWeightedPath(graph, 0, 9, Edge.Arithmetic.DOUBLE);
+		assertEquals("[0, 2, 4, 3, 5, 6, 7, 9]", Arrays.toString(algo.physicalPath()));
+		assertEquals(36, algo.doublePhysicalDistance(), 0);
+
+		algo = new ShortestWeightedPath(graph, 0, 9, Edge.Arithmetic.LONG);
+		assertEquals("[0, 2, 4, 3, 5, 6, 7, 9]", Arrays.toString(algo.physicalPath()));
+		assertEquals(36, algo.longPhysicalDistance());
+		assertEquals(new BigDecimal(36), algo.physicalDistance());
+	}
+
 	private Graph getSimpleGraph() {
 		Graph graph = new UndirectedGraph(6);
 		graph.addEdge(0, 1, new BigDecimal(5));
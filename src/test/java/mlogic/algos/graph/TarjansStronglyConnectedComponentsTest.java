@@ -0,0 +1,137 @@
+package mlogic.algos.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class TarjansStronglyConnectedComponentsTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testComplexDiGraph() {
+		TarjansStronglyConnectedComponents algo = new TarjansStronglyConnectedComponents(getComplexDiGraph());
+		String actual = Arrays.toString(algo.connectedComponentArray());
+		assertEquals("[0, 4, 3, 1, 2, 5, 5, 5, 6, 5]", actual);
+		assertEquals(7, algo.componentCount());
+	}
+
+	@Test
+	public void testLongCycle() {
+		// Deep enough to overflow a recursive search
+		int nodeCount = 200000;
+		int[] from = new int[nodeCount];
+		int[] to = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			from[v] = v;
+			to[v] = (v + 1) % nodeCount;
+		}
+		CSRGraph graph = new CSRGraph(nodeCount, from, to, new double[nodeCount], true);
+		TarjansStronglyConnectedComponents algo = new TarjansStronglyConnectedComponents(graph);
+		assertEquals(1, algo.componentCount());
+		// Without the closing arc every node is a component of its own
+		graph = new CSRGraph(nodeCount, Arrays.copyOf(from, nodeCount - 1), Arrays.copyOf(to, nodeCount - 1),
+				new double[nodeCount - 1], true);
+		assertEquals(nodeCount, new TarjansStronglyConnectedComponents(graph).componentCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndirectedGraph() {
+		new TarjansStronglyConnectedComponents(new CSRGraph(new UndirectedGraph(3)));
+	}
+
+	@Test
+	public void testRandomGraphsAgainstKosaraju() {
+		Random random = new Random(6);
+		for (int round = 0; round < 12; round++) {
+			int nodeCount = 1 + random.nextInt(round < 6 ? 100 : 20000);
+			int edgeCount = random.nextInt(2 * nodeCount + 1);
+			DirectedGraph graph = new DirectedGraph(nodeCount);
+			for (int i = 0; i < edgeCount; i++)
+				graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+			Integer[] expected = new StronglyConnectedComponents(graph).connectedComponentArray();
+			TarjansStronglyConnectedComponents algo = new TarjansStronglyConnectedComponents(graph);
+			assertSamePartition(expected, algo.intConnectedComponentArray());
+			// Arcs between components lead to lower numbers
+			int[] component = algo.intConnectedComponentArray();
+			for (int u = 0; u < nodeCount; u++)
+				for (Edge e : graph.edges[u])
+					assertTrue(component[u] >= component[e.to()]);
+		}
+	}
+
+	/**
+	 * Checks that two labelings put the same nodes together
+	 */
+	private void assertSamePartition(Integer[] expected, int[] actual) {
+		int[] map = new int[expected.length];
+		int[] back = new int[expected.length];
+		Arrays.fill(map, -1);
+		Arrays.fill(back, -1);
+		for (int v = 0; v < expected.length; v++) {
+			if (map[expected[v]] == -1 && back[actual[v]] == -1) {
+				map[expected[v]] = actual[v];
+				back[actual[v]] = expected[v];
+			}
+			assertEquals(map[expected[v]], actual[v]);
+			assertEquals(back[actual[v]], expected[v].intValue());
+		}
+	}
+
+	private DirectedGraph getComplexDiGraph() {
+		DirectedGraph graph = new DirectedGraph(10);
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(1, 4);
+		graph.addEdge(2, 0);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		graph.addEdge(4, 0);
+		graph.addEdge(6, 5);
+		graph.addEdge(5, 7);
+		graph.addEdge(7, 6);
+		graph.addEdge(6, 9);
+		graph.addEdge(9, 7);
+		return graph;
+		// 3 6 5 2 4 1 1 1 0 1
+	}
+}
@@ -0,0 +1,131 @@
+package mlogic.algos.struct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class ConcurrentUnionFindTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testFindAndUnion() {
+		ConcurrentUnionFind uf = new ConcurrentUnionFind(10);
+		assertEquals(9, uf.find(9));
+		assertTrue(uf.union(0, 9));
+		assertTrue(uf.union(1, 5));
+		assertTrue(uf.union(5, 9));
+		assertFalse(uf.union(0, 1));
+		assertEquals(uf.find(0), uf.find(5));
+		assertTrue(uf.union(2, 8));
+		assertTrue(uf.union(8, 3));
+		assertFalse(uf.connected(3, 9));
+		assertTrue(uf.union(3, 9));
+		assertTrue(uf.connected(2, 1));
+		assertFalse(uf.connected(4, 1));
+	}
+
+	@Test
+	public void testConcurrentUnions() throws Exception {
+		final int size = 100000;
+		final int unions = 200000;
+		Random random = new Random(9);
+		final int[] from = new int[unions];
+		final int[] to = new int[unions];
+		IntUnionFind expected = new IntUnionFind(size);
+		int merges = 0;
+		for (int i = 0; i < unions; i++) {
+			from[i] = random.nextInt(size);
+			to[i] = random.nextInt(size);
+			if (expected.union(from[i], to[i]))
+				merges++;
+		}
+
+		final ConcurrentUnionFind uf = new ConcurrentUnionFind(size);
+		final AtomicInteger joined = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					RecursiveAction[] tasks = new RecursiveAction[8];
+					for (int t = 0; t < tasks.length; t++) {
+						final int first = t * unions / tasks.length;
+						final int last = (t + 1) * unions / tasks.length;
+						tasks[t] = new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								for (int i = first; i < last; i++)
+									if (uf.union(from[i], to[i]))
+										joined.incrementAndGet();
+							}
+						};
+					}
+					invokeAll(tasks);
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+		// Every successful union merged two sets exactly once
+		assertEquals(merges, joined.get());
+		for (int v = 0; v < size; v++)
+			assertEquals(expected.connected(v, 0), uf.connected(v, 0));
+		for (int i = 0; i < 1000; i++) {
+			int u = random.nextInt(size);
+			int v = random.nextInt(size);
+			assertEquals(expected.connected(u, v), uf.connected(u, v));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOutOfRange() {
+		new ConcurrentUnionFind(3).union(0, -1);
+	}
+
+}
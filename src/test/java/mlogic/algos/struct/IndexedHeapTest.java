@@ -0,0 +1,139 @@
+package mlogic.algos.struct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class IndexedHeapTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testInsertAndDeleteMin() {
+		final int[] keys = { 10, 20, 5, 100, 0, -10, 2000 };
+		IndexedHeap heap = heapOf(keys, 2);
+		for (int id = 0; id < keys.length; id++)
+			heap.insert(id);
+		assertEquals(7, heap.size());
+		assertTrue(heap.contains(5));
+		assertEquals(5, heap.peek());
+		assertEquals(5, heap.deleteMin());
+		assertFalse(heap.contains(5));
+		assertEquals(4, heap.deleteMin());
+		assertEquals(2, heap.deleteMin());
+		assertEquals(0, heap.deleteMin());
+		assertEquals(1, heap.deleteMin());
+		assertEquals(3, heap.deleteMin());
+		assertEquals(6, heap.deleteMin());
+		assertTrue(heap.isEmpty());
+		assertEquals(-1, heap.deleteMin());
+	}
+
+	@Test
+	public void testDecreaseKey() {
+		final int[] keys = { 10, 20, 30, 40 };
+		IndexedHeap heap = heapOf(keys, 4);
+		for (int id = 0; id < keys.length; id++)
+			heap.insert(id);
+		keys[3] = 5;
+		heap.decreaseKey(3);
+		assertEquals(3, heap.deleteMin());
+		keys[2] = 1;
+		heap.decreaseKey(2);
+		assertEquals(2, heap.deleteMin());
+		assertEquals(0, heap.deleteMin());
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(1));
+	}
+
+	@Test
+	public void testRandomKeysAllArities() {
+		Random random = new Random(7);
+		for (int arity = 2; arity <= 8; arity *= 2) {
+			final int[] keys = new int[1000];
+			IndexedHeap heap = heapOf(keys, arity);
+			for (int id = 0; id < keys.length; id++) {
+				keys[id] = random.nextInt(10000);
+				heap.insert(id);
+			}
+			for (int i = 0; i < 300; i++) {
+				int id = random.nextInt(keys.length);
+				keys[id] -= random.nextInt(5000);
+				heap.decreaseKey(id);
+			}
+			int last = Integer.MIN_VALUE;
+			while (!heap.isEmpty()) {
+				int key = keys[heap.deleteMin()];
+				assertTrue(key >= last);
+				last = key;
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidArity() {
+		heapOf(new int[4], 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateInsert() {
+		IndexedHeap heap = heapOf(new int[4], 2);
+		heap.insert(1);
+		heap.insert(1);
+	}
+
+	/**
+	 * @param keys
+	 *            key of each id
+	 * @param arity
+	 * @return heap ordered by the keys array
+	 */
+	private IndexedHeap heapOf(final int[] keys, int arity) {
+		return new IndexedHeap(keys.length, arity) {
+			@Override
+			protected int compare(int u, int v) {
+				return Integer.compare(keys[u], keys[v]);
+			}
+		};
+	}
+
+}
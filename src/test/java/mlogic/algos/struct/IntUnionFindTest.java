@@ -0,0 +1,91 @@
+package mlogic.algos.struct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Rajaram G
+ *
+ */
+public class IntUnionFindTest {
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testFindAndUnion() {
+		IntUnionFind uf = new IntUnionFind(10);
+		assertEquals(9, uf.find(9));
+		assertEquals(10, uf.setCount());
+		assertTrue(uf.union(0, 9));
+		assertTrue(uf.union(1, 5));
+		assertTrue(uf.union(5, 9));
+		assertFalse(uf.union(0, 1));
+		assertEquals(uf.find(0), uf.find(5));
+		assertTrue(uf.union(2, 8));
+		assertTrue(uf.union(8, 3));
+		assertFalse(uf.connected(3, 9));
+		assertTrue(uf.union(3, 9));
+		assertTrue(uf.connected(2, 1));
+		assertEquals(4, uf.setCount());
+	}
+
+	@Test
+	public void testAgainstUnionFind() {
+		Random random = new Random(5);
+		int size = 2000;
+		IntUnionFind uf = new IntUnionFind(size);
+		UnionFind expected = new UnionFind(size);
+		for (int i = 0; i < 3000; i++) {
+			int u = random.nextInt(size);
+			int v = random.nextInt(size);
+			boolean joined = expected.find(u).intValue() != expected.find(v).intValue();
+			assertEquals(joined, uf.union(u, v));
+			if (joined)
+				expected.merge(u, v);
+			int a = random.nextInt(size);
+			int b = random.nextInt(size);
+			assertEquals(expected.find(a).intValue() == expected.find(b).intValue(), uf.connected(a, b));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOutOfRange() {
+		new IntUnionFind(3).find(3);
+	}
+
+}